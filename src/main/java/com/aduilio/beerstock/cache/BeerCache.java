@@ -0,0 +1,162 @@
+package com.aduilio.beerstock.cache;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.function.Function;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.aduilio.beerstock.config.BeerstockProperties;
+import com.aduilio.beerstock.config.ReplicaRoutingDataSource;
+import com.aduilio.beerstock.dto.BeerDto;
+import com.aduilio.beerstock.event.BeerChangedEvent;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+/**
+ * Keeps the beers read by name in memory. The cache has two levels: the id of
+ * each name, that only changes when a beer is created or deleted, and the beer
+ * of each id, that changes with the stock. Names that do not exist are cached
+ * as well, for a shorter time.
+ * <p>
+ * The entries are invalidated after the commit of each change. A load running
+ * while its entry is invalidated finishes before the invalidation, so a value
+ * read before the commit is never kept. The entries are always loaded from the
+ * primary database, since a replica behind would keep a stale beer for every
+ * client until the ttl.
+ * <p>
+ * The statistics of both levels are published as the {@code cache.*} metrics
+ * of the caches {@code beer.ids} and {@code beers}.
+ */
+@Component
+public class BeerCache implements MeterBinder {
+
+	private final boolean enabled;
+
+	private final Cache<String, Optional<Long>> ids;
+
+	private final Cache<Long, BeerDto> beers;
+
+	@Autowired
+	public BeerCache(final BeerstockProperties beerstockProperties) {
+		final BeerstockProperties.Cache properties = beerstockProperties.getCache();
+		enabled = properties.isEnabled();
+		ids = Caffeine.newBuilder()
+				.maximumSize(properties.getMaxSize())
+				.expireAfter(new NameExpiry(properties.getTtl(), properties.getNegativeTtl()))
+				.recordStats()
+				.build();
+		beers = Caffeine.newBuilder()
+				.maximumSize(properties.getMaxSize())
+				.expireAfterWrite(properties.getTtl())
+				.recordStats()
+				.build();
+	}
+
+	/**
+	 * Gets a beer by name, loading it when it is not cached.
+	 *
+	 * @param name       of the beer
+	 * @param idLoader   finds the id of a name
+	 * @param beerLoader finds the beer of an id
+	 *
+	 * @return an {@link Optional} of {@link BeerDto}
+	 */
+	public Optional<BeerDto> get(final String name, final Function<String, Optional<Long>> idLoader,
+			final Function<Long, Optional<BeerDto>> beerLoader) {
+		if (!enabled) {
+			return idLoader.apply(name)
+					.flatMap(beerLoader);
+		}
+
+		return ids.get(name, key -> ReplicaRoutingDataSource.onPrimary(() -> idLoader.apply(key)))
+				.map(id -> beers.get(id, key -> ReplicaRoutingDataSource.onPrimary(() -> beerLoader.apply(key))
+						.orElse(null)));
+	}
+
+	/**
+	 * Invalidates the entries of the beer that changed.
+	 *
+	 * @param event of the change
+	 */
+	@TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+	public void onBeerChanged(final BeerChangedEvent event) {
+		switch (event.getType()) {
+		case CREATED:
+			ids.invalidate(event.getName());
+			break;
+		case DELETED:
+			ids.invalidate(event.getName());
+			beers.invalidate(event.getId());
+			break;
+		default:
+			beers.invalidate(event.getId());
+		}
+	}
+
+	@Override
+	public void bindTo(final MeterRegistry registry) {
+		CaffeineCacheMetrics.monitor(registry, ids, "beer.ids");
+		CaffeineCacheMetrics.monitor(registry, beers, "beers");
+	}
+
+	/**
+	 * Returns the statistics of the ids by name.
+	 *
+	 * @return {@link CacheStats}
+	 */
+	public CacheStats idStats() {
+		return ids.stats();
+	}
+
+	/**
+	 * Returns the statistics of the beers by id.
+	 *
+	 * @return {@link CacheStats}
+	 */
+	public CacheStats beerStats() {
+		return beers.stats();
+	}
+
+	/**
+	 * Expires the names found after the ttl and the names not found after the
+	 * negative ttl.
+	 */
+	private static final class NameExpiry implements Expiry<String, Optional<Long>> {
+
+		private final long ttl;
+
+		private final long negativeTtl;
+
+		NameExpiry(final Duration ttl, final Duration negativeTtl) {
+			this.ttl = ttl.toNanos();
+			this.negativeTtl = negativeTtl.toNanos();
+		}
+
+		@Override
+		public long expireAfterCreate(final String key, final Optional<Long> value, final long currentTime) {
+			return value.isPresent() ? ttl : negativeTtl;
+		}
+
+		@Override
+		public long expireAfterUpdate(final String key, final Optional<Long> value, final long currentTime,
+				final long currentDuration) {
+			return expireAfterCreate(key, value, currentTime);
+		}
+
+		@Override
+		public long expireAfterRead(final String key, final Optional<Long> value, final long currentTime,
+				final long currentDuration) {
+			return currentDuration;
+		}
+	}
+}
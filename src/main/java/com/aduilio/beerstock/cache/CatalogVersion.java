@@ -0,0 +1,47 @@
+package com.aduilio.beerstock.cache;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.aduilio.beerstock.event.BeerChangedEvent;
+
+/**
+ * Counts the changes of the catalog since the application started, so the
+ * clients can tell if the catalog changed without reading it. The start time
+ * is part of the version, so the versions of a previous run are never
+ * repeated.
+ */
+@Component
+public class CatalogVersion {
+
+	private final long epoch = System.currentTimeMillis();
+
+	private final AtomicLong changes = new AtomicLong();
+
+	/**
+	 * Counts a change after its commit, once the cache and the snapshot dropped
+	 * what it changed, so a version is never read before the catalog it tags.
+	 *
+	 * @param event of the change
+	 */
+	@Order(Ordered.LOWEST_PRECEDENCE)
+	@TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+	public void onBeerChanged(final BeerChangedEvent event) {
+		changes.incrementAndGet();
+	}
+
+	/**
+	 * Returns the current version. It must be read before the catalog, so a
+	 * change committed meanwhile gives a newer version on the next read.
+	 *
+	 * @return the version
+	 */
+	public String get() {
+		return Long.toString(epoch, Character.MAX_RADIX) + "-" + changes.get();
+	}
+}
@@ -0,0 +1,325 @@
+package com.aduilio.beerstock.config;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import lombok.Data;
+
+/**
+ * The properties of the application, prefixed by {@code beerstock}.
+ */
+@Data
+@ConfigurationProperties(prefix = "beerstock")
+public class BeerstockProperties {
+
+	private final Page page = new Page();
+
+	private final Cache cache = new Cache();
+
+	private final Snapshot snapshot = new Snapshot();
+
+	private final NameIndex nameIndex = new NameIndex();
+
+	private final Metrics metrics = new Metrics();
+
+	private final R2dbc r2dbc = new R2dbc();
+
+	private final Threads threads = new Threads();
+
+	private final Stock stock = new Stock();
+
+	private final Reservation reservation = new Reservation();
+
+	private final Changes changes = new Changes();
+
+	private final Datasource datasource = new Datasource();
+
+	private final Sharding sharding = new Sharding();
+
+	/**
+	 * The size of the pages of beers.
+	 */
+	@Data
+	public static class Page {
+
+		private int defaultSize = 100;
+
+		private int maxSize = 1000;
+	}
+
+	/**
+	 * The cache of the beers read by name.
+	 */
+	@Data
+	public static class Cache {
+
+		private boolean enabled = true;
+
+		private long maxSize = 10_000;
+
+		private Duration ttl = Duration.ofMinutes(1);
+
+		/**
+		 * How long a name that does not exist is remembered.
+		 */
+		private Duration negativeTtl = Duration.ofSeconds(5);
+	}
+
+	/**
+	 * The snapshot of the catalog that serves the pages of beers.
+	 */
+	@Data
+	public static class Snapshot {
+
+		/**
+		 * Every write of the beers must go through the services, so the snapshot
+		 * sees its change.
+		 */
+		private boolean enabled;
+
+		/**
+		 * The largest catalog kept in the snapshot, a larger one is read from the
+		 * database.
+		 */
+		private int maxSize = 10_000;
+
+		/**
+		 * Keeps the pages compressed as well, for the clients that accept gzip.
+		 */
+		private boolean gzip = true;
+	}
+
+	/**
+	 * The index of the names of the beers.
+	 */
+	@Data
+	public static class NameIndex {
+
+		/**
+		 * The index only knows the names added by this instance, so every beer
+		 * must be created through it: a single instance, with no other writer of
+		 * the database.
+		 */
+		private boolean enabled;
+
+		/**
+		 * The false positive rate the index is sized for. It is rebuilt when the
+		 * rate passes twice this value.
+		 */
+		private double falsePositiveRate = 0.01;
+	}
+
+	/**
+	 * The metrics of the stock.
+	 */
+	@Data
+	public static class Metrics {
+
+		/**
+		 * The share of the max of a beer below which its stock is low.
+		 */
+		private double lowStockRatio = 0.1;
+	}
+
+	/**
+	 * The R2DBC connections of the {@code reactive} profile.
+	 */
+	@Data
+	public static class R2dbc {
+
+		/**
+		 * The R2DBC url, the same database of the JDBC url.
+		 */
+		private String url;
+
+		private String username = "sa";
+
+		private String password = "";
+	}
+
+	/**
+	 * The limits of the requests when they run in virtual threads.
+	 */
+	@Data
+	public static class Threads {
+
+		/**
+		 * The requests handled at once, the same as the connections to the
+		 * database.
+		 */
+		private int maxConcurrentRequests = 10;
+
+		/**
+		 * How long a request waits for its turn.
+		 */
+		private Duration queueTimeout = Duration.ofSeconds(5);
+	}
+
+	/**
+	 * The stock changes applied asynchronously.
+	 */
+	@Data
+	public static class Stock {
+
+		private final CommandQueue commandQueue = new CommandQueue();
+
+		private final Optimistic optimistic = new Optimistic();
+	}
+
+	/**
+	 * The retries of the optimistic engine.
+	 */
+	@Data
+	public static class Optimistic {
+
+		/**
+		 * The attempts of a change, including the first one.
+		 */
+		private int maxAttempts = 10;
+
+		/**
+		 * The upper bound of the wait before the first retry, doubled on each
+		 * retry. The wait is a random duration up to it.
+		 */
+		private Duration initialBackoff = Duration.ofMillis(1);
+
+		/**
+		 * The upper bound of the wait before any retry.
+		 */
+		private Duration maxBackoff = Duration.ofMillis(50);
+	}
+
+	/**
+	 * The queue of the stock commands.
+	 */
+	@Data
+	public static class CommandQueue {
+
+		/**
+		 * The commands waiting, above it the commands are refused.
+		 */
+		private int capacity = 10_000;
+
+		/**
+		 * The commands applied in a single transaction.
+		 */
+		private int maxBatchSize = 500;
+
+		/**
+		 * How long the result of a command can be read.
+		 */
+		private Duration resultTtl = Duration.ofMinutes(10);
+
+		/**
+		 * The results kept, the oldest ones are discarded above it. The commands
+		 * pending are not counted, they are bounded by the capacity.
+		 */
+		private long resultMaxSize = 100_000;
+	}
+
+	/**
+	 * The reservations of stock.
+	 */
+	@Data
+	public static class Reservation {
+
+		/**
+		 * How long a reservation holds the stock before it is released.
+		 */
+		private Duration ttl = Duration.ofMinutes(15);
+
+		/**
+		 * The expired reservations released in each transaction of the sweep.
+		 */
+		private int sweepBatchSize = 500;
+	}
+
+	/**
+	 * The feed of the changes of the beers.
+	 */
+	@Data
+	public static class Changes {
+
+		/**
+		 * The last changes kept to resume the streams, rounded up to a power of
+		 * two. A subscriber further behind is disconnected.
+		 */
+		private int bufferSize = 4096;
+
+		/**
+		 * The threads sending the changes to the subscribers.
+		 */
+		private int senderThreads = 4;
+
+		/**
+		 * How long a send may block before its subscriber is disconnected, and
+		 * its thread replaced.
+		 */
+		private Duration sendTimeout = Duration.ofSeconds(10);
+
+		/**
+		 * How long a stream stays open, the subscriber reconnects after it.
+		 */
+		private Duration timeout = Duration.ofMinutes(30);
+	}
+
+	/**
+	 * The read replica of the database.
+	 */
+	@Data
+	public static class Datasource {
+
+		private final Replica replica = new Replica();
+
+		/**
+		 * How long a client reads from the primary after a write, so it reads its
+		 * own writes while the replica is behind. Zero to always read from the
+		 * replica.
+		 */
+		private Duration readYourWrites = Duration.ofSeconds(5);
+	}
+
+	/**
+	 * The connection to the read replica, none when the url is not set.
+	 */
+	@Data
+	public static class Replica {
+
+		private String url;
+
+		private String username;
+
+		private String password;
+	}
+
+	/**
+	 * The databases the beers are split across in the {@code sharded} profile.
+	 */
+	@Data
+	public static class Sharding {
+
+		/**
+		 * The JDBC urls of the shards. The order sets the shard of each beer, a
+		 * shard is only added at the end.
+		 */
+		private List<String> urls = new ArrayList<>();
+
+		private String username = "sa";
+
+		private String password = "";
+
+		/**
+		 * The beers read from each shard at a time by the export.
+		 */
+		private int fetchSize = 500;
+
+		/**
+		 * The number of shards before the last ones were added, to move their
+		 * beers to the new shards and stop. Zero to start the application.
+		 */
+		private int rebalanceFrom;
+	}
+}
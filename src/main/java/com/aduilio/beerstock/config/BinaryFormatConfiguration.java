@@ -0,0 +1,86 @@
+package com.aduilio.beerstock.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.web.codec.CodecCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.codec.json.Jackson2SmileDecoder;
+import org.springframework.http.codec.json.Jackson2SmileEncoder;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileGenerator;
+
+/**
+ * Reads and writes the requests and responses as Smile
+ * ({@code application/x-jackson-smile}) and CBOR ({@code application/cbor})
+ * when the client asks for them, JSON is still the default. The mappers have
+ * the customizations of the JSON mapper and write the enums, as the type of the
+ * beers, by their ordinal, so a constant is only ever added at the end. Smile
+ * also writes the repeated strings, as the brands, once per response.
+ * <p>
+ * The {@code reactive} profile only serves Smile, since the CBOR encoder of
+ * WebFlux cannot write the streams of the responses.
+ */
+@Configuration
+public class BinaryFormatConfiguration {
+
+	@Bean
+	@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+	public MappingJackson2SmileHttpMessageConverter smileHttpMessageConverter(
+			final Jackson2ObjectMapperBuilder builder) {
+		return new MappingJackson2SmileHttpMessageConverter(smileObjectMapper(builder));
+	}
+
+	@Bean
+	@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+	public MappingJackson2CborHttpMessageConverter cborHttpMessageConverter(
+			final Jackson2ObjectMapperBuilder builder) {
+		return new MappingJackson2CborHttpMessageConverter(cborObjectMapper(builder));
+	}
+
+	@Bean
+	@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+	public CodecCustomizer binaryFormatCodecCustomizer(final Jackson2ObjectMapperBuilder builder) {
+		final ObjectMapper smile = smileObjectMapper(builder);
+		return configurer -> {
+			configurer.defaultCodecs()
+					.jackson2SmileEncoder(new Jackson2SmileEncoder(smile));
+			configurer.defaultCodecs()
+					.jackson2SmileDecoder(new Jackson2SmileDecoder(smile));
+		};
+	}
+
+	/**
+	 * Creates the Smile mapper.
+	 *
+	 * @param builder of the JSON mapper, configured by Spring Boot
+	 *
+	 * @return {@link ObjectMapper}
+	 */
+	public static ObjectMapper smileObjectMapper(final Jackson2ObjectMapperBuilder builder) {
+		return builder.factory(SmileFactory.builder()
+				.enable(SmileGenerator.Feature.CHECK_SHARED_STRING_VALUES)
+				.build())
+				.featuresToEnable(SerializationFeature.WRITE_ENUMS_USING_INDEX)
+				.build();
+	}
+
+	/**
+	 * Creates the CBOR mapper.
+	 *
+	 * @param builder of the JSON mapper, configured by Spring Boot
+	 *
+	 * @return {@link ObjectMapper}
+	 */
+	public static ObjectMapper cborObjectMapper(final Jackson2ObjectMapperBuilder builder) {
+		return builder.factory(new CBORFactory())
+				.featuresToEnable(SerializationFeature.WRITE_ENUMS_USING_INDEX)
+				.build();
+	}
+}
@@ -0,0 +1,96 @@
+package com.aduilio.beerstock.config;
+
+import java.io.Closeable;
+
+import javax.sql.DataSource;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+/**
+ * Sends the reads of the {@code GET} requests to a read replica, when
+ * {@code beerstock.datasource.replica.url} is set. The primary is configured
+ * by the {@code spring.datasource} properties as before, and the pool of the
+ * replica by {@code beerstock.datasource.replica.hikari}.
+ * <p>
+ * The replica may be behind the primary: a client reads from the primary for
+ * {@code beerstock.datasource.read-your-writes} after a write. The beers kept
+ * by the cache are loaded from the primary, and the pages of the catalog read
+ * from the replica are not tagged with the catalog version, that the replica
+ * may not have reached yet.
+ */
+@Configuration
+@ConditionalOnProperty(name = "beerstock.datasource.replica.url")
+public class ReadReplicaConfiguration {
+
+	/**
+	 * The pools of the primary and of the replica are not beans, since the
+	 * initializer of the schema needs a single data source.
+	 */
+	@Bean
+	public DataSource dataSource(final DataSourceProperties dataSourceProperties,
+			final BeerstockProperties beerstockProperties, final Environment environment) {
+		final HikariDataSource primary = dataSourceProperties.initializeDataSourceBuilder()
+				.type(HikariDataSource.class)
+				.build();
+		bind(environment, "spring.datasource.hikari", primary, "primary");
+
+		final BeerstockProperties.Replica properties = beerstockProperties.getDatasource()
+				.getReplica();
+		final HikariDataSource replica = DataSourceBuilder.create()
+				.type(HikariDataSource.class)
+				.url(properties.getUrl())
+				.username(properties.getUsername())
+				.password(properties.getPassword())
+				.build();
+		bind(environment, "beerstock.datasource.replica.hikari", replica, "replica");
+
+		return new RoutedDataSource(primary, replica);
+	}
+
+	@Bean
+	@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+	public ReadReplicaFilter readReplicaFilter(final BeerstockProperties beerstockProperties) {
+		return new ReadReplicaFilter(beerstockProperties.getDatasource()
+				.getReadYourWrites());
+	}
+
+	private static void bind(final Environment environment, final String prefix, final HikariDataSource dataSource,
+			final String poolName) {
+		dataSource.setPoolName(poolName);
+		Binder.get(environment)
+				.bind(prefix, Bindable.ofInstance(dataSource));
+	}
+
+	/**
+	 * Closes the pools of the primary and of the replica with the context.
+	 */
+	private static final class RoutedDataSource extends LazyConnectionDataSourceProxy implements Closeable {
+
+		private final HikariDataSource primary;
+
+		private final HikariDataSource replica;
+
+		private RoutedDataSource(final HikariDataSource primary, final HikariDataSource replica) {
+			super(new ReplicaRoutingDataSource(primary, replica));
+			this.primary = primary;
+			this.replica = replica;
+		}
+
+		@Override
+		public void close() {
+			replica.close();
+			primary.close();
+		}
+	}
+}
@@ -0,0 +1,87 @@
+package com.aduilio.beerstock.config;
+
+import java.io.IOException;
+import java.time.Duration;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.Cookie;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.springframework.http.HttpMethod;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+/**
+ * Lets the {@code GET} and {@code HEAD} requests read from the replica. A
+ * request that may write sets a cookie that sends the reads of the same client
+ * to the primary for a while, so the client reads its own writes while the
+ * replica is behind.
+ */
+public class ReadReplicaFilter extends OncePerRequestFilter {
+
+	static final String PRIMARY_COOKIE = "beerstock-primary-until";
+
+	private final long readYourWritesMillis;
+
+	/**
+	 * Creates the filter.
+	 *
+	 * @param readYourWrites how long a client reads from the primary after a
+	 *                       write, zero to always read from the replica
+	 */
+	public ReadReplicaFilter(final Duration readYourWrites) {
+		this.readYourWritesMillis = readYourWrites.toMillis();
+	}
+
+	@Override
+	protected void doFilterInternal(final HttpServletRequest request, final HttpServletResponse response,
+			final FilterChain filterChain) throws ServletException, IOException {
+		final long now = System.currentTimeMillis();
+		final boolean read = HttpMethod.GET.matches(request.getMethod()) || HttpMethod.HEAD.matches(request
+				.getMethod());
+		if (!read) {
+			// set before the response is committed, even if the write fails
+			pin(response, now);
+		}
+		if (!read || pinnedUntil(request) > now) {
+			filterChain.doFilter(request, response);
+			return;
+		}
+
+		ReplicaRoutingDataSource.allowReplica();
+		try {
+			filterChain.doFilter(request, response);
+		} finally {
+			ReplicaRoutingDataSource.disallowReplica();
+		}
+	}
+
+	private void pin(final HttpServletResponse response, final long now) {
+		if (readYourWritesMillis <= 0) {
+			return;
+		}
+		final Cookie cookie = new Cookie(PRIMARY_COOKIE, Long.toString(now + readYourWritesMillis));
+		cookie.setPath("/");
+		cookie.setHttpOnly(true);
+		cookie.setMaxAge((int) Math.max(1, (readYourWritesMillis + 999) / 1000));
+		response.addCookie(cookie);
+	}
+
+	private static long pinnedUntil(final HttpServletRequest request) {
+		final Cookie[] cookies = request.getCookies();
+		if (cookies == null) {
+			return 0;
+		}
+		for (final Cookie cookie : cookies) {
+			if (PRIMARY_COOKIE.equals(cookie.getName())) {
+				try {
+					return Long.parseLong(cookie.getValue());
+				} catch (final NumberFormatException e) {
+					return 0;
+				}
+			}
+		}
+		return 0;
+	}
+}
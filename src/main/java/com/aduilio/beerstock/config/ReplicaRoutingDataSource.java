@@ -0,0 +1,99 @@
+package com.aduilio.beerstock.config;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import javax.sql.DataSource;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Routes the connections of the read-only transactions of the threads allowed
+ * to read from the replica to the replica, and all the others to the primary.
+ * The connection is routed when it is requested, so it must be wrapped by a
+ * {@link org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy},
+ * that requests it on the first statement, once the transaction started.
+ * <p>
+ * No thread reads from the replica unless allowed, so the stock engines, the
+ * scheduled tasks and the writes always see the primary.
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+
+	private static final ThreadLocal<Boolean> REPLICA_ALLOWED = new ThreadLocal<>();
+
+	private enum Target {
+		PRIMARY, REPLICA
+	}
+
+	/**
+	 * Creates the data source.
+	 *
+	 * @param primary the data source of the writes
+	 * @param replica the data source of the reads allowed
+	 */
+	public ReplicaRoutingDataSource(final DataSource primary, final DataSource replica) {
+		final Map<Object, Object> targets = new HashMap<>();
+		targets.put(Target.PRIMARY, primary);
+		targets.put(Target.REPLICA, replica);
+		setTargetDataSources(targets);
+		setDefaultTargetDataSource(primary);
+		afterPropertiesSet();
+	}
+
+	/**
+	 * Allows the read-only transactions of the current thread to read from the
+	 * replica, until {@link #disallowReplica()}.
+	 */
+	public static void allowReplica() {
+		REPLICA_ALLOWED.set(Boolean.TRUE);
+	}
+
+	/**
+	 * Sends all the transactions of the current thread to the primary again.
+	 */
+	public static void disallowReplica() {
+		REPLICA_ALLOWED.remove();
+	}
+
+	/**
+	 * Tells if the read-only transactions of the current thread may read from
+	 * the replica.
+	 *
+	 * @return true if allowed
+	 */
+	public static boolean isReplicaAllowed() {
+		return REPLICA_ALLOWED.get() != null;
+	}
+
+	/**
+	 * Runs a read on the primary, even if the current thread may read from the
+	 * replica, for the values kept for every client. The connection of a
+	 * transaction is routed on its first statement, so the read must run before
+	 * any other statement of its transaction.
+	 *
+	 * @param <T>  the type read
+	 * @param read to be run
+	 *
+	 * @return the value read
+	 */
+	public static <T> T onPrimary(final Supplier<T> read) {
+		final boolean allowed = isReplicaAllowed();
+		disallowReplica();
+		try {
+			return read.get();
+		} finally {
+			if (allowed) {
+				allowReplica();
+			}
+		}
+	}
+
+	@Override
+	protected Object determineCurrentLookupKey() {
+		return isReplicaAllowed() && TransactionSynchronizationManager.isCurrentTransactionReadOnly()
+				? Target.REPLICA
+				: Target.PRIMARY;
+	}
+}
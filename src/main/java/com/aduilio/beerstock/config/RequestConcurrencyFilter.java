@@ -0,0 +1,59 @@
+package com.aduilio.beerstock.config;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+/**
+ * Limits the requests handled at once. The requests above the limit wait, in
+ * order of arrival, and the ones that wait longer than the timeout are
+ * answered with {@code 503 Service Unavailable}.
+ */
+public class RequestConcurrencyFilter extends OncePerRequestFilter {
+
+	private final Semaphore permits;
+
+	private final long timeoutNanos;
+
+	/**
+	 * Creates the filter.
+	 *
+	 * @param maxConcurrentRequests handled at once
+	 * @param timeout               a request waits for its turn
+	 */
+	public RequestConcurrencyFilter(final int maxConcurrentRequests, final Duration timeout) {
+		this.permits = new Semaphore(maxConcurrentRequests, true);
+		this.timeoutNanos = timeout.toNanos();
+	}
+
+	@Override
+	protected void doFilterInternal(final HttpServletRequest request, final HttpServletResponse response,
+			final FilterChain filterChain) throws ServletException, IOException {
+		try {
+			if (!permits.tryAcquire(timeoutNanos, TimeUnit.NANOSECONDS)) {
+				response.sendError(HttpStatus.SERVICE_UNAVAILABLE.value());
+				return;
+			}
+		} catch (final InterruptedException e) {
+			Thread.currentThread()
+					.interrupt();
+			response.sendError(HttpStatus.SERVICE_UNAVAILABLE.value());
+			return;
+		}
+
+		try {
+			filterChain.doFilter(request, response);
+		} finally {
+			permits.release();
+		}
+	}
+}
@@ -0,0 +1,59 @@
+package com.aduilio.beerstock.config;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.sql.DataSource;
+
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.env.Environment;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.datasource.init.DatabasePopulatorUtils;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+
+import com.aduilio.beerstock.shard.Shards;
+import com.zaxxer.hikari.HikariDataSource;
+
+/**
+ * Creates the {@link Shards} of the {@code sharded} profile, a pool for each
+ * url of {@code beerstock.sharding.urls}, configured by
+ * {@code beerstock.sharding.hikari}, and the schema of each shard. The pools
+ * are not beans, so the JPA data source is still configured by Spring Boot.
+ */
+@Configuration
+@Profile("sharded")
+public class ShardingConfiguration {
+
+	private static final String SCHEMA = "shard-schema.sql";
+
+	@Bean(destroyMethod = "close")
+	public Shards shards(final BeerstockProperties beerstockProperties, final Environment environment) {
+		final BeerstockProperties.Sharding properties = beerstockProperties.getSharding();
+		if (properties.getUrls()
+				.isEmpty()) {
+			throw new IllegalStateException("beerstock.sharding.urls is not set");
+		}
+
+		final ResourceDatabasePopulator populator = new ResourceDatabasePopulator(new ClassPathResource(SCHEMA));
+		final List<DataSource> dataSources = new ArrayList<>();
+		for (final String url : properties.getUrls()) {
+			final HikariDataSource dataSource = DataSourceBuilder.create()
+					.type(HikariDataSource.class)
+					.url(url)
+					.username(properties.getUsername())
+					.password(properties.getPassword())
+					.build();
+			dataSource.setPoolName("shard-" + dataSources.size());
+			Binder.get(environment)
+					.bind("beerstock.sharding.hikari", Bindable.ofInstance(dataSource));
+			dataSources.add(dataSource);
+			DatabasePopulatorUtils.execute(populator, dataSource);
+		}
+		return new Shards(dataSources);
+	}
+}
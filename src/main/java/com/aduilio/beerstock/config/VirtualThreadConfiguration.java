@@ -0,0 +1,31 @@
+package com.aduilio.beerstock.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Handles each request of Tomcat, and so the blocking calls to the database,
+ * in its own virtual thread, when {@code beerstock.threads.mode} is
+ * {@code virtual}. The requests are no longer limited by the pool of threads
+ * of Tomcat, so they are limited by {@link RequestConcurrencyFilter}, sized to
+ * the connections to the database, instead of queueing for a connection.
+ */
+@Configuration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@ConditionalOnProperty(name = "beerstock.threads.mode", havingValue = "virtual")
+public class VirtualThreadConfiguration {
+
+	@Bean
+	public TomcatProtocolHandlerCustomizer<?> virtualThreadProtocolHandlerCustomizer() {
+		return protocolHandler -> protocolHandler.setExecutor(VirtualThreads.newExecutor());
+	}
+
+	@Bean
+	public RequestConcurrencyFilter requestConcurrencyFilter(final BeerstockProperties beerstockProperties) {
+		final BeerstockProperties.Threads threads = beerstockProperties.getThreads();
+		return new RequestConcurrencyFilter(threads.getMaxConcurrentRequests(), threads.getQueueTimeout());
+	}
+}
@@ -0,0 +1,61 @@
+package com.aduilio.beerstock.config;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Creates the executors of virtual threads. The build still targets a Java
+ * version without them, so the factory of the JDK is looked up when the
+ * application runs, and it is only found from Java 21 on.
+ */
+public final class VirtualThreads {
+
+	private static final MethodHandle NEW_EXECUTOR = findNewExecutor();
+
+	private VirtualThreads() {
+	}
+
+	/**
+	 * Verifies if the Java running the application has virtual threads.
+	 *
+	 * @return true if {@link #newExecutor()} is supported
+	 */
+	public static boolean isSupported() {
+		return NEW_EXECUTOR != null;
+	}
+
+	/**
+	 * Creates an executor that starts a virtual thread for each task.
+	 *
+	 * @return {@link ExecutorService}
+	 * @throws IllegalStateException if the Java running the application does
+	 *                               not have virtual threads
+	 */
+	public static ExecutorService newExecutor() {
+		if (NEW_EXECUTOR == null) {
+			throw new IllegalStateException(
+					"Virtual threads need Java 21 or later, running on Java " + System.getProperty("java.version"));
+		}
+
+		try {
+			return (ExecutorService) NEW_EXECUTOR.invokeExact();
+		} catch (final RuntimeException | Error e) {
+			throw e;
+		} catch (final Throwable e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private static MethodHandle findNewExecutor() {
+		try {
+			return MethodHandles.publicLookup()
+					.findStatic(Executors.class, "newVirtualThreadPerTaskExecutor",
+							MethodType.methodType(ExecutorService.class));
+		} catch (final NoSuchMethodException | IllegalAccessException e) {
+			return null;
+		}
+	}
+}
@@ -1,8 +1,15 @@
 package com.aduilio.beerstock.controller;
 
+import java.io.IOException;
 import java.util.List;
 
+import javax.servlet.http.HttpServletResponse;
+
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -10,30 +17,75 @@ import org.springframework.web.bind.annotation.PatchMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
+import com.aduilio.beerstock.cache.CatalogVersion;
+import com.aduilio.beerstock.config.ReplicaRoutingDataSource;
 import com.aduilio.beerstock.dto.BeerDto;
+import com.aduilio.beerstock.dto.BeerFilterDto;
+import com.aduilio.beerstock.dto.BeerPageDto;
+import com.aduilio.beerstock.dto.BeerSearchDto;
+import com.aduilio.beerstock.dto.BulkItemResultDto;
 import com.aduilio.beerstock.dto.QuantityDto;
+import com.aduilio.beerstock.dto.StockCommandDto;
+import com.aduilio.beerstock.dto.StockItemDto;
+import com.aduilio.beerstock.dto.StockItemResultDto;
+import com.aduilio.beerstock.enums.BeerExportFormat;
+import com.aduilio.beerstock.enums.BeerSort;
+import com.aduilio.beerstock.enums.StockBatchMode;
+import com.aduilio.beerstock.enums.StockItemStatus;
 import com.aduilio.beerstock.exception.BeerAlreadyRegisteredException;
 import com.aduilio.beerstock.exception.BeerExceedStockException;
+import com.aduilio.beerstock.exception.BeerInvalidCursorException;
 import com.aduilio.beerstock.exception.BeerNegativeStockException;
 import com.aduilio.beerstock.exception.BeerNotFoundException;
+import com.aduilio.beerstock.exception.StockCommandNotFoundException;
+import com.aduilio.beerstock.exception.StockQueueFullException;
+import com.aduilio.beerstock.feed.BeerChangeFeed;
+import com.aduilio.beerstock.service.BeerBulkService;
+import com.aduilio.beerstock.service.BeerCatalogSnapshot;
+import com.aduilio.beerstock.service.BeerExportService;
 import com.aduilio.beerstock.service.BeerService;
+import com.aduilio.beerstock.service.StockCommandQueue;
 
 import lombok.AllArgsConstructor;
 
 /**
- * Provides REST methods to access the Beer entity.
+ * Provides REST methods to access the Beer entity. The {@code reactive}
+ * profile serves the same routes with {@code ReactiveBeerController}, and the
+ * {@code sharded} profile part of them with {@link ShardedBeerController}.
  */
 @RestController
+@Profile("!reactive & !sharded")
 @RequestMapping("/api/v1/beers")
 @AllArgsConstructor
 public class BeerController {
 
+	static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
+	static final String STOCK_COMMAND_PATH = "/api/v1/beers/stock/commands/{commandId}";
+
 	private final BeerService beerService;
 
+	private final BeerBulkService beerBulkService;
+
+	private final BeerExportService beerExportService;
+
+	private final CatalogVersion catalogVersion;
+
+	private final StockCommandQueue stockCommandQueue;
+
+	private final BeerChangeFeed beerChangeFeed;
+
+	private final BeerCatalogSnapshot beerCatalogSnapshot;
+
 	@PostMapping
 	@ResponseStatus(HttpStatus.CREATED)
 	public BeerDto create(@RequestBody @Validated final BeerDto beerDto) throws BeerAlreadyRegisteredException {
@@ -43,14 +95,96 @@ public class BeerController {
 				.build();
 	}
 
-	@GetMapping("/{name}")
-	public BeerDto readByName(@PathVariable final String name) throws BeerNotFoundException {
-		return beerService.readByName(name);
+	@PostMapping("/bulk")
+	@ResponseStatus(HttpStatus.CREATED)
+	public List<BulkItemResultDto> create(@RequestBody final List<BeerDto> beerDtos) {
+		return beerBulkService.create(beerDtos);
 	}
 
-	@GetMapping
-	public List<BeerDto> list() {
-		return beerService.list();
+	@GetMapping("/export")
+	public void export(@RequestParam(defaultValue = "NDJSON") final BeerExportFormat format,
+			final HttpServletResponse response) throws IOException {
+		response.setContentType(format.getContentType());
+		response.setCharacterEncoding("UTF-8");
+		response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"beers." + format.name()
+				.toLowerCase() + "\"");
+		beerExportService.export(format, response.getOutputStream());
+	}
+
+	@GetMapping(path = "/changes", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+	public SseEmitter changes(@RequestHeader(name = "Last-Event-ID", required = false) final String lastEventId) {
+		return beerChangeFeed.subscribe(lastEventId);
+	}
+
+	@GetMapping(path = "/{name}", produces = { MediaType.APPLICATION_JSON_VALUE, Representation.SMILE_VALUE,
+			MediaType.APPLICATION_CBOR_VALUE })
+	public BeerDto readByName(@PathVariable final String name, final WebRequest request,
+			final HttpServletResponse servletResponse) throws BeerNotFoundException {
+		final BeerDto beerDto = beerService.readByName(name);
+		final MediaType mediaType = Representation.negotiate(Representation.accepted(request),
+				Representation.PRODUCED);
+		servletResponse.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+		if (request.checkNotModified(Representation.etag(beerDto.getId() + "-" + beerDto.getVersion(), mediaType))) {
+			return null;
+		}
+		return beerDto;
+	}
+
+	@GetMapping(produces = { MediaType.APPLICATION_JSON_VALUE, Representation.SMILE_VALUE,
+			MediaType.APPLICATION_CBOR_VALUE })
+	public ResponseEntity<List<BeerDto>> list(@RequestParam(required = false) final String cursor,
+			@RequestParam(required = false) final Integer size, @RequestParam(defaultValue = "ID") final BeerSort sort,
+			final WebRequest request, final HttpServletResponse servletResponse)
+			throws BeerInvalidCursorException, IOException {
+		final MediaType mediaType = Representation.negotiate(Representation.accepted(request),
+				Representation.PRODUCED);
+		final String version = catalogVersion.get();
+		// the snapshot only keeps JSON, and is only read again when the catalog changed
+		final BeerCatalogSnapshot.CatalogPage snapshotPage = MediaType.APPLICATION_JSON.equals(mediaType)
+				? beerCatalogSnapshot.page(cursor, size, sort)
+				: null;
+		servletResponse.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+		if (snapshotPage != null) {
+			servletResponse.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+		}
+
+		// the page compressed has other bytes, so another ETag
+		final boolean gzip = snapshotPage != null && snapshotPage.isGzipped() && acceptsGzip(request);
+
+		final String etag = Representation.etag(version, mediaType, gzip ? "gzip" : null);
+
+		// a replica behind may not have reached the version, so its pages are not
+		// tagged, but a client holding the current version is still answered
+		if (snapshotPage == null && ReplicaRoutingDataSource.isReplicaAllowed()) {
+			if (Representation.matches(request, etag)) {
+				return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+						.eTag(etag)
+						.build();
+			}
+		} else if (request.checkNotModified(etag)) {
+			// the database is not read when the catalog did not change
+			return null;
+		}
+
+		// the page already encoded is written as it is
+		if (snapshotPage != null) {
+			write(snapshotPage, gzip, servletResponse);
+			return null;
+		}
+
+		final BeerPageDto page = beerService.list(cursor, size, sort);
+		final ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+		if (page.getNext() != null) {
+			response.header(NEXT_CURSOR_HEADER, page.getNext())
+					.header(HttpHeaders.LINK, nextLink(page.getNext()));
+		}
+		return response.body(page.getContent());
+	}
+
+	@GetMapping("/search")
+	public BeerSearchDto search(final BeerFilterDto filter, @RequestParam(required = false) final String cursor,
+			@RequestParam(required = false) final Integer size) throws BeerInvalidCursorException {
+		return beerService.search(filter, cursor, size);
 	}
 
 	@DeleteMapping("/{id}")
@@ -59,9 +193,76 @@ public class BeerController {
 		beerService.delete(id);
 	}
 
+	@PatchMapping("/stock")
+	public ResponseEntity<List<StockItemResultDto>> stock(
+			@RequestParam(defaultValue = "ALL_OR_NOTHING") final StockBatchMode mode,
+			@RequestBody final List<StockItemDto> items) {
+		final List<StockItemResultDto> results = beerService.stock(items, mode);
+		if (mode != StockBatchMode.ALL_OR_NOTHING || results.stream()
+				.allMatch(StockItemResultDto::isApplied)) {
+			return ResponseEntity.ok(results);
+		}
+
+		// rejected only because of conflicts, it may be sent again
+		final boolean conflict = results.stream()
+				.map(StockItemResultDto::getStatus)
+				.filter(status -> status != StockItemStatus.APPLIED && status != StockItemStatus.ROLLED_BACK)
+				.allMatch(StockItemStatus.CONFLICT::equals);
+		return ResponseEntity.status(conflict ? HttpStatus.CONFLICT : HttpStatus.BAD_REQUEST)
+				.body(results);
+	}
+
+	@PatchMapping(path = "/{id}/stock", params = "async=true")
+	public ResponseEntity<StockCommandDto> stockAsync(@PathVariable final Long id,
+			@RequestBody final QuantityDto quantityDto) throws StockQueueFullException {
+		final StockCommandDto command = stockCommandQueue.enqueue(id, quantityDto.getQuantity());
+		return ResponseEntity.accepted()
+				.location(ServletUriComponentsBuilder.fromCurrentContextPath()
+						.path(STOCK_COMMAND_PATH)
+						.buildAndExpand(command.getId())
+						.toUri())
+				.body(command);
+	}
+
+	@GetMapping("/stock/commands/{commandId}")
+	public StockCommandDto stockCommand(@PathVariable final String commandId) throws StockCommandNotFoundException {
+		return stockCommandQueue.read(commandId);
+	}
+
 	@PatchMapping("/{id}/stock")
 	public BeerDto stock(@PathVariable final Long id, @RequestBody final QuantityDto quantityDto)
 			throws BeerNotFoundException, BeerExceedStockException, BeerNegativeStockException {
 		return beerService.stock(id, quantityDto.getQuantity());
 	}
+
+	private static void write(final BeerCatalogSnapshot.CatalogPage page, final boolean gzip,
+			final HttpServletResponse response) throws IOException {
+		response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+		if (page.getNext() != null) {
+			response.setHeader(NEXT_CURSOR_HEADER, page.getNext());
+			response.setHeader(HttpHeaders.LINK, nextLink(page.getNext()));
+		}
+
+		if (gzip) {
+			final byte[] gzipped = page.gzipped();
+			response.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+			response.setContentLength(gzipped.length);
+			response.getOutputStream()
+					.write(gzipped);
+		} else {
+			response.setContentLength(page.length());
+			page.writeTo(response.getOutputStream());
+		}
+	}
+
+	private static boolean acceptsGzip(final WebRequest request) {
+		final String acceptEncoding = request.getHeader(HttpHeaders.ACCEPT_ENCODING);
+		return acceptEncoding != null && acceptEncoding.contains("gzip");
+	}
+
+	private static String nextLink(final String next) {
+		return "<" + ServletUriComponentsBuilder.fromCurrentRequest()
+				.replaceQueryParam("cursor", next)
+				.toUriString() + ">; rel=\"next\"";
+	}
 }
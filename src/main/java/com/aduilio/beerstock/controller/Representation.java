@@ -0,0 +1,135 @@
+package com.aduilio.beerstock.controller;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+import org.springframework.web.context.request.WebRequest;
+
+/**
+ * Picks the format a response of beers is written in before it is written, the
+ * same way the message converters pick it, so each format has its own ETag.
+ * A client that sends the ETag of the JSON body while asking for Smile gets
+ * the Smile body, not a {@code 304}.
+ */
+final class Representation {
+
+	static final String SMILE_VALUE = "application/x-jackson-smile";
+
+	static final MediaType SMILE = MediaType.parseMediaType(SMILE_VALUE);
+
+	/**
+	 * The formats of the beers, in the order the converters are tried, JSON
+	 * first.
+	 */
+	static final List<MediaType> PRODUCED = Collections
+			.unmodifiableList(Arrays.asList(MediaType.APPLICATION_JSON, SMILE, MediaType.APPLICATION_CBOR));
+
+	private Representation() {
+	}
+
+	/**
+	 * Returns the media types of the {@code Accept} headers of the request.
+	 *
+	 * @param request with the headers
+	 *
+	 * @return the media types, empty if any of them is invalid
+	 */
+	static List<MediaType> accepted(final WebRequest request) {
+		final String[] accept = request.getHeaderValues(HttpHeaders.ACCEPT);
+		if (accept == null) {
+			return Collections.emptyList();
+		}
+
+		try {
+			return MediaType.parseMediaTypes(Arrays.asList(accept));
+		} catch (final InvalidMediaTypeException e) {
+			return Collections.emptyList();
+		}
+	}
+
+	/**
+	 * Returns the format the response is written in: the one the client prefers,
+	 * and among the ones it prefers the same, the first one produced.
+	 *
+	 * @param accepted the media types the client accepts, empty for any
+	 * @param produced the formats that may be written, in the order of the
+	 *                 converters
+	 *
+	 * @return the format
+	 */
+	static MediaType negotiate(final List<MediaType> accepted, final List<MediaType> produced) {
+		final List<MediaType> compatible = new ArrayList<>();
+		for (final MediaType accept : accepted.isEmpty() ? Collections.singletonList(MediaType.ALL) : accepted) {
+			for (final MediaType type : produced) {
+				if (accept.isCompatibleWith(type)) {
+					compatible.add(type.copyQualityValue(accept));
+				}
+			}
+		}
+		if (compatible.isEmpty()) {
+			return produced.get(0);
+		}
+
+		// stable, so the order of the produced formats breaks the ties
+		MediaType.sortBySpecificityAndQuality(compatible);
+		return compatible.get(0)
+				.removeQualityValue();
+	}
+
+	/**
+	 * Tells if an ETag is one of the {@code If-None-Match} headers of the
+	 * request, compared weakly as the conditional {@code GET} does.
+	 *
+	 * @param request with the headers
+	 * @param etag    quoted
+	 *
+	 * @return true if the client already has the response of the ETag
+	 */
+	static boolean matches(final WebRequest request, final String etag) {
+		final String[] ifNoneMatch = request.getHeaderValues(HttpHeaders.IF_NONE_MATCH);
+		if (ifNoneMatch == null) {
+			return false;
+		}
+
+		for (final String header : ifNoneMatch) {
+			for (final String value : header.split(",")) {
+				final String trimmed = value.trim();
+				if ("*".equals(trimmed) || etag.equals(trimmed.startsWith("W/") ? trimmed.substring(2) : trimmed)) {
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Returns the strong ETag of a version written in a format.
+	 *
+	 * @param version   of the beers
+	 * @param mediaType the format of the body
+	 *
+	 * @return the ETag, quoted
+	 */
+	static String etag(final String version, final MediaType mediaType) {
+		return etag(version, mediaType, null);
+	}
+
+	/**
+	 * Returns the strong ETag of a version written in a format and compressed
+	 * in a content coding, since the compressed body has other bytes.
+	 *
+	 * @param version   of the beers
+	 * @param mediaType the format of the body
+	 * @param coding    of the body, null when it is not compressed
+	 *
+	 * @return the ETag, quoted
+	 */
+	static String etag(final String version, final MediaType mediaType, final String coding) {
+		return "\"" + version + "-" + mediaType.getSubtype() + (coding == null ? "" : "-" + coding) + "\"";
+	}
+}
@@ -0,0 +1,57 @@
+package com.aduilio.beerstock.controller;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpStatus;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.aduilio.beerstock.dto.BeerDto;
+import com.aduilio.beerstock.dto.ReservationDto;
+import com.aduilio.beerstock.exception.BeerNegativeStockException;
+import com.aduilio.beerstock.exception.BeerNotFoundException;
+import com.aduilio.beerstock.exception.ReservationNotFoundException;
+import com.aduilio.beerstock.service.ReservationService;
+
+import lombok.AllArgsConstructor;
+
+/**
+ * Provides REST methods to reserve the stock of the beers. Only served with
+ * the atomic engine and outside the {@code reactive} and {@code sharded}
+ * profiles.
+ */
+@RestController
+@Profile("!reactive & !sharded")
+@ConditionalOnProperty(name = "beerstock.stock.engine", havingValue = "atomic", matchIfMissing = true)
+@RequestMapping("/api/v1/beers")
+@AllArgsConstructor
+public class ReservationController {
+
+	private final ReservationService reservationService;
+
+	@PostMapping("/{id}/reservations")
+	@ResponseStatus(HttpStatus.CREATED)
+	public ReservationDto reserve(@PathVariable final Long id,
+			@RequestBody @Validated final ReservationDto reservationDto)
+			throws BeerNotFoundException, BeerNegativeStockException {
+		return reservationService.reserve(id, reservationDto.getQuantity());
+	}
+
+	@PostMapping("/reservations/{reservationId}/commit")
+	public BeerDto commit(@PathVariable final String reservationId)
+			throws ReservationNotFoundException, BeerNotFoundException {
+		return reservationService.commit(reservationId);
+	}
+
+	@DeleteMapping("/reservations/{reservationId}")
+	@ResponseStatus(HttpStatus.NO_CONTENT)
+	public void release(@PathVariable final String reservationId) throws ReservationNotFoundException {
+		reservationService.release(reservationId);
+	}
+}
@@ -0,0 +1,114 @@
+package com.aduilio.beerstock.controller;
+
+import java.io.IOException;
+import java.util.List;
+
+import javax.servlet.http.HttpServletResponse;
+
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PatchMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+
+import com.aduilio.beerstock.dto.BeerDto;
+import com.aduilio.beerstock.dto.BeerPageDto;
+import com.aduilio.beerstock.dto.QuantityDto;
+import com.aduilio.beerstock.enums.BeerExportFormat;
+import com.aduilio.beerstock.enums.BeerSort;
+import com.aduilio.beerstock.exception.BeerAlreadyRegisteredException;
+import com.aduilio.beerstock.exception.BeerExceedStockException;
+import com.aduilio.beerstock.exception.BeerInvalidCursorException;
+import com.aduilio.beerstock.exception.BeerNegativeStockException;
+import com.aduilio.beerstock.exception.BeerNotFoundException;
+import com.aduilio.beerstock.service.ShardedBeerService;
+
+import lombok.AllArgsConstructor;
+
+/**
+ * Provides the routes of {@link BeerController} that read and write a single
+ * beer, the pages and the export, for the {@code sharded} profile. The bulk
+ * creation, the batches and commands of stock, the search, the change feed
+ * and the reservations need a single database and are not served.
+ */
+@RestController
+@Profile("sharded")
+@RequestMapping("/api/v1/beers")
+@AllArgsConstructor
+public class ShardedBeerController {
+
+	private final ShardedBeerService shardedBeerService;
+
+	@PostMapping
+	@ResponseStatus(HttpStatus.CREATED)
+	public BeerDto create(@RequestBody @Validated final BeerDto beerDto) throws BeerAlreadyRegisteredException {
+		final Long id = shardedBeerService.create(beerDto);
+		return BeerDto.builder()
+				.id(id)
+				.build();
+	}
+
+	@GetMapping("/export")
+	public void export(@RequestParam(defaultValue = "NDJSON") final BeerExportFormat format,
+			final HttpServletResponse response) throws IOException {
+		response.setContentType(format.getContentType());
+		response.setCharacterEncoding("UTF-8");
+		response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"beers." + format.name()
+				.toLowerCase() + "\"");
+		shardedBeerService.export(format, response.getOutputStream());
+	}
+
+	@GetMapping(path = "/{name}", produces = { MediaType.APPLICATION_JSON_VALUE, Representation.SMILE_VALUE,
+			MediaType.APPLICATION_CBOR_VALUE })
+	public BeerDto readByName(@PathVariable final String name, final WebRequest request,
+			final HttpServletResponse servletResponse) throws BeerNotFoundException {
+		final BeerDto beerDto = shardedBeerService.readByName(name);
+		final MediaType mediaType = Representation.negotiate(Representation.accepted(request),
+				Representation.PRODUCED);
+		servletResponse.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+		if (request.checkNotModified(Representation.etag(beerDto.getId() + "-" + beerDto.getVersion(), mediaType))) {
+			return null;
+		}
+		return beerDto;
+	}
+
+	@GetMapping
+	public ResponseEntity<List<BeerDto>> list(@RequestParam(required = false) final String cursor,
+			@RequestParam(required = false) final Integer size, @RequestParam(defaultValue = "ID") final BeerSort sort)
+			throws BeerInvalidCursorException {
+		final BeerPageDto page = shardedBeerService.list(cursor, size, sort);
+		final ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+		if (page.getNext() != null) {
+			response.header(BeerController.NEXT_CURSOR_HEADER, page.getNext())
+					.header(HttpHeaders.LINK, "<" + ServletUriComponentsBuilder.fromCurrentRequest()
+							.replaceQueryParam("cursor", page.getNext())
+							.toUriString() + ">; rel=\"next\"");
+		}
+		return response.body(page.getContent());
+	}
+
+	@DeleteMapping("/{id}")
+	@ResponseStatus(HttpStatus.NO_CONTENT)
+	public void delete(@PathVariable final Long id) throws BeerNotFoundException {
+		shardedBeerService.delete(id);
+	}
+
+	@PatchMapping("/{id}/stock")
+	public BeerDto stock(@PathVariable final Long id, @RequestBody final QuantityDto quantityDto)
+			throws BeerNotFoundException, BeerExceedStockException, BeerNegativeStockException {
+		return shardedBeerService.stock(id, quantityDto.getQuantity());
+	}
+}
@@ -0,0 +1,39 @@
+package com.aduilio.beerstock.controller;
+
+import java.util.List;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Profile;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.aduilio.beerstock.dto.StockMovementDto;
+import com.aduilio.beerstock.exception.BeerNotFoundException;
+import com.aduilio.beerstock.stock.JournalStockEngine;
+
+import lombok.AllArgsConstructor;
+
+/**
+ * Provides REST methods to read the stock movements of the beers. Only served
+ * with the journal engine and outside the {@code reactive} and
+ * {@code sharded} profiles.
+ */
+@RestController
+@Profile("!reactive & !sharded")
+@ConditionalOnProperty(name = "beerstock.stock.engine", havingValue = "journal")
+@RequestMapping("/api/v1/beers")
+@AllArgsConstructor
+public class StockHistoryController {
+
+	private final JournalStockEngine journalStockEngine;
+
+	@GetMapping("/{id}/stock/movements")
+	public List<StockMovementDto> movements(@PathVariable final Long id,
+			@RequestParam(defaultValue = "0") final long after, @RequestParam(required = false) final Integer size)
+			throws BeerNotFoundException {
+		return journalStockEngine.history(id, after, size);
+	}
+}
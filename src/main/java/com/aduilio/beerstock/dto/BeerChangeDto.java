@@ -0,0 +1,27 @@
+package com.aduilio.beerstock.dto;
+
+import com.aduilio.beerstock.enums.BeerChangeType;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Data transfer object for a change of a beer sent by the change feed.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BeerChangeDto {
+
+	private Long id;
+
+	private BeerChangeType type;
+
+	/**
+	 * The beer after the change, null when it was deleted.
+	 */
+	private BeerDto beer;
+}
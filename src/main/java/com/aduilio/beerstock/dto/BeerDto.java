@@ -4,6 +4,7 @@ import javax.validation.constraints.NotEmpty;
 import javax.validation.constraints.Size;
 
 import com.aduilio.beerstock.enums.BeerType;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -14,7 +15,7 @@ import lombok.NoArgsConstructor;
  * Data transfer object for Beer entity.
  */
 @Data
-@Builder
+@Builder(toBuilder = true)
 @NoArgsConstructor
 @AllArgsConstructor
 public class BeerDto {
@@ -33,5 +34,16 @@ public class BeerDto {
 
 	private int quantity;
 
+	/**
+	 * The part of the quantity held by reservations, read only.
+	 */
+	private int reserved;
+
 	private BeerType type;
+
+	/**
+	 * The version of the beer, used by the ETag of the responses.
+	 */
+	@JsonIgnore
+	private Long version;
 }
@@ -0,0 +1,27 @@
+package com.aduilio.beerstock.dto;
+
+import com.aduilio.beerstock.enums.BeerType;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Data transfer object for the filters of the search of beers. The filters
+ * not informed are not applied.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BeerFilterDto {
+
+	private BeerType type;
+
+	private String brand;
+
+	private Integer minQuantity;
+
+	private Integer maxQuantity;
+}
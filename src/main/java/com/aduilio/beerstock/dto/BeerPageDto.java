@@ -0,0 +1,25 @@
+package com.aduilio.beerstock.dto;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Data transfer object for a page of beers.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BeerPageDto {
+
+	private List<BeerDto> content;
+
+	/**
+	 * The cursor of the next page, null if this is the last one.
+	 */
+	private String next;
+}
@@ -0,0 +1,41 @@
+package com.aduilio.beerstock.dto;
+
+import java.util.List;
+import java.util.Map;
+
+import com.aduilio.beerstock.enums.BeerType;
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Data transfer object for a page of the search of beers, with the number of
+ * beers found by type and by brand.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BeerSearchDto {
+
+	private List<BeerDto> content;
+
+	/**
+	 * The cursor of the next page, null if this is the last one.
+	 */
+	private String next;
+
+	/**
+	 * The beers found by type, only in the first page.
+	 */
+	private Map<BeerType, Long> types;
+
+	/**
+	 * The beers found by brand, only in the first page.
+	 */
+	private Map<String, Long> brands;
+}
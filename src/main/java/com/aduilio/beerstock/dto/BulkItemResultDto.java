@@ -0,0 +1,26 @@
+package com.aduilio.beerstock.dto;
+
+import com.aduilio.beerstock.enums.BulkItemStatus;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Data transfer object for the result of a beer creation in a bulk.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkItemResultDto {
+
+	private Long id;
+
+	private String name;
+
+	private BulkItemStatus status;
+
+	private String message;
+}
@@ -0,0 +1,30 @@
+package com.aduilio.beerstock.dto;
+
+import java.time.Instant;
+
+import javax.validation.constraints.Positive;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Data transfer object for Reservation entity. Only the quantity is informed
+ * to create a reservation.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReservationDto {
+
+	private String id;
+
+	private Long beerId;
+
+	@Positive
+	private int quantity;
+
+	private Instant expiresAt;
+}
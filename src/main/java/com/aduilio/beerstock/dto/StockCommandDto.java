@@ -0,0 +1,28 @@
+package com.aduilio.beerstock.dto;
+
+import com.aduilio.beerstock.enums.StockItemStatus;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Data transfer object for a stock change applied asynchronously.
+ */
+@Data
+@Builder(toBuilder = true)
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockCommandDto {
+
+	private String id;
+
+	private Long beerId;
+
+	private int quantity;
+
+	private StockItemStatus status;
+
+	private String message;
+}
@@ -0,0 +1,20 @@
+package com.aduilio.beerstock.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Data transfer object for the stock change of a beer in a batch.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockItemDto {
+
+	private Long id;
+
+	private int quantity;
+}
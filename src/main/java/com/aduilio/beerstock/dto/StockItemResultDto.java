@@ -0,0 +1,74 @@
+package com.aduilio.beerstock.dto;
+
+import com.aduilio.beerstock.enums.StockItemStatus;
+import com.aduilio.beerstock.exception.BeerExceedStockException;
+import com.aduilio.beerstock.exception.BeerNegativeStockException;
+import com.aduilio.beerstock.exception.BeerNotFoundException;
+import com.aduilio.beerstock.exception.BeerStockConflictException;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Data transfer object for the result of a stock change in a batch.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockItemResultDto {
+
+	private Long id;
+
+	private int quantity;
+
+	private StockItemStatus status;
+
+	private String message;
+
+	public static StockItemResultDto of(final StockItemDto item, final StockItemStatus status) {
+		return StockItemResultDto.builder()
+				.id(item.getId())
+				.quantity(item.getQuantity())
+				.status(status)
+				.build();
+	}
+
+	/**
+	 * Creates the result of a change rejected by an exception of the stock.
+	 *
+	 * @param item      rejected
+	 * @param exception thrown by the stock
+	 *
+	 * @return {@link StockItemResultDto}
+	 */
+	public static StockItemResultDto of(final StockItemDto item, final Exception exception) {
+		final StockItemResultDto result = of(item, statusOf(exception));
+		result.setMessage(exception.getMessage());
+		return result;
+	}
+
+	@JsonIgnore
+	public boolean isApplied() {
+		return status == StockItemStatus.APPLIED;
+	}
+
+	private static StockItemStatus statusOf(final Exception exception) {
+		if (exception instanceof BeerNotFoundException) {
+			return StockItemStatus.NOT_FOUND;
+		}
+		if (exception instanceof BeerExceedStockException) {
+			return StockItemStatus.EXCEED_STOCK;
+		}
+		if (exception instanceof BeerNegativeStockException) {
+			return StockItemStatus.NEGATIVE_STOCK;
+		}
+		if (exception instanceof BeerStockConflictException) {
+			return StockItemStatus.CONFLICT;
+		}
+		throw new IllegalArgumentException("Unexpected stock exception", exception);
+	}
+}
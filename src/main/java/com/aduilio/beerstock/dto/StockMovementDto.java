@@ -0,0 +1,24 @@
+package com.aduilio.beerstock.dto;
+
+import java.time.Instant;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Data transfer object for StockMovement entity.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockMovementDto {
+
+	private long sequence;
+
+	private int delta;
+
+	private Instant createdAt;
+}
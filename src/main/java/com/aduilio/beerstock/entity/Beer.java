@@ -7,6 +7,12 @@ import javax.persistence.Enumerated;
 import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.Table;
+import javax.persistence.Version;
+
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
 
 import com.aduilio.beerstock.enums.BeerType;
 import com.aduilio.beerstock.exception.BeerExceedStockException;
@@ -22,13 +28,19 @@ import lombok.NoArgsConstructor;
  */
 @Data
 @Entity
-@Builder
+@Table(indexes = { @Index(name = "idx_beer_quantity_id", columnList = "quantity, id"),
+		@Index(name = "idx_beer_type_id", columnList = "type, id"),
+		@Index(name = "idx_beer_brand_id", columnList = "brand, id") })
+@Builder(toBuilder = true)
 @NoArgsConstructor
 @AllArgsConstructor
 public class Beer {
 
 	@Id
-	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	@GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "beer_sequence")
+	@GenericGenerator(name = "beer_sequence", strategy = "org.hibernate.id.enhanced.SequenceStyleGenerator", parameters = {
+			@Parameter(name = "sequence_name", value = "beer_sequence"),
+			@Parameter(name = "increment_size", value = "50"), @Parameter(name = "optimizer", value = "pooled") })
 	private Long id;
 
 	@Column(nullable = false, unique = true)
@@ -43,19 +55,80 @@ public class Beer {
 	@Column(nullable = false)
 	private int quantity;
 
+	/**
+	 * The part of the quantity held by reservations, never more than the
+	 * quantity. The available stock is the quantity minus the reserved.
+	 */
+	@Column(nullable = false)
+	private int reserved;
+
 	@Enumerated(EnumType.STRING)
 	@Column(nullable = false)
 	private BeerType type;
 
+	/**
+	 * Changed on every update of the beer, including the stock updates done by
+	 * query.
+	 */
+	@Version
+	@Column(nullable = false)
+	private Long version;
+
 	public void increment(final int quantity) throws BeerExceedStockException, BeerNegativeStockException {
-		if (quantity > 0 && this.max - this.quantity < quantity) {
-			throw new BeerExceedStockException(this.max - this.quantity);
-		}
+		verifyIncrement(quantity);
 
-		if (quantity < 0 && this.quantity - Math.abs(quantity) < 0) {
-			throw new BeerNegativeStockException(this.quantity);
+		this.quantity += quantity;
+	}
+
+	/**
+	 * Verifies if the quantity can be added to the stock without changing it.
+	 *
+	 * @param quantity to increment
+	 *
+	 * @throws BeerExceedStockException   if the quantity overflows the max
+	 * @throws BeerNegativeStockException if the stock would become lower than the
+	 *                                    reserved
+	 */
+	public void verifyIncrement(final int quantity) throws BeerExceedStockException, BeerNegativeStockException {
+		verifyIncrement(this.max, this.quantity, this.reserved, quantity);
+	}
+
+	/**
+	 * Verifies if the quantity can be added to a stock with the values informed.
+	 *
+	 * @param max       of the stock
+	 * @param current   quantity in the stock
+	 * @param increment quantity to increment
+	 *
+	 * @throws BeerExceedStockException   if the increment overflows the max
+	 * @throws BeerNegativeStockException if the stock would become negative
+	 */
+	public static void verifyIncrement(final int max, final int current, final int increment)
+			throws BeerExceedStockException, BeerNegativeStockException {
+		verifyIncrement(max, current, 0, increment);
+	}
+
+	/**
+	 * Verifies if the quantity can be added to a stock with the values informed,
+	 * without taking the reserved part of the stock.
+	 *
+	 * @param max       of the stock
+	 * @param current   quantity in the stock
+	 * @param reserved  part of the quantity held by reservations
+	 * @param increment quantity to increment
+	 *
+	 * @throws BeerExceedStockException   if the increment overflows the max
+	 * @throws BeerNegativeStockException if the stock would become lower than the
+	 *                                    reserved
+	 */
+	public static void verifyIncrement(final int max, final int current, final int reserved, final int increment)
+			throws BeerExceedStockException, BeerNegativeStockException {
+		if (increment > 0 && max - current < increment) {
+			throw new BeerExceedStockException(max - current);
 		}
 
-		this.quantity += quantity;
+		if (increment < 0 && reserved - current > increment) {
+			throw new BeerNegativeStockException(current - reserved);
+		}
 	}
 }
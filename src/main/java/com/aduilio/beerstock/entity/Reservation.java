@@ -0,0 +1,40 @@
+package com.aduilio.beerstock.entity;
+
+import java.time.Instant;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.Table;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Represents a part of the stock of a beer held for a while, added to the
+ * reserved of the beer until it is committed, released or expires.
+ */
+@Data
+@Entity
+@Table(indexes = @Index(name = "idx_reservation_expires_at", columnList = "expiresAt"))
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class Reservation {
+
+	@Id
+	@Column(length = 36)
+	private String id;
+
+	@Column(nullable = false)
+	private Long beerId;
+
+	@Column(nullable = false)
+	private int quantity;
+
+	@Column(nullable = false)
+	private Instant expiresAt;
+}
@@ -0,0 +1,56 @@
+package com.aduilio.beerstock.entity;
+
+import java.time.Instant;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.Table;
+import javax.persistence.UniqueConstraint;
+
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Represents a change of the stock of a beer, never updated. The movements of
+ * a beer are numbered from one without gaps, and the unique constraint on the
+ * number makes two concurrent movements of the same beer conflict.
+ */
+@Data
+@Entity
+@Table(uniqueConstraints = @UniqueConstraint(name = "uk_stock_movement_beer_id_seq", columnNames = { "beerId",
+		"seq" }))
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockMovement {
+
+	@Id
+	@GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "stock_movement_sequence")
+	@GenericGenerator(name = "stock_movement_sequence", strategy = "org.hibernate.id.enhanced.SequenceStyleGenerator", parameters = {
+			@Parameter(name = "sequence_name", value = "stock_movement_sequence"),
+			@Parameter(name = "increment_size", value = "50"), @Parameter(name = "optimizer", value = "pooled") })
+	private Long id;
+
+	@Column(nullable = false)
+	private Long beerId;
+
+	/**
+	 * The number of the movement among the movements of the beer.
+	 */
+	@Column(name = "seq", nullable = false)
+	private long sequence;
+
+	@Column(nullable = false)
+	private int delta;
+
+	@Column(nullable = false)
+	private Instant createdAt;
+}
@@ -0,0 +1,39 @@
+package com.aduilio.beerstock.entity;
+
+import java.time.Instant;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Represents the stock of a beer after a number of movements, so the stock is
+ * computed from the movements after it only.
+ */
+@Data
+@Entity
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockSnapshot {
+
+	@Id
+	private Long beerId;
+
+	@Column(nullable = false)
+	private int quantity;
+
+	/**
+	 * The number of the last movement included in the quantity.
+	 */
+	@Column(name = "seq", nullable = false)
+	private long sequence;
+
+	@Column(nullable = false)
+	private Instant createdAt;
+}
@@ -0,0 +1,22 @@
+package com.aduilio.beerstock.enums;
+
+/**
+ * The kinds of change of a beer.
+ */
+public enum BeerChangeType {
+
+	/**
+	 * The beer was created.
+	 */
+	CREATED,
+
+	/**
+	 * The beer was deleted.
+	 */
+	DELETED,
+
+	/**
+	 * The stock of the beer was changed.
+	 */
+	STOCK
+}
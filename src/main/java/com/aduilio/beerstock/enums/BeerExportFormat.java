@@ -0,0 +1,24 @@
+package com.aduilio.beerstock.enums;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * The formats in which the catalog can be exported.
+ */
+@Getter
+@AllArgsConstructor
+public enum BeerExportFormat {
+
+	/**
+	 * One JSON object per line.
+	 */
+	NDJSON("application/x-ndjson"),
+
+	/**
+	 * Comma separated values with a header line.
+	 */
+	CSV("text/csv");
+
+	private final String contentType;
+}
@@ -0,0 +1,9 @@
+package com.aduilio.beerstock.enums;
+
+/**
+ * The orders available to list the beers.
+ */
+public enum BeerSort {
+
+	ID, NAME, QUANTITY
+}
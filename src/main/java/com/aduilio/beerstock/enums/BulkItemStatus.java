@@ -0,0 +1,9 @@
+package com.aduilio.beerstock.enums;
+
+/**
+ * The result of a beer creation in a bulk.
+ */
+public enum BulkItemStatus {
+
+	CREATED, DUPLICATE, INVALID
+}
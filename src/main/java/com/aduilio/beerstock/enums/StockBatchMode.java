@@ -0,0 +1,17 @@
+package com.aduilio.beerstock.enums;
+
+/**
+ * How a batch of stock changes is applied.
+ */
+public enum StockBatchMode {
+
+	/**
+	 * Applies the changes only if all of them are valid.
+	 */
+	ALL_OR_NOTHING,
+
+	/**
+	 * Applies the valid changes and reports the invalid ones.
+	 */
+	BEST_EFFORT
+}
@@ -0,0 +1,12 @@
+package com.aduilio.beerstock.enums;
+
+/**
+ * The result of a stock change in a batch or of a stock command. A change is
+ * {@code CONFLICT} if the beer was changed concurrently on every attempt, and
+ * may be sent again. A command is {@code PENDING} until it is applied, and
+ * {@code FAILED} if the database could not apply it.
+ */
+public enum StockItemStatus {
+
+	APPLIED, ROLLED_BACK, NOT_FOUND, EXCEED_STOCK, NEGATIVE_STOCK, CONFLICT, PENDING, FAILED
+}
@@ -0,0 +1,22 @@
+package com.aduilio.beerstock.event;
+
+import com.aduilio.beerstock.enums.BeerChangeType;
+
+import lombok.Value;
+
+/**
+ * Published when a beer changes. The listeners that depend on the database
+ * must handle it after the commit of the transaction that changed the beer.
+ */
+@Value
+public class BeerChangedEvent {
+
+	Long id;
+
+	/**
+	 * The name of the beer, null when it is not known by who changed it.
+	 */
+	String name;
+
+	BeerChangeType type;
+}
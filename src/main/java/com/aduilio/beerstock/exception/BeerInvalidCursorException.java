@@ -0,0 +1,18 @@
+package com.aduilio.beerstock.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * Thrown to indicate that the application has received a page cursor that it
+ * did not create or that belongs to another order.
+ */
+@ResponseStatus(HttpStatus.BAD_REQUEST)
+public class BeerInvalidCursorException extends Exception {
+
+	private static final long serialVersionUID = -2213839541207744069L;
+
+	public BeerInvalidCursorException(final String cursor) {
+		super("Invalid cursor " + cursor);
+	}
+}
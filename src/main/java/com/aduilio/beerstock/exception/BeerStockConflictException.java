@@ -0,0 +1,19 @@
+package com.aduilio.beerstock.exception;
+
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * Thrown to indicate that a stock change conflicted with other changes of the
+ * same beer on every attempt. It may be sent again later.
+ */
+@ResponseStatus(HttpStatus.CONFLICT)
+public class BeerStockConflictException extends ConcurrencyFailureException {
+
+	private static final long serialVersionUID = 4176820943861374520L;
+
+	public BeerStockConflictException(final Long id, final int attempts) {
+		super("The stock of the beer " + id + " was changed concurrently in " + attempts + " attempt(s)");
+	}
+}
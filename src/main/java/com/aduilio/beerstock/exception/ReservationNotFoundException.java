@@ -0,0 +1,18 @@
+package com.aduilio.beerstock.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * Thrown to indicate that the application has attempted to use a reservation
+ * that does not exist, was already committed or released, or expired.
+ */
+@ResponseStatus(HttpStatus.NOT_FOUND)
+public class ReservationNotFoundException extends Exception {
+
+	private static final long serialVersionUID = -6170385032714896620L;
+
+	public ReservationNotFoundException(final String id) {
+		super("Invalid reservation " + id);
+	}
+}
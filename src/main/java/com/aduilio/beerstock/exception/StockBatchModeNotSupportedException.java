@@ -0,0 +1,20 @@
+package com.aduilio.beerstock.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+import com.aduilio.beerstock.enums.StockBatchMode;
+
+/**
+ * Thrown to indicate that the stock engine in use cannot apply a batch in the
+ * mode requested, since it cannot apply all its changes in one transaction.
+ */
+@ResponseStatus(HttpStatus.BAD_REQUEST)
+public class StockBatchModeNotSupportedException extends RuntimeException {
+
+	private static final long serialVersionUID = -3064719582147392751L;
+
+	public StockBatchModeNotSupportedException(final StockBatchMode mode) {
+		super("The stock engine does not apply batches in the mode " + mode);
+	}
+}
@@ -0,0 +1,18 @@
+package com.aduilio.beerstock.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * Thrown to indicate that the application has attempted to read a stock
+ * command that does not exist or whose result expired.
+ */
+@ResponseStatus(HttpStatus.NOT_FOUND)
+public class StockCommandNotFoundException extends Exception {
+
+	private static final long serialVersionUID = 3920713417388045297L;
+
+	public StockCommandNotFoundException(final String id) {
+		super("Invalid stock command " + id);
+	}
+}
@@ -0,0 +1,18 @@
+package com.aduilio.beerstock.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * Thrown to indicate that a stock command was refused because the queue of
+ * the commands is full. It may be sent again later.
+ */
+@ResponseStatus(HttpStatus.TOO_MANY_REQUESTS)
+public class StockQueueFullException extends Exception {
+
+	private static final long serialVersionUID = -6310482296384130569L;
+
+	public StockQueueFullException(final int capacity) {
+		super("The stock queue is full with " + capacity + " command(s)");
+	}
+}
@@ -0,0 +1,479 @@
+package com.aduilio.beerstock.feed;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.aduilio.beerstock.config.BeerstockProperties;
+import com.aduilio.beerstock.dto.BeerChangeDto;
+import com.aduilio.beerstock.dto.BeerDto;
+import com.aduilio.beerstock.enums.BeerChangeType;
+import com.aduilio.beerstock.event.BeerChangedEvent;
+import com.aduilio.beerstock.repository.BeerRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Streams the changes of the beers to the subscribers as Server-Sent Events.
+ * <p>
+ * The writers only mark the beer changed after their commit, so they never
+ * wait for the subscribers. The changes of a beer not yet handled are merged,
+ * a single worker reads the beers changed with one query, adds them to a
+ * {@link ChangeRing}, each encoded as JSON once, and wakes up the subscribers.
+ * A small pool of threads sends to each subscriber what it has not received
+ * yet, read straight from the ring, so the memory does not grow with the
+ * subscribers. A subscriber that falls more than the ring behind is
+ * disconnected, and a subscriber that reconnects with the id of the last event
+ * it received resumes from it, or receives a {@value #RESET} event when it is
+ * no longer in the ring.
+ * <p>
+ * A send blocks while the connection does not take more bytes. A subscriber
+ * whose send blocks longer than {@code beerstock.changes.send-timeout} is
+ * disconnected, and the pool gets a thread for each send stalled, so a few
+ * stalled connections never hold the threads the other subscribers need.
+ */
+@Slf4j
+@Component
+public class BeerChangeFeed implements MeterBinder {
+
+	/**
+	 * Sent instead of the changes missed, the subscriber must read the beers
+	 * again.
+	 */
+	static final String RESET = "RESET";
+
+	private static final int MAX_BATCH_SIZE = 500;
+
+	private static final int MAX_SEND_SIZE = 100;
+
+	private static final long POLL_TIMEOUT_MILLIS = 100;
+
+	private static final long IDLE = 0;
+
+	private static final long STALLED = Long.MIN_VALUE;
+
+	private final BeerRepository beerRepository;
+
+	private final ObjectWriter objectWriter;
+
+	private final ChangeRing ring;
+
+	private final long timeoutMillis;
+
+	private final long sendTimeoutNanos;
+
+	private final int senderThreads;
+
+	private final ThreadPoolExecutor senders;
+
+	private int stalledSends;
+
+	/**
+	 * Tells the events of this run from the ones of a previous run.
+	 */
+	private final String run = Long.toString(Instant.now()
+			.toEpochMilli(), Character.MAX_RADIX);
+
+	private final Map<Long, BeerChangeType> pending = new ConcurrentHashMap<>();
+
+	private final BlockingQueue<Long> changed = new LinkedBlockingQueue<>();
+
+	private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+
+	private final AtomicLong shed = new AtomicLong();
+
+	private volatile boolean running;
+
+	private Thread worker;
+
+	@Autowired
+	public BeerChangeFeed(final BeerRepository beerRepository, final ObjectMapper objectMapper,
+			final BeerstockProperties beerstockProperties) {
+		final BeerstockProperties.Changes properties = beerstockProperties.getChanges();
+		this.beerRepository = beerRepository;
+		this.objectWriter = objectMapper.writerFor(BeerChangeDto.class);
+		this.ring = new ChangeRing(properties.getBufferSize());
+		this.timeoutMillis = properties.getTimeout()
+				.toMillis();
+		this.sendTimeoutNanos = properties.getSendTimeout()
+				.toNanos();
+		this.senderThreads = properties.getSenderThreads();
+		final AtomicInteger threads = new AtomicInteger();
+		// the queue is unbounded, so the max is only an upper bound for the threads added
+		this.senders = new ThreadPoolExecutor(senderThreads, Integer.MAX_VALUE, 60, TimeUnit.SECONDS,
+				new LinkedBlockingQueue<>(), runnable -> {
+					final Thread thread = new Thread(runnable, "beer-changes-sender-" + threads.incrementAndGet());
+					thread.setDaemon(true);
+					return thread;
+				});
+	}
+
+	/**
+	 * Starts the worker.
+	 */
+	@PostConstruct
+	public void start() {
+		running = true;
+		worker = new Thread(this::run, "beer-changes");
+		worker.setDaemon(true);
+		worker.start();
+	}
+
+	/**
+	 * Stops the worker and the senders and completes the streams.
+	 *
+	 * @throws InterruptedException if interrupted while the worker stops
+	 */
+	@PreDestroy
+	public void stop() throws InterruptedException {
+		running = false;
+		if (worker != null) {
+			worker.join();
+		}
+		senders.shutdownNow();
+		subscribers.forEach(subscriber -> subscriber.emitter.complete());
+		subscribers.clear();
+	}
+
+	/**
+	 * Marks a beer changed, once the transaction that changed it is committed.
+	 *
+	 * @param event of the change
+	 */
+	@TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+	public void onBeerChanged(final BeerChangedEvent event) {
+		final AtomicBoolean added = new AtomicBoolean();
+		pending.compute(event.getId(), (id, type) -> {
+			if (type == null) {
+				added.set(true);
+				return event.getType();
+			}
+			return merge(type, event.getType());
+		});
+		if (added.get()) {
+			changed.add(event.getId());
+		}
+	}
+
+	/**
+	 * Subscribes to the changes.
+	 *
+	 * @param lastEventId the id of the last event received, null for only the
+	 *                    changes from now on
+	 *
+	 * @return {@link SseEmitter} of the changes
+	 */
+	public SseEmitter subscribe(final String lastEventId) {
+		return subscribe(lastEventId, new SseEmitter(timeoutMillis));
+	}
+
+	@Override
+	public void bindTo(final MeterRegistry registry) {
+		Gauge.builder("beerstock.changes.subscribers", subscribers, Set::size)
+				.description("Subscribers of the change feed")
+				.register(registry);
+		FunctionCounter.builder("beerstock.changes.shed", shed, AtomicLong::get)
+				.description("Subscribers disconnected because they fell behind the change feed")
+				.register(registry);
+	}
+
+	SseEmitter subscribe(final String lastEventId, final SseEmitter emitter) {
+		final long last = ring.last();
+		final Long resumed = lastEventId == null ? Long.valueOf(last) : sequenceOf(lastEventId);
+		final Subscriber subscriber = resumed != null && ring.contains(resumed)
+				? new Subscriber(emitter, resumed, false)
+				: new Subscriber(emitter, last, true);
+		try {
+			// the response is only sent with the first event
+			emitter.send(SseEmitter.event()
+					.comment("subscribed"));
+		} catch (final IOException e) {
+			emitter.completeWithError(e);
+			return emitter;
+		}
+		emitter.onCompletion(() -> subscribers.remove(subscriber));
+		emitter.onTimeout(() -> subscribers.remove(subscriber));
+		emitter.onError(error -> subscribers.remove(subscriber));
+		subscribers.add(subscriber);
+		schedule(subscriber);
+		return emitter;
+	}
+
+	/**
+	 * Disconnects the subscribers whose send blocked longer than the send
+	 * timeout, and adds a thread to the pool for each of them, since their
+	 * sender threads stay blocked until the connection takes the bytes or
+	 * fails.
+	 *
+	 * @return the number of subscribers disconnected
+	 */
+	int shedStalled() {
+		final long now = System.nanoTime();
+		int stalled = 0;
+		for (final Subscriber subscriber : subscribers) {
+			final long started = subscriber.sending.get();
+			if (started != IDLE && started != STALLED && now - started > sendTimeoutNanos
+					&& subscriber.sending.compareAndSet(started, STALLED)) {
+				// the emitter is locked by the send, its sender completes it
+				subscribers.remove(subscriber);
+				shed.incrementAndGet();
+				resizeSenders(1);
+				stalled++;
+			}
+		}
+		return stalled;
+	}
+
+	/**
+	 * Reads the beers changed, adds them to the ring and wakes up the
+	 * subscribers. The ring has a single writer, so it must not be called while
+	 * the worker runs.
+	 *
+	 * @return the number of changes added
+	 */
+	int publishChanged() {
+		final List<Long> ids = new ArrayList<>();
+		changed.drainTo(ids, MAX_BATCH_SIZE);
+		if (ids.isEmpty()) {
+			return 0;
+		}
+		publish(ids);
+		return ids.size();
+	}
+
+	private void run() {
+		while (running) {
+			try {
+				final Long first = changed.poll(POLL_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+				shedStalled();
+				if (first == null) {
+					continue;
+				}
+
+				final List<Long> ids = new ArrayList<>();
+				ids.add(first);
+				changed.drainTo(ids, MAX_BATCH_SIZE - 1);
+				publish(ids);
+			} catch (final InterruptedException e) {
+				Thread.currentThread()
+						.interrupt();
+				return;
+			} catch (final RuntimeException e) {
+				log.error("Beer change feed worker failed", e);
+			}
+		}
+	}
+
+	private void publish(final List<Long> ids) {
+		final Map<Long, BeerChangeType> types = new HashMap<>();
+		// a change arriving from now on is handled in the next batch
+		ids.forEach(id -> types.put(id, pending.remove(id)));
+		final Map<Long, BeerDto> beers = beerRepository.findDtoByIdIn(ids)
+				.stream()
+				.collect(Collectors.toMap(BeerDto::getId, Function.identity()));
+
+		for (final Long id : ids) {
+			final BeerChangeType type = types.get(id);
+			final BeerDto beer = type == BeerChangeType.DELETED ? null : beers.get(id);
+			// deleted after the change, the deletion comes next
+			if (type != BeerChangeType.DELETED && beer == null) {
+				continue;
+			}
+			final BeerChangeDto change = BeerChangeDto.builder()
+					.id(id)
+					.type(type)
+					.beer(beer)
+					.build();
+			ring.append(change, encode(change));
+		}
+		subscribers.forEach(this::schedule);
+	}
+
+	private void schedule(final Subscriber subscriber) {
+		if (subscriber.scheduled.compareAndSet(false, true)) {
+			senders.execute(() -> send(subscriber));
+		}
+	}
+
+	private void send(final Subscriber subscriber) {
+		try {
+			if (subscriber.reset) {
+				send(subscriber, SseEmitter.event()
+						.id(eventId(subscriber.sequence))
+						.name(RESET)
+						.data(""));
+				subscriber.reset = false;
+			}
+
+			List<ChangeRing.Entry> entries = ring.readAfter(subscriber.sequence, MAX_SEND_SIZE);
+			while (entries != null && !entries.isEmpty()) {
+				for (final ChangeRing.Entry entry : entries) {
+					send(subscriber, SseEmitter.event()
+							.id(eventId(entry.getSequence()))
+							.name(entry.getChange()
+									.getType()
+									.name())
+							.data(entry.getJson(), MediaType.APPLICATION_JSON));
+					subscriber.sequence = entry.getSequence();
+				}
+				entries = ring.readAfter(subscriber.sequence, MAX_SEND_SIZE);
+			}
+
+			// the changes it did not receive yet were overwritten
+			if (entries == null) {
+				shed.incrementAndGet();
+				disconnect(subscriber);
+				return;
+			}
+		} catch (final IOException | IllegalStateException | StalledException e) {
+			disconnect(subscriber);
+			return;
+		} finally {
+			subscriber.scheduled.set(false);
+		}
+
+		// a change added after the last read
+		if (ring.last() > subscriber.sequence && subscribers.contains(subscriber)) {
+			schedule(subscriber);
+		}
+	}
+
+	/**
+	 * Sends an event, marking the subscriber sending while it blocks.
+	 *
+	 * @throws StalledException if the subscriber was disconnected while the send
+	 *                          blocked
+	 */
+	private void send(final Subscriber subscriber, final SseEmitter.SseEventBuilder event) throws IOException {
+		long started = System.nanoTime();
+		if (started == IDLE || started == STALLED) {
+			started++;
+		}
+		subscriber.sending.set(started);
+		try {
+			subscriber.emitter.send(event);
+		} finally {
+			if (!subscriber.sending.compareAndSet(started, IDLE)) {
+				// its thread was replaced meanwhile
+				resizeSenders(-1);
+				throw new StalledException();
+			}
+		}
+	}
+
+	private synchronized void resizeSenders(final int delta) {
+		stalledSends += delta;
+		senders.setCorePoolSize(senderThreads + stalledSends);
+	}
+
+	private String encode(final BeerChangeDto change) {
+		try {
+			return objectWriter.writeValueAsString(change);
+		} catch (final JsonProcessingException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	private void disconnect(final Subscriber subscriber) {
+		subscribers.remove(subscriber);
+		subscriber.emitter.complete();
+	}
+
+	private String eventId(final long sequence) {
+		return run + "-" + sequence;
+	}
+
+	private Long sequenceOf(final String eventId) {
+		final int separator = eventId.lastIndexOf('-');
+		if (separator < 0 || !run.equals(eventId.substring(0, separator))) {
+			return null;
+		}
+		try {
+			return Long.valueOf(eventId.substring(separator + 1));
+		} catch (final NumberFormatException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * Merges two changes of a beer not yet handled. The beer is read when it is
+	 * handled, so only the kind of change that matters most is kept.
+	 */
+	private static BeerChangeType merge(final BeerChangeType first, final BeerChangeType second) {
+		if (first == BeerChangeType.DELETED || second == BeerChangeType.DELETED) {
+			return BeerChangeType.DELETED;
+		}
+		return first == BeerChangeType.CREATED ? first : second;
+	}
+
+	/**
+	 * A stream and the sequence of the last change it received.
+	 */
+	private static final class Subscriber {
+
+		private final SseEmitter emitter;
+
+		private final AtomicBoolean scheduled = new AtomicBoolean();
+
+		/**
+		 * When the send in progress started, {@value BeerChangeFeed#IDLE} between
+		 * the sends and {@value BeerChangeFeed#STALLED} once disconnected because
+		 * of it.
+		 */
+		private final AtomicLong sending = new AtomicLong(IDLE);
+
+		private volatile long sequence;
+
+		private volatile boolean reset;
+
+		private Subscriber(final SseEmitter emitter, final long sequence, final boolean reset) {
+			this.emitter = emitter;
+			this.sequence = sequence;
+			this.reset = reset;
+		}
+	}
+
+	/**
+	 * Thrown by a send that returned after its subscriber was disconnected.
+	 */
+	private static final class StalledException extends RuntimeException {
+
+		private static final long serialVersionUID = 1L;
+
+		private StalledException() {
+			super(null, null, false, false);
+		}
+	}
+}
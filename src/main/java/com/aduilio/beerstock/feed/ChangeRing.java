@@ -0,0 +1,108 @@
+package com.aduilio.beerstock.feed;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.aduilio.beerstock.dto.BeerChangeDto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Keeps the last changes, each with its sequence and its JSON, in an array used
+ * as a ring.
+ * It has a single writer, that publishes each change by the volatile write of
+ * the last sequence, and any number of readers, that never lock. A reader
+ * that falls more than the capacity behind finds its changes overwritten.
+ */
+final class ChangeRing {
+
+	private final Entry[] entries;
+
+	private final int mask;
+
+	private volatile long last;
+
+	/**
+	 * Creates the ring.
+	 *
+	 * @param capacity of the ring, rounded up to a power of two
+	 */
+	ChangeRing(final int capacity) {
+		final int size = Integer.highestOneBit(Math.max(capacity, 2) - 1) << 1;
+		this.entries = new Entry[size];
+		this.mask = size - 1;
+	}
+
+	/**
+	 * Adds a change. It must be called by a single thread.
+	 *
+	 * @param change to be added
+	 * @param json   of the change, sent as it is to every subscriber
+	 *
+	 * @return the sequence of the change
+	 */
+	long append(final BeerChangeDto change, final String json) {
+		final long sequence = last + 1;
+		entries[(int) (sequence & mask)] = new Entry(sequence, change, json);
+		last = sequence;
+		return sequence;
+	}
+
+	/**
+	 * Returns the sequence of the last change, zero before the first one.
+	 *
+	 * @return the sequence
+	 */
+	long last() {
+		return last;
+	}
+
+	/**
+	 * Verifies if the changes after a sequence are still in the ring.
+	 *
+	 * @param sequence of the last change read
+	 *
+	 * @return true if none of the changes after it was overwritten
+	 */
+	boolean contains(final long sequence) {
+		return sequence >= 0 && sequence <= last && last - sequence <= entries.length;
+	}
+
+	/**
+	 * Reads the changes after a sequence.
+	 *
+	 * @param sequence of the last change read
+	 * @param max      changes to be read
+	 *
+	 * @return {@link List} of {@link Entry} in order, null if some of the changes
+	 *         after the sequence were overwritten
+	 */
+	List<Entry> readAfter(final long sequence, final int max) {
+		final long to = Math.min(last, sequence + max);
+		final List<Entry> read = new ArrayList<>((int) Math.max(to - sequence, 0));
+		for (long next = sequence + 1; next <= to; next++) {
+			final Entry entry = entries[(int) (next & mask)];
+			// overwritten by a later change
+			if (entry == null || entry.getSequence() != next) {
+				return null;
+			}
+			read.add(entry);
+		}
+		return read;
+	}
+
+	/**
+	 * A change, its sequence and its JSON.
+	 */
+	@Getter
+	@AllArgsConstructor
+	static final class Entry {
+
+		private final long sequence;
+
+		private final BeerChangeDto change;
+
+		private final String json;
+	}
+}
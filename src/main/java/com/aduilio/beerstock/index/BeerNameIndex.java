@@ -0,0 +1,271 @@
+package com.aduilio.beerstock.index;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+import javax.annotation.PostConstruct;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.aduilio.beerstock.config.BeerstockProperties;
+import com.aduilio.beerstock.repository.BeerRepository;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Keeps the names of the beers in a {@link BloomFilter}, so the names that
+ * certainly do not exist are answered without the database.
+ * <p>
+ * The filter only knows the names in the database when it is built and the
+ * ones added by this instance. A beer created by another instance, or inserted
+ * straight into the database, is answered as not found and does not stop a
+ * duplicate until the next rebuild, so it is enabled only when every beer is
+ * created through this instance.
+ * <p>
+ * A name must be added before the beer is saved, so the filter never misses a
+ * name that exists. It stays pending until the transaction that saves it
+ * completes, and a rebuild copies the names pending. A name whose save rolled
+ * back is no longer pending, so like the names of the beers deleted it stays
+ * in the filter as a false positive only until the next rebuild. The filter is
+ * rebuilt from the database when the false positive rate measured, or the one
+ * expected from its bits, passes twice the configured rate.
+ */
+@Slf4j
+@Component
+public class BeerNameIndex implements MeterBinder {
+
+	static final long MIN_CAPACITY = 1024;
+
+	static final long MIN_SAMPLES = 1000;
+
+	private final BeerRepository beerRepository;
+
+	private final TransactionTemplate transactionTemplate;
+
+	private final boolean enabled;
+
+	private final double falsePositiveRate;
+
+	private volatile BloomFilter filter;
+
+	private volatile BloomFilter building;
+
+	/**
+	 * The names added whose transactions are not completed yet.
+	 */
+	private final Set<String> pending = ConcurrentHashMap.newKeySet();
+
+	private final LongAdder falsePositives = new LongAdder();
+
+	private final LongAdder trueNegatives = new LongAdder();
+
+	private final AtomicLong rebuilds = new AtomicLong();
+
+	/**
+	 * Serializes the rebuilds. It is not a monitor, that would pin a virtual
+	 * thread to its carrier while the names are read from the database.
+	 */
+	private final Lock rebuildLock = new ReentrantLock();
+
+	@Autowired
+	public BeerNameIndex(final BeerRepository beerRepository, final TransactionTemplate transactionTemplate,
+			final BeerstockProperties beerstockProperties) {
+		this.beerRepository = beerRepository;
+		this.transactionTemplate = transactionTemplate;
+		this.enabled = beerstockProperties.getNameIndex()
+				.isEnabled();
+		this.falsePositiveRate = beerstockProperties.getNameIndex()
+				.getFalsePositiveRate();
+	}
+
+	/**
+	 * Builds the filter with the names in the database.
+	 */
+	@PostConstruct
+	public void rebuild() {
+		if (!enabled) {
+			return;
+		}
+
+		rebuildLock.lock();
+		try {
+			final long count = beerRepository.count();
+			build(count);
+			falsePositives.reset();
+			trueNegatives.reset();
+			log.info("Beer name index built for {} name(s)", count);
+		} finally {
+			rebuildLock.unlock();
+		}
+	}
+
+	/**
+	 * Rebuilds the filter if its false positive rate drifted.
+	 */
+	@Scheduled(fixedDelayString = "${beerstock.name-index.check-interval:60000}")
+	public void verify() {
+		if (enabled && isDrifted()) {
+			log.info("Beer name index drifted, false positive rate {} measured and {} expected",
+					getFalsePositiveRate(), getExpectedFalsePositiveRate());
+			rebuild();
+			rebuilds.incrementAndGet();
+		}
+	}
+
+	/**
+	 * Adds a name. It must be called before the beer is saved. Inside a
+	 * transaction the name stays pending until it completes, otherwise until
+	 * {@link #release(String)}.
+	 *
+	 * @param name of the beer
+	 */
+	public void add(final String name) {
+		if (!enabled) {
+			return;
+		}
+
+		pending.add(name);
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+
+				@Override
+				public void afterCompletion(final int status) {
+					// committed, the rebuilds read it from the database, or rolled back
+					release(name);
+				}
+			});
+		}
+		BloomFilter current;
+		do {
+			current = filter;
+			current.put(name);
+			final BloomFilter next = building;
+			if (next != null) {
+				next.put(name);
+			}
+			// a rebuild may have swapped the filter meanwhile
+		} while (current != filter);
+	}
+
+	/**
+	 * Verifies if a name might exist.
+	 *
+	 * @param name of the beer
+	 *
+	 * @return false if the name certainly does not exist
+	 */
+	public boolean mightContain(final String name) {
+		if (!enabled) {
+			return true;
+		}
+
+		if (filter.mightContain(name)) {
+			return true;
+		}
+		trueNegatives.increment();
+		return false;
+	}
+
+	/**
+	 * Records that a name that might exist, by {@link #mightContain(String)},
+	 * does not exist.
+	 */
+	public void falsePositive() {
+		falsePositives.increment();
+	}
+
+	/**
+	 * Forgets a name added outside of a transaction, once its beer was saved or
+	 * could not be saved.
+	 *
+	 * @param name of the beer
+	 */
+	public void release(final String name) {
+		pending.remove(name);
+	}
+
+	@Override
+	public void bindTo(final MeterRegistry registry) {
+		Gauge.builder("beerstock.name.index.false.positive.rate", this, BeerNameIndex::getFalsePositiveRate)
+				.description("False positive rate measured since the last rebuild")
+				.register(registry);
+		Gauge.builder("beerstock.name.index.expected.false.positive.rate", this,
+				BeerNameIndex::getExpectedFalsePositiveRate)
+				.description("False positive rate expected from the bits set")
+				.register(registry);
+		FunctionCounter.builder("beerstock.name.index.rebuilds", this, BeerNameIndex::getRebuilds)
+				.description("Rebuilds because the index drifted")
+				.register(registry);
+	}
+
+	/**
+	 * Returns the false positive rate measured since the last rebuild, among the
+	 * names looked up that did not exist.
+	 *
+	 * @return the rate between zero and one
+	 */
+	public double getFalsePositiveRate() {
+		final long positives = falsePositives.sum();
+		final long total = positives + trueNegatives.sum();
+		return total == 0 ? 0 : (double) positives / total;
+	}
+
+	/**
+	 * Returns the false positive rate expected from the bits set in the filter.
+	 *
+	 * @return the rate between zero and one
+	 */
+	public double getExpectedFalsePositiveRate() {
+		return enabled ? filter.expectedFalsePositiveRate() : 0;
+	}
+
+	/**
+	 * Returns how many times the filter was rebuilt because it drifted.
+	 *
+	 * @return the number of rebuilds
+	 */
+	public long getRebuilds() {
+		return rebuilds.get();
+	}
+
+	private boolean isDrifted() {
+		final long samples = falsePositives.sum() + trueNegatives.sum();
+		return samples >= MIN_SAMPLES && getFalsePositiveRate() > falsePositiveRate * 2
+				|| getExpectedFalsePositiveRate() > falsePositiveRate * 2;
+	}
+
+	/**
+	 * Reads the names of the database into a new filter. The names added
+	 * meanwhile go to the new filter as well, and the names still pending are
+	 * copied, so no name is lost between the read and the swap.
+	 */
+	private void build(final long count) {
+		final BloomFilter next = new BloomFilter(Math.max(count * 2, MIN_CAPACITY), falsePositiveRate);
+		building = next;
+		try {
+			pending.forEach(next::put);
+			transactionTemplate.executeWithoutResult(status -> {
+				try (Stream<String> names = beerRepository.streamNames()) {
+					names.forEach(next::put);
+				}
+			});
+			filter = next;
+		} finally {
+			building = null;
+		}
+	}
+}
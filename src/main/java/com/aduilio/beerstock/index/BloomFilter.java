@@ -0,0 +1,112 @@
+package com.aduilio.beerstock.index;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A set of strings that answers if a string might have been added or was
+ * certainly not added, using a few bits per string. The bits are set with
+ * compare-and-set, so it can be read and written by many threads without
+ * locks.
+ */
+final class BloomFilter {
+
+	private final AtomicLongArray words;
+
+	private final long bits;
+
+	private final int hashes;
+
+	private final AtomicLong bitsSet = new AtomicLong();
+
+	/**
+	 * Creates a filter sized for the insertions and false positive rate informed.
+	 *
+	 * @param expectedInsertions number of strings expected
+	 * @param falsePositiveRate  expected with that number of strings
+	 */
+	BloomFilter(final long expectedInsertions, final double falsePositiveRate) {
+		final long insertions = Math.max(expectedInsertions, 1);
+		final long optimalBits = (long) (-insertions * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+		words = new AtomicLongArray((int) Math.max((optimalBits + Long.SIZE - 1) / Long.SIZE, 1));
+		bits = (long) words.length() * Long.SIZE;
+		hashes = Math.max((int) Math.round((double) bits / insertions * Math.log(2)), 1);
+	}
+
+	/**
+	 * Adds a string.
+	 *
+	 * @param value to be added
+	 */
+	void put(final String value) {
+		final long hash = hash(value);
+		final int first = (int) hash;
+		final int second = (int) (hash >>> 32);
+		for (int i = 1; i <= hashes; i++) {
+			final long bit = index(first, second, i);
+			final int word = (int) (bit >>> 6);
+			final long mask = 1L << bit;
+			long current;
+			do {
+				current = words.get(word);
+				if ((current & mask) != 0) {
+					break;
+				}
+			} while (!words.compareAndSet(word, current, current | mask));
+
+			if ((current & mask) == 0) {
+				bitsSet.incrementAndGet();
+			}
+		}
+	}
+
+	/**
+	 * Verifies if a string might have been added.
+	 *
+	 * @param value to be verified
+	 *
+	 * @return false if the string was certainly not added
+	 */
+	boolean mightContain(final String value) {
+		final long hash = hash(value);
+		final int first = (int) hash;
+		final int second = (int) (hash >>> 32);
+		for (int i = 1; i <= hashes; i++) {
+			final long bit = index(first, second, i);
+			if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Estimates the false positive rate from the bits already set.
+	 *
+	 * @return the rate between zero and one
+	 */
+	double expectedFalsePositiveRate() {
+		return Math.pow((double) bitsSet.get() / bits, hashes);
+	}
+
+	private long index(final int first, final int second, final int i) {
+		// the hashes are combined as proposed by Kirsch and Mitzenmacher
+		final long combined = first + (long) i * second;
+		return (combined < 0 ? ~combined : combined) % bits;
+	}
+
+	private static long hash(final String value) {
+		// FNV-1a over the chars, finished with the mix of MurmurHash3
+		long hash = 0xcbf29ce484222325L;
+		for (int i = 0; i < value.length(); i++) {
+			hash ^= value.charAt(i);
+			hash *= 0x100000001b3L;
+		}
+		hash ^= hash >>> 33;
+		hash *= 0xff51afd7ed558ccdL;
+		hash ^= hash >>> 33;
+		hash *= 0xc4ceb9fe1a85ec53L;
+		hash ^= hash >>> 33;
+		return hash;
+	}
+}
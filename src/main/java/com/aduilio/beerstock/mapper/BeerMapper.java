@@ -1,6 +1,7 @@
 package com.aduilio.beerstock.mapper;
 
 import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
 import org.mapstruct.factory.Mappers;
 
 import com.aduilio.beerstock.dto.BeerDto;
@@ -16,5 +17,7 @@ public interface BeerMapper {
 
 	BeerDto mapBeerDtoFrom(final Beer beer);
 
+	@Mapping(target = "reserved", ignore = true)
+	@Mapping(target = "version", ignore = true)
 	Beer mapBeerFrom(final BeerDto beerDto);
 }
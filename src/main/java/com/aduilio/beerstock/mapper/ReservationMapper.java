@@ -0,0 +1,18 @@
+package com.aduilio.beerstock.mapper;
+
+import org.mapstruct.Mapper;
+import org.mapstruct.factory.Mappers;
+
+import com.aduilio.beerstock.dto.ReservationDto;
+import com.aduilio.beerstock.entity.Reservation;
+
+/**
+ * Maps the Reservation entity and DTO.
+ */
+@Mapper
+public interface ReservationMapper {
+
+	ReservationMapper INSTANCE = Mappers.getMapper(ReservationMapper.class);
+
+	ReservationDto mapReservationDtoFrom(final Reservation reservation);
+}
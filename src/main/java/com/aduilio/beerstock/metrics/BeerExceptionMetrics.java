@@ -0,0 +1,48 @@
+package com.aduilio.beerstock.metrics;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.Ordered;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.HandlerExceptionResolver;
+import org.springframework.web.servlet.ModelAndView;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Counts the exceptions thrown by the endpoints, tagged by their class. It runs
+ * before the other resolvers and does not resolve the exception, so the
+ * response is still given by the {@code @ResponseStatus} of each exception.
+ */
+@Component
+public class BeerExceptionMetrics implements HandlerExceptionResolver, Ordered {
+
+	static final String EXCEPTIONS = "beerstock.exceptions";
+
+	private final MeterRegistry meterRegistry;
+
+	@Autowired
+	public BeerExceptionMetrics(final MeterRegistry meterRegistry) {
+		this.meterRegistry = meterRegistry;
+	}
+
+	@Override
+	public ModelAndView resolveException(final HttpServletRequest request, final HttpServletResponse response,
+			final Object handler, final Exception ex) {
+		Counter.builder(EXCEPTIONS)
+				.description("Exceptions thrown by the endpoints")
+				.tag("exception", ex.getClass()
+						.getSimpleName())
+				.register(meterRegistry)
+				.increment();
+		return null;
+	}
+
+	@Override
+	public int getOrder() {
+		return Ordered.HIGHEST_PRECEDENCE;
+	}
+}
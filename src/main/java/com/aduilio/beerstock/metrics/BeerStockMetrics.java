@@ -0,0 +1,61 @@
+package com.aduilio.beerstock.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.aduilio.beerstock.config.BeerstockProperties;
+import com.aduilio.beerstock.repository.BeerRepository;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+/**
+ * Publishes the total stock and the number of beers with low stock. Both scan
+ * the whole table, so they are read from the database at the interval set by
+ * the property {@code beerstock.metrics.refresh-interval} in milliseconds, and
+ * the scrapes read the last values. The changes still held by the ledger
+ * engine are only seen after its flush.
+ */
+@Component
+public class BeerStockMetrics implements MeterBinder {
+
+	private final BeerRepository beerRepository;
+
+	private final double lowStockRatio;
+
+	private final AtomicLong total = new AtomicLong();
+
+	private final AtomicLong lowStock = new AtomicLong();
+
+	@Autowired
+	public BeerStockMetrics(final BeerRepository beerRepository, final BeerstockProperties beerstockProperties) {
+		this.beerRepository = beerRepository;
+		this.lowStockRatio = beerstockProperties.getMetrics()
+				.getLowStockRatio();
+	}
+
+	/**
+	 * Reads the values of the gauges from the database.
+	 */
+	@Scheduled(fixedDelayString = "${beerstock.metrics.refresh-interval:10000}")
+	public void refresh() {
+		total.set(beerRepository.sumQuantity());
+		lowStock.set(beerRepository.countLowStock(lowStockRatio));
+	}
+
+	@Override
+	public void bindTo(final MeterRegistry registry) {
+		Gauge.builder("beerstock.stock.total", total, AtomicLong::get)
+				.description("Beers in stock")
+				.baseUnit("beers")
+				.register(registry);
+		Gauge.builder("beerstock.stock.low", lowStock, AtomicLong::get)
+				.description("Beers with the stock at or below " + lowStockRatio + " of their max")
+				.tag("ratio", String.valueOf(lowStockRatio))
+				.register(registry);
+	}
+}
@@ -0,0 +1,28 @@
+package com.aduilio.beerstock.metrics;
+
+import javax.persistence.EntityManagerFactory;
+
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.jpa.HibernateQueryMetrics;
+
+/**
+ * Publishes the statistics of each query, once it has loaded an entity. The
+ * statistics of the session
+ * factory, such as the statements and the entities loaded, are published by
+ * Spring Boot when {@code hibernate.generate_statistics} is enabled.
+ */
+@Configuration
+public class MetricsConfiguration {
+
+	@Bean
+	public MeterBinder hibernateQueryMetrics(final EntityManagerFactory entityManagerFactory) {
+		// the proxy of Spring implements SessionFactory, but the listeners are only
+		// registered in the implementation
+		return registry -> HibernateQueryMetrics.monitor(registry,
+				entityManagerFactory.unwrap(SessionFactoryImplementor.class), "entityManagerFactory");
+	}
+}
@@ -1,9 +1,26 @@
 package com.aduilio.beerstock.repository;
 
+import static org.hibernate.jpa.QueryHints.HINT_CACHEABLE;
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.QueryHints.HINT_READONLY;
+
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
+
+import javax.persistence.LockModeType;
+import javax.persistence.QueryHint;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
+import com.aduilio.beerstock.dto.BeerDto;
 import com.aduilio.beerstock.entity.Beer;
 
 /**
@@ -11,6 +28,12 @@ import com.aduilio.beerstock.entity.Beer;
  */
 public interface BeerRepository extends JpaRepository<Beer, Long> {
 
+	/**
+	 * Selects the beers straight into {@link BeerDto}, without managed entities.
+	 */
+	String SELECT_DTO = "select new com.aduilio.beerstock.dto.BeerDto("
+			+ "b.id, b.name, b.brand, b.max, b.quantity, b.reserved, b.type, b.version) from Beer b ";
+
 	/**
 	 * Finds a beer by name.
 	 *
@@ -19,4 +42,222 @@ public interface BeerRepository extends JpaRepository<Beer, Long> {
 	 * @return an {@link Optional} of {@link Beer}
 	 */
 	Optional<Beer> findByName(String name);
+
+	/**
+	 * Finds the id of a beer by name.
+	 *
+	 * @param name of the beer
+	 *
+	 * @return an {@link Optional} of the id
+	 */
+	@Query("select b.id from Beer b where b.name = :name")
+	Optional<Long> findIdByName(@Param("name") String name);
+
+	/**
+	 * Finds a beer by id as a {@link BeerDto}.
+	 *
+	 * @param id of the beer
+	 *
+	 * @return an {@link Optional} of {@link BeerDto}
+	 */
+	@Query(SELECT_DTO + "where b.id = :id")
+	Optional<BeerDto> findDtoById(@Param("id") Long id);
+
+	/**
+	 * Finds the beers by id as {@link BeerDto}.
+	 *
+	 * @param ids of the beers
+	 *
+	 * @return {@link List} of {@link BeerDto} found
+	 */
+	@Query(SELECT_DTO + "where b.id in :ids")
+	List<BeerDto> findDtoByIdIn(@Param("ids") Collection<Long> ids);
+
+	/**
+	 * Finds which of the names already exist.
+	 *
+	 * @param names to be searched
+	 *
+	 * @return {@link List} with the names found
+	 */
+	@Query("select b.name from Beer b where b.name in :names")
+	List<String> findNamesIn(@Param("names") Collection<String> names);
+
+	/**
+	 * Streams the names of all the beers. It must be called inside a transaction
+	 * and the stream must be closed.
+	 *
+	 * @return {@link Stream} of the names
+	 */
+	@QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "500"))
+	@Query("select b.name from Beer b")
+	Stream<String> streamNames();
+
+	/**
+	 * Adds the quantity to the stock of a beer in a single statement, only if the
+	 * result stays between the reserved and the max of the beer. The bounds are
+	 * checked against the room left on each side, so a quantity near the limits
+	 * of an int does not overflow the sum. The version of the beer is
+	 * incremented.
+	 *
+	 * @param id       of the beer
+	 * @param quantity to increment, negative to decrement
+	 *
+	 * @return the number of rows updated, zero if the beer does not exist or the
+	 *         result would be out of bounds
+	 */
+	@Modifying(clearAutomatically = true)
+	@Query("update versioned Beer b set b.quantity = b.quantity + :quantity "
+			+ "where b.id = :id and b.max - b.quantity >= :quantity and b.reserved - b.quantity <= :quantity")
+	int incrementQuantity(@Param("id") Long id, @Param("quantity") int quantity);
+
+	/**
+	 * Sets the quantity of a beer only if its version is still the one read,
+	 * incrementing the version.
+	 *
+	 * @param id       of the beer
+	 * @param version  read with the quantity
+	 * @param quantity to set
+	 *
+	 * @return the number of rows updated, zero if the beer does not exist or
+	 *         was changed since it was read
+	 */
+	@Modifying(clearAutomatically = true)
+	@Query("update versioned Beer b set b.quantity = :quantity where b.id = :id and b.version = :version")
+	int updateQuantity(@Param("id") Long id, @Param("version") Long version, @Param("quantity") int quantity);
+
+	/**
+	 * Adds the quantity to the reserved of a beer in a single statement, only if
+	 * the stock available, the quantity minus the reserved, covers it. The
+	 * version of the beer is incremented.
+	 *
+	 * @param id       of the beer
+	 * @param quantity to reserve
+	 *
+	 * @return the number of rows updated, zero if the beer does not exist or the
+	 *         stock available is not enough
+	 */
+	@Modifying(clearAutomatically = true)
+	@Query("update versioned Beer b set b.reserved = b.reserved + :quantity "
+			+ "where b.id = :id and b.quantity - b.reserved >= :quantity")
+	int reserve(@Param("id") Long id, @Param("quantity") int quantity);
+
+	/**
+	 * Removes the quantity from the reserved of a beer, making it available again.
+	 * The version of the beer is incremented.
+	 *
+	 * @param id       of the beer
+	 * @param quantity reserved before
+	 *
+	 * @return the number of rows updated, zero if the beer does not exist
+	 */
+	@Modifying(clearAutomatically = true)
+	@Query("update versioned Beer b set b.reserved = b.reserved - :quantity where b.id = :id")
+	int release(@Param("id") Long id, @Param("quantity") int quantity);
+
+	/**
+	 * Removes the quantity from both the stock and the reserved of a beer. The
+	 * version of the beer is incremented.
+	 *
+	 * @param id       of the beer
+	 * @param quantity reserved before
+	 *
+	 * @return the number of rows updated, zero if the beer does not exist
+	 */
+	@Modifying(clearAutomatically = true)
+	@Query("update versioned Beer b set b.quantity = b.quantity - :quantity, b.reserved = b.reserved - :quantity "
+			+ "where b.id = :id")
+	int commitReserved(@Param("id") Long id, @Param("quantity") int quantity);
+
+	/**
+	 * Finds a beer by id locking it until the end of the transaction.
+	 *
+	 * @param id of the beer
+	 *
+	 * @return {@link Optional} of {@link Beer}
+	 */
+	@Lock(LockModeType.PESSIMISTIC_WRITE)
+	@Query("select b from Beer b where b.id = :id")
+	Optional<Beer> findByIdForUpdate(@Param("id") Long id);
+
+	/**
+	 * Finds the beers by id locking them until the end of the transaction. The
+	 * rows are locked in the order of the id to avoid deadlocks.
+	 *
+	 * @param ids of the beers
+	 *
+	 * @return {@link List} of {@link Beer} found
+	 */
+	@Lock(LockModeType.PESSIMISTIC_WRITE)
+	@Query("select b from Beer b where b.id in :ids order by b.id")
+	List<Beer> findAllForUpdate(@Param("ids") Collection<Long> ids);
+
+	/**
+	 * Finds the beers with the id greater than the one informed, ordered by id.
+	 *
+	 * @param id       of the last beer of the previous page
+	 * @param pageable with the size of the page
+	 *
+	 * @return {@link List} of {@link BeerDto}
+	 */
+	@Query(SELECT_DTO + "where b.id > :id order by b.id")
+	List<BeerDto> findPageById(@Param("id") long id, Pageable pageable);
+
+	/**
+	 * Finds the beers with the name greater than the one informed, ordered by
+	 * name.
+	 *
+	 * @param name     of the last beer of the previous page
+	 * @param pageable with the size of the page
+	 *
+	 * @return {@link List} of {@link BeerDto}
+	 */
+	@Query(SELECT_DTO + "where b.name > :name order by b.name")
+	List<BeerDto> findPageByName(@Param("name") String name, Pageable pageable);
+
+	/**
+	 * Finds the beers after the quantity and id informed, ordered by quantity and
+	 * id. The quantity is bounded on its own, so the scan of the index on the
+	 * quantity and the id starts at the quantity instead of at the first beer.
+	 *
+	 * @param quantity of the last beer of the previous page
+	 * @param id       of the last beer of the previous page
+	 * @param pageable with the size of the page
+	 *
+	 * @return {@link List} of {@link BeerDto}
+	 */
+	@Query(SELECT_DTO + "where b.quantity >= :quantity and (b.quantity > :quantity or b.id > :id) "
+			+ "order by b.quantity, b.id")
+	List<BeerDto> findPageByQuantity(@Param("quantity") int quantity, @Param("id") long id, Pageable pageable);
+
+	/**
+	 * Streams all the beers ordered by id. The rows are fetched from the database
+	 * in blocks and the entities are read only, so Hibernate keeps no snapshot of
+	 * them. It must be called inside a transaction and the stream must be closed.
+	 *
+	 * @return {@link Stream} of {@link Beer}
+	 */
+	@QueryHints({ @QueryHint(name = HINT_FETCH_SIZE, value = "500"),
+			@QueryHint(name = HINT_READONLY, value = "true"),
+			@QueryHint(name = HINT_CACHEABLE, value = "false") })
+	@Query("select b from Beer b order by b.id")
+	Stream<Beer> streamAll();
+
+	/**
+	 * Sums the stock of all the beers.
+	 *
+	 * @return the total quantity
+	 */
+	@Query("select coalesce(sum(b.quantity), 0) from Beer b")
+	long sumQuantity();
+
+	/**
+	 * Counts the beers whose stock is at or below a share of their max.
+	 *
+	 * @param ratio of the max, between zero and one
+	 *
+	 * @return the number of beers
+	 */
+	@Query("select count(b) from Beer b where b.quantity <= b.max * cast(:ratio as double)")
+	long countLowStock(@Param("ratio") double ratio);
 }
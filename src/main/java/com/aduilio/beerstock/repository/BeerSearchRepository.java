@@ -0,0 +1,144 @@
+package com.aduilio.beerstock.repository;
+
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import javax.persistence.EntityManager;
+import javax.persistence.TypedQuery;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Repository;
+
+import com.aduilio.beerstock.dto.BeerDto;
+import com.aduilio.beerstock.dto.BeerFilterDto;
+import com.aduilio.beerstock.enums.BeerType;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Searches the beers by the filters informed. The queries only have the
+ * conditions of the filters informed, instead of a condition that accepts
+ * nulls for each filter, so the database can use the index of the filter:
+ * {@code idx_beer_type_id} for the type, {@code idx_beer_brand_id} for the
+ * brand and {@code idx_beer_quantity_id} for the quantity.
+ */
+@Repository
+@AllArgsConstructor(onConstructor = @__(@Autowired))
+public class BeerSearchRepository {
+
+	private static final String COUNT_BY_TYPE_AND_BRAND = "select b.type, b.brand, count(b) from Beer b ";
+
+	private final EntityManager entityManager;
+
+	/**
+	 * Finds the beers of the filters with the id greater than the one informed,
+	 * ordered by id.
+	 *
+	 * @param filter of the beers
+	 * @param id     of the last beer of the previous page
+	 * @param size   of the page
+	 *
+	 * @return {@link List} of {@link BeerDto}
+	 */
+	public List<BeerDto> findPageById(final BeerFilterDto filter, final long id, final int size) {
+		final Where where = new Where(filter).and("b.id > :id");
+		final TypedQuery<BeerDto> query = entityManager
+				.createQuery(BeerRepository.SELECT_DTO + where + "order by b.id", BeerDto.class)
+				.setParameter("id", id)
+				.setMaxResults(size);
+		where.bind(query);
+		return query.getResultList();
+	}
+
+	/**
+	 * Counts the beers of the filters by type and by brand, with a single query
+	 * grouped by both.
+	 *
+	 * @param filter of the beers
+	 *
+	 * @return {@link Facets}
+	 */
+	public Facets countByTypeAndBrand(final BeerFilterDto filter) {
+		final Where where = new Where(filter);
+		final TypedQuery<Object[]> query = entityManager
+				.createQuery(COUNT_BY_TYPE_AND_BRAND + where + "group by b.type, b.brand", Object[].class);
+		where.bind(query);
+
+		final Map<BeerType, Long> types = new EnumMap<>(BeerType.class);
+		final Map<String, Long> brands = new TreeMap<>();
+		for (final Object[] row : query.getResultList()) {
+			final long count = (Long) row[2];
+			types.merge((BeerType) row[0], count, Long::sum);
+			brands.merge((String) row[1], count, Long::sum);
+		}
+		return new Facets(types, brands);
+	}
+
+	/**
+	 * The number of beers by type and by brand.
+	 */
+	@Getter
+	@AllArgsConstructor
+	public static class Facets {
+
+		private final Map<BeerType, Long> types;
+
+		private final Map<String, Long> brands;
+	}
+
+	/**
+	 * The conditions of the filters informed.
+	 */
+	private static class Where {
+
+		private final BeerFilterDto filter;
+
+		private final StringBuilder conditions = new StringBuilder();
+
+		Where(final BeerFilterDto filter) {
+			this.filter = filter;
+			if (filter.getType() != null) {
+				and("b.type = :type");
+			}
+			if (filter.getBrand() != null) {
+				and("b.brand = :brand");
+			}
+			if (filter.getMinQuantity() != null) {
+				and("b.quantity >= :minQuantity");
+			}
+			if (filter.getMaxQuantity() != null) {
+				and("b.quantity <= :maxQuantity");
+			}
+		}
+
+		Where and(final String condition) {
+			conditions.append(conditions.length() == 0 ? "where " : "and ")
+					.append(condition)
+					.append(' ');
+			return this;
+		}
+
+		void bind(final TypedQuery<?> query) {
+			if (filter.getType() != null) {
+				query.setParameter("type", filter.getType());
+			}
+			if (filter.getBrand() != null) {
+				query.setParameter("brand", filter.getBrand());
+			}
+			if (filter.getMinQuantity() != null) {
+				query.setParameter("minQuantity", filter.getMinQuantity());
+			}
+			if (filter.getMaxQuantity() != null) {
+				query.setParameter("maxQuantity", filter.getMaxQuantity());
+			}
+		}
+
+		@Override
+		public String toString() {
+			return conditions.toString();
+		}
+	}
+}
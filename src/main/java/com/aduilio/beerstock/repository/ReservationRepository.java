@@ -0,0 +1,42 @@
+package com.aduilio.beerstock.repository;
+
+import java.time.Instant;
+import java.util.List;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import com.aduilio.beerstock.entity.Reservation;
+
+/**
+ * Provides the access to the reservations in the database.
+ */
+public interface ReservationRepository extends JpaRepository<Reservation, String> {
+
+	/**
+	 * Finds the reservations expired at the instant informed, the oldest first.
+	 * Only the index of the expiration is scanned.
+	 *
+	 * @param now      the current instant
+	 * @param pageable with the size of the page
+	 *
+	 * @return {@link List} of {@link Reservation}
+	 */
+	@Query("select r from Reservation r where r.expiresAt <= :now order by r.expiresAt")
+	List<Reservation> findExpired(@Param("now") Instant now, Pageable pageable);
+
+	/**
+	 * Deletes a reservation. Only one of the concurrent deletes of the same
+	 * reservation deletes its row, so only that one changes the beer.
+	 *
+	 * @param id of the reservation
+	 *
+	 * @return the number of rows deleted, zero if it was already deleted
+	 */
+	@Modifying(clearAutomatically = true)
+	@Query("delete from Reservation r where r.id = :id")
+	int remove(@Param("id") String id);
+}
@@ -0,0 +1,370 @@
+package com.aduilio.beerstock.repository;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import com.aduilio.beerstock.config.BeerstockProperties;
+import com.aduilio.beerstock.dto.BeerDto;
+import com.aduilio.beerstock.enums.BeerType;
+import com.aduilio.beerstock.shard.Shards;
+
+/**
+ * Reads and writes the beers split across the {@link Shards}, for the
+ * {@code sharded} profile. The beer is in the shard of its id and the name, in
+ * the table {@code beer_name}, in the shard of the name, whose primary key
+ * keeps the names unique across the shards.
+ * <p>
+ * Each statement runs in its own transaction in a single shard, so the changes
+ * that must be atomic are done in a single statement. The pages and the whole
+ * catalog are read from all the shards and merged in order, reading from each
+ * shard only the beers that may come next.
+ */
+@Repository
+@Profile("sharded")
+public class ShardedBeerRepository {
+
+	static final String COLUMNS = "id, name, brand, max, quantity, reserved, type, version";
+
+	private static final String SELECT = "select " + COLUMNS + " from beer ";
+
+	/**
+	 * The sequence of the first shard hands out blocks of ids, one block for
+	 * each value.
+	 */
+	private static final String NEXT_BLOCK = "select next value for beer_sequence";
+
+	private static final int BLOCK_SIZE = 50;
+
+	private static final String INSERT_NAME = "insert into beer_name (name, id) values (:name, :id)";
+
+	private static final String INSERT = "insert into beer (" + COLUMNS
+			+ ") values (:id, :name, :brand, :max, :quantity, 0, :type, 0)";
+
+	private static final String INCREMENT_QUANTITY = "update beer set quantity = quantity + :quantity, "
+			+ "version = version + 1 where id = :id and max - quantity >= :quantity and reserved - quantity <= :quantity";
+
+	private static final Comparator<BeerDto> BY_ID = Comparator.comparing(BeerDto::getId);
+
+	private static final Comparator<BeerDto> BY_NAME = Comparator.comparing(BeerDto::getName);
+
+	private static final Comparator<BeerDto> BY_QUANTITY = Comparator.comparingInt(BeerDto::getQuantity)
+			.thenComparing(BY_ID);
+
+	private final Shards shards;
+
+	private final int fetchSize;
+
+	private long nextId;
+
+	private long lastId;
+
+	@Autowired
+	public ShardedBeerRepository(final Shards shards, final BeerstockProperties beerstockProperties) {
+		this.shards = shards;
+		this.fetchSize = beerstockProperties.getSharding()
+				.getFetchSize();
+	}
+
+	/**
+	 * Inserts a beer. The name is claimed first, in the shard of the name, so a
+	 * name created concurrently fails before the beer is inserted, and it is
+	 * released if the beer could not be inserted.
+	 *
+	 * @param beerDto the beer
+	 *
+	 * @return the id of the beer
+	 * @throws DuplicateKeyException if the name already exists
+	 */
+	public long insert(final BeerDto beerDto) {
+		final long id = nextId();
+		shards.get(shards.ofName(beerDto.getName()))
+				.update(INSERT_NAME, new MapSqlParameterSource("name", beerDto.getName()).addValue("id", id));
+		try {
+			shards.get(shards.ofId(id))
+					.update(INSERT, new MapSqlParameterSource("id", id).addValue("name", beerDto.getName())
+							.addValue("brand", beerDto.getBrand())
+							.addValue("max", beerDto.getMax())
+							.addValue("quantity", beerDto.getQuantity())
+							.addValue("type", beerDto.getType()
+									.name()));
+		} catch (final RuntimeException e) {
+			deleteName(beerDto.getName(), id);
+			throw e;
+		}
+		return id;
+	}
+
+	/**
+	 * Finds a beer by id, in the shard of the id.
+	 *
+	 * @param id of the beer
+	 *
+	 * @return {@link Optional} of {@link BeerDto}
+	 */
+	public Optional<BeerDto> findById(final long id) {
+		return shards.get(shards.ofId(id))
+				.query(SELECT + "where id = :id", new MapSqlParameterSource("id", id), ShardedBeerRepository::map)
+				.stream()
+				.findFirst();
+	}
+
+	/**
+	 * Finds a beer by name, reading its id in the shard of the name and the beer
+	 * in the shard of the id.
+	 *
+	 * @param name of the beer
+	 *
+	 * @return {@link Optional} of {@link BeerDto}
+	 */
+	public Optional<BeerDto> findByName(final String name) {
+		return shards.get(shards.ofName(name))
+				.query("select id from beer_name where name = :name", new MapSqlParameterSource("name", name),
+						(row, index) -> row.getLong(1))
+				.stream()
+				.findFirst()
+				.flatMap(this::findById);
+	}
+
+	/**
+	 * Finds a page of beers ordered by id, after the id informed.
+	 *
+	 * @param id   of the last beer read
+	 * @param size of the page
+	 *
+	 * @return {@link List} of {@link BeerDto}
+	 */
+	public List<BeerDto> findPageById(final long id, final int size) {
+		return gather(SELECT + "where id > :id order by id limit :size",
+				new MapSqlParameterSource("id", id).addValue("size", size), BY_ID, size);
+	}
+
+	/**
+	 * Finds a page of beers ordered by name, after the name informed.
+	 *
+	 * @param name of the last beer read
+	 * @param size of the page
+	 *
+	 * @return {@link List} of {@link BeerDto}
+	 */
+	public List<BeerDto> findPageByName(final String name, final int size) {
+		return gather(SELECT + "where name > :name order by name limit :size",
+				new MapSqlParameterSource("name", name).addValue("size", size), BY_NAME, size);
+	}
+
+	/**
+	 * Finds a page of beers ordered by quantity and id, after the quantity and
+	 * id informed.
+	 *
+	 * @param quantity of the last beer read
+	 * @param id       of the last beer read
+	 * @param size     of the page
+	 *
+	 * @return {@link List} of {@link BeerDto}
+	 */
+	public List<BeerDto> findPageByQuantity(final int quantity, final long id, final int size) {
+		return gather(
+				SELECT + "where quantity >= :quantity and (quantity > :quantity or id > :id) "
+						+ "order by quantity, id limit :size",
+				new MapSqlParameterSource("quantity", quantity).addValue("id", id)
+						.addValue("size", size),
+				BY_QUANTITY, size);
+	}
+
+	/**
+	 * Streams all the beers ordered by id, merging the shards. Each shard is
+	 * read by pages of the fetch size when its beers are needed, so the memory
+	 * used does not depend on the size of the catalog.
+	 *
+	 * @return {@link Stream} of {@link BeerDto}
+	 */
+	public Stream<BeerDto> findAll() {
+		return StreamSupport.stream(Spliterators.spliteratorUnknownSize(new MergeIterator(),
+				Spliterator.ORDERED | Spliterator.NONNULL), false);
+	}
+
+	/**
+	 * Adds a quantity to the stock of a beer, in a single statement, when the
+	 * stock stays between the reserved and the max of the beer.
+	 *
+	 * @param id       of the beer
+	 * @param quantity to add, negative to remove
+	 *
+	 * @return the number of rows updated
+	 */
+	public int incrementQuantity(final long id, final int quantity) {
+		return shards.get(shards.ofId(id))
+				.update(INCREMENT_QUANTITY, new MapSqlParameterSource("id", id).addValue("quantity", quantity));
+	}
+
+	/**
+	 * Deletes a beer and then its name.
+	 *
+	 * @param beerDto the beer
+	 *
+	 * @return the number of beers deleted
+	 */
+	public int delete(final BeerDto beerDto) {
+		final int rows = shards.get(shards.ofId(beerDto.getId()))
+				.update("delete from beer where id = :id", new MapSqlParameterSource("id", beerDto.getId()));
+		deleteName(beerDto.getName(), beerDto.getId());
+		return rows;
+	}
+
+	/**
+	 * Maps a row with the {@link #COLUMNS}.
+	 *
+	 * @param row   of the beer
+	 * @param index of the row
+	 *
+	 * @return {@link BeerDto}
+	 * @throws SQLException if a column could not be read
+	 */
+	static BeerDto map(final ResultSet row, final int index) throws SQLException {
+		return BeerDto.builder()
+				.id(row.getLong("id"))
+				.name(row.getString("name"))
+				.brand(row.getString("brand"))
+				.max(row.getInt("max"))
+				.quantity(row.getInt("quantity"))
+				.reserved(row.getInt("reserved"))
+				.type(BeerType.valueOf(row.getString("type")))
+				.version(row.getLong("version"))
+				.build();
+	}
+
+	private void deleteName(final String name, final long id) {
+		shards.get(shards.ofName(name))
+				.update("delete from beer_name where name = :name and id = :id",
+						new MapSqlParameterSource("name", name).addValue("id", id));
+	}
+
+	/**
+	 * Takes the next id, from the block of ids taken from the first shard.
+	 */
+	private synchronized long nextId() {
+		if (nextId == 0 || nextId > lastId) {
+			final Long block = shards.get(0)
+					.getJdbcTemplate()
+					.queryForObject(NEXT_BLOCK, Long.class);
+			nextId = block;
+			lastId = block + BLOCK_SIZE - 1;
+		}
+		return nextId++;
+	}
+
+	/**
+	 * Runs the query of a page in all the shards and keeps the first beers of
+	 * all, since each shard returned its first beers.
+	 */
+	private List<BeerDto> gather(final String query, final MapSqlParameterSource parameters,
+			final Comparator<BeerDto> comparator, final int size) {
+		final List<BeerDto> beers = new ArrayList<>();
+		shards.scatter(template -> template.query(query, parameters, ShardedBeerRepository::map))
+				.forEach(beers::addAll);
+		beers.sort(comparator);
+		return beers.size() > size ? new ArrayList<>(beers.subList(0, size)) : beers;
+	}
+
+	/**
+	 * Merges the beers of the shards by id, keeping the next beer of each shard
+	 * in a heap.
+	 */
+	private final class MergeIterator implements Iterator<BeerDto> {
+
+		private final PriorityQueue<ShardCursor> heads = new PriorityQueue<>(Comparator.comparing(
+				cursor -> cursor.head()
+						.getId()));
+
+		private MergeIterator() {
+			for (int shard = 0; shard < shards.count(); shard++) {
+				final ShardCursor cursor = new ShardCursor(shards.get(shard));
+				if (cursor.advance()) {
+					heads.add(cursor);
+				}
+			}
+		}
+
+		@Override
+		public boolean hasNext() {
+			return !heads.isEmpty();
+		}
+
+		@Override
+		public BeerDto next() {
+			final ShardCursor cursor = heads.poll();
+			if (cursor == null) {
+				throw new NoSuchElementException();
+			}
+			final BeerDto beer = cursor.head();
+			if (cursor.advance()) {
+				heads.add(cursor);
+			}
+			return beer;
+		}
+	}
+
+	/**
+	 * Reads the beers of a shard by id, a page at a time.
+	 */
+	private final class ShardCursor {
+
+		private final NamedParameterJdbcTemplate template;
+
+		private List<BeerDto> page = new ArrayList<>();
+
+		private int position = -1;
+
+		private long lastId;
+
+		private ShardCursor(final NamedParameterJdbcTemplate template) {
+			this.template = template;
+		}
+
+		private BeerDto head() {
+			return page.get(position);
+		}
+
+		/**
+		 * Moves to the next beer of the shard, reading the next page when needed.
+		 *
+		 * @return false if there are no more beers
+		 */
+		private boolean advance() {
+			if (++position < page.size()) {
+				return true;
+			}
+			// a page shorter than the fetch size was the last one
+			if (position > 0 && page.size() < fetchSize) {
+				return false;
+			}
+
+			page = template.query(SELECT + "where id > :id order by id limit :size",
+					new MapSqlParameterSource("id", lastId).addValue("size", fetchSize), ShardedBeerRepository::map);
+			position = 0;
+			if (page.isEmpty()) {
+				return false;
+			}
+			lastId = page.get(page.size() - 1)
+					.getId();
+			return true;
+		}
+	}
+}
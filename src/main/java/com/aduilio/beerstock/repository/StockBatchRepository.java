@@ -0,0 +1,47 @@
+package com.aduilio.beerstock.repository;
+
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import lombok.AllArgsConstructor;
+
+/**
+ * Writes the stock of many beers with JDBC batches.
+ */
+@Repository
+@AllArgsConstructor(onConstructor = @__(@Autowired))
+public class StockBatchRepository {
+
+	private static final int BATCH_SIZE = 100;
+
+	private static final String UPDATE_QUANTITY = "update beer set quantity = ?, version = version + 1 where id = ?";
+
+	private final JdbcTemplate jdbcTemplate;
+
+	/**
+	 * Sets the quantity of the beers. Must be called in the transaction that
+	 * validated the quantities.
+	 *
+	 * @param quantities by the id of the beer
+	 *
+	 * @return the number of rows updated
+	 */
+	public int updateQuantities(final Map<Long, Integer> quantities) {
+		int updated = 0;
+		for (final int[] batch : jdbcTemplate.batchUpdate(UPDATE_QUANTITY, new ArrayList<>(quantities.entrySet()),
+				BATCH_SIZE, (statement, entry) -> {
+					statement.setInt(1, entry.getValue());
+					statement.setLong(2, entry.getKey());
+				})) {
+			for (final int rows : batch) {
+				updated += rows == Statement.SUCCESS_NO_INFO ? 1 : rows;
+			}
+		}
+		return updated;
+	}
+}
@@ -0,0 +1,53 @@
+package com.aduilio.beerstock.repository;
+
+import java.util.List;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import com.aduilio.beerstock.dto.StockMovementDto;
+import com.aduilio.beerstock.entity.StockMovement;
+
+/**
+ * Provides the access to the stock movements in the database.
+ */
+public interface StockMovementRepository extends JpaRepository<StockMovement, Long> {
+
+	/**
+	 * Sums the movements of a beer after a number, reading only the range of
+	 * the unique index.
+	 *
+	 * @param beerId   id of the beer
+	 * @param sequence number of the last movement not summed
+	 *
+	 * @return a single row with the sum and the number of the last movement,
+	 *         the one informed when there is none after it
+	 */
+	@Query("select coalesce(sum(m.delta), 0), coalesce(max(m.sequence), :sequence) from StockMovement m "
+			+ "where m.beerId = :beerId and m.sequence > :sequence")
+	List<Object[]> sumAfter(@Param("beerId") Long beerId, @Param("sequence") long sequence);
+
+	/**
+	 * Finds the movements of a beer after a number, in order.
+	 *
+	 * @param beerId   id of the beer
+	 * @param sequence number of the last movement of the previous page
+	 * @param pageable with the size of the page
+	 *
+	 * @return {@link List} of {@link StockMovementDto}
+	 */
+	@Query("select new com.aduilio.beerstock.dto.StockMovementDto(m.sequence, m.delta, m.createdAt) "
+			+ "from StockMovement m where m.beerId = :beerId and m.sequence > :sequence order by m.sequence")
+	List<StockMovementDto> findPageBySequence(@Param("beerId") Long beerId, @Param("sequence") long sequence,
+			Pageable pageable);
+
+	/**
+	 * Finds the beers with movements.
+	 *
+	 * @return {@link List} of the ids
+	 */
+	@Query("select distinct m.beerId from StockMovement m")
+	List<Long> findBeerIds();
+}
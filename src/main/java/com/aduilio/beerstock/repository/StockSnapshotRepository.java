@@ -0,0 +1,28 @@
+package com.aduilio.beerstock.repository;
+
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import com.aduilio.beerstock.entity.StockSnapshot;
+
+/**
+ * Provides the access to the stock snapshots in the database.
+ */
+public interface StockSnapshotRepository extends JpaRepository<StockSnapshot, Long> {
+
+	/**
+	 * Finds a beer and its snapshot in a single statement, so both are read as
+	 * of the same commit.
+	 *
+	 * @param beerId id of the beer
+	 *
+	 * @return a single row with the {@link com.aduilio.beerstock.entity.Beer}
+	 *         and the {@link StockSnapshot}, null if there is none, or no row if
+	 *         the beer does not exist
+	 */
+	@Query("select b, s from Beer b left join StockSnapshot s on s.beerId = b.id where b.id = :beerId")
+	List<Object[]> findBeerAndSnapshot(@Param("beerId") Long beerId);
+}
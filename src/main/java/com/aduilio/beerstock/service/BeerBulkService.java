@@ -0,0 +1,133 @@
+package com.aduilio.beerstock.service;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import javax.persistence.EntityManager;
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.aduilio.beerstock.dto.BeerDto;
+import com.aduilio.beerstock.dto.BulkItemResultDto;
+import com.aduilio.beerstock.entity.Beer;
+import com.aduilio.beerstock.enums.BeerChangeType;
+import com.aduilio.beerstock.enums.BulkItemStatus;
+import com.aduilio.beerstock.event.BeerChangedEvent;
+import com.aduilio.beerstock.exception.BeerAlreadyRegisteredException;
+import com.aduilio.beerstock.index.BeerNameIndex;
+import com.aduilio.beerstock.mapper.BeerMapper;
+import com.aduilio.beerstock.repository.BeerRepository;
+
+import lombok.AllArgsConstructor;
+
+/**
+ * Creates many beers at once. The names are checked with one query per chunk
+ * and the beers are inserted in JDBC batches.
+ */
+@Service
+@AllArgsConstructor(onConstructor = @__(@Autowired))
+public class BeerBulkService {
+
+	static final int CHUNK_SIZE = 500;
+
+	private final BeerRepository beerRepository;
+
+	private final EntityManager entityManager;
+
+	private final Validator validator;
+
+	private final BeerNameIndex beerNameIndex;
+
+	private final ApplicationEventPublisher eventPublisher;
+
+	/**
+	 * Creates the beers that are valid and whose names do not exist yet.
+	 *
+	 * @param beerDtos to be created
+	 *
+	 * @return the result of each beer, in the same order
+	 */
+	@Transactional
+	public List<BulkItemResultDto> create(final List<BeerDto> beerDtos) {
+		final List<BulkItemResultDto> results = new ArrayList<>(beerDtos.size());
+		final Set<String> names = new HashSet<>();
+		for (int start = 0; start < beerDtos.size(); start += CHUNK_SIZE) {
+			results.addAll(createChunk(beerDtos.subList(start, Math.min(start + CHUNK_SIZE, beerDtos.size())), names));
+		}
+		return results;
+	}
+
+	private List<BulkItemResultDto> createChunk(final List<BeerDto> beerDtos, final Set<String> names) {
+		final List<BulkItemResultDto> results = new ArrayList<>(beerDtos.size());
+		final List<BeerDto> valid = new ArrayList<>(beerDtos.size());
+		for (final BeerDto beerDto : beerDtos) {
+			final BulkItemResultDto result = BulkItemResultDto.builder()
+					.name(beerDto.getName())
+					.build();
+			final Set<ConstraintViolation<BeerDto>> violations = validator.validate(beerDto);
+			if (!violations.isEmpty()) {
+				result.setStatus(BulkItemStatus.INVALID);
+				result.setMessage(violations.stream()
+						.map(violation -> violation.getPropertyPath() + " " + violation.getMessage())
+						.sorted()
+						.collect(Collectors.joining(", ")));
+			} else if (!names.add(beerDto.getName())) {
+				duplicate(result);
+			} else {
+				valid.add(beerDto);
+			}
+			results.add(result);
+		}
+
+		// only the names that might exist are looked up
+		final List<String> candidates = valid.stream()
+				.map(BeerDto::getName)
+				.filter(beerNameIndex::mightContain)
+				.collect(Collectors.toList());
+		final Set<String> existing = candidates.isEmpty() ? new HashSet<>()
+				: new HashSet<>(beerRepository.findNamesIn(candidates));
+		candidates.stream()
+				.filter(name -> !existing.contains(name))
+				.forEach(name -> beerNameIndex.falsePositive());
+		final List<Beer> beers = new ArrayList<>(valid.size());
+		for (final BeerDto beerDto : valid) {
+			if (!existing.contains(beerDto.getName())) {
+				beerNameIndex.add(beerDto.getName());
+				beers.add(BeerMapper.INSTANCE.mapBeerFrom(beerDto));
+			}
+		}
+		beerRepository.saveAll(beers);
+		entityManager.flush();
+		entityManager.clear();
+
+		int index = 0;
+		for (final BulkItemResultDto result : results) {
+			if (result.getStatus() != null) {
+				continue;
+			}
+			if (existing.contains(result.getName())) {
+				duplicate(result);
+			} else {
+				result.setId(beers.get(index++)
+						.getId());
+				result.setStatus(BulkItemStatus.CREATED);
+				eventPublisher
+						.publishEvent(new BeerChangedEvent(result.getId(), result.getName(), BeerChangeType.CREATED));
+			}
+		}
+		return results;
+	}
+
+	private static void duplicate(final BulkItemResultDto result) {
+		result.setStatus(BulkItemStatus.DUPLICATE);
+		result.setMessage(new BeerAlreadyRegisteredException(result.getName()).getMessage());
+	}
+}
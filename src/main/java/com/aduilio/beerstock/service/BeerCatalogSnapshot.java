@@ -0,0 +1,416 @@
+package com.aduilio.beerstock.service;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.GZIPOutputStream;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.aduilio.beerstock.config.BeerstockProperties;
+import com.aduilio.beerstock.dto.BeerDto;
+import com.aduilio.beerstock.enums.BeerSort;
+import com.aduilio.beerstock.event.BeerChangedEvent;
+import com.aduilio.beerstock.exception.BeerInvalidCursorException;
+import com.aduilio.beerstock.repository.BeerRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+
+import lombok.Getter;
+
+/**
+ * Keeps the whole catalog in memory, each beer already encoded as JSON, so the
+ * pages of {@code GET /api/v1/beers} are written without reading, mapping or
+ * encoding the beers again. The snapshot is immutable: the beers changed are
+ * marked after each commit, and the next read builds a new snapshot that
+ * reads and encodes only them, so a reader always sees the catalog of a
+ * single moment, with every change committed before its read.
+ * <p>
+ * The snapshot is always read from the primary database, in a transaction
+ * that is not read-only, so a replica behind never hides a change. The pages
+ * sent compressed are kept with the snapshot as well. A catalog larger than
+ * {@code beerstock.snapshot.max-size} is not kept, its pages are read from the
+ * database.
+ */
+@Component
+public class BeerCatalogSnapshot {
+
+	private static final int READ_SIZE = 1000;
+
+	private static final int MAX_GZIPPED_PAGES = 1024;
+
+	private static final Comparator<Entry> BY_NAME = Comparator.comparing(entry -> entry.beer.getName());
+
+	private static final Comparator<Entry> BY_QUANTITY = Comparator
+			.<Entry>comparingInt(entry -> entry.beer.getQuantity())
+			.thenComparingLong(entry -> entry.beer.getId());
+
+	private final BeerRepository beerRepository;
+
+	private final TransactionTemplate transactionTemplate;
+
+	private final ObjectWriter objectWriter;
+
+	private final BeerstockProperties.Page page;
+
+	private final boolean enabled;
+
+	private final int maxSize;
+
+	private final boolean gzip;
+
+	private final Set<Long> changed = ConcurrentHashMap.newKeySet();
+
+	private final Object lock = new Object();
+
+	/**
+	 * The current snapshot, null before the first read or while the catalog is
+	 * too large.
+	 */
+	private volatile Snapshot snapshot;
+
+	private volatile boolean tooLarge;
+
+	@Autowired
+	public BeerCatalogSnapshot(final BeerRepository beerRepository, final TransactionTemplate transactionTemplate,
+			final ObjectMapper objectMapper, final BeerstockProperties beerstockProperties) {
+		final BeerstockProperties.Snapshot properties = beerstockProperties.getSnapshot();
+		this.beerRepository = beerRepository;
+		this.transactionTemplate = transactionTemplate;
+		this.objectWriter = objectMapper.writerFor(BeerDto.class);
+		this.page = beerstockProperties.getPage();
+		this.enabled = properties.isEnabled();
+		this.maxSize = properties.getMaxSize();
+		this.gzip = properties.isGzip();
+	}
+
+	/**
+	 * Marks a beer changed, once the transaction that changed it is committed.
+	 *
+	 * @param event of the change
+	 */
+	@TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+	public void onBeerChanged(final BeerChangedEvent event) {
+		if (enabled) {
+			changed.add(event.getId());
+		}
+	}
+
+	/**
+	 * Returns a page of beers after the cursor, with the same beers of
+	 * {@link BeerService#list(String, Integer, BeerSort)}.
+	 *
+	 * @param cursor of the previous page, null for the first page
+	 * @param size   of the page, null for the default size
+	 * @param sort   of the beers
+	 *
+	 * @return {@link CatalogPage}, null if the catalog is not kept
+	 * @throws BeerInvalidCursorException if the cursor is invalid
+	 */
+	public CatalogPage page(final String cursor, final Integer size, final BeerSort sort)
+			throws BeerInvalidCursorException {
+		if (!enabled) {
+			return null;
+		}
+
+		final BeerCursor after = cursor == null ? BeerCursor.first(sort) : BeerCursor.decode(cursor, sort);
+		final Snapshot current = current();
+		if (current == null) {
+			return null;
+		}
+
+		final Entry[] entries = current.entriesOf(sort);
+		final int from = firstAfter(entries, after);
+		final int to = Math.min(entries.length, from + BeerService.pageSize(page, size));
+		final String next = to < entries.length && to > from ? BeerCursor.after(sort, entries[to - 1].beer)
+				.encode() : null;
+		return new CatalogPage(current, sort, entries, from, to, next);
+	}
+
+	/**
+	 * Returns the current snapshot, applying the changes committed since it was
+	 * built.
+	 */
+	private Snapshot current() {
+		final Snapshot current = snapshot;
+		if ((current != null || tooLarge) && changed.isEmpty()) {
+			return current;
+		}
+
+		synchronized (lock) {
+			if (changed.isEmpty() && (snapshot != null || tooLarge)) {
+				return snapshot;
+			}
+
+			// a change committed from now on is applied by the next read
+			final Set<Long> ids = new HashSet<>(changed);
+			changed.removeAll(ids);
+			final Snapshot previous = snapshot;
+			try {
+				snapshot = transactionTemplate.execute(status -> previous == null ? build() : apply(previous, ids));
+			} catch (final RuntimeException e) {
+				changed.addAll(ids);
+				throw e;
+			}
+			tooLarge = snapshot == null;
+			return snapshot;
+		}
+	}
+
+	/**
+	 * Reads the whole catalog, by pages in the order of the id.
+	 */
+	private Snapshot build() {
+		if (beerRepository.count() > maxSize) {
+			return null;
+		}
+
+		final List<Entry> entries = new ArrayList<>();
+		List<BeerDto> beers;
+		long lastId = 0;
+		do {
+			beers = beerRepository.findPageById(lastId, PageRequest.of(0, READ_SIZE));
+			for (final BeerDto beer : beers) {
+				entries.add(encode(beer));
+				lastId = beer.getId();
+			}
+			// created meanwhile
+			if (entries.size() > maxSize) {
+				return null;
+			}
+		} while (beers.size() == READ_SIZE);
+		return new Snapshot(entries.toArray(new Entry[0]));
+	}
+
+	/**
+	 * Creates a snapshot with the beers changed read again, the other beers are
+	 * shared with the previous snapshot.
+	 */
+	private Snapshot apply(final Snapshot previous, final Set<Long> ids) {
+		final Map<Long, Entry> updated = new HashMap<>();
+		final List<Long> read = new ArrayList<>(ids);
+		for (int from = 0; from < read.size(); from += READ_SIZE) {
+			beerRepository.findDtoByIdIn(read.subList(from, Math.min(from + READ_SIZE, read.size())))
+					.forEach(beer -> updated.put(beer.getId(), encode(beer)));
+		}
+
+		final List<Entry> entries = new ArrayList<>(previous.byId.length + updated.size());
+		for (final Entry entry : previous.byId) {
+			// the beers deleted are not read again
+			if (!ids.contains(entry.beer.getId())) {
+				entries.add(entry);
+			}
+		}
+		if (entries.size() + updated.size() > maxSize) {
+			return null;
+		}
+
+		entries.addAll(updated.values());
+		entries.sort(Comparator.comparingLong(entry -> entry.beer.getId()));
+		return new Snapshot(entries.toArray(new Entry[0]));
+	}
+
+	private Entry encode(final BeerDto beer) {
+		try {
+			return new Entry(beer, objectWriter.writeValueAsBytes(beer));
+		} catch (final JsonProcessingException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/**
+	 * Finds the first beer after the cursor, in the order of the cursor.
+	 */
+	private static int firstAfter(final Entry[] entries, final BeerCursor after) {
+		int low = 0;
+		int high = entries.length;
+		while (low < high) {
+			final int middle = (low + high) >>> 1;
+			if (compare(entries[middle].beer, after) <= 0) {
+				low = middle + 1;
+			} else {
+				high = middle;
+			}
+		}
+		return low;
+	}
+
+	private static int compare(final BeerDto beer, final BeerCursor cursor) {
+		switch (cursor.getSort()) {
+		case NAME:
+			return beer.getName()
+					.compareTo(cursor.getName());
+		case QUANTITY:
+			final int quantity = Integer.compare(beer.getQuantity(), cursor.getQuantity());
+			return quantity != 0 ? quantity : Long.compare(beer.getId(), cursor.getId());
+		default:
+			return Long.compare(beer.getId(), cursor.getId());
+		}
+	}
+
+	/**
+	 * A beer and its JSON.
+	 */
+	private static final class Entry {
+
+		private final BeerDto beer;
+
+		private final byte[] json;
+
+		private Entry(final BeerDto beer, final byte[] json) {
+			this.beer = beer;
+			this.json = json;
+		}
+	}
+
+	/**
+	 * The catalog in each order, and the pages of this catalog already
+	 * compressed.
+	 */
+	private static final class Snapshot {
+
+		private final Entry[] byId;
+
+		private final Entry[] byName;
+
+		private final Entry[] byQuantity;
+
+		private final Map<String, byte[]> gzipped = new ConcurrentHashMap<>();
+
+		private Snapshot(final Entry[] byId) {
+			this.byId = byId;
+			this.byName = byId.clone();
+			Arrays.sort(byName, BY_NAME);
+			this.byQuantity = byId.clone();
+			Arrays.sort(byQuantity, BY_QUANTITY);
+		}
+
+		private Entry[] entriesOf(final BeerSort sort) {
+			switch (sort) {
+			case NAME:
+				return byName;
+			case QUANTITY:
+				return byQuantity;
+			default:
+				return byId;
+			}
+		}
+	}
+
+	/**
+	 * A page of the snapshot, written as the JSON array of its beers.
+	 */
+	public final class CatalogPage {
+
+		private final Snapshot snapshot;
+
+		private final BeerSort sort;
+
+		private final Entry[] entries;
+
+		private final int from;
+
+		private final int to;
+
+		/**
+		 * The cursor of the next page, null for the last page.
+		 */
+		@Getter
+		private final String next;
+
+		private CatalogPage(final Snapshot snapshot, final BeerSort sort, final Entry[] entries, final int from,
+				final int to, final String next) {
+			this.snapshot = snapshot;
+			this.sort = sort;
+			this.entries = entries;
+			this.from = from;
+			this.to = to;
+			this.next = next;
+		}
+
+		/**
+		 * Returns the number of bytes written by {@link #writeTo(OutputStream)}.
+		 *
+		 * @return the length of the page
+		 */
+		public int length() {
+			int length = 2 + Math.max(0, to - from - 1);
+			for (int i = from; i < to; i++) {
+				length += entries[i].json.length;
+			}
+			return length;
+		}
+
+		/**
+		 * Writes the page.
+		 *
+		 * @param outputStream to write the page
+		 *
+		 * @throws IOException if the page could not be written
+		 */
+		public void writeTo(final OutputStream outputStream) throws IOException {
+			outputStream.write('[');
+			for (int i = from; i < to; i++) {
+				if (i > from) {
+					outputStream.write(',');
+				}
+				outputStream.write(entries[i].json);
+			}
+			outputStream.write(']');
+		}
+
+		/**
+		 * Tells if the page is sent compressed to the clients that accept gzip.
+		 *
+		 * @return true if {@link #gzipped()} returns the page compressed
+		 */
+		public boolean isGzipped() {
+			return gzip;
+		}
+
+		/**
+		 * Returns the page compressed with gzip, kept with the snapshot.
+		 *
+		 * @return the page compressed, null if the pages are not kept compressed
+		 */
+		public byte[] gzipped() {
+			if (!gzip) {
+				return null;
+			}
+
+			final String key = sort.name() + ':' + from + ':' + to;
+			final byte[] cached = snapshot.gzipped.get(key);
+			if (cached != null) {
+				return cached;
+			}
+
+			final ByteArrayOutputStream bytes = new ByteArrayOutputStream(length() / 4 + 32);
+			try (GZIPOutputStream outputStream = new GZIPOutputStream(bytes)) {
+				writeTo(outputStream);
+			} catch (final IOException e) {
+				throw new UncheckedIOException(e);
+			}
+			final byte[] compressed = bytes.toByteArray();
+			if (snapshot.gzipped.size() < MAX_GZIPPED_PAGES) {
+				snapshot.gzipped.put(key, compressed);
+			}
+			return compressed;
+		}
+	}
+}
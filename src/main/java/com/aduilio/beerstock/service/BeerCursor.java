@@ -0,0 +1,118 @@
+package com.aduilio.beerstock.service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import com.aduilio.beerstock.dto.BeerDto;
+import com.aduilio.beerstock.enums.BeerSort;
+import com.aduilio.beerstock.exception.BeerInvalidCursorException;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+
+/**
+ * The position after the last beer of a page, in a given order. It is sent to
+ * the clients as an opaque string, so they do not depend on its format.
+ */
+@Getter
+@EqualsAndHashCode
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+public final class BeerCursor {
+
+	private static final String SEPARATOR = ":";
+
+	private final BeerSort sort;
+
+	private final long id;
+
+	private final String name;
+
+	private final int quantity;
+
+	/**
+	 * Creates the cursor before the first beer.
+	 *
+	 * @param sort of the pages
+	 *
+	 * @return {@link BeerCursor}
+	 */
+	public static BeerCursor first(final BeerSort sort) {
+		return new BeerCursor(sort, 0, "", -1);
+	}
+
+	/**
+	 * Creates the cursor after a beer.
+	 *
+	 * @param sort of the pages
+	 * @param beer the last beer of the page
+	 *
+	 * @return {@link BeerCursor}
+	 */
+	public static BeerCursor after(final BeerSort sort, final BeerDto beer) {
+		switch (sort) {
+		case NAME:
+			return new BeerCursor(sort, beer.getId(), beer.getName(), -1);
+		case QUANTITY:
+			return new BeerCursor(sort, beer.getId(), "", beer.getQuantity());
+		default:
+			return new BeerCursor(sort, beer.getId(), "", -1);
+		}
+	}
+
+	/**
+	 * Reads a cursor created by {@link #encode()}.
+	 *
+	 * @param cursor encoded
+	 * @param sort   expected
+	 *
+	 * @return {@link BeerCursor}
+	 * @throws BeerInvalidCursorException if the cursor is malformed or belongs to
+	 *                                    another order
+	 */
+	public static BeerCursor decode(final String cursor, final BeerSort sort) throws BeerInvalidCursorException {
+		try {
+			final String[] parts = new String(Base64.getUrlDecoder()
+					.decode(cursor), StandardCharsets.UTF_8).split(SEPARATOR, 3);
+			if (parts.length < 2 || !sort.name()
+					.equals(parts[0])) {
+				throw new BeerInvalidCursorException(cursor);
+			}
+
+			final long id = Long.parseLong(parts[1]);
+			switch (sort) {
+			case NAME:
+				return new BeerCursor(sort, id, parts[2], -1);
+			case QUANTITY:
+				return new BeerCursor(sort, id, "", Integer.parseInt(parts[2]));
+			default:
+				return new BeerCursor(sort, id, "", -1);
+			}
+		} catch (final IllegalArgumentException | ArrayIndexOutOfBoundsException e) {
+			throw new BeerInvalidCursorException(cursor);
+		}
+	}
+
+	/**
+	 * Encodes the cursor to be sent to the clients.
+	 *
+	 * @return the cursor encoded
+	 */
+	public String encode() {
+		final StringBuilder builder = new StringBuilder(sort.name()).append(SEPARATOR)
+				.append(id);
+		if (sort == BeerSort.NAME) {
+			builder.append(SEPARATOR)
+					.append(name);
+		} else if (sort == BeerSort.QUANTITY) {
+			builder.append(SEPARATOR)
+					.append(quantity);
+		}
+
+		return Base64.getUrlEncoder()
+				.withoutPadding()
+				.encodeToString(builder.toString()
+						.getBytes(StandardCharsets.UTF_8));
+	}
+}
@@ -0,0 +1,126 @@
+package com.aduilio.beerstock.service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+import javax.persistence.EntityManager;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.aduilio.beerstock.dto.BeerDto;
+import com.aduilio.beerstock.entity.Beer;
+import com.aduilio.beerstock.enums.BeerExportFormat;
+import com.aduilio.beerstock.mapper.BeerMapper;
+import com.aduilio.beerstock.repository.BeerRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import lombok.AllArgsConstructor;
+
+/**
+ * Exports the whole catalog. The beers are written as they are read from the
+ * database, so the memory used does not depend on the size of the catalog.
+ */
+@Service
+@AllArgsConstructor(onConstructor = @__(@Autowired))
+public class BeerExportService {
+
+	static final int CLEAR_INTERVAL = 1000;
+
+	static final String CSV_HEADER = "id,name,brand,max,quantity,type";
+
+	private final BeerRepository beerRepository;
+
+	private final EntityManager entityManager;
+
+	private final ObjectMapper objectMapper;
+
+	/**
+	 * Writes all the beers, ordered by id, to the output stream. The stream is
+	 * not closed.
+	 *
+	 * @param format       of the export
+	 * @param outputStream to write the beers
+	 *
+	 * @return the number of beers written
+	 * @throws IOException if the beers could not be written
+	 */
+	@Transactional(readOnly = true)
+	public long export(final BeerExportFormat format, final OutputStream outputStream) throws IOException {
+		final Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+		final long count;
+		try (Stream<Beer> beers = beerRepository.streamAll()) {
+			if (format == BeerExportFormat.CSV) {
+				writer.write(CSV_HEADER);
+				writer.write('\n');
+				count = write(beers, beerDto -> writeCsv(beerDto, writer));
+			} else {
+				final ObjectWriter objectWriter = objectMapper.writerFor(BeerDto.class)
+						.without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+				count = write(beers, beerDto -> {
+					writer.write(objectWriter.writeValueAsString(beerDto));
+					writer.write('\n');
+				});
+			}
+		}
+		writer.flush();
+		return count;
+	}
+
+	private long write(final Stream<Beer> beers, final RowWriter rowWriter) throws IOException {
+		long count = 0;
+		final Iterator<Beer> iterator = beers.iterator();
+		while (iterator.hasNext()) {
+			rowWriter.write(BeerMapper.INSTANCE.mapBeerDtoFrom(iterator.next()));
+			// the entities already written are not needed in the persistence context
+			if (++count % CLEAR_INTERVAL == 0) {
+				entityManager.clear();
+			}
+		}
+		return count;
+	}
+
+	static void writeCsv(final BeerDto beerDto, final Writer writer) throws IOException {
+		writer.write(String.valueOf(beerDto.getId()));
+		writer.write(',');
+		writer.write(escapeCsv(beerDto.getName()));
+		writer.write(',');
+		writer.write(escapeCsv(beerDto.getBrand()));
+		writer.write(',');
+		writer.write(String.valueOf(beerDto.getMax()));
+		writer.write(',');
+		writer.write(String.valueOf(beerDto.getQuantity()));
+		writer.write(',');
+		writer.write(beerDto.getType() == null ? "" : beerDto.getType()
+				.name());
+		writer.write('\n');
+	}
+
+	private static String escapeCsv(final String value) {
+		if (value == null) {
+			return "";
+		}
+		if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+			return value;
+		}
+		return '"' + value.replace("\"", "\"\"") + '"';
+	}
+
+	/**
+	 * Writes one beer of the export.
+	 */
+	@FunctionalInterface
+	private interface RowWriter {
+
+		void write(BeerDto beerDto) throws IOException;
+	}
+}
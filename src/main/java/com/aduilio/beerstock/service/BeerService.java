@@ -2,19 +2,37 @@ package com.aduilio.beerstock.service;
 
 import java.util.List;
 import java.util.Optional;
-import java.util.stream.Collectors;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import com.aduilio.beerstock.cache.BeerCache;
+import com.aduilio.beerstock.config.BeerstockProperties;
 import com.aduilio.beerstock.dto.BeerDto;
+import com.aduilio.beerstock.dto.BeerFilterDto;
+import com.aduilio.beerstock.dto.BeerPageDto;
+import com.aduilio.beerstock.dto.BeerSearchDto;
+import com.aduilio.beerstock.dto.StockItemDto;
+import com.aduilio.beerstock.dto.StockItemResultDto;
 import com.aduilio.beerstock.entity.Beer;
+import com.aduilio.beerstock.enums.BeerChangeType;
+import com.aduilio.beerstock.enums.BeerSort;
+import com.aduilio.beerstock.enums.StockBatchMode;
+import com.aduilio.beerstock.event.BeerChangedEvent;
 import com.aduilio.beerstock.exception.BeerAlreadyRegisteredException;
 import com.aduilio.beerstock.exception.BeerExceedStockException;
+import com.aduilio.beerstock.exception.BeerInvalidCursorException;
 import com.aduilio.beerstock.exception.BeerNegativeStockException;
 import com.aduilio.beerstock.exception.BeerNotFoundException;
+import com.aduilio.beerstock.index.BeerNameIndex;
 import com.aduilio.beerstock.mapper.BeerMapper;
 import com.aduilio.beerstock.repository.BeerRepository;
+import com.aduilio.beerstock.repository.BeerSearchRepository;
+import com.aduilio.beerstock.stock.StockEngine;
 
 import lombok.AllArgsConstructor;
 
@@ -27,6 +45,18 @@ public class BeerService {
 
 	private final BeerRepository beerRepository;
 
+	private final BeerSearchRepository beerSearchRepository;
+
+	private final StockEngine stockEngine;
+
+	private final BeerstockProperties beerstockProperties;
+
+	private final BeerCache beerCache;
+
+	private final BeerNameIndex beerNameIndex;
+
+	private final ApplicationEventPublisher eventPublisher;
+
 	/**
 	 * Creates a beer.
 	 *
@@ -35,36 +65,92 @@ public class BeerService {
 	 * @return the id of the beer created.
 	 * @throws BeerAlreadyRegisteredException if the name already exists
 	 */
+	@Transactional
 	public Long create(final BeerDto beerDto) throws BeerAlreadyRegisteredException {
 		verifyName(beerDto.getName());
-		return beerRepository.save(BeerMapper.INSTANCE.mapBeerFrom(beerDto))
+		beerNameIndex.add(beerDto.getName());
+		final Long id = beerRepository.save(BeerMapper.INSTANCE.mapBeerFrom(beerDto))
 				.getId();
+		eventPublisher.publishEvent(new BeerChangedEvent(id, beerDto.getName(), BeerChangeType.CREATED));
+		return id;
 	}
 
 	/**
-	 * Reads the beer by name.
+	 * Reads the beer by name, from the cache when possible. The names that
+	 * certainly do not exist are answered by the name index. The stock accepted
+	 * by the engine and not written yet is applied to the beer read.
 	 *
 	 * @param name of the beer
 	 *
 	 * @return BeerDto
 	 * @throws BeerNotFoundException of the name does not exist
 	 */
+	@Transactional(readOnly = true)
 	public BeerDto readByName(final String name) throws BeerNotFoundException {
-		return beerRepository.findByName(name)
-				.map(BeerMapper.INSTANCE::mapBeerDtoFrom)
-				.orElseThrow(() -> new BeerNotFoundException(name));
+		if (!beerNameIndex.mightContain(name)) {
+			throw new BeerNotFoundException(name);
+		}
+
+		final Optional<BeerDto> beer = beerCache.get(name, beerRepository::findIdByName,
+				beerRepository::findDtoById);
+		if (!beer.isPresent()) {
+			beerNameIndex.falsePositive();
+		}
+		return stockEngine.withPendingStock(beer.orElseThrow(() -> new BeerNotFoundException(name)));
+	}
+
+	/**
+	 * Returns a page of beers after the cursor. The pages are read by keyset, so
+	 * the cost of a page does not depend on how deep it is, and straight into
+	 * {@link BeerDto}, without managed entities.
+	 *
+	 * @param cursor of the previous page, null for the first page
+	 * @param size   of the page, null for the default size
+	 * @param sort   of the beers
+	 *
+	 * @return {@link BeerPageDto}
+	 * @throws BeerInvalidCursorException if the cursor is invalid
+	 */
+	@Transactional(readOnly = true)
+	public BeerPageDto list(final String cursor, final Integer size, final BeerSort sort)
+			throws BeerInvalidCursorException {
+		final BeerCursor after = cursor == null ? BeerCursor.first(sort) : BeerCursor.decode(cursor, sort);
+		final int pageSize = pageSize(beerstockProperties.getPage(), size);
+		// one more beer tells if there is a next page
+		return page(findPage(after, PageRequest.of(0, pageSize + 1)), pageSize, sort);
 	}
 
 	/**
-	 * Returns all the beers.
+	 * Searches the beers by the filters, a page at a time in the order of the id.
+	 * The first page also has the number of beers found by type and by brand,
+	 * counted by the database, so the other pages do not count them again.
+	 *
+	 * @param filter of the beers
+	 * @param cursor of the previous page, null for the first page
+	 * @param size   of the page, null for the default size
 	 *
-	 * @return {@link List} of {@link BeerDto}
+	 * @return {@link BeerSearchDto}
+	 * @throws BeerInvalidCursorException if the cursor is invalid
 	 */
-	public List<BeerDto> list() {
-		return beerRepository.findAll()
-				.stream()
-				.map(BeerMapper.INSTANCE::mapBeerDtoFrom)
-				.collect(Collectors.toList());
+	@Transactional(readOnly = true)
+	public BeerSearchDto search(final BeerFilterDto filter, final String cursor, final Integer size)
+			throws BeerInvalidCursorException {
+		final BeerCursor after = cursor == null ? BeerCursor.first(BeerSort.ID)
+				: BeerCursor.decode(cursor, BeerSort.ID);
+		final int pageSize = pageSize(beerstockProperties.getPage(), size);
+		final BeerPageDto page = page(beerSearchRepository.findPageById(filter, after.getId(), pageSize + 1),
+				pageSize, BeerSort.ID);
+
+		final BeerSearchDto search = BeerSearchDto.builder()
+				.content(page.getContent())
+				.next(page.getNext())
+				.build();
+		if (cursor == null) {
+			final BeerSearchRepository.Facets facets = beerSearchRepository.countByTypeAndBrand(filter);
+			search.setTypes(facets.getTypes());
+			search.setBrands(facets.getBrands());
+		}
+		return search;
 	}
 
 	/**
@@ -75,8 +161,10 @@ public class BeerService {
 	 * @throws BeerNotFoundException if the beer does not exist
 	 */
 	public void delete(final Long id) throws BeerNotFoundException {
-		readById(id);
+		final Beer beer = readById(id);
 		beerRepository.deleteById(id);
+		stockEngine.evict(id);
+		eventPublisher.publishEvent(new BeerChangedEvent(id, beer.getName(), BeerChangeType.DELETED));
 	}
 
 	/**
@@ -93,17 +181,91 @@ public class BeerService {
 	 */
 	public BeerDto stock(final Long beerId, final int quantity)
 			throws BeerNotFoundException, BeerExceedStockException, BeerNegativeStockException {
-		final Beer beer = readById(beerId);
-		beer.increment(quantity);
+		final Beer beer = stockEngine.stock(beerId, quantity);
+		eventPublisher.publishEvent(new BeerChangedEvent(beerId, beer.getName(), BeerChangeType.STOCK));
+		return BeerMapper.INSTANCE.mapBeerDtoFrom(beer);
+	}
 
-		return BeerMapper.INSTANCE.mapBeerDtoFrom(beerRepository.save(beer));
+	/**
+	 * Change the stock of several beers in a single transaction.
+	 *
+	 * @param items to be applied, in order
+	 * @param mode  of the batch
+	 *
+	 * @return {@link List} of {@link StockItemResultDto} for each item
+	 */
+	public List<StockItemResultDto> stock(final List<StockItemDto> items, final StockBatchMode mode) {
+		final List<StockItemResultDto> results = stockEngine.stock(items, mode);
+		// the items rolled back were never written
+		results.stream()
+				.filter(StockItemResultDto::isApplied)
+				.map(StockItemResultDto::getId)
+				.distinct()
+				.forEach(id -> eventPublisher.publishEvent(new BeerChangedEvent(id, null, BeerChangeType.STOCK)));
+		return results;
+	}
+
+	private List<BeerDto> findPage(final BeerCursor after, final Pageable pageable) {
+		switch (after.getSort()) {
+		case NAME:
+			return beerRepository.findPageByName(after.getName(), pageable);
+		case QUANTITY:
+			return beerRepository.findPageByQuantity(after.getQuantity(), after.getId(), pageable);
+		default:
+			return beerRepository.findPageById(after.getId(), pageable);
+		}
+	}
+
+	/**
+	 * Returns the size of the page requested, limited to the max size.
+	 *
+	 * @param page properties
+	 * @param size requested, null for the default size
+	 *
+	 * @return the size of the page
+	 */
+	static int pageSize(final BeerstockProperties.Page page, final Integer size) {
+		if (size == null || size < 1) {
+			return page.getDefaultSize();
+		}
+		return Math.min(size, page.getMaxSize());
+	}
+
+	/**
+	 * Creates a page with the beers read, that may have one beer more than the
+	 * page to tell if there is a next page.
+	 *
+	 * @param beers    read after the cursor
+	 * @param pageSize of the page
+	 * @param sort     of the beers
+	 *
+	 * @return {@link BeerPageDto}
+	 */
+	static BeerPageDto page(final List<BeerDto> beers, final int pageSize, final BeerSort sort) {
+		if (beers.size() <= pageSize) {
+			return BeerPageDto.builder()
+					.content(beers)
+					.build();
+		}
+
+		final List<BeerDto> content = beers.subList(0, pageSize);
+		return BeerPageDto.builder()
+				.content(content)
+				.next(BeerCursor.after(sort, content.get(pageSize - 1))
+						.encode())
+				.build();
 	}
 
 	private void verifyName(final String name) throws BeerAlreadyRegisteredException {
+		if (!beerNameIndex.mightContain(name)) {
+			return;
+		}
+
 		final Optional<Beer> beer = beerRepository.findByName(name);
 		if (beer.isPresent()) {
 			throw new BeerAlreadyRegisteredException(name);
 		}
+		beerNameIndex.falsePositive();
 	}
 
 	private Beer readById(final Long id) throws BeerNotFoundException {
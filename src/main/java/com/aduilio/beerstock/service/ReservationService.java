@@ -0,0 +1,220 @@
+package com.aduilio.beerstock.service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.aduilio.beerstock.config.BeerstockProperties;
+import com.aduilio.beerstock.dto.BeerDto;
+import com.aduilio.beerstock.dto.ReservationDto;
+import com.aduilio.beerstock.entity.Beer;
+import com.aduilio.beerstock.entity.Reservation;
+import com.aduilio.beerstock.enums.BeerChangeType;
+import com.aduilio.beerstock.event.BeerChangedEvent;
+import com.aduilio.beerstock.exception.BeerNegativeStockException;
+import com.aduilio.beerstock.exception.BeerNotFoundException;
+import com.aduilio.beerstock.exception.ReservationNotFoundException;
+import com.aduilio.beerstock.mapper.BeerMapper;
+import com.aduilio.beerstock.mapper.ReservationMapper;
+import com.aduilio.beerstock.repository.BeerRepository;
+import com.aduilio.beerstock.repository.ReservationRepository;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Holds part of the stock of a beer for a while, so a checkout does not lock
+ * the row of the beer until it ends. The quantity reserved is added to the
+ * reserved of the beer, by a conditional update that only succeeds while the
+ * stock available, the quantity minus the reserved, covers it. Committing
+ * removes it from both the quantity and the reserved, releasing removes it
+ * from the reserved only.
+ * <p>
+ * Each reservation is a row with its expiration, and the expired ones are
+ * released by a scheduled sweep that scans only the index of the expiration.
+ * A reservation is committed, released or swept by whoever deletes its row, so
+ * it changes the beer once. It needs the atomic engine, the ledger engine must
+ * be the only writer of the stock.
+ */
+@Slf4j
+@Service
+@ConditionalOnProperty(name = "beerstock.stock.engine", havingValue = "atomic", matchIfMissing = true)
+public class ReservationService {
+
+	private final BeerRepository beerRepository;
+
+	private final ReservationRepository reservationRepository;
+
+	private final TransactionTemplate transactionTemplate;
+
+	private final ApplicationEventPublisher eventPublisher;
+
+	private final Duration ttl;
+
+	private final int sweepBatchSize;
+
+	@Autowired
+	public ReservationService(final BeerRepository beerRepository,
+			final ReservationRepository reservationRepository, final TransactionTemplate transactionTemplate,
+			final ApplicationEventPublisher eventPublisher, final BeerstockProperties beerstockProperties) {
+		this.beerRepository = beerRepository;
+		this.reservationRepository = reservationRepository;
+		this.transactionTemplate = transactionTemplate;
+		this.eventPublisher = eventPublisher;
+		this.ttl = beerstockProperties.getReservation()
+				.getTtl();
+		this.sweepBatchSize = beerstockProperties.getReservation()
+				.getSweepBatchSize();
+	}
+
+	/**
+	 * Reserves a quantity of a beer.
+	 *
+	 * @param beerId   id of the beer
+	 * @param quantity to reserve
+	 *
+	 * @return {@link ReservationDto} created
+	 * @throws BeerNotFoundException      if the id does not exist
+	 * @throws BeerNegativeStockException if the stock available is less than the
+	 *                                    quantity
+	 */
+	@Transactional
+	public ReservationDto reserve(final Long beerId, final int quantity)
+			throws BeerNotFoundException, BeerNegativeStockException {
+		if (beerRepository.reserve(beerId, quantity) == 0) {
+			final Beer beer = beerRepository.findById(beerId)
+					.orElseThrow(() -> new BeerNotFoundException(beerId));
+			throw new BeerNegativeStockException(beer.getQuantity() - beer.getReserved());
+		}
+
+		final Reservation reservation = reservationRepository.save(Reservation.builder()
+				.id(UUID.randomUUID()
+						.toString())
+				.beerId(beerId)
+				.quantity(quantity)
+				.expiresAt(Instant.now()
+						.plus(ttl))
+				.build());
+		eventPublisher.publishEvent(new BeerChangedEvent(beerId, null, BeerChangeType.STOCK));
+		return ReservationMapper.INSTANCE.mapReservationDtoFrom(reservation);
+	}
+
+	/**
+	 * Removes the quantity of a reservation from the stock of the beer.
+	 *
+	 * @param id of the reservation
+	 *
+	 * @return {@link BeerDto} with the stock changed
+	 * @throws ReservationNotFoundException if the reservation does not exist or
+	 *                                      expired
+	 * @throws BeerNotFoundException        if the beer was deleted
+	 */
+	@Transactional
+	public BeerDto commit(final String id) throws ReservationNotFoundException, BeerNotFoundException {
+		final Reservation reservation = remove(id);
+		if (beerRepository.commitReserved(reservation.getBeerId(), reservation.getQuantity()) == 0) {
+			throw new BeerNotFoundException(reservation.getBeerId());
+		}
+
+		eventPublisher.publishEvent(new BeerChangedEvent(reservation.getBeerId(), null, BeerChangeType.STOCK));
+		return beerRepository.findById(reservation.getBeerId())
+				.map(BeerMapper.INSTANCE::mapBeerDtoFrom)
+				.orElseThrow(() -> new BeerNotFoundException(reservation.getBeerId()));
+	}
+
+	/**
+	 * Makes the quantity of a reservation available again.
+	 *
+	 * @param id of the reservation
+	 *
+	 * @throws ReservationNotFoundException if the reservation does not exist or
+	 *                                      expired
+	 */
+	@Transactional
+	public void release(final String id) throws ReservationNotFoundException {
+		final Reservation reservation = remove(id);
+		beerRepository.release(reservation.getBeerId(), reservation.getQuantity());
+		eventPublisher.publishEvent(new BeerChangedEvent(reservation.getBeerId(), null, BeerChangeType.STOCK));
+	}
+
+	/**
+	 * Releases the expired reservations.
+	 */
+	@Scheduled(fixedDelayString = "${beerstock.reservation.sweep-interval:1000}")
+	public void sweep() {
+		final int released = sweep(Instant.now());
+		if (released > 0) {
+			log.debug("{} expired reservation(s) released", released);
+		}
+	}
+
+	/**
+	 * Releases the reservations expired at the instant informed, a batch per
+	 * transaction.
+	 *
+	 * @param now the current instant
+	 *
+	 * @return the number of reservations released
+	 */
+	int sweep(final Instant now) {
+		int released = 0;
+		int found;
+		do {
+			final int[] page = transactionTemplate.execute(status -> sweepBatch(now));
+			found = page[0];
+			released += page[1];
+		} while (found == sweepBatchSize);
+		return released;
+	}
+
+	/**
+	 * Deletes a batch of expired reservations and releases the sum of the ones
+	 * deleted for each beer with a single update. The beers are updated in the
+	 * order of the id, the same order they are locked by the batches of stock.
+	 *
+	 * @return the reservations found and the ones released
+	 */
+	private int[] sweepBatch(final Instant now) {
+		final List<Reservation> expired = reservationRepository.findExpired(now, PageRequest.of(0, sweepBatchSize));
+		final Map<Long, Integer> quantities = new TreeMap<>();
+		int released = 0;
+		for (final Reservation reservation : expired) {
+			// committed or released meanwhile otherwise
+			if (reservationRepository.remove(reservation.getId()) > 0) {
+				quantities.merge(reservation.getBeerId(), reservation.getQuantity(), Integer::sum);
+				released++;
+			}
+		}
+
+		quantities.forEach((beerId, quantity) -> {
+			beerRepository.release(beerId, quantity);
+			eventPublisher.publishEvent(new BeerChangedEvent(beerId, null, BeerChangeType.STOCK));
+		});
+		return new int[] { expired.size(), released };
+	}
+
+	/**
+	 * Reads and deletes a reservation that has not expired.
+	 */
+	private Reservation remove(final String id) throws ReservationNotFoundException {
+		final Reservation reservation = reservationRepository.findById(id)
+				.filter(found -> found.getExpiresAt()
+						.isAfter(Instant.now()))
+				.orElseThrow(() -> new ReservationNotFoundException(id));
+		if (reservationRepository.remove(id) == 0) {
+			throw new ReservationNotFoundException(id);
+		}
+		return reservation;
+	}
+}
@@ -0,0 +1,190 @@
+package com.aduilio.beerstock.service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.stereotype.Service;
+
+import com.aduilio.beerstock.config.BeerstockProperties;
+import com.aduilio.beerstock.dto.BeerDto;
+import com.aduilio.beerstock.dto.BeerPageDto;
+import com.aduilio.beerstock.entity.Beer;
+import com.aduilio.beerstock.enums.BeerExportFormat;
+import com.aduilio.beerstock.enums.BeerSort;
+import com.aduilio.beerstock.exception.BeerAlreadyRegisteredException;
+import com.aduilio.beerstock.exception.BeerExceedStockException;
+import com.aduilio.beerstock.exception.BeerInvalidCursorException;
+import com.aduilio.beerstock.exception.BeerNegativeStockException;
+import com.aduilio.beerstock.exception.BeerNotFoundException;
+import com.aduilio.beerstock.repository.ShardedBeerRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import lombok.AllArgsConstructor;
+
+/**
+ * The version of {@link BeerService} with the beers split across the shards,
+ * for the {@code sharded} profile, with the same rules and exceptions. The
+ * name is unique in the shard of the name, so the name index and the cache of
+ * the single database are not used.
+ */
+@Service
+@Profile("sharded")
+@AllArgsConstructor(onConstructor = @__(@Autowired))
+public class ShardedBeerService {
+
+	private final ShardedBeerRepository shardedBeerRepository;
+
+	private final BeerstockProperties beerstockProperties;
+
+	private final ObjectMapper objectMapper;
+
+	/**
+	 * Creates a beer.
+	 *
+	 * @param beerDto to be created
+	 *
+	 * @return the id of the beer created
+	 * @throws BeerAlreadyRegisteredException if the name already exists
+	 */
+	public Long create(final BeerDto beerDto) throws BeerAlreadyRegisteredException {
+		try {
+			return shardedBeerRepository.insert(beerDto);
+		} catch (final DuplicateKeyException e) {
+			throw new BeerAlreadyRegisteredException(beerDto.getName());
+		}
+	}
+
+	/**
+	 * Reads the beer by name.
+	 *
+	 * @param name of the beer
+	 *
+	 * @return {@link BeerDto}
+	 * @throws BeerNotFoundException if the name does not exist
+	 */
+	public BeerDto readByName(final String name) throws BeerNotFoundException {
+		return shardedBeerRepository.findByName(name)
+				.orElseThrow(() -> new BeerNotFoundException(name));
+	}
+
+	/**
+	 * Returns a page of beers after the cursor, merging the pages of the shards.
+	 *
+	 * @param cursor of the previous page, null for the first page
+	 * @param size   of the page, null for the default size
+	 * @param sort   of the beers
+	 *
+	 * @return {@link BeerPageDto}
+	 * @throws BeerInvalidCursorException if the cursor is invalid
+	 */
+	public BeerPageDto list(final String cursor, final Integer size, final BeerSort sort)
+			throws BeerInvalidCursorException {
+		final BeerCursor after = cursor == null ? BeerCursor.first(sort) : BeerCursor.decode(cursor, sort);
+		final int pageSize = BeerService.pageSize(beerstockProperties.getPage(), size);
+		// one more beer tells if there is a next page
+		return BeerService.page(findPage(after, pageSize + 1), pageSize, sort);
+	}
+
+	/**
+	 * Writes all the beers, ordered by id, to the output stream, as they are
+	 * merged from the shards. The stream is not closed.
+	 *
+	 * @param format       of the export
+	 * @param outputStream to write the beers
+	 *
+	 * @return the number of beers written
+	 * @throws IOException if the beers could not be written
+	 */
+	public long export(final BeerExportFormat format, final OutputStream outputStream) throws IOException {
+		final Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+		final ObjectWriter objectWriter = objectMapper.writerFor(BeerDto.class)
+				.without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+		if (format == BeerExportFormat.CSV) {
+			writer.write(BeerExportService.CSV_HEADER);
+			writer.write('\n');
+		}
+
+		long count = 0;
+		try (Stream<BeerDto> beers = shardedBeerRepository.findAll()) {
+			final Iterator<BeerDto> iterator = beers.iterator();
+			while (iterator.hasNext()) {
+				final BeerDto beerDto = iterator.next();
+				if (format == BeerExportFormat.CSV) {
+					BeerExportService.writeCsv(beerDto, writer);
+				} else {
+					writer.write(objectWriter.writeValueAsString(beerDto));
+					writer.write('\n');
+				}
+				count++;
+			}
+		}
+		writer.flush();
+		return count;
+	}
+
+	/**
+	 * Deletes a beer.
+	 *
+	 * @param id of the beer
+	 *
+	 * @throws BeerNotFoundException if the beer does not exist
+	 */
+	public void delete(final Long id) throws BeerNotFoundException {
+		if (shardedBeerRepository.delete(readById(id)) == 0) {
+			throw new BeerNotFoundException(id);
+		}
+	}
+
+	/**
+	 * Changes the stock of a beer with a single conditional update in the shard
+	 * of the beer.
+	 *
+	 * @param beerId   id of the beer
+	 * @param quantity to increment
+	 *
+	 * @return {@link BeerDto} updated
+	 * @throws BeerNotFoundException      if the id does not exist
+	 * @throws BeerExceedStockException   if the quantity overflowed the available
+	 *                                    space
+	 * @throws BeerNegativeStockException if the stock would become lower than the
+	 *                                    reserved
+	 */
+	public BeerDto stock(final Long beerId, final int quantity)
+			throws BeerNotFoundException, BeerExceedStockException, BeerNegativeStockException {
+		while (shardedBeerRepository.incrementQuantity(beerId, quantity) == 0) {
+			// Nothing was updated, the current stock tells why. If it accepts the
+			// quantity now, it was changed concurrently and the update is retried.
+			final BeerDto beer = readById(beerId);
+			Beer.verifyIncrement(beer.getMax(), beer.getQuantity(), beer.getReserved(), quantity);
+		}
+		return readById(beerId);
+	}
+
+	private List<BeerDto> findPage(final BeerCursor after, final int size) {
+		switch (after.getSort()) {
+		case NAME:
+			return shardedBeerRepository.findPageByName(after.getName(), size);
+		case QUANTITY:
+			return shardedBeerRepository.findPageByQuantity(after.getQuantity(), after.getId(), size);
+		default:
+			return shardedBeerRepository.findPageById(after.getId(), size);
+		}
+	}
+
+	private BeerDto readById(final Long id) throws BeerNotFoundException {
+		return shardedBeerRepository.findById(id)
+				.orElseThrow(() -> new BeerNotFoundException(id));
+	}
+}
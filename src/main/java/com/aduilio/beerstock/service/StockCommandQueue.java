@@ -0,0 +1,236 @@
+package com.aduilio.beerstock.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import com.aduilio.beerstock.config.BeerstockProperties;
+import com.aduilio.beerstock.dto.StockCommandDto;
+import com.aduilio.beerstock.dto.StockItemDto;
+import com.aduilio.beerstock.dto.StockItemResultDto;
+import com.aduilio.beerstock.enums.StockBatchMode;
+import com.aduilio.beerstock.enums.StockItemStatus;
+import com.aduilio.beerstock.exception.StockCommandNotFoundException;
+import com.aduilio.beerstock.exception.StockQueueFullException;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Applies the stock changes asynchronously. The commands wait in a bounded
+ * queue, and a single worker takes all the commands waiting, up to the max
+ * batch size, and applies them with
+ * {@link BeerService#stock(List, StockBatchMode)} in
+ * {@link StockBatchMode#BEST_EFFORT}. With the atomic engine the beers are
+ * locked once, each command is checked against the stock in the order it
+ * arrived, and the sum of the changes accepted for each beer is written with a
+ * single update, in a single transaction for the whole batch.
+ * <p>
+ * The commands pending are kept until they are applied, bounded by the
+ * capacity of the queue plus the batch being applied. Only then their results
+ * move to a cache, kept for a while and up to a max size, to be read by the id
+ * of the command. The commands waiting when the application stops are applied
+ * before it stops.
+ */
+@Slf4j
+@Service
+public class StockCommandQueue implements MeterBinder {
+
+	private static final long POLL_TIMEOUT_MILLIS = 100;
+
+	private final BeerService beerService;
+
+	private final BlockingQueue<StockCommandDto> queue;
+
+	private final int capacity;
+
+	private final int maxBatchSize;
+
+	private final Map<String, StockCommandDto> pending = new ConcurrentHashMap<>();
+
+	private final Cache<String, StockCommandDto> results;
+
+	private final AtomicLong refused = new AtomicLong();
+
+	private volatile boolean running;
+
+	private Thread worker;
+
+	@Autowired
+	public StockCommandQueue(final BeerService beerService, final BeerstockProperties beerstockProperties) {
+		final BeerstockProperties.CommandQueue properties = beerstockProperties.getStock()
+				.getCommandQueue();
+		this.beerService = beerService;
+		this.capacity = properties.getCapacity();
+		this.maxBatchSize = properties.getMaxBatchSize();
+		this.queue = new ArrayBlockingQueue<>(capacity);
+		this.results = Caffeine.newBuilder()
+				.maximumSize(properties.getResultMaxSize())
+				.expireAfterWrite(properties.getResultTtl())
+				.build();
+	}
+
+	/**
+	 * Starts the worker.
+	 */
+	@PostConstruct
+	public void start() {
+		running = true;
+		worker = new Thread(this::run, "stock-commands");
+		worker.setDaemon(true);
+		worker.start();
+	}
+
+	/**
+	 * Stops the worker and applies the commands still waiting.
+	 *
+	 * @throws InterruptedException if interrupted while the worker stops
+	 */
+	@PreDestroy
+	public void stop() throws InterruptedException {
+		running = false;
+		worker.join();
+		while (applyWaiting() > 0) {
+			// until the queue is empty
+		}
+	}
+
+	/**
+	 * Adds a stock change to the queue.
+	 *
+	 * @param beerId   id of the beer
+	 * @param quantity to increment, negative to decrement
+	 *
+	 * @return {@link StockCommandDto} pending
+	 * @throws StockQueueFullException if the queue is full
+	 */
+	public StockCommandDto enqueue(final Long beerId, final int quantity) throws StockQueueFullException {
+		final StockCommandDto command = StockCommandDto.builder()
+				.id(UUID.randomUUID()
+						.toString())
+				.beerId(beerId)
+				.quantity(quantity)
+				.status(StockItemStatus.PENDING)
+				.build();
+		// kept before it is queued, so its result never comes first
+		pending.put(command.getId(), command);
+		if (!queue.offer(command)) {
+			pending.remove(command.getId());
+			refused.incrementAndGet();
+			throw new StockQueueFullException(capacity);
+		}
+		return command;
+	}
+
+	/**
+	 * Reads a command.
+	 *
+	 * @param id of the command
+	 *
+	 * @return {@link StockCommandDto}
+	 * @throws StockCommandNotFoundException if the command does not exist or its
+	 *                                       result expired
+	 */
+	public StockCommandDto read(final String id) throws StockCommandNotFoundException {
+		// pending first, a command completed is in the results before it leaves
+		final StockCommandDto command = pending.get(id);
+		if (command != null) {
+			return command;
+		}
+		return Optional.ofNullable(results.getIfPresent(id))
+				.orElseThrow(() -> new StockCommandNotFoundException(id));
+	}
+
+	@Override
+	public void bindTo(final MeterRegistry registry) {
+		Gauge.builder("beerstock.stock.commands.queued", queue, BlockingQueue::size)
+				.description("Stock commands waiting to be applied")
+				.register(registry);
+		FunctionCounter.builder("beerstock.stock.commands.refused", refused, AtomicLong::get)
+				.description("Stock commands refused because the queue was full")
+				.register(registry);
+	}
+
+	/**
+	 * Applies the commands waiting, up to the max batch size.
+	 *
+	 * @return the number of commands applied
+	 */
+	int applyWaiting() {
+		final List<StockCommandDto> batch = new ArrayList<>();
+		queue.drainTo(batch, maxBatchSize);
+		if (!batch.isEmpty()) {
+			apply(batch);
+		}
+		return batch.size();
+	}
+
+	private void run() {
+		while (running) {
+			try {
+				final StockCommandDto first = queue.poll(POLL_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+				if (first == null) {
+					continue;
+				}
+
+				final List<StockCommandDto> batch = new ArrayList<>();
+				batch.add(first);
+				queue.drainTo(batch, maxBatchSize - 1);
+				apply(batch);
+			} catch (final InterruptedException e) {
+				Thread.currentThread()
+						.interrupt();
+				return;
+			} catch (final RuntimeException e) {
+				log.error("Stock command worker failed", e);
+			}
+		}
+	}
+
+	private void apply(final List<StockCommandDto> batch) {
+		final List<StockItemDto> items = batch.stream()
+				.map(command -> new StockItemDto(command.getBeerId(), command.getQuantity()))
+				.collect(Collectors.toList());
+
+		final List<StockItemResultDto> results;
+		try {
+			results = beerService.stock(items, StockBatchMode.BEST_EFFORT);
+		} catch (final RuntimeException e) {
+			log.warn("Could not apply {} stock command(s)", batch.size(), e);
+			batch.forEach(command -> complete(command, StockItemStatus.FAILED, e.getMessage()));
+			return;
+		}
+
+		for (int i = 0; i < batch.size(); i++) {
+			final StockItemResultDto result = results.get(i);
+			complete(batch.get(i), result.getStatus(), result.getMessage());
+		}
+	}
+
+	private void complete(final StockCommandDto command, final StockItemStatus status, final String message) {
+		results.put(command.getId(), command.toBuilder()
+				.status(status)
+				.message(message)
+				.build());
+		pending.remove(command.getId());
+	}
+}
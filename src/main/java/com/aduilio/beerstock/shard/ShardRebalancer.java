@@ -0,0 +1,163 @@
+package com.aduilio.beerstock.shard;
+
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.stereotype.Component;
+
+import com.aduilio.beerstock.config.BeerstockProperties;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Moves the beers and the names to their shards after shards are added at the
+ * end of {@code beerstock.sharding.urls}. It runs instead of the application
+ * when {@code beerstock.sharding.rebalance-from} is the number of shards
+ * before, and must run while nothing else writes to the shards:
+ *
+ * <pre>
+ * java -jar beerstock.jar --spring.profiles.active=sharded --spring.main.web-application-type=none \
+ *     --beerstock.sharding.rebalance-from=2
+ * </pre>
+ *
+ * Each row is copied to its shard and then deleted from the old one, so a run
+ * stopped halfway is completed by running it again. With the jump consistent
+ * hash the rows only move to the new shards.
+ */
+@Slf4j
+@Component
+@Profile("sharded")
+public class ShardRebalancer implements ApplicationRunner {
+
+	private static final String COLUMNS = "id, name, brand, max, quantity, reserved, type, version";
+
+	private static final String MERGE_BEER = "merge into beer (" + COLUMNS
+			+ ") key (id) values (:id, :name, :brand, :max, :quantity, :reserved, :type, :version)";
+
+	private static final String MERGE_NAME = "merge into beer_name (name, id) key (name) values (:name, :id)";
+
+	private final Shards shards;
+
+	private final ConfigurableApplicationContext applicationContext;
+
+	private final int pageSize;
+
+	private final int rebalanceFrom;
+
+	@Autowired
+	public ShardRebalancer(final Shards shards, final ConfigurableApplicationContext applicationContext,
+			final BeerstockProperties beerstockProperties) {
+		this.shards = shards;
+		this.applicationContext = applicationContext;
+		this.pageSize = beerstockProperties.getSharding()
+				.getFetchSize();
+		this.rebalanceFrom = beerstockProperties.getSharding()
+				.getRebalanceFrom();
+	}
+
+	@Override
+	public void run(final ApplicationArguments args) {
+		if (rebalanceFrom <= 0) {
+			return;
+		}
+
+		log.info("Moving the beers of {} shard(s) to {} shard(s)", rebalanceFrom, shards.count());
+		final long moved = rebalance(rebalanceFrom);
+		log.info("{} row(s) moved", moved);
+		SpringApplication.exit(applicationContext);
+	}
+
+	/**
+	 * Moves the beers and the names of the first shards that belong to other
+	 * shards.
+	 *
+	 * @param from the number of shards that may have rows in the wrong shard
+	 *
+	 * @return the number of beers and names moved
+	 */
+	public long rebalance(final int from) {
+		long moved = 0;
+		for (int shard = 0; shard < Math.min(from, shards.count()); shard++) {
+			moved += moveBeers(shard);
+			moved += moveNames(shard);
+		}
+		return moved;
+	}
+
+	private long moveBeers(final int shard) {
+		final NamedParameterJdbcTemplate source = shards.get(shard);
+		long moved = 0;
+		long lastId = 0;
+		List<Map<String, Object>> page;
+		do {
+			page = source.queryForList("select " + COLUMNS + " from beer where id > :id order by id limit :size",
+					new MapSqlParameterSource("id", lastId).addValue("size", pageSize));
+			if (page.isEmpty()) {
+				break;
+			}
+			lastId = ((Number) page.get(page.size() - 1)
+					.get("id")).longValue();
+
+			final Map<Integer, List<Map<String, Object>>> targets = page.stream()
+					.collect(Collectors.groupingBy(row -> shards.ofId(((Number) row.get("id")).longValue())));
+			targets.remove(shard);
+			for (final Map.Entry<Integer, List<Map<String, Object>>> target : targets.entrySet()) {
+				final SqlParameterSource[] rows = parametersOf(target.getValue());
+				shards.get(target.getKey())
+						.batchUpdate(MERGE_BEER, rows);
+				source.batchUpdate("delete from beer where id = :id", rows);
+				moved += rows.length;
+			}
+		} while (page.size() == pageSize);
+		return moved;
+	}
+
+	private long moveNames(final int shard) {
+		final NamedParameterJdbcTemplate source = shards.get(shard);
+		long moved = 0;
+		String lastName = "";
+		List<Map<String, Object>> page;
+		do {
+			page = source.queryForList("select name, id from beer_name where name > :name order by name limit :size",
+					new MapSqlParameterSource("name", lastName).addValue("size", pageSize));
+			if (page.isEmpty()) {
+				break;
+			}
+			lastName = (String) page.get(page.size() - 1)
+					.get("name");
+
+			final Map<Integer, List<Map<String, Object>>> targets = page.stream()
+					.collect(Collectors.groupingBy(row -> shards.ofName((String) row.get("name"))));
+			targets.remove(shard);
+			for (final Map.Entry<Integer, List<Map<String, Object>>> target : targets.entrySet()) {
+				final SqlParameterSource[] rows = parametersOf(target.getValue());
+				shards.get(target.getKey())
+						.batchUpdate(MERGE_NAME, rows);
+				source.batchUpdate("delete from beer_name where name = :name", rows);
+				moved += rows.length;
+			}
+		} while (page.size() == pageSize);
+		return moved;
+	}
+
+	private static SqlParameterSource[] parametersOf(final List<Map<String, Object>> rows) {
+		// the columns are read in upper case
+		return rows.stream()
+				.map(row -> {
+					final MapSqlParameterSource parameters = new MapSqlParameterSource();
+					row.forEach((column, value) -> parameters.addValue(column.toLowerCase(), value));
+					return parameters;
+				})
+				.toArray(SqlParameterSource[]::new);
+	}
+}
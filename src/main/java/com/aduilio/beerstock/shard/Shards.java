@@ -0,0 +1,214 @@
+package com.aduilio.beerstock.shard;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import javax.sql.DataSource;
+
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+
+/**
+ * The databases the beers are split across. A beer is stored in the shard of
+ * its id, and the name of a beer in the shard of the name, so a beer is found
+ * by name reading two shards at most.
+ * <p>
+ * The shard of a key is chosen by the jump consistent hash of Lamping and
+ * Veach, that needs no table and, when a shard is added at the end, only moves
+ * keys to the new shard, about one for each number of shards.
+ */
+public class Shards implements Closeable {
+
+	private static final long JUMP_MULTIPLIER = 2862933555777941757L;
+
+	private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+
+	private static final long FNV_PRIME = 0x100000001b3L;
+
+	private final List<DataSource> dataSources;
+
+	private final List<NamedParameterJdbcTemplate> templates;
+
+	private final ExecutorService executor;
+
+	/**
+	 * Creates the shards.
+	 *
+	 * @param dataSources of the shards, in order
+	 */
+	public Shards(final List<DataSource> dataSources) {
+		if (dataSources.isEmpty()) {
+			throw new IllegalArgumentException("At least one shard is needed");
+		}
+		this.dataSources = Collections.unmodifiableList(new ArrayList<>(dataSources));
+		this.templates = new ArrayList<>(dataSources.size());
+		dataSources.forEach(dataSource -> templates.add(new NamedParameterJdbcTemplate(dataSource)));
+		final AtomicInteger threads = new AtomicInteger();
+		this.executor = Executors.newFixedThreadPool(dataSources.size(), runnable -> {
+			final Thread thread = new Thread(runnable, "beer-shards-" + threads.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+
+	/**
+	 * Returns the number of shards.
+	 *
+	 * @return the number of shards
+	 */
+	public int count() {
+		return templates.size();
+	}
+
+	/**
+	 * Returns the template of a shard.
+	 *
+	 * @param shard index of the shard
+	 *
+	 * @return the {@link NamedParameterJdbcTemplate} of the shard
+	 */
+	public NamedParameterJdbcTemplate get(final int shard) {
+		return templates.get(shard);
+	}
+
+	/**
+	 * Returns the data source of a shard.
+	 *
+	 * @param shard index of the shard
+	 *
+	 * @return the {@link DataSource} of the shard
+	 */
+	public DataSource dataSource(final int shard) {
+		return dataSources.get(shard);
+	}
+
+	/**
+	 * Finds the shard of a beer.
+	 *
+	 * @param id of the beer
+	 *
+	 * @return the shard of the beer
+	 */
+	public int ofId(final long id) {
+		return jump(mix(id), count());
+	}
+
+	/**
+	 * Finds the shard of the name of a beer.
+	 *
+	 * @param name of the beer
+	 *
+	 * @return the shard of the name of the beer
+	 */
+	public int ofName(final String name) {
+		return jump(hash(name), count());
+	}
+
+	/**
+	 * Runs a query in all the shards at the same time.
+	 *
+	 * @param query to run in each shard
+	 *
+	 * @return the results, in the order of the shards
+	 */
+	public <T> List<T> scatter(final Function<NamedParameterJdbcTemplate, T> query) {
+		if (count() == 1) {
+			return Collections.singletonList(query.apply(templates.get(0)));
+		}
+
+		final List<Future<T>> futures = new ArrayList<>(count());
+		templates.forEach(template -> futures.add(executor.submit(() -> query.apply(template))));
+		final List<T> results = new ArrayList<>(count());
+		try {
+			for (final Future<T> future : futures) {
+				results.add(future.get());
+			}
+		} catch (final InterruptedException e) {
+			Thread.currentThread()
+					.interrupt();
+			futures.forEach(future -> future.cancel(true));
+			throw new IllegalStateException("Interrupted while reading the shards", e);
+		} catch (final ExecutionException e) {
+			futures.forEach(future -> future.cancel(true));
+			if (e.getCause() instanceof DataAccessException) {
+				throw (DataAccessException) e.getCause();
+			}
+			throw new IllegalStateException("Could not read the shards", e.getCause());
+		}
+		return results;
+	}
+
+	/**
+	 * Stops the threads of {@link #scatter(Function)} and closes the data
+	 * sources that can be closed.
+	 */
+	@Override
+	public void close() {
+		executor.shutdownNow();
+		dataSources.stream()
+				.filter(Closeable.class::isInstance)
+				.forEach(dataSource -> {
+					try {
+						((Closeable) dataSource).close();
+					} catch (final IOException e) {
+						// closing anyway
+					}
+				});
+	}
+
+	/**
+	 * The jump consistent hash, from "A Fast, Minimal Memory, Consistent Hash
+	 * Algorithm".
+	 *
+	 * @param key     hashed
+	 * @param buckets the number of buckets
+	 *
+	 * @return the bucket of the key, from zero to the number of buckets minus one
+	 */
+	static int jump(final long key, final int buckets) {
+		long hash = key;
+		long bucket = -1;
+		long next = 0;
+		while (next < buckets) {
+			bucket = next;
+			hash = hash * JUMP_MULTIPLIER + 1;
+			next = (long) ((bucket + 1) * ((double) (1L << 31) / (double) ((hash >>> 33) + 1)));
+		}
+		return (int) bucket;
+	}
+
+	/**
+	 * Spreads the bits of the sequential ids, the finalizer of MurmurHash3.
+	 */
+	private static long mix(final long value) {
+		long hash = value;
+		hash ^= hash >>> 33;
+		hash *= 0xff51afd7ed558ccdL;
+		hash ^= hash >>> 33;
+		hash *= 0xc4ceb9fe1a85ec53L;
+		hash ^= hash >>> 33;
+		return hash;
+	}
+
+	/**
+	 * The 64-bit FNV-1a hash of the name, the same on every JVM.
+	 */
+	private static long hash(final String name) {
+		long hash = FNV_OFFSET_BASIS;
+		for (final byte b : name.getBytes(StandardCharsets.UTF_8)) {
+			hash ^= b & 0xff;
+			hash *= FNV_PRIME;
+		}
+		return mix(hash);
+	}
+}
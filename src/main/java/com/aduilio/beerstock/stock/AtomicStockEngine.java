@@ -0,0 +1,119 @@
+package com.aduilio.beerstock.stock;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.aduilio.beerstock.dto.StockItemDto;
+import com.aduilio.beerstock.dto.StockItemResultDto;
+import com.aduilio.beerstock.entity.Beer;
+import com.aduilio.beerstock.enums.StockBatchMode;
+import com.aduilio.beerstock.enums.StockItemStatus;
+import com.aduilio.beerstock.exception.BeerExceedStockException;
+import com.aduilio.beerstock.exception.BeerNegativeStockException;
+import com.aduilio.beerstock.exception.BeerNotFoundException;
+import com.aduilio.beerstock.repository.BeerRepository;
+import com.aduilio.beerstock.repository.StockBatchRepository;
+
+import lombok.AllArgsConstructor;
+
+/**
+ * Changes the stock in the database with a single conditional update, so
+ * concurrent changes are not lost, and batches of changes with JDBC batches.
+ * This is the default engine.
+ */
+@Component
+@ConditionalOnProperty(name = "beerstock.stock.engine", havingValue = "atomic", matchIfMissing = true)
+@AllArgsConstructor(onConstructor = @__(@Autowired))
+public class AtomicStockEngine implements StockEngine {
+
+	private final BeerRepository beerRepository;
+
+	private final StockBatchRepository stockBatchRepository;
+
+	@Override
+	@Transactional
+	public Beer stock(final Long beerId, final int quantity)
+			throws BeerNotFoundException, BeerExceedStockException, BeerNegativeStockException {
+		while (beerRepository.incrementQuantity(beerId, quantity) == 0) {
+			// Nothing was updated, the current stock tells why. If it accepts the
+			// quantity now, it was changed concurrently and the update is retried.
+			readById(beerId).verifyIncrement(quantity);
+		}
+
+		return readById(beerId);
+	}
+
+	/**
+	 * Locks the beers of the batch with a single query, validates the changes in
+	 * memory and writes the new quantities with JDBC batches, all in one
+	 * transaction.
+	 */
+	@Override
+	@Transactional
+	public List<StockItemResultDto> stock(final List<StockItemDto> items, final StockBatchMode mode) {
+		final Map<Long, Beer> beers = lockBeers(items);
+		final Map<Long, Integer> quantities = new LinkedHashMap<>();
+		final List<StockItemResultDto> results = items.stream()
+				.map(item -> apply(item, beers, quantities))
+				.collect(Collectors.toCollection(ArrayList::new));
+
+		if (mode == StockBatchMode.ALL_OR_NOTHING && !results.stream()
+				.allMatch(StockItemResultDto::isApplied)) {
+			results.stream()
+					.filter(StockItemResultDto::isApplied)
+					.forEach(result -> result.setStatus(StockItemStatus.ROLLED_BACK));
+		} else if (!quantities.isEmpty()) {
+			stockBatchRepository.updateQuantities(quantities);
+		}
+		return results;
+	}
+
+	private Map<Long, Beer> lockBeers(final List<StockItemDto> items) {
+		final Set<Long> ids = items.stream()
+				.map(StockItemDto::getId)
+				.filter(Objects::nonNull)
+				.collect(Collectors.toSet());
+		if (ids.isEmpty()) {
+			return Collections.emptyMap();
+		}
+
+		return beerRepository.findAllForUpdate(ids)
+				.stream()
+				.collect(Collectors.toMap(Beer::getId, Function.identity(), (first, second) -> first, HashMap::new));
+	}
+
+	private StockItemResultDto apply(final StockItemDto item, final Map<Long, Beer> beers,
+			final Map<Long, Integer> quantities) {
+		try {
+			final Beer beer = beers.get(item.getId());
+			if (beer == null) {
+				throw new BeerNotFoundException(item.getId());
+			}
+
+			final int current = quantities.getOrDefault(beer.getId(), beer.getQuantity());
+			Beer.verifyIncrement(beer.getMax(), current, beer.getReserved(), item.getQuantity());
+			quantities.put(beer.getId(), current + item.getQuantity());
+			return StockItemResultDto.of(item, StockItemStatus.APPLIED);
+		} catch (final BeerNotFoundException | BeerExceedStockException | BeerNegativeStockException e) {
+			return StockItemResultDto.of(item, e);
+		}
+	}
+
+	private Beer readById(final Long id) throws BeerNotFoundException {
+		return beerRepository.findById(id)
+				.orElseThrow(() -> new BeerNotFoundException(id));
+	}
+}
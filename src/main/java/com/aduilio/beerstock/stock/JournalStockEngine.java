@@ -0,0 +1,347 @@
+package com.aduilio.beerstock.stock;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+import javax.annotation.PostConstruct;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.aduilio.beerstock.config.BeerstockProperties;
+import com.aduilio.beerstock.config.ReplicaRoutingDataSource;
+import com.aduilio.beerstock.dto.BeerDto;
+import com.aduilio.beerstock.dto.StockItemDto;
+import com.aduilio.beerstock.dto.StockItemResultDto;
+import com.aduilio.beerstock.dto.StockMovementDto;
+import com.aduilio.beerstock.entity.Beer;
+import com.aduilio.beerstock.entity.StockMovement;
+import com.aduilio.beerstock.entity.StockSnapshot;
+import com.aduilio.beerstock.enums.BeerChangeType;
+import com.aduilio.beerstock.enums.StockBatchMode;
+import com.aduilio.beerstock.enums.StockItemStatus;
+import com.aduilio.beerstock.event.BeerChangedEvent;
+import com.aduilio.beerstock.exception.BeerExceedStockException;
+import com.aduilio.beerstock.exception.BeerNegativeStockException;
+import com.aduilio.beerstock.exception.BeerNotFoundException;
+import com.aduilio.beerstock.repository.BeerRepository;
+import com.aduilio.beerstock.repository.StockBatchRepository;
+import com.aduilio.beerstock.repository.StockMovementRepository;
+import com.aduilio.beerstock.repository.StockSnapshotRepository;
+
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Keeps the stock of the beers as an append-only journal of movements. Each
+ * change is checked against the latest snapshot of the beer plus the movements
+ * after it, and appended with the next number of the beer. Two changes of the
+ * same beer checked against the same stock take the same number, so the unique
+ * constraint lets only one of them in and the other is checked again.
+ * <p>
+ * A periodic compaction writes a new snapshot of the beers with new movements
+ * and copies it to the quantity of the beer, at the interval set by the
+ * property {@code beerstock.stock.journal.compact-interval} in milliseconds.
+ * The quantities read from the beers may be behind the journal by up to one
+ * compaction, but the beer read by name takes its quantity from the journal.
+ * The journal must be the only writer of the stock.
+ * <p>
+ * A batch {@link StockBatchMode#ALL_OR_NOTHING} appends the movements of all
+ * its items in one transaction, and is checked again when any of its numbers
+ * was taken.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "beerstock.stock.engine", havingValue = "journal")
+@AllArgsConstructor(onConstructor = @__(@Autowired))
+public class JournalStockEngine implements StockEngine {
+
+	private static final int MAX_COMPACT_SIZE = 500;
+
+	private final BeerRepository beerRepository;
+
+	private final StockMovementRepository stockMovementRepository;
+
+	private final StockSnapshotRepository stockSnapshotRepository;
+
+	private final StockBatchRepository stockBatchRepository;
+
+	private final TransactionTemplate transactionTemplate;
+
+	private final ApplicationEventPublisher eventPublisher;
+
+	private final BeerstockProperties beerstockProperties;
+
+	/**
+	 * The beers with movements after their snapshot.
+	 */
+	private final Set<Long> changed = ConcurrentHashMap.newKeySet();
+
+	private final Lock compactLock = new ReentrantLock();
+
+	/**
+	 * Marks all the beers with movements, for the first compaction to catch up
+	 * with the ones appended before the application stopped.
+	 */
+	@PostConstruct
+	public void recover() {
+		changed.addAll(stockMovementRepository.findBeerIds());
+	}
+
+	/**
+	 * Appends a movement of the beer. Must not be called inside a transaction,
+	 * each attempt runs in its own.
+	 */
+	@Override
+	public Beer stock(final Long beerId, final int quantity)
+			throws BeerNotFoundException, BeerExceedStockException, BeerNegativeStockException {
+		while (true) {
+			final Stock stock = read(beerId);
+			final Beer beer = stock.beer;
+			Beer.verifyIncrement(beer.getMax(), stock.quantity, beer.getReserved(), quantity);
+
+			try {
+				stockMovementRepository.saveAndFlush(StockMovement.builder()
+						.beerId(beerId)
+						.sequence(stock.sequence + 1)
+						.delta(quantity)
+						.createdAt(Instant.now())
+						.build());
+			} catch (final DataIntegrityViolationException e) {
+				// another movement took the number, the stock is read again
+				continue;
+			}
+
+			changed.add(beerId);
+			return beer.toBuilder()
+					.quantity(stock.quantity + quantity)
+					.build();
+		}
+	}
+
+	/**
+	 * Must not be called inside a transaction, each attempt runs in its own.
+	 */
+	@Override
+	public List<StockItemResultDto> stock(final List<StockItemDto> items, final StockBatchMode mode) {
+		if (mode != StockBatchMode.ALL_OR_NOTHING) {
+			return StockEngine.super.stock(items, mode);
+		}
+
+		while (true) {
+			final List<StockItemResultDto> results = new ArrayList<>(items.size());
+			try {
+				transactionTemplate.executeWithoutResult(status -> append(items, results));
+			} catch (final DataIntegrityViolationException e) {
+				// another movement took a number, the batch is checked again
+				continue;
+			}
+
+			changed.addAll(results.stream()
+					.filter(StockItemResultDto::isApplied)
+					.map(StockItemResultDto::getId)
+					.collect(Collectors.toSet()));
+			return results;
+		}
+	}
+
+	/**
+	 * Applies the movements after the snapshot of the beer, read from the
+	 * primary. The number of the last movement is added to the version, so the
+	 * ETag of the beer changes with each movement and not only when it is
+	 * compacted: both only grow.
+	 */
+	@Override
+	public BeerDto withPendingStock(final BeerDto beer) {
+		final Stock stock = ReplicaRoutingDataSource.onPrimary(() -> {
+			try {
+				return read(beer.getId());
+			} catch (final BeerNotFoundException e) {
+				// deleted since it was read
+				return null;
+			}
+		});
+		if (stock == null) {
+			return beer;
+		}
+		return beer.toBuilder()
+				.quantity(stock.quantity)
+				.version(beer.getVersion() + stock.sequence)
+				.build();
+	}
+
+	@Override
+	public void evict(final Long beerId) {
+		changed.remove(beerId);
+	}
+
+	/**
+	 * Finds the movements of a beer, oldest first.
+	 *
+	 * @param beerId id of the beer
+	 * @param after  number of the last movement of the previous page, zero for
+	 *               the first page
+	 * @param size   of the page, null for the default size, limited to the max
+	 *               page size
+	 *
+	 * @return {@link List} of {@link StockMovementDto}
+	 * @throws BeerNotFoundException if the id does not exist
+	 */
+	public List<StockMovementDto> history(final Long beerId, final long after, final Integer size)
+			throws BeerNotFoundException {
+		if (!beerRepository.existsById(beerId)) {
+			throw new BeerNotFoundException(beerId);
+		}
+		final BeerstockProperties.Page page = beerstockProperties.getPage();
+		final int limit = size == null ? page.getDefaultSize() : Math.min(Math.max(size, 1), page.getMaxSize());
+		return stockMovementRepository.findPageBySequence(beerId, after, PageRequest.of(0, limit));
+	}
+
+	/**
+	 * Writes a snapshot of the beers with new movements, a batch per
+	 * transaction. If a transaction fails its beers are kept for the next
+	 * compaction. A change event is published for each beer written, since its
+	 * row changed only now.
+	 */
+	@Scheduled(fixedDelayString = "${beerstock.stock.journal.compact-interval:1000}")
+	public void compact() {
+		compactLock.lock();
+		try {
+			final List<Long> beerIds = new ArrayList<>(changed);
+			for (int from = 0; from < beerIds.size(); from += MAX_COMPACT_SIZE) {
+				final List<Long> batch = beerIds.subList(from, Math.min(from + MAX_COMPACT_SIZE, beerIds.size()));
+				// a movement appended from now on marks it again
+				changed.removeAll(batch);
+				compact(batch);
+			}
+		} finally {
+			compactLock.unlock();
+		}
+	}
+
+	private void compact(final List<Long> beerIds) {
+		try {
+			final Map<Long, Integer> quantities = transactionTemplate.execute(status -> snapshot(beerIds));
+			quantities.keySet()
+					.forEach(beerId -> eventPublisher.publishEvent(new BeerChangedEvent(beerId, null,
+							BeerChangeType.STOCK)));
+		} catch (final RuntimeException e) {
+			log.warn("Could not compact the stock journal, retrying in the next compaction", e);
+			changed.addAll(beerIds);
+		}
+	}
+
+	private Map<Long, Integer> snapshot(final List<Long> beerIds) {
+		final Map<Long, Integer> quantities = new HashMap<>();
+		final Instant now = Instant.now();
+		for (final Long beerId : beerIds) {
+			final Stock stock;
+			try {
+				stock = read(beerId);
+			} catch (final BeerNotFoundException e) {
+				// deleted, its movements are kept as they are
+				continue;
+			}
+			if (stock.snapshot != null && stock.snapshot.getSequence() == stock.sequence) {
+				continue;
+			}
+
+			stockSnapshotRepository.save(StockSnapshot.builder()
+					.beerId(beerId)
+					.quantity(stock.quantity)
+					.sequence(stock.sequence)
+					.createdAt(now)
+					.build());
+			quantities.put(beerId, stock.quantity);
+		}
+		stockBatchRepository.updateQuantities(quantities);
+		return quantities;
+	}
+
+	/**
+	 * Checks the items against the stock of their beers plus the items before
+	 * them and, only if all of them are valid, appends their movements.
+	 */
+	private void append(final List<StockItemDto> items, final List<StockItemResultDto> results) {
+		final Map<Long, Stock> stocks = new HashMap<>();
+		final List<StockMovement> movements = new ArrayList<>(items.size());
+		final Instant now = Instant.now();
+		for (final StockItemDto item : items) {
+			try {
+				final Stock stock = stocks.containsKey(item.getId()) ? stocks.get(item.getId()) : read(item.getId());
+				final Beer beer = stock.beer;
+				Beer.verifyIncrement(beer.getMax(), stock.quantity, beer.getReserved(), item.getQuantity());
+
+				stocks.put(item.getId(),
+						new Stock(beer, stock.snapshot, stock.quantity + item.getQuantity(), stock.sequence + 1));
+				movements.add(StockMovement.builder()
+						.beerId(item.getId())
+						.sequence(stock.sequence + 1)
+						.delta(item.getQuantity())
+						.createdAt(now)
+						.build());
+				results.add(StockItemResultDto.of(item, StockItemStatus.APPLIED));
+			} catch (final BeerNotFoundException | BeerExceedStockException | BeerNegativeStockException e) {
+				results.add(StockItemResultDto.of(item, e));
+			}
+		}
+
+		if (movements.size() < items.size()) {
+			results.stream()
+					.filter(StockItemResultDto::isApplied)
+					.forEach(result -> result.setStatus(StockItemStatus.ROLLED_BACK));
+			return;
+		}
+		stockMovementRepository.saveAll(movements);
+		stockMovementRepository.flush();
+	}
+
+	/**
+	 * Reads the stock of a beer from its snapshot, or from its quantity if it
+	 * has none, and the movements after it.
+	 */
+	private Stock read(final Long beerId) throws BeerNotFoundException {
+		final List<Object[]> rows = stockSnapshotRepository.findBeerAndSnapshot(beerId);
+		if (rows.isEmpty()) {
+			throw new BeerNotFoundException(beerId);
+		}
+		final Beer beer = (Beer) rows.get(0)[0];
+		final StockSnapshot snapshot = (StockSnapshot) rows.get(0)[1];
+		final long base = snapshot == null ? 0 : snapshot.getSequence();
+
+		final Object[] movements = stockMovementRepository.sumAfter(beerId, base)
+				.get(0);
+		final int quantity = (snapshot == null ? beer.getQuantity() : snapshot.getQuantity())
+				+ ((Number) movements[0]).intValue();
+		return new Stock(beer, snapshot, quantity, ((Number) movements[1]).longValue());
+	}
+
+	/**
+	 * The stock of a beer and the number of the last movement in it.
+	 */
+	@AllArgsConstructor
+	private static final class Stock {
+
+		private final Beer beer;
+
+		private final StockSnapshot snapshot;
+
+		private final int quantity;
+
+		private final long sequence;
+	}
+}
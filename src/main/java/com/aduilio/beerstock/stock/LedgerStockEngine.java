@@ -0,0 +1,183 @@
+package com.aduilio.beerstock.stock;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.aduilio.beerstock.dto.BeerDto;
+import com.aduilio.beerstock.entity.Beer;
+import com.aduilio.beerstock.enums.BeerChangeType;
+import com.aduilio.beerstock.enums.StockBatchMode;
+import com.aduilio.beerstock.event.BeerChangedEvent;
+import com.aduilio.beerstock.exception.BeerExceedStockException;
+import com.aduilio.beerstock.exception.BeerNegativeStockException;
+import com.aduilio.beerstock.exception.BeerNotFoundException;
+import com.aduilio.beerstock.repository.BeerRepository;
+
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Keeps the stock of the beers in memory and writes the accepted changes to
+ * the database in periodic batches. The interval is set by the property
+ * {@code beerstock.stock.ledger.flush-interval} in milliseconds.
+ * <p>
+ * The quantities read from the database may be behind the ledger by up to one
+ * flush interval. The beer read by name takes its quantity from the ledger,
+ * and its version counts the changes of the ledger, so it shows a change as
+ * soon as it is accepted. The pages, the search, the
+ * export and the catalog version read the database, and show the change only
+ * after the flush that writes it, which publishes a change event for each beer
+ * written so the caches and the change feed catch up. The ledger must be the
+ * only writer of the stock.
+ * <p>
+ * The changes accepted are only written later, one beer at a time, so it
+ * refuses the batches {@link StockBatchMode#ALL_OR_NOTHING}.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "beerstock.stock.engine", havingValue = "ledger")
+@AllArgsConstructor(onConstructor = @__(@Autowired))
+public class LedgerStockEngine implements StockEngine {
+
+	private final BeerRepository beerRepository;
+
+	private final TransactionTemplate transactionTemplate;
+
+	private final ApplicationEventPublisher eventPublisher;
+
+	private final ConcurrentMap<Long, StockCounter> counters = new ConcurrentHashMap<>();
+
+	private final Lock flushLock = new ReentrantLock();
+
+	/**
+	 * Loads the counters from the database.
+	 */
+	@PostConstruct
+	public void recover() {
+		beerRepository.findAll()
+				.forEach(beer -> counters.put(beer.getId(), new StockCounter(beer)));
+		log.info("Stock ledger recovered {} beer(s)", counters.size());
+	}
+
+	@Override
+	public Beer stock(final Long beerId, final int quantity)
+			throws BeerNotFoundException, BeerExceedStockException, BeerNegativeStockException {
+		return counterOf(beerId).increment(quantity);
+	}
+
+	@Override
+	public BeerDto withPendingStock(final BeerDto beer) {
+		final StockCounter counter = counters.get(beer.getId());
+		if (counter == null) {
+			return beer;
+		}
+		return counter.applyTo(beer);
+	}
+
+	@Override
+	public void evict(final Long beerId) {
+		counters.remove(beerId);
+	}
+
+	/**
+	 * Writes the changes accepted since the last flush in a single transaction.
+	 * If the transaction fails the changes are kept for the next flush. A change
+	 * rejected by the database, out of the bounds of the row, was already
+	 * accepted, so it is logged as an error and kept for the next flush too. A
+	 * change event is published for each beer written, since its row changed
+	 * only now.
+	 */
+	@Scheduled(fixedDelayString = "${beerstock.stock.ledger.flush-interval:1000}")
+	public void flush() {
+		flushLock.lock();
+		try {
+			final Map<Long, Integer> deltas = drain();
+			if (deltas.isEmpty()) {
+				return;
+			}
+
+			try {
+				final List<Long> rejected = transactionTemplate.execute(status -> write(deltas));
+				rejected.forEach(beerId -> {
+					log.error("Stock change of {} for beer {} was rejected by the database, retrying in the next flush",
+							deltas.get(beerId), beerId);
+					restore(beerId, deltas.get(beerId));
+				});
+				deltas.keySet()
+						.stream()
+						.filter(beerId -> !rejected.contains(beerId))
+						.forEach(beerId -> eventPublisher.publishEvent(new BeerChangedEvent(beerId, null,
+								BeerChangeType.STOCK)));
+			} catch (final RuntimeException e) {
+				log.warn("Could not flush the stock ledger, retrying in the next flush", e);
+				deltas.forEach(this::restore);
+			}
+		} finally {
+			flushLock.unlock();
+		}
+	}
+
+	/**
+	 * Flushes the pending changes before the application stops.
+	 */
+	@PreDestroy
+	public void shutdown() {
+		flush();
+	}
+
+	private Map<Long, Integer> drain() {
+		final Map<Long, Integer> deltas = new HashMap<>();
+		counters.forEach((beerId, counter) -> {
+			final int delta = counter.drain();
+			if (delta != 0) {
+				deltas.put(beerId, delta);
+			}
+		});
+		return deltas;
+	}
+
+	private void restore(final Long beerId, final int delta) {
+		final StockCounter counter = counters.get(beerId);
+		if (counter != null) {
+			counter.restore(delta);
+		}
+	}
+
+	private List<Long> write(final Map<Long, Integer> deltas) {
+		final List<Long> rejected = new ArrayList<>();
+		deltas.forEach((beerId, delta) -> {
+			if (beerRepository.incrementQuantity(beerId, delta) == 0) {
+				rejected.add(beerId);
+			}
+		});
+		return rejected;
+	}
+
+	private StockCounter counterOf(final Long beerId) throws BeerNotFoundException {
+		final StockCounter counter = counters.get(beerId);
+		if (counter != null) {
+			return counter;
+		}
+
+		final StockCounter created = new StockCounter(beerRepository.findById(beerId)
+				.orElseThrow(() -> new BeerNotFoundException(beerId)));
+		final StockCounter previous = counters.putIfAbsent(beerId, created);
+		return previous == null ? created : previous;
+	}
+}
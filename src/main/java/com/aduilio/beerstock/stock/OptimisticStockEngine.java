@@ -0,0 +1,231 @@
+package com.aduilio.beerstock.stock;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.aduilio.beerstock.config.BeerstockProperties;
+import com.aduilio.beerstock.dto.StockItemDto;
+import com.aduilio.beerstock.dto.StockItemResultDto;
+import com.aduilio.beerstock.entity.Beer;
+import com.aduilio.beerstock.enums.StockBatchMode;
+import com.aduilio.beerstock.enums.StockItemStatus;
+import com.aduilio.beerstock.exception.BeerExceedStockException;
+import com.aduilio.beerstock.exception.BeerNegativeStockException;
+import com.aduilio.beerstock.exception.BeerNotFoundException;
+import com.aduilio.beerstock.exception.BeerStockConflictException;
+import com.aduilio.beerstock.repository.BeerRepository;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+/**
+ * Reads the beer, checks the change in memory and writes the new quantity only
+ * if the version of the beer is still the one read, without holding any lock
+ * in between. A change that conflicts is retried after a random wait, bounded
+ * by a limit that doubles on each retry, so the changes of a hot beer do not
+ * retry in lockstep. After the max attempts it fails with
+ * {@link BeerStockConflictException}.
+ * <p>
+ * A batch {@link StockBatchMode#ALL_OR_NOTHING} is written in one
+ * transaction, and the whole batch is retried when any of its beers conflicts.
+ * <p>
+ * It fits the beers changed by few writers at a time. The conflicts and the
+ * retries are counted by the meters {@code beerstock.stock.conflicts} and
+ * {@code beerstock.stock.retries}.
+ */
+@Component
+@ConditionalOnProperty(name = "beerstock.stock.engine", havingValue = "optimistic")
+public class OptimisticStockEngine implements StockEngine, MeterBinder {
+
+	private final BeerRepository beerRepository;
+
+	private final TransactionTemplate transactionTemplate;
+
+	private final int maxAttempts;
+
+	private final long initialBackoffNanos;
+
+	private final long maxBackoffNanos;
+
+	private final AtomicLong conflicts = new AtomicLong();
+
+	private final AtomicLong retries = new AtomicLong();
+
+	@Autowired
+	public OptimisticStockEngine(final BeerRepository beerRepository, final TransactionTemplate transactionTemplate,
+			final BeerstockProperties beerstockProperties) {
+		final BeerstockProperties.Optimistic properties = beerstockProperties.getStock()
+				.getOptimistic();
+		this.beerRepository = beerRepository;
+		this.transactionTemplate = transactionTemplate;
+		this.maxAttempts = Math.max(properties.getMaxAttempts(), 1);
+		this.initialBackoffNanos = properties.getInitialBackoff()
+				.toNanos();
+		this.maxBackoffNanos = properties.getMaxBackoff()
+				.toNanos();
+	}
+
+	/**
+	 * Must not be called inside a transaction, each attempt reads the beer
+	 * again.
+	 *
+	 * @throws BeerStockConflictException if every attempt conflicted
+	 */
+	@Override
+	public Beer stock(final Long beerId, final int quantity)
+			throws BeerNotFoundException, BeerExceedStockException, BeerNegativeStockException {
+		for (int attempt = 1;; attempt++) {
+			final Beer beer = beerRepository.findById(beerId)
+					.orElseThrow(() -> new BeerNotFoundException(beerId));
+			beer.increment(quantity);
+
+			if (transactionTemplate.execute(
+					status -> beerRepository.updateQuantity(beerId, beer.getVersion(), beer.getQuantity())) > 0) {
+				beer.setVersion(beer.getVersion() + 1);
+				return beer;
+			}
+
+			conflicts.incrementAndGet();
+			if (attempt == maxAttempts) {
+				throw new BeerStockConflictException(beerId, attempt);
+			}
+			retries.incrementAndGet();
+			backoff(beerId, attempt);
+		}
+	}
+
+	/**
+	 * Must not be called inside a transaction, each attempt reads the beers
+	 * again. When the last attempt conflicts, the items of the beer that
+	 * conflicted are {@link StockItemStatus#CONFLICT} and the others
+	 * {@link StockItemStatus#ROLLED_BACK}.
+	 */
+	@Override
+	public List<StockItemResultDto> stock(final List<StockItemDto> items, final StockBatchMode mode) {
+		if (mode != StockBatchMode.ALL_OR_NOTHING) {
+			return StockEngine.super.stock(items, mode);
+		}
+
+		for (int attempt = 1;; attempt++) {
+			final List<StockItemResultDto> results = new ArrayList<>(items.size());
+			final Long conflicted = transactionTemplate.execute(status -> {
+				final Long beerId = writeAll(items, results);
+				if (beerId != null) {
+					status.setRollbackOnly();
+				}
+				return beerId;
+			});
+			if (conflicted == null) {
+				return results;
+			}
+
+			conflicts.incrementAndGet();
+			if (attempt == maxAttempts) {
+				final BeerStockConflictException conflict = new BeerStockConflictException(conflicted, attempt);
+				for (int i = 0; i < items.size(); i++) {
+					final StockItemDto item = items.get(i);
+					results.set(i, conflicted.equals(item.getId()) ? StockItemResultDto.of(item, conflict)
+							: StockItemResultDto.of(item, StockItemStatus.ROLLED_BACK));
+				}
+				return results;
+			}
+			retries.incrementAndGet();
+			backoff(conflicted, attempt);
+		}
+	}
+
+	@Override
+	public void bindTo(final MeterRegistry registry) {
+		FunctionCounter.builder("beerstock.stock.conflicts", conflicts, AtomicLong::get)
+				.description("Stock changes that found the beer changed since it was read")
+				.register(registry);
+		FunctionCounter.builder("beerstock.stock.retries", retries, AtomicLong::get)
+				.description("Stock changes retried after a conflict")
+				.register(registry);
+	}
+
+	/**
+	 * Validates the items in memory against the beers read and, only if all of
+	 * them are valid, writes the new quantities of the beers if their versions
+	 * are still the ones read.
+	 *
+	 * @return the id of the first beer whose version changed, null if every beer
+	 *         was written or nothing was written because of an invalid item
+	 */
+	private Long writeAll(final List<StockItemDto> items, final List<StockItemResultDto> results) {
+		final Map<Long, Beer> beers = beerRepository.findAllById(items.stream()
+				.map(StockItemDto::getId)
+				.filter(Objects::nonNull)
+				.collect(Collectors.toSet()))
+				.stream()
+				.collect(Collectors.toMap(Beer::getId, Function.identity()));
+		final Map<Long, Integer> quantities = new LinkedHashMap<>();
+		items.forEach(item -> results.add(apply(item, beers, quantities)));
+
+		if (!results.stream()
+				.allMatch(StockItemResultDto::isApplied)) {
+			results.stream()
+					.filter(StockItemResultDto::isApplied)
+					.forEach(result -> result.setStatus(StockItemStatus.ROLLED_BACK));
+			return null;
+		}
+
+		for (final Map.Entry<Long, Integer> quantity : quantities.entrySet()) {
+			if (beerRepository.updateQuantity(quantity.getKey(), beers.get(quantity.getKey())
+					.getVersion(), quantity.getValue()) == 0) {
+				return quantity.getKey();
+			}
+		}
+		return null;
+	}
+
+	private StockItemResultDto apply(final StockItemDto item, final Map<Long, Beer> beers,
+			final Map<Long, Integer> quantities) {
+		try {
+			final Beer beer = beers.get(item.getId());
+			if (beer == null) {
+				throw new BeerNotFoundException(item.getId());
+			}
+
+			final int current = quantities.getOrDefault(beer.getId(), beer.getQuantity());
+			Beer.verifyIncrement(beer.getMax(), current, beer.getReserved(), item.getQuantity());
+			quantities.put(beer.getId(), current + item.getQuantity());
+			return StockItemResultDto.of(item, StockItemStatus.APPLIED);
+		} catch (final BeerNotFoundException | BeerExceedStockException | BeerNegativeStockException e) {
+			return StockItemResultDto.of(item, e);
+		}
+	}
+
+	/**
+	 * Waits a random duration up to the initial backoff doubled for each retry
+	 * before this one, limited to the max backoff.
+	 */
+	private void backoff(final Long beerId, final int attempt) {
+		final long bound = Math.min(maxBackoffNanos, initialBackoffNanos << Math.min(attempt - 1, 30));
+		if (bound <= 0) {
+			return;
+		}
+		try {
+			TimeUnit.NANOSECONDS.sleep(ThreadLocalRandom.current()
+					.nextLong(bound + 1));
+		} catch (final InterruptedException e) {
+			Thread.currentThread()
+					.interrupt();
+			throw new BeerStockConflictException(beerId, attempt);
+		}
+	}
+}
@@ -0,0 +1,109 @@
+package com.aduilio.beerstock.stock;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.interceptor.TransactionAspectSupport;
+
+import com.aduilio.beerstock.dto.StockItemDto;
+import com.aduilio.beerstock.dto.StockItemResultDto;
+import com.aduilio.beerstock.entity.Beer;
+import com.aduilio.beerstock.enums.StockBatchMode;
+import com.aduilio.beerstock.enums.StockItemStatus;
+import com.aduilio.beerstock.exception.BeerExceedStockException;
+import com.aduilio.beerstock.exception.BeerNegativeStockException;
+import com.aduilio.beerstock.exception.BeerNotFoundException;
+import com.aduilio.beerstock.repository.BeerRepository;
+
+import lombok.AllArgsConstructor;
+
+/**
+ * Locks the row of the beer with {@code select ... for update}, checks the
+ * change in memory and writes it when the transaction commits. The changes of
+ * the same beer wait for each other instead of retrying, so it fits the beers
+ * changed by many writers at a time, as long as the wait stays below the lock
+ * timeout of the database.
+ * <p>
+ * A batch locks the rows of all its beers with a single query, in the order of
+ * their ids so two batches never wait for each other in a cycle, and checks
+ * each item against the locked rows.
+ */
+@Component
+@ConditionalOnProperty(name = "beerstock.stock.engine", havingValue = "pessimistic")
+@AllArgsConstructor(onConstructor = @__(@Autowired))
+public class PessimisticStockEngine implements StockEngine {
+
+	private final BeerRepository beerRepository;
+
+	@Override
+	@Transactional
+	public Beer stock(final Long beerId, final int quantity)
+			throws BeerNotFoundException, BeerExceedStockException, BeerNegativeStockException {
+		final Beer beer = beerRepository.findByIdForUpdate(beerId)
+				.orElseThrow(() -> new BeerNotFoundException(beerId));
+		beer.increment(quantity);
+		return beer;
+	}
+
+	/**
+	 * A batch {@link StockBatchMode#ALL_OR_NOTHING} with an invalid item rolls
+	 * back the transaction, so nothing is written.
+	 */
+	@Override
+	@Transactional
+	public List<StockItemResultDto> stock(final List<StockItemDto> items, final StockBatchMode mode) {
+		final Map<Long, Beer> beers = lockBeers(items);
+		final List<StockItemResultDto> results = items.stream()
+				.map(item -> apply(item, beers))
+				.collect(Collectors.toCollection(ArrayList::new));
+
+		if (mode == StockBatchMode.ALL_OR_NOTHING && !results.stream()
+				.allMatch(StockItemResultDto::isApplied)) {
+			TransactionAspectSupport.currentTransactionStatus()
+					.setRollbackOnly();
+			results.stream()
+					.filter(StockItemResultDto::isApplied)
+					.forEach(result -> result.setStatus(StockItemStatus.ROLLED_BACK));
+		}
+		return results;
+	}
+
+	private Map<Long, Beer> lockBeers(final List<StockItemDto> items) {
+		final Set<Long> ids = items.stream()
+				.map(StockItemDto::getId)
+				.filter(Objects::nonNull)
+				.collect(Collectors.toSet());
+		if (ids.isEmpty()) {
+			return Collections.emptyMap();
+		}
+
+		return beerRepository.findAllForUpdate(ids)
+				.stream()
+				.collect(Collectors.toMap(Beer::getId, Function.identity(), (first, second) -> first, HashMap::new));
+	}
+
+	private StockItemResultDto apply(final StockItemDto item, final Map<Long, Beer> beers) {
+		try {
+			final Beer beer = beers.get(item.getId());
+			if (beer == null) {
+				throw new BeerNotFoundException(item.getId());
+			}
+
+			beer.increment(item.getQuantity());
+			return StockItemResultDto.of(item, StockItemStatus.APPLIED);
+		} catch (final BeerNotFoundException | BeerExceedStockException | BeerNegativeStockException e) {
+			return StockItemResultDto.of(item, e);
+		}
+	}
+}
@@ -0,0 +1,114 @@
+package com.aduilio.beerstock.stock;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.aduilio.beerstock.dto.BeerDto;
+import com.aduilio.beerstock.entity.Beer;
+import com.aduilio.beerstock.exception.BeerExceedStockException;
+import com.aduilio.beerstock.exception.BeerNegativeStockException;
+
+/**
+ * Keeps the stock of a beer in memory. The quantity and the number of changes
+ * accepted are packed in a single {@link AtomicLong}, so both are changed by
+ * the same compare-and-set without locks and read together. The quantity
+ * already written to the database is kept apart, and only the flush of the
+ * ledger, which runs one at a time, reads and changes it.
+ */
+final class StockCounter {
+
+	private final Beer beer;
+
+	private final AtomicLong state;
+
+	private int written;
+
+	StockCounter(final Beer beer) {
+		this.beer = beer;
+		this.state = new AtomicLong(pack(beer.getQuantity(), 0));
+		this.written = beer.getQuantity();
+	}
+
+	/**
+	 * Adds the quantity to the stock with the same bounds of
+	 * {@link Beer#increment(int)}.
+	 *
+	 * @param quantity to increment
+	 *
+	 * @return a copy of the beer with the new quantity
+	 * @throws BeerExceedStockException   if the quantity overflowed the max
+	 * @throws BeerNegativeStockException if the stock would become negative
+	 */
+	Beer increment(final int quantity) throws BeerExceedStockException, BeerNegativeStockException {
+		long current;
+		int stock;
+		do {
+			current = state.get();
+			stock = quantityOf(current);
+			Beer.verifyIncrement(beer.getMax(), stock, beer.getReserved(), quantity);
+		} while (!state.compareAndSet(current, pack(stock + quantity, changesOf(current) + 1)));
+
+		return beer.toBuilder()
+				.quantity(stock + quantity)
+				.build();
+	}
+
+	/**
+	 * Takes the delta accepted since the last call.
+	 *
+	 * @return the delta to be written to the database
+	 */
+	int drain() {
+		final int quantity = quantityOf(state.get());
+		final int delta = quantity - written;
+		written = quantity;
+		return delta;
+	}
+
+	/**
+	 * Gives back a delta taken by {@link #drain()} that could not be written.
+	 *
+	 * @param delta to be written again
+	 */
+	void restore(final int delta) {
+		written -= delta;
+	}
+
+	int quantity() {
+		return quantityOf(state.get());
+	}
+
+	/**
+	 * Returns a copy of the beer with the quantity of the counter, and the
+	 * number of changes accepted added to its version, both read together. The
+	 * version changes with every change, even one that gives back a quantity
+	 * already seen, and goes on growing when the flush bumps the version of the
+	 * row.
+	 *
+	 * @param read the beer read from the database or from a cache
+	 *
+	 * @return a copy of the beer
+	 */
+	BeerDto applyTo(final BeerDto read) {
+		final long current = state.get();
+		return read.toBuilder()
+				.quantity(quantityOf(current))
+				.version(read.getVersion() + changesOf(current))
+				.build();
+	}
+
+	private static long pack(final int quantity, final long changes) {
+		return ((long) quantity << 32) | (changes & 0xFFFFFFFFL);
+	}
+
+	private static int quantityOf(final long state) {
+		return (int) (state >> 32);
+	}
+
+	/**
+	 * The changes wrap after 2^32, far more than a beer takes between two reads
+	 * of the same client.
+	 */
+	private static long changesOf(final long state) {
+		return state & 0xFFFFFFFFL;
+	}
+}
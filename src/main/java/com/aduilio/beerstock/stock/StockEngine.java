@@ -0,0 +1,93 @@
+package com.aduilio.beerstock.stock;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.aduilio.beerstock.dto.BeerDto;
+import com.aduilio.beerstock.dto.StockItemDto;
+import com.aduilio.beerstock.dto.StockItemResultDto;
+import com.aduilio.beerstock.entity.Beer;
+import com.aduilio.beerstock.enums.StockBatchMode;
+import com.aduilio.beerstock.enums.StockItemStatus;
+import com.aduilio.beerstock.exception.BeerExceedStockException;
+import com.aduilio.beerstock.exception.BeerNegativeStockException;
+import com.aduilio.beerstock.exception.BeerNotFoundException;
+import com.aduilio.beerstock.exception.BeerStockConflictException;
+import com.aduilio.beerstock.exception.StockBatchModeNotSupportedException;
+
+/**
+ * Applies the stock changes of the beers. The engine used is chosen by the
+ * property {@code beerstock.stock.engine}.
+ */
+public interface StockEngine {
+
+	/**
+	 * Change the stock quantity to a specific beer.
+	 *
+	 * @param beerId   id of the beer
+	 * @param quantity to increment, negative to decrement
+	 *
+	 * @return the {@link Beer} with the stock changed
+	 * @throws BeerNotFoundException      if the id is does not exist
+	 * @throws BeerExceedStockException   if the quantity overflowed the available
+	 *                                    space
+	 * @throws BeerNegativeStockException if the quantity is less than the quantity
+	 */
+	Beer stock(Long beerId, int quantity)
+			throws BeerNotFoundException, BeerExceedStockException, BeerNegativeStockException;
+
+	/**
+	 * Change the stock of several beers, in the order informed. The default
+	 * implementation applies one change at a time, each on its own, so it only
+	 * applies {@link StockBatchMode#BEST_EFFORT} batches: an engine that applies
+	 * {@link StockBatchMode#ALL_OR_NOTHING} must apply the whole batch in one
+	 * transaction.
+	 *
+	 * @param items to be applied
+	 * @param mode  of the batch
+	 *
+	 * @return the result of each item, in the same order
+	 * @throws StockBatchModeNotSupportedException if the engine cannot apply the
+	 *                                             batch in the mode
+	 */
+	default List<StockItemResultDto> stock(final List<StockItemDto> items, final StockBatchMode mode) {
+		if (mode == StockBatchMode.ALL_OR_NOTHING) {
+			throw new StockBatchModeNotSupportedException(mode);
+		}
+
+		final List<StockItemResultDto> results = new ArrayList<>(items.size());
+		for (final StockItemDto item : items) {
+			try {
+				stock(item.getId(), item.getQuantity());
+				results.add(StockItemResultDto.of(item, StockItemStatus.APPLIED));
+			} catch (final BeerNotFoundException | BeerExceedStockException | BeerNegativeStockException
+					| BeerStockConflictException e) {
+				results.add(StockItemResultDto.of(item, e));
+			}
+		}
+		return results;
+	}
+
+	/**
+	 * Returns the beer read from the database with the stock accepted by this
+	 * engine and not written yet. The version of the beer tags its responses, so
+	 * it must change whenever the stock returned changes. The default
+	 * implementation writes each change before it returns, so the beer is
+	 * returned as read.
+	 *
+	 * @param beer read from the database or from a cache
+	 *
+	 * @return the beer with its current stock, a copy when the stock differs
+	 */
+	default BeerDto withPendingStock(final BeerDto beer) {
+		return beer;
+	}
+
+	/**
+	 * Discards any state kept for a beer that was deleted.
+	 *
+	 * @param beerId id of the beer
+	 */
+	default void evict(final Long beerId) {
+	}
+}
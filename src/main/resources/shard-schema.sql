@@ -0,0 +1,20 @@
+-- Schema of each shard of the sharded profile, created when the application starts
+create table if not exists beer (
+	id bigint primary key,
+	name varchar(255) not null,
+	brand varchar(255) not null,
+	max integer not null,
+	quantity integer not null,
+	reserved integer default 0 not null,
+	type varchar(255) not null,
+	version bigint default 0 not null
+);
+create index if not exists idx_beer_name on beer (name);
+create index if not exists idx_beer_quantity_id on beer (quantity, id);
+-- The names of the beers of the other shards as well, by the shard of the name
+create table if not exists beer_name (
+	name varchar(255) primary key,
+	id bigint not null
+);
+-- Only used in the first shard, each value starts a block of 50 ids
+create sequence if not exists beer_sequence start with 1 increment by 50;
@@ -0,0 +1,262 @@
+package com.aduilio.beerstock.controller;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import com.aduilio.beerstock.dto.BeerDto;
+import com.aduilio.beerstock.dto.BulkItemResultDto;
+import com.aduilio.beerstock.dto.QuantityDto;
+import com.aduilio.beerstock.repository.BeerRepository;
+import com.aduilio.beerstock.utils.BeerTestsUtil;
+
+import reactor.core.publisher.Flux;
+
+@ActiveProfiles("reactive")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class ReactiveBeerControllerTest {
+
+	private static final String URL = "/api/v1/beers";
+
+	@Autowired
+	private WebTestClient webTestClient;
+
+	@Autowired
+	private BeerRepository beerRepository;
+
+	private BeerDto beerDto;
+
+	@BeforeEach
+	void setup() {
+		beerDto = newBeer();
+		beerDto.setId(create(beerDto));
+	}
+
+	@AfterEach
+	void cleanup() {
+		beerRepository.deleteAll();
+	}
+
+	@Test
+	void createShouldRejectAnExistingName() {
+		final BeerDto duplicate = newBeer();
+		duplicate.setName(beerDto.getName());
+
+		webTestClient.post()
+				.uri(URL)
+				.bodyValue(duplicate)
+				.exchange()
+				.expectStatus()
+				.isBadRequest();
+	}
+
+	@Test
+	void createShouldValidateTheBeer() {
+		beerDto.setName(null);
+
+		webTestClient.post()
+				.uri(URL)
+				.bodyValue(beerDto)
+				.exchange()
+				.expectStatus()
+				.isBadRequest();
+	}
+
+	@Test
+	void readByNameShouldAnswerNotModifiedWhileTheBeerDoesNotChange() {
+		final String etag = webTestClient.get()
+				.uri(URL + "/{name}", beerDto.getName())
+				.exchange()
+				.expectStatus()
+				.isOk()
+				.expectBody()
+				.jsonPath("$.id")
+				.isEqualTo(beerDto.getId())
+				.returnResult()
+				.getResponseHeaders()
+				.getETag();
+
+		webTestClient.get()
+				.uri(URL + "/{name}", beerDto.getName())
+				.header(HttpHeaders.IF_NONE_MATCH, etag)
+				.exchange()
+				.expectStatus()
+				.isNotModified()
+				.expectHeader()
+				.valueEquals(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+
+		stock(1).expectStatus()
+				.isOk();
+
+		webTestClient.get()
+				.uri(URL + "/{name}", beerDto.getName())
+				.header(HttpHeaders.IF_NONE_MATCH, etag)
+				.exchange()
+				.expectStatus()
+				.isOk();
+	}
+
+	@Test
+	void readByNameShouldAnswerNotFound() {
+		webTestClient.get()
+				.uri(URL + "/{name}", "missing")
+				.exchange()
+				.expectStatus()
+				.isNotFound();
+	}
+
+	@Test
+	void stockShouldKeepTheErrorsOfTheServletVersion() {
+		stock(1).expectStatus()
+				.isOk()
+				.expectBody()
+				.jsonPath("$.quantity")
+				.isEqualTo(BeerTestsUtil.BEER_QTT + 1);
+		stock(BeerTestsUtil.BEER_MAX).expectStatus()
+				.isBadRequest();
+		stock(-BeerTestsUtil.BEER_MAX).expectStatus()
+				.isBadRequest();
+
+		webTestClient.patch()
+				.uri(URL + "/{id}/stock", beerDto.getId() + 1000)
+				.bodyValue(new QuantityDto(1))
+				.exchange()
+				.expectStatus()
+				.isNotFound();
+	}
+
+	@Test
+	void stockShouldNotLoseConcurrentChanges() {
+		final int changes = BeerTestsUtil.BEER_MAX - BeerTestsUtil.BEER_QTT;
+
+		// twice the changes that fit in the stock, only the ones that fit are applied
+		Flux.range(0, changes * 2)
+				.flatMap(i -> webTestClient.patch()
+						.uri(URL + "/{id}/stock", beerDto.getId())
+						.bodyValue(new QuantityDto(1))
+						.exchange()
+						.returnResult(String.class)
+						.getResponseBody()
+						.then())
+				.blockLast();
+
+		assertThat(beerRepository.findById(beerDto.getId())
+				.get()
+				.getQuantity()).isEqualTo(BeerTestsUtil.BEER_MAX);
+	}
+
+	@Test
+	void listShouldReturnAllBeersThroughTheCursors() {
+		IntStream.range(0, 4)
+				.forEach(i -> create(newBeer()));
+
+		final String next = webTestClient.get()
+				.uri(URL + "?size=3")
+				.exchange()
+				.expectStatus()
+				.isOk()
+				.expectBodyList(BeerDto.class)
+				.hasSize(3)
+				.returnResult()
+				.getResponseHeaders()
+				.getFirst(BeerController.NEXT_CURSOR_HEADER);
+
+		webTestClient.get()
+				.uri(URL + "?size=3&cursor={cursor}", next)
+				.exchange()
+				.expectStatus()
+				.isOk()
+				.expectHeader()
+				.doesNotExist(BeerController.NEXT_CURSOR_HEADER)
+				.expectBodyList(BeerDto.class)
+				.hasSize(2);
+	}
+
+	@Test
+	void deleteShouldRemoveTheBeer() {
+		webTestClient.delete()
+				.uri(URL + "/{id}", beerDto.getId())
+				.exchange()
+				.expectStatus()
+				.isNoContent();
+
+		webTestClient.delete()
+				.uri(URL + "/{id}", beerDto.getId())
+				.exchange()
+				.expectStatus()
+				.isNotFound();
+		webTestClient.get()
+				.uri(URL + "/{name}", beerDto.getName())
+				.exchange()
+				.expectStatus()
+				.isNotFound();
+	}
+
+	@Test
+	void bulkAndExportShouldServeTheCatalog() {
+		webTestClient.post()
+				.uri(URL + "/bulk")
+				.bodyValue(Arrays.asList(newBeer(), newBeer()))
+				.exchange()
+				.expectStatus()
+				.isCreated()
+				.expectBody(new ParameterizedTypeReference<List<BulkItemResultDto>>() {
+				})
+				.value(results -> assertThat(results).hasSize(2));
+
+		final String export = webTestClient.get()
+				.uri(URL + "/export?format=CSV")
+				.exchange()
+				.expectStatus()
+				.isOk()
+				.expectHeader()
+				.valueEquals(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"beers.csv\"")
+				.expectBody(String.class)
+				.returnResult()
+				.getResponseBody();
+
+		assertThat(export.split("\n")).hasSize(4)
+				.contains(beerDto.getId() + "," + beerDto.getName() + "," + BeerTestsUtil.BEER_BRAND + ","
+						+ BeerTestsUtil.BEER_MAX + "," + BeerTestsUtil.BEER_QTT + "," + BeerTestsUtil.BEER_TYPE);
+	}
+
+	private WebTestClient.ResponseSpec stock(final int quantity) {
+		return webTestClient.patch()
+				.uri(URL + "/{id}/stock", beerDto.getId())
+				.bodyValue(new QuantityDto(quantity))
+				.exchange();
+	}
+
+	private Long create(final BeerDto beer) {
+		return webTestClient.post()
+				.uri(URL)
+				.bodyValue(beer)
+				.exchange()
+				.expectStatus()
+				.isCreated()
+				.expectBody(BeerDto.class)
+				.returnResult()
+				.getResponseBody()
+				.getId();
+	}
+
+	private static BeerDto newBeer() {
+		final BeerDto beer = BeerTestsUtil.createBeerDto();
+		beer.setId(null);
+		beer.setName(BeerTestsUtil.BEER_NAME + UUID.randomUUID());
+		return beer;
+	}
+}
@@ -0,0 +1,29 @@
+package com.aduilio.beerstock.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.r2dbc.core.DatabaseClient;
+
+import io.r2dbc.spi.ConnectionFactories;
+import io.r2dbc.spi.ConnectionFactoryOptions;
+
+/**
+ * Creates the R2DBC client of the {@code reactive} profile. The connection
+ * factory is not a bean, because Spring Boot does not configure the JDBC data
+ * source, still used by JPA, when there is one.
+ */
+@Configuration
+@Profile("reactive")
+public class ReactiveConfiguration {
+
+	@Bean
+	public DatabaseClient databaseClient(final BeerstockProperties beerstockProperties) {
+		final BeerstockProperties.R2dbc r2dbc = beerstockProperties.getR2dbc();
+		return DatabaseClient.create(ConnectionFactories.get(ConnectionFactoryOptions.parse(r2dbc.getUrl())
+				.mutate()
+				.option(ConnectionFactoryOptions.USER, r2dbc.getUsername())
+				.option(ConnectionFactoryOptions.PASSWORD, r2dbc.getPassword())
+				.build()));
+	}
+}
@@ -0,0 +1,190 @@
+package com.aduilio.beerstock.controller;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PatchMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import com.aduilio.beerstock.cache.CatalogVersion;
+import com.aduilio.beerstock.dto.BeerDto;
+import com.aduilio.beerstock.dto.BulkItemResultDto;
+import com.aduilio.beerstock.dto.QuantityDto;
+import com.aduilio.beerstock.dto.StockCommandDto;
+import com.aduilio.beerstock.dto.StockItemDto;
+import com.aduilio.beerstock.dto.StockItemResultDto;
+import com.aduilio.beerstock.enums.BeerExportFormat;
+import com.aduilio.beerstock.enums.BeerSort;
+import com.aduilio.beerstock.enums.StockBatchMode;
+import com.aduilio.beerstock.service.BeerBulkService;
+import com.aduilio.beerstock.service.BeerService;
+import com.aduilio.beerstock.service.ReactiveBeerService;
+import com.aduilio.beerstock.service.StockCommandQueue;
+
+import lombok.AllArgsConstructor;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Provides the routes of {@link BeerController} on WebFlux, for the
+ * {@code reactive} profile. The bulk creation and the batch of stock changes
+ * still run on the blocking services, in the bounded elastic scheduler, so
+ * they never block the event loop.
+ */
+@RestController
+@Profile("reactive")
+@RequestMapping("/api/v1/beers")
+@AllArgsConstructor
+public class ReactiveBeerController {
+
+	/**
+	 * The formats of the beers, WebFlux does not write CBOR.
+	 */
+	private static final List<MediaType> PRODUCED = Arrays.asList(MediaType.APPLICATION_JSON,
+			Representation.SMILE);
+
+	private final ReactiveBeerService reactiveBeerService;
+
+	private final BeerService beerService;
+
+	private final BeerBulkService beerBulkService;
+
+	private final CatalogVersion catalogVersion;
+
+	private final StockCommandQueue stockCommandQueue;
+
+	@PostMapping
+	@ResponseStatus(HttpStatus.CREATED)
+	public Mono<BeerDto> create(@RequestBody @Validated final BeerDto beerDto) {
+		return reactiveBeerService.create(beerDto)
+				.map(id -> BeerDto.builder()
+						.id(id)
+						.build());
+	}
+
+	@PostMapping("/bulk")
+	@ResponseStatus(HttpStatus.CREATED)
+	public Mono<List<BulkItemResultDto>> create(@RequestBody final List<BeerDto> beerDtos) {
+		return Mono.fromCallable(() -> beerBulkService.create(beerDtos))
+				.subscribeOn(Schedulers.boundedElastic());
+	}
+
+	@GetMapping("/export")
+	public ResponseEntity<Flux<String>> export(@RequestParam(defaultValue = "NDJSON") final BeerExportFormat format) {
+		return ResponseEntity.ok()
+				.contentType(MediaType.parseMediaType(format.getContentType() + ";charset=UTF-8"))
+				.header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"beers." + format.name()
+						.toLowerCase() + "\"")
+				.body(reactiveBeerService.export(format));
+	}
+
+	@GetMapping("/{name}")
+	public Mono<BeerDto> readByName(@PathVariable final String name, final ServerWebExchange exchange) {
+		final MediaType mediaType = negotiate(exchange);
+		return reactiveBeerService.readByName(name)
+				.filter(beerDto -> !exchange.checkNotModified(Representation.etag(beerDto.getId() + "-" + beerDto
+						.getVersion(), mediaType)));
+	}
+
+	@GetMapping
+	public Mono<ResponseEntity<List<BeerDto>>> list(@RequestParam(required = false) final String cursor,
+			@RequestParam(required = false) final Integer size, @RequestParam(defaultValue = "ID") final BeerSort sort,
+			final ServerWebExchange exchange) {
+		// the catalog is not read when it did not change
+		if (exchange.checkNotModified(Representation.etag(catalogVersion.get(), negotiate(exchange)))) {
+			return Mono.empty();
+		}
+
+		return reactiveBeerService.list(cursor, size, sort)
+				.map(page -> {
+					final ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+					if (page.getNext() != null) {
+						response.header(BeerController.NEXT_CURSOR_HEADER, page.getNext())
+								.header(HttpHeaders.LINK, "<" + UriComponentsBuilder.fromHttpRequest(exchange.getRequest())
+										.replaceQueryParam("cursor", page.getNext())
+										.toUriString() + ">; rel=\"next\"");
+					}
+					return response.body(page.getContent());
+				});
+	}
+
+	@DeleteMapping("/{id}")
+	@ResponseStatus(HttpStatus.NO_CONTENT)
+	public Mono<Void> delete(@PathVariable final Long id) {
+		return reactiveBeerService.delete(id);
+	}
+
+	@PatchMapping("/stock")
+	public Mono<ResponseEntity<List<StockItemResultDto>>> stock(
+			@RequestParam(defaultValue = "ALL_OR_NOTHING") final StockBatchMode mode,
+			@RequestBody final List<StockItemDto> items) {
+		return Mono.fromCallable(() -> beerService.stock(items, mode))
+				.subscribeOn(Schedulers.boundedElastic())
+				.map(results -> {
+					final boolean rejected = mode == StockBatchMode.ALL_OR_NOTHING && !results.stream()
+							.allMatch(StockItemResultDto::isApplied);
+					return ResponseEntity.status(rejected ? HttpStatus.BAD_REQUEST : HttpStatus.OK)
+							.body(results);
+				});
+	}
+
+	@PatchMapping(path = "/{id}/stock", params = "async=true")
+	public Mono<ResponseEntity<StockCommandDto>> stockAsync(@PathVariable final Long id,
+			@RequestBody final QuantityDto quantityDto, final ServerWebExchange exchange) {
+		// the command is only queued, so it does not block
+		return Mono.fromCallable(() -> stockCommandQueue.enqueue(id, quantityDto.getQuantity()))
+				.map(command -> ResponseEntity.accepted()
+						.location(UriComponentsBuilder.fromHttpRequest(exchange.getRequest())
+								.replacePath(BeerController.STOCK_COMMAND_PATH)
+								.replaceQuery(null)
+								.buildAndExpand(command.getId())
+								.toUri())
+						.body(command));
+	}
+
+	@GetMapping("/stock/commands/{commandId}")
+	public Mono<StockCommandDto> stockCommand(@PathVariable final String commandId) {
+		return Mono.fromCallable(() -> stockCommandQueue.read(commandId));
+	}
+
+	@PatchMapping("/{id}/stock")
+	public Mono<BeerDto> stock(@PathVariable final Long id, @RequestBody final QuantityDto quantityDto) {
+		return reactiveBeerService.stock(id, quantityDto.getQuantity());
+	}
+
+	/**
+	 * Returns the format of the response, that is part of its ETag, and tells
+	 * the caches the response depends on it.
+	 */
+	private static MediaType negotiate(final ServerWebExchange exchange) {
+		exchange.getResponse()
+				.getHeaders()
+				.add(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+		try {
+			return Representation.negotiate(exchange.getRequest()
+					.getHeaders()
+					.getAccept(), PRODUCED);
+		} catch (final InvalidMediaTypeException e) {
+			// the response is not acceptable either way
+			return PRODUCED.get(0);
+		}
+	}
+}
@@ -0,0 +1,208 @@
+package com.aduilio.beerstock.repository;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+
+import com.aduilio.beerstock.dto.BeerDto;
+import com.aduilio.beerstock.enums.BeerType;
+
+import io.r2dbc.spi.Row;
+import lombok.AllArgsConstructor;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Reads and writes the beers with R2DBC, in the table mapped by
+ * {@link com.aduilio.beerstock.entity.Beer}. Each statement runs in its own
+ * transaction, so the changes that must be atomic are done in a single
+ * statement.
+ */
+@Repository
+@Profile("reactive")
+@AllArgsConstructor(onConstructor = @__(@Autowired))
+public class ReactiveBeerRepository {
+
+	private static final String COLUMNS = "id, name, brand, max, quantity, reserved, type, version";
+
+	private static final String SELECT = "select " + COLUMNS + " from beer ";
+
+	/**
+	 * The ids are taken from the sequence used by Hibernate. Each value of the
+	 * sequence is handed out once, and Hibernate only uses the block of ids
+	 * ending at the values it takes, so the ids never collide.
+	 */
+	private static final String NEXT_ID = "select next value for beer_sequence as id";
+
+	/**
+	 * A data change delta table (select from final table) would return the id in
+	 * the same statement, but H2 runs it as a query and leaves the transaction of
+	 * the pooled connection open, losing the updates done through it afterwards.
+	 */
+	private static final String INSERT = "insert into beer (" + COLUMNS
+			+ ") values (:id, :name, :brand, :max, :quantity, 0, :type, 0)";
+
+	private static final String INCREMENT_QUANTITY = "update beer set quantity = quantity + :quantity, "
+			+ "version = version + 1 where id = :id and max - quantity >= :quantity and reserved - quantity <= :quantity";
+
+	private final DatabaseClient databaseClient;
+
+	/**
+	 * Inserts a beer.
+	 *
+	 * @param beerDto the beer
+	 *
+	 * @return {@link Mono} of the id of the beer
+	 */
+	public Mono<Long> insert(final BeerDto beerDto) {
+		return databaseClient.sql(NEXT_ID)
+				.map(row -> row.get("id", Long.class))
+				.one()
+				.flatMap(id -> databaseClient.sql(INSERT)
+						.bind("id", id)
+						.bind("name", beerDto.getName())
+						.bind("brand", beerDto.getBrand())
+						.bind("max", beerDto.getMax())
+						.bind("quantity", beerDto.getQuantity())
+						.bind("type", beerDto.getType()
+								.name())
+						.fetch()
+						.rowsUpdated()
+						.thenReturn(id));
+	}
+
+	/**
+	 * Finds a beer by id.
+	 *
+	 * @param id of the beer
+	 *
+	 * @return {@link Mono} of {@link BeerDto}, empty if it does not exist
+	 */
+	public Mono<BeerDto> findById(final Long id) {
+		return databaseClient.sql(SELECT + "where id = :id")
+				.bind("id", id)
+				.map(ReactiveBeerRepository::map)
+				.one();
+	}
+
+	/**
+	 * Finds a beer by name.
+	 *
+	 * @param name of the beer
+	 *
+	 * @return {@link Mono} of {@link BeerDto}, empty if it does not exist
+	 */
+	public Mono<BeerDto> findByName(final String name) {
+		return databaseClient.sql(SELECT + "where name = :name")
+				.bind("name", name)
+				.map(ReactiveBeerRepository::map)
+				.one();
+	}
+
+	/**
+	 * Finds the beers after an id, ordered by id.
+	 *
+	 * @param id   of the last beer read
+	 * @param size of the page
+	 *
+	 * @return {@link Flux} of {@link BeerDto}
+	 */
+	public Flux<BeerDto> findPageById(final long id, final int size) {
+		return databaseClient.sql(SELECT + "where id > :id order by id limit :size")
+				.bind("id", id)
+				.bind("size", size)
+				.map(ReactiveBeerRepository::map)
+				.all();
+	}
+
+	/**
+	 * Finds the beers after a name, ordered by name.
+	 *
+	 * @param name of the last beer read
+	 * @param size of the page
+	 *
+	 * @return {@link Flux} of {@link BeerDto}
+	 */
+	public Flux<BeerDto> findPageByName(final String name, final int size) {
+		return databaseClient.sql(SELECT + "where name > :name order by name limit :size")
+				.bind("name", name)
+				.bind("size", size)
+				.map(ReactiveBeerRepository::map)
+				.all();
+	}
+
+	/**
+	 * Finds the beers after a quantity and an id, ordered by quantity and id.
+	 *
+	 * @param quantity of the last beer read
+	 * @param id       of the last beer read
+	 * @param size     of the page
+	 *
+	 * @return {@link Flux} of {@link BeerDto}
+	 */
+	public Flux<BeerDto> findPageByQuantity(final int quantity, final long id, final int size) {
+		return databaseClient.sql(SELECT + "where quantity >= :quantity and (quantity > :quantity or id > :id) "
+				+ "order by quantity, id limit :size")
+				.bind("quantity", quantity)
+				.bind("id", id)
+				.bind("size", size)
+				.map(ReactiveBeerRepository::map)
+				.all();
+	}
+
+	/**
+	 * Finds all the beers ordered by id. The rows are emitted as they are read.
+	 *
+	 * @return {@link Flux} of {@link BeerDto}
+	 */
+	public Flux<BeerDto> findAll() {
+		return databaseClient.sql(SELECT + "order by id")
+				.map(ReactiveBeerRepository::map)
+				.all();
+	}
+
+	/**
+	 * Adds a quantity to the stock of a beer, in a single statement, when the
+	 * stock stays between the reserved and the max of the beer.
+	 *
+	 * @param id       of the beer
+	 * @param quantity to add, negative to remove
+	 *
+	 * @return {@link Mono} of the number of rows updated
+	 */
+	public Mono<Integer> incrementQuantity(final Long id, final int quantity) {
+		return databaseClient.sql(INCREMENT_QUANTITY)
+				.bind("id", id)
+				.bind("quantity", quantity)
+				.fetch()
+				.rowsUpdated();
+	}
+
+	/**
+	 * Deletes a beer by id.
+	 *
+	 * @param id of the beer
+	 *
+	 * @return {@link Mono} of the number of rows deleted
+	 */
+	public Mono<Integer> deleteById(final Long id) {
+		return databaseClient.sql("delete from beer where id = :id")
+				.bind("id", id)
+				.fetch()
+				.rowsUpdated();
+	}
+
+	private static BeerDto map(final Row row) {
+		return BeerDto.builder()
+				.id(row.get("id", Long.class))
+				.name(row.get("name", String.class))
+				.brand(row.get("brand", String.class))
+				.max(row.get("max", Integer.class))
+				.quantity(row.get("quantity", Integer.class))
+				.reserved(row.get("reserved", Integer.class))
+				.type(BeerType.valueOf(row.get("type", String.class)))
+				.version(row.get("version", Long.class))
+				.build();
+	}
+}
@@ -0,0 +1,229 @@
+package com.aduilio.beerstock.service;
+
+import java.io.IOException;
+import java.io.StringWriter;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+
+import com.aduilio.beerstock.config.BeerstockProperties;
+import com.aduilio.beerstock.dto.BeerDto;
+import com.aduilio.beerstock.dto.BeerPageDto;
+import com.aduilio.beerstock.entity.Beer;
+import com.aduilio.beerstock.enums.BeerChangeType;
+import com.aduilio.beerstock.enums.BeerExportFormat;
+import com.aduilio.beerstock.enums.BeerSort;
+import com.aduilio.beerstock.event.BeerChangedEvent;
+import com.aduilio.beerstock.exception.BeerAlreadyRegisteredException;
+import com.aduilio.beerstock.exception.BeerExceedStockException;
+import com.aduilio.beerstock.exception.BeerInvalidCursorException;
+import com.aduilio.beerstock.exception.BeerNegativeStockException;
+import com.aduilio.beerstock.exception.BeerNotFoundException;
+import com.aduilio.beerstock.index.BeerNameIndex;
+import com.aduilio.beerstock.repository.ReactiveBeerRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import lombok.AllArgsConstructor;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * The non-blocking version of {@link BeerService}, with the same rules and
+ * exceptions, for the {@code reactive} profile. The exceptions are emitted as
+ * errors of the publishers.
+ */
+@Service
+@Profile("reactive")
+@AllArgsConstructor(onConstructor = @__(@Autowired))
+public class ReactiveBeerService {
+
+	private final ReactiveBeerRepository reactiveBeerRepository;
+
+	private final BeerstockProperties beerstockProperties;
+
+	private final BeerNameIndex beerNameIndex;
+
+	private final ApplicationEventPublisher eventPublisher;
+
+	private final ObjectMapper objectMapper;
+
+	/**
+	 * Creates a beer.
+	 *
+	 * @param beerDto to be created
+	 *
+	 * @return {@link Mono} of the id of the beer created, or
+	 *         {@link BeerAlreadyRegisteredException} if the name already exists
+	 */
+	public Mono<Long> create(final BeerDto beerDto) {
+		final String name = beerDto.getName();
+		return verifyName(name).then(Mono.defer(() -> {
+			beerNameIndex.add(name);
+			return reactiveBeerRepository.insert(beerDto);
+		}))
+				// the name was created concurrently
+				.onErrorMap(DataIntegrityViolationException.class, e -> new BeerAlreadyRegisteredException(name))
+				.doOnNext(id -> eventPublisher.publishEvent(new BeerChangedEvent(id, name, BeerChangeType.CREATED)))
+				.doFinally(signal -> beerNameIndex.release(name));
+	}
+
+	/**
+	 * Reads the beer by name. The names that certainly do not exist are answered
+	 * by the name index.
+	 *
+	 * @param name of the beer
+	 *
+	 * @return {@link Mono} of {@link BeerDto}, or {@link BeerNotFoundException}
+	 *         if the name does not exist
+	 */
+	public Mono<BeerDto> readByName(final String name) {
+		if (!beerNameIndex.mightContain(name)) {
+			return Mono.error(new BeerNotFoundException(name));
+		}
+
+		return reactiveBeerRepository.findByName(name)
+				.switchIfEmpty(Mono.defer(() -> {
+					beerNameIndex.falsePositive();
+					return Mono.error(new BeerNotFoundException(name));
+				}));
+	}
+
+	/**
+	 * Returns a page of beers after the cursor, read by keyset.
+	 *
+	 * @param cursor of the previous page, null for the first page
+	 * @param size   of the page, null for the default size
+	 * @param sort   of the beers
+	 *
+	 * @return {@link Mono} of {@link BeerPageDto}, or
+	 *         {@link BeerInvalidCursorException} if the cursor is invalid
+	 */
+	public Mono<BeerPageDto> list(final String cursor, final Integer size, final BeerSort sort) {
+		final BeerCursor after;
+		try {
+			after = cursor == null ? BeerCursor.first(sort) : BeerCursor.decode(cursor, sort);
+		} catch (final BeerInvalidCursorException e) {
+			return Mono.error(e);
+		}
+
+		final int pageSize = BeerService.pageSize(beerstockProperties.getPage(), size);
+		// one more beer tells if there is a next page
+		return findPage(after, pageSize + 1).collectList()
+				.map(beers -> BeerService.page(beers, pageSize, sort));
+	}
+
+	/**
+	 * Deletes a beer.
+	 *
+	 * @param id of the beer
+	 *
+	 * @return {@link Mono} completed when the beer is deleted, or
+	 *         {@link BeerNotFoundException} if the beer does not exist
+	 */
+	public Mono<Void> delete(final Long id) {
+		return readById(id).flatMap(beer -> reactiveBeerRepository.deleteById(id)
+				.doOnNext(rows -> eventPublisher
+						.publishEvent(new BeerChangedEvent(id, beer.getName(), BeerChangeType.DELETED))))
+				.then();
+	}
+
+	/**
+	 * Changes the stock of a beer with a single conditional update. The beer
+	 * returned is read after the update, without a transaction, so it may hold
+	 * the changes of other updates as well.
+	 *
+	 * @param beerId   id of the beer
+	 * @param quantity to increment
+	 *
+	 * @return {@link Mono} of {@link BeerDto} updated, or
+	 *         {@link BeerNotFoundException}, {@link BeerExceedStockException} or
+	 *         {@link BeerNegativeStockException} if the stock was not changed
+	 */
+	public Mono<BeerDto> stock(final Long beerId, final int quantity) {
+		return increment(beerId, quantity)
+				.doOnNext(beer -> eventPublisher
+						.publishEvent(new BeerChangedEvent(beerId, beer.getName(), BeerChangeType.STOCK)));
+	}
+
+	/**
+	 * Exports all the beers, ordered by id, one line for each beer.
+	 *
+	 * @param format of the export
+	 *
+	 * @return {@link Flux} of the lines
+	 */
+	public Flux<String> export(final BeerExportFormat format) {
+		if (format == BeerExportFormat.CSV) {
+			return Flux.concat(Mono.just(BeerExportService.CSV_HEADER + "\n"), reactiveBeerRepository.findAll()
+					.handle((beerDto, sink) -> {
+						final StringWriter writer = new StringWriter();
+						try {
+							BeerExportService.writeCsv(beerDto, writer);
+						} catch (final IOException e) {
+							sink.error(e);
+							return;
+						}
+						sink.next(writer.toString());
+					}));
+		}
+
+		return reactiveBeerRepository.findAll()
+				.handle((beerDto, sink) -> {
+					try {
+						sink.next(objectMapper.writeValueAsString(beerDto) + "\n");
+					} catch (final JsonProcessingException e) {
+						sink.error(e);
+					}
+				});
+	}
+
+	private Mono<BeerDto> increment(final Long beerId, final int quantity) {
+		return reactiveBeerRepository.incrementQuantity(beerId, quantity)
+				.flatMap(rows -> {
+					if (rows > 0) {
+						return readById(beerId);
+					}
+
+					// Nothing was updated, the current stock tells why. If it accepts the
+					// quantity now, it was changed concurrently and the update is retried.
+					return readById(beerId).flatMap(beer -> {
+						try {
+							Beer.verifyIncrement(beer.getMax(), beer.getQuantity(), beer.getReserved(), quantity);
+						} catch (final BeerExceedStockException | BeerNegativeStockException e) {
+							return Mono.error(e);
+						}
+						return increment(beerId, quantity);
+					});
+				});
+	}
+
+	private Flux<BeerDto> findPage(final BeerCursor after, final int size) {
+		switch (after.getSort()) {
+		case NAME:
+			return reactiveBeerRepository.findPageByName(after.getName(), size);
+		case QUANTITY:
+			return reactiveBeerRepository.findPageByQuantity(after.getQuantity(), after.getId(), size);
+		default:
+			return reactiveBeerRepository.findPageById(after.getId(), size);
+		}
+	}
+
+	private Mono<Void> verifyName(final String name) {
+		if (!beerNameIndex.mightContain(name)) {
+			return Mono.empty();
+		}
+
+		return reactiveBeerRepository.findByName(name)
+				.flatMap(beer -> Mono.<Void>error(new BeerAlreadyRegisteredException(name)))
+				.switchIfEmpty(Mono.fromRunnable(beerNameIndex::falsePositive));
+	}
+
+	private Mono<BeerDto> readById(final Long id) {
+		return reactiveBeerRepository.findById(id)
+				.switchIfEmpty(Mono.error(() -> new BeerNotFoundException(id)));
+	}
+}
@@ -0,0 +1,107 @@
+package com.aduilio.beerstock.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.aduilio.beerstock.dto.BeerDto;
+import com.aduilio.beerstock.dto.BulkItemResultDto;
+import com.aduilio.beerstock.enums.BeerType;
+import com.aduilio.beerstock.service.BeerBulkService;
+import com.aduilio.beerstock.service.BeerService;
+
+/**
+ * Measures {@link BeerService} against the embedded H2 with catalogs of
+ * different sizes. The reads pick a random beer, with and without the cache.
+ * The stock changes all hit the same beer with 1, 4 and 16 threads, to show
+ * the cost of the contention.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class BeerServiceBenchmark {
+
+	@Param({ "1000", "10000" })
+	public int catalogSize;
+
+	@Param({ "true", "false" })
+	public boolean cache;
+
+	private ConfigurableApplicationContext context;
+
+	private BeerService beerService;
+
+	private List<String> names;
+
+	private Long hotBeerId;
+
+	@Setup
+	public void setup() {
+		context = BenchmarkApplication.start("beerstock.cache.enabled=" + cache);
+		beerService = context.getBean(BeerService.class);
+
+		final List<BeerDto> catalog = new ArrayList<>(catalogSize);
+		for (int i = 0; i < catalogSize; i++) {
+			catalog.add(BeerDto.builder()
+					.name("beer-" + i)
+					.brand("benchmark")
+					.max(Integer.MAX_VALUE / 2)
+					.quantity(Integer.MAX_VALUE / 4)
+					.type(BeerType.values()[i % BeerType.values().length])
+					.build());
+		}
+		final List<BulkItemResultDto> results = context.getBean(BeerBulkService.class)
+				.create(catalog);
+		names = new ArrayList<>(catalogSize);
+		results.forEach(result -> names.add(result.getName()));
+		hotBeerId = results.get(0)
+				.getId();
+	}
+
+	@TearDown
+	public void tearDown() {
+		context.close();
+	}
+
+	@Benchmark
+	public BeerDto readByName() throws Exception {
+		return beerService.readByName(names.get(ThreadLocalRandom.current()
+				.nextInt(catalogSize)));
+	}
+
+	@Benchmark
+	@Threads(1)
+	public BeerDto stockOneThread() throws Exception {
+		return stock();
+	}
+
+	@Benchmark
+	@Threads(4)
+	public BeerDto stockFourThreads() throws Exception {
+		return stock();
+	}
+
+	@Benchmark
+	@Threads(16)
+	public BeerDto stockSixteenThreads() throws Exception {
+		return stock();
+	}
+
+	private BeerDto stock() throws Exception {
+		return beerService.stock(hotBeerId, ThreadLocalRandom.current()
+				.nextBoolean() ? 1 : -1);
+	}
+}
@@ -0,0 +1,36 @@
+package com.aduilio.beerstock.benchmark;
+
+import java.util.Arrays;
+import java.util.UUID;
+
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.aduilio.beerstock.BeerstockApplication;
+
+/**
+ * Starts the application without the web server for the benchmarks, each one
+ * with its own in-memory database.
+ */
+public final class BenchmarkApplication {
+
+	private BenchmarkApplication() {
+	}
+
+	/**
+	 * Starts the application.
+	 *
+	 * @param properties in the form name=value, overriding the application ones
+	 *
+	 * @return the context started
+	 */
+	public static ConfigurableApplicationContext start(final String... properties) {
+		return new SpringApplicationBuilder(BeerstockApplication.class).web(WebApplicationType.NONE)
+				.logStartupInfo(false)
+				.properties("spring.datasource.url=jdbc:h2:mem:" + UUID.randomUUID(), "logging.level.root=WARN")
+				.run(Arrays.stream(properties)
+						.map(property -> "--" + property)
+						.toArray(String[]::new));
+	}
+}
@@ -0,0 +1,91 @@
+package com.aduilio.beerstock.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.aduilio.beerstock.dto.BeerDto;
+import com.aduilio.beerstock.dto.BulkItemResultDto;
+import com.aduilio.beerstock.enums.BeerType;
+import com.aduilio.beerstock.service.BeerBulkService;
+import com.aduilio.beerstock.service.BeerService;
+
+/**
+ * Compares the time to create a catalog calling {@link BeerService#create} for
+ * each beer and calling {@link BeerBulkService#create} once.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class BulkCreateBenchmark {
+
+	@Param({ "1000", "10000" })
+	public int size;
+
+	private ConfigurableApplicationContext context;
+
+	private BeerService beerService;
+
+	private BeerBulkService beerBulkService;
+
+	private List<BeerDto> catalog;
+
+	private int round;
+
+	@Setup(Level.Trial)
+	public void setup() {
+		context = BenchmarkApplication.start();
+		beerService = context.getBean(BeerService.class);
+		beerBulkService = context.getBean(BeerBulkService.class);
+	}
+
+	@Setup(Level.Invocation)
+	public void createCatalog() {
+		round++;
+		catalog = new ArrayList<>(size);
+		for (int i = 0; i < size; i++) {
+			catalog.add(BeerDto.builder()
+					.name("beer-" + round + "-" + i)
+					.brand("benchmark")
+					.max(100)
+					.quantity(10)
+					.type(BeerType.values()[i % BeerType.values().length])
+					.build());
+		}
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		context.close();
+	}
+
+	@Benchmark
+	public Long loop() throws Exception {
+		Long last = null;
+		for (final BeerDto beerDto : catalog) {
+			last = beerService.create(beerDto);
+		}
+		return last;
+	}
+
+	@Benchmark
+	public List<BulkItemResultDto> bulk() {
+		return beerBulkService.create(catalog);
+	}
+}
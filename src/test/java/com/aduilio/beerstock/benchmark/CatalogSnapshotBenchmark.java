@@ -0,0 +1,100 @@
+package com.aduilio.beerstock.benchmark;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.aduilio.beerstock.dto.BeerDto;
+import com.aduilio.beerstock.enums.BeerSort;
+import com.aduilio.beerstock.enums.BeerType;
+import com.aduilio.beerstock.exception.BeerInvalidCursorException;
+import com.aduilio.beerstock.service.BeerBulkService;
+import com.aduilio.beerstock.service.BeerCatalogSnapshot;
+import com.aduilio.beerstock.service.BeerService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Compares a page of {@code GET /api/v1/beers} read from the database and
+ * encoded on each request with the same page written from the
+ * {@link BeerCatalogSnapshot}. Run it with {@code -prof gc} to see the bytes
+ * allocated per operation in {@code gc.alloc.rate.norm}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class CatalogSnapshotBenchmark {
+
+	private static final int BEERS = 1000;
+
+	@Param({ "query", "snapshot" })
+	public String path;
+
+	@Param({ "100" })
+	public int size;
+
+	private ConfigurableApplicationContext context;
+
+	private BeerService beerService;
+
+	private BeerCatalogSnapshot beerCatalogSnapshot;
+
+	private ObjectMapper objectMapper;
+
+	private final ByteArrayOutputStream outputStream = new ByteArrayOutputStream(1 << 20);
+
+	@Setup
+	public void setup() {
+		context = BenchmarkApplication.start("beerstock.snapshot.enabled=true");
+		beerService = context.getBean(BeerService.class);
+		beerCatalogSnapshot = context.getBean(BeerCatalogSnapshot.class);
+		objectMapper = context.getBean(ObjectMapper.class);
+
+		final List<BeerDto> catalog = new ArrayList<>(BEERS);
+		for (int i = 0; i < BEERS; i++) {
+			catalog.add(BeerDto.builder()
+					.name("beer-" + i)
+					.brand("benchmark")
+					.max(100)
+					.quantity(10)
+					.type(BeerType.values()[i % BeerType.values().length])
+					.build());
+		}
+		context.getBean(BeerBulkService.class)
+				.create(catalog);
+	}
+
+	@TearDown
+	public void tearDown() {
+		context.close();
+	}
+
+	@Benchmark
+	public int listPage() throws BeerInvalidCursorException, IOException {
+		outputStream.reset();
+		if ("snapshot".equals(path)) {
+			beerCatalogSnapshot.page(null, size, BeerSort.ID)
+					.writeTo(outputStream);
+		} else {
+			objectMapper.writeValue(outputStream, beerService.list(null, size, BeerSort.ID)
+					.getContent());
+		}
+		return outputStream.size();
+	}
+}
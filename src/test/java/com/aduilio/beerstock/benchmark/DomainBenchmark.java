@@ -0,0 +1,64 @@
+package com.aduilio.beerstock.benchmark;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import com.aduilio.beerstock.dto.BeerDto;
+import com.aduilio.beerstock.entity.Beer;
+import com.aduilio.beerstock.enums.BeerType;
+import com.aduilio.beerstock.exception.BeerExceedStockException;
+import com.aduilio.beerstock.exception.BeerNegativeStockException;
+import com.aduilio.beerstock.mapper.BeerMapper;
+
+/**
+ * Measures the operations of the domain that run without the database: the
+ * stock change of {@link Beer} and the mappings of {@link BeerMapper}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class DomainBenchmark {
+
+	private Beer beer;
+
+	private BeerDto beerDto;
+
+	@Setup
+	public void setup() {
+		beer = Beer.builder()
+				.id(1L)
+				.name("beer")
+				.brand("benchmark")
+				.max(Integer.MAX_VALUE / 2)
+				.quantity(Integer.MAX_VALUE / 4)
+				.type(BeerType.IPA)
+				.version(1L)
+				.build();
+		beerDto = BeerMapper.INSTANCE.mapBeerDtoFrom(beer);
+	}
+
+	@Benchmark
+	public Beer increment() throws BeerExceedStockException, BeerNegativeStockException {
+		beer.increment(ThreadLocalRandom.current()
+				.nextBoolean() ? 1 : -1);
+		return beer;
+	}
+
+	@Benchmark
+	public BeerDto mapBeerDtoFrom() {
+		return BeerMapper.INSTANCE.mapBeerDtoFrom(beer);
+	}
+
+	@Benchmark
+	public Beer mapBeerFrom() {
+		return BeerMapper.INSTANCE.mapBeerFrom(beerDto);
+	}
+}
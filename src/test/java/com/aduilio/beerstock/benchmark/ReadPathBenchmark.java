@@ -0,0 +1,124 @@
+package com.aduilio.beerstock.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import javax.persistence.EntityManager;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.aduilio.beerstock.dto.BeerDto;
+import com.aduilio.beerstock.dto.BulkItemResultDto;
+import com.aduilio.beerstock.entity.Beer;
+import com.aduilio.beerstock.enums.BeerType;
+import com.aduilio.beerstock.mapper.BeerMapper;
+import com.aduilio.beerstock.repository.BeerRepository;
+import com.aduilio.beerstock.service.BeerBulkService;
+
+/**
+ * Compares the read paths with managed entities mapped to {@link BeerDto}, in
+ * a read-write transaction, and with constructor projections, in a read-only
+ * one. Run it with {@code -prof gc} to see the bytes allocated per operation
+ * in {@code gc.alloc.rate.norm}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class ReadPathBenchmark {
+
+	private static final int BEERS = 1000;
+
+	private static final int PAGE_SIZE = 100;
+
+	@Param({ "entity", "projection" })
+	public String path;
+
+	private ConfigurableApplicationContext context;
+
+	private BeerRepository beerRepository;
+
+	private EntityManager entityManager;
+
+	private TransactionTemplate transactionTemplate;
+
+	private List<Long> ids;
+
+	private int next;
+
+	@Setup
+	public void setup() {
+		context = BenchmarkApplication.start();
+		beerRepository = context.getBean(BeerRepository.class);
+		entityManager = context.getBean(EntityManager.class);
+		transactionTemplate = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+		transactionTemplate.setReadOnly("projection".equals(path));
+
+		final List<BeerDto> catalog = new ArrayList<>(BEERS);
+		for (int i = 0; i < BEERS; i++) {
+			catalog.add(BeerDto.builder()
+					.name("beer-" + i)
+					.brand("benchmark")
+					.max(100)
+					.quantity(10)
+					.type(BeerType.values()[i % BeerType.values().length])
+					.build());
+		}
+		ids = context.getBean(BeerBulkService.class)
+				.create(catalog)
+				.stream()
+				.map(BulkItemResultDto::getId)
+				.collect(Collectors.toList());
+	}
+
+	@TearDown
+	public void tearDown() {
+		context.close();
+	}
+
+	@Benchmark
+	public BeerDto readById() {
+		final Long id = ids.get(next++ % BEERS);
+		return transactionTemplate.execute(status -> {
+			if ("entity".equals(path)) {
+				return BeerMapper.INSTANCE.mapBeerDtoFrom(entityManager.find(Beer.class, id));
+			}
+			return beerRepository.findDtoById(id)
+					.orElse(null);
+		});
+	}
+
+	@Benchmark
+	public List<BeerDto> listPage() {
+		final long after = ids.get(next++ % (BEERS - PAGE_SIZE)) - 1;
+		return transactionTemplate.execute(status -> {
+			if ("entity".equals(path)) {
+				return entityManager.createQuery("select b from Beer b where b.id > :id order by b.id", Beer.class)
+						.setParameter("id", after)
+						.setMaxResults(PAGE_SIZE)
+						.getResultList()
+						.stream()
+						.map(BeerMapper.INSTANCE::mapBeerDtoFrom)
+						.collect(Collectors.toList());
+			}
+			return beerRepository.findPageById(after, PageRequest.of(0, PAGE_SIZE));
+		});
+	}
+}
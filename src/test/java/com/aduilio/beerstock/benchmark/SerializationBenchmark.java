@@ -0,0 +1,89 @@
+package com.aduilio.beerstock.benchmark;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import com.aduilio.beerstock.config.BinaryFormatConfiguration;
+import com.aduilio.beerstock.dto.BeerDto;
+import com.aduilio.beerstock.enums.BeerType;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Measures the Jackson serialization of the lists of beers returned by
+ * {@code GET /api/v1/beers}, with the defaults Spring uses for the responses,
+ * in JSON and in the binary formats of {@link BinaryFormatConfiguration}. The
+ * size of the response in each format is printed by the setup.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class SerializationBenchmark {
+
+	private static final TypeReference<List<BeerDto>> BEERS = new TypeReference<List<BeerDto>>() {
+	};
+
+	@Param({ "10", "100", "1000" })
+	public int size;
+
+	@Param({ "json", "smile", "cbor" })
+	public String format;
+
+	private ObjectMapper objectMapper;
+
+	private List<BeerDto> beers;
+
+	private byte[] serialized;
+
+	@Setup
+	public void setup() throws JsonProcessingException {
+		final Jackson2ObjectMapperBuilder builder = Jackson2ObjectMapperBuilder.json();
+		switch (format) {
+		case "smile":
+			objectMapper = BinaryFormatConfiguration.smileObjectMapper(builder);
+			break;
+		case "cbor":
+			objectMapper = BinaryFormatConfiguration.cborObjectMapper(builder);
+			break;
+		default:
+			objectMapper = builder.build();
+		}
+		beers = new ArrayList<>(size);
+		for (int i = 0; i < size; i++) {
+			beers.add(BeerDto.builder()
+					.id((long) i)
+					.name("beer-" + i)
+					.brand("benchmark")
+					.max(100)
+					.quantity(i % 100)
+					.type(BeerType.values()[i % BeerType.values().length])
+					.version(1L)
+					.build());
+		}
+		serialized = objectMapper.writeValueAsBytes(beers);
+		System.out.printf("%n%s of %d beers: %d bytes%n", format, size, serialized.length);
+	}
+
+	@Benchmark
+	public byte[] serialize() throws JsonProcessingException {
+		return objectMapper.writeValueAsBytes(beers);
+	}
+
+	@Benchmark
+	public List<BeerDto> deserialize() throws IOException {
+		return objectMapper.readValue(serialized, BEERS);
+	}
+}
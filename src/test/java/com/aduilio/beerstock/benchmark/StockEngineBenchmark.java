@@ -0,0 +1,90 @@
+package com.aduilio.beerstock.benchmark;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.aduilio.beerstock.dto.BeerDto;
+import com.aduilio.beerstock.entity.Beer;
+import com.aduilio.beerstock.enums.BeerType;
+import com.aduilio.beerstock.exception.BeerStockConflictException;
+import com.aduilio.beerstock.repository.BeerRepository;
+import com.aduilio.beerstock.service.BeerService;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Compares the throughput of the stock engines with all the threads changing
+ * the stock of the same beer. The conflicts and the retries of the optimistic
+ * engine are printed at the end of each trial.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Threads(8)
+public class StockEngineBenchmark {
+
+	@Param({ "atomic", "optimistic", "pessimistic", "ledger" })
+	public String engine;
+
+	private ConfigurableApplicationContext context;
+
+	private BeerService beerService;
+
+	private Long beerId;
+
+	@Setup
+	public void setup() {
+		context = BenchmarkApplication.start("beerstock.stock.engine=" + engine);
+		beerService = context.getBean(BeerService.class);
+		beerId = context.getBean(BeerRepository.class)
+				.save(Beer.builder()
+						.name("hot")
+						.brand("benchmark")
+						.max(Integer.MAX_VALUE / 2)
+						.quantity(Integer.MAX_VALUE / 4)
+						.type(BeerType.IPA)
+						.build())
+				.getId();
+	}
+
+	@TearDown
+	public void tearDown() {
+		final MeterRegistry registry = context.getBean(MeterRegistry.class);
+		final FunctionCounter conflicts = registry.find("beerstock.stock.conflicts")
+				.functionCounter();
+		final FunctionCounter retries = registry.find("beerstock.stock.retries")
+				.functionCounter();
+		if (conflicts != null && retries != null) {
+			System.out.printf("%n%s engine: %.0f conflict(s), %.0f retry(ies)%n", engine, conflicts.count(),
+					retries.count());
+		}
+		context.close();
+	}
+
+	/**
+	 * A change of the optimistic engine that conflicted on every attempt is
+	 * counted as an operation, it took its time as well.
+	 */
+	@Benchmark
+	public BeerDto stock() throws Exception {
+		try {
+			return beerService.stock(beerId, ThreadLocalRandom.current()
+					.nextBoolean() ? 1 : -1);
+		} catch (final BeerStockConflictException e) {
+			return null;
+		}
+	}
+}
@@ -0,0 +1,117 @@
+package com.aduilio.beerstock.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.aduilio.beerstock.config.VirtualThreads;
+import com.aduilio.beerstock.dto.BeerDto;
+import com.aduilio.beerstock.enums.BeerType;
+import com.aduilio.beerstock.service.BeerBulkService;
+import com.aduilio.beerstock.service.BeerService;
+
+/**
+ * Compares the requests handled by as many platform threads as the pool of
+ * Tomcat with the ones handled by a virtual thread each, with more requests
+ * at once than the pool. Each request waits for a remote call, simulated by a
+ * sleep, and reads a beer from the database, without the cache.
+ * <p>
+ * The virtual threads need Java 21, so the forks are started on it:
+ * {@code mvn -Pbenchmark verify -Djmh.args="ThreadModeBenchmark -f 1 -wi 3 -i 5 -jvm <java 21>/bin/java"}.
+ * Add {@code -jvmArgsAppend -Djdk.tracePinnedThreads=short} to print the
+ * virtual threads pinned to their carriers.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class ThreadModeBenchmark {
+
+	private static final int REQUESTS = 1000;
+
+	/**
+	 * The max threads of Tomcat by default.
+	 */
+	private static final int PLATFORM_THREADS = 200;
+
+	private static final int CATALOG_SIZE = 100;
+
+	@Param({ "platform", "virtual" })
+	public String mode;
+
+	@Param({ "0", "10" })
+	public int latencyMillis;
+
+	private ConfigurableApplicationContext context;
+
+	private BeerService beerService;
+
+	private List<String> names;
+
+	private ExecutorService executor;
+
+	@Setup
+	public void setup() {
+		context = BenchmarkApplication.start("beerstock.cache.enabled=false");
+		beerService = context.getBean(BeerService.class);
+		names = IntStream.range(0, CATALOG_SIZE)
+				.mapToObj(i -> "beer-" + i)
+				.collect(Collectors.toList());
+		// created by the service, so the names are in the index
+		context.getBean(BeerBulkService.class)
+				.create(names.stream()
+						.map(name -> BeerDto.builder()
+								.name(name)
+								.brand("benchmark")
+								.max(100)
+								.quantity(50)
+								.type(BeerType.LAGER)
+								.build())
+						.collect(Collectors.toList()));
+		executor = "virtual".equals(mode) ? VirtualThreads.newExecutor()
+				: Executors.newFixedThreadPool(PLATFORM_THREADS);
+	}
+
+	@TearDown
+	public void tearDown() {
+		executor.shutdownNow();
+		context.close();
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(REQUESTS)
+	public void requests() throws Exception {
+		final List<Future<BeerDto>> futures = new ArrayList<>(REQUESTS);
+		for (int i = 0; i < REQUESTS; i++) {
+			futures.add(executor.submit(this::request));
+		}
+		for (final Future<BeerDto> future : futures) {
+			future.get();
+		}
+	}
+
+	private BeerDto request() throws Exception {
+		if (latencyMillis > 0) {
+			Thread.sleep(latencyMillis);
+		}
+		return beerService.readByName(names.get(ThreadLocalRandom.current()
+				.nextInt(CATALOG_SIZE)));
+	}
+}
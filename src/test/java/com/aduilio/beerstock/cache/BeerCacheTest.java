@@ -0,0 +1,166 @@
+package com.aduilio.beerstock.cache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.aduilio.beerstock.config.BeerstockProperties;
+import com.aduilio.beerstock.config.ReplicaRoutingDataSource;
+import com.aduilio.beerstock.dto.BeerDto;
+import com.aduilio.beerstock.enums.BeerChangeType;
+import com.aduilio.beerstock.event.BeerChangedEvent;
+import com.aduilio.beerstock.utils.BeerTestsUtil;
+
+class BeerCacheTest {
+
+	private BeerCache beerCache;
+
+	private final AtomicInteger idLoads = new AtomicInteger();
+
+	private final AtomicInteger beerLoads = new AtomicInteger();
+
+	@BeforeEach
+	void setup() {
+		beerCache = new BeerCache(new BeerstockProperties());
+	}
+
+	@Test
+	void getWithCachedBeerShouldNotLoadAgain() {
+		final Optional<BeerDto> first = get(quantity(BeerTestsUtil.BEER_QTT));
+		final Optional<BeerDto> second = get(quantity(BeerTestsUtil.BEER_QTT + 1));
+
+		assertThat(first).isEqualTo(second);
+		assertThat(idLoads).hasValue(1);
+		assertThat(beerLoads).hasValue(1);
+		assertThat(beerCache.beerStats()
+				.hitCount()).isOne();
+		assertThat(beerCache.beerStats()
+				.missCount()).isOne();
+	}
+
+	@Test
+	void getShouldLoadFromThePrimary() {
+		ReplicaRoutingDataSource.allowReplica();
+		try {
+			final Optional<BeerDto> beer = beerCache.get(BeerTestsUtil.BEER_NAME, name -> {
+				assertThat(ReplicaRoutingDataSource.isReplicaAllowed()).isFalse();
+				return Optional.of(BeerTestsUtil.BEER_ID);
+			}, id -> {
+				assertThat(ReplicaRoutingDataSource.isReplicaAllowed()).isFalse();
+				return Optional.of(BeerTestsUtil.createBeerDto());
+			});
+
+			assertThat(beer).isPresent();
+			assertThat(ReplicaRoutingDataSource.isReplicaAllowed()).isTrue();
+		} finally {
+			ReplicaRoutingDataSource.disallowReplica();
+		}
+	}
+
+	@Test
+	void getWithMissingNameShouldCacheTheMiss() {
+		final Function<String, Optional<Long>> idLoader = name -> {
+			idLoads.incrementAndGet();
+			return Optional.empty();
+		};
+
+		assertThat(beerCache.get(BeerTestsUtil.BEER_NAME, idLoader, id -> Optional.empty())).isEmpty();
+		assertThat(beerCache.get(BeerTestsUtil.BEER_NAME, idLoader, id -> Optional.empty())).isEmpty();
+
+		assertThat(idLoads).hasValue(1);
+		assertThat(beerCache.idStats()
+				.hitCount()).isOne();
+	}
+
+	@Test
+	void getAfterCreateShouldForgetTheMiss() {
+		beerCache.get(BeerTestsUtil.BEER_NAME, name -> Optional.empty(), id -> Optional.empty());
+
+		beerCache.onBeerChanged(
+				new BeerChangedEvent(BeerTestsUtil.BEER_ID, BeerTestsUtil.BEER_NAME, BeerChangeType.CREATED));
+
+		assertThat(get(quantity(BeerTestsUtil.BEER_QTT))).isPresent();
+	}
+
+	@Test
+	void getAfterStockShouldLoadTheNewQuantity() {
+		get(quantity(BeerTestsUtil.BEER_QTT));
+
+		beerCache.onBeerChanged(new BeerChangedEvent(BeerTestsUtil.BEER_ID, null, BeerChangeType.STOCK));
+
+		assertThat(get(quantity(BeerTestsUtil.BEER_QTT + 1)).map(BeerDto::getQuantity))
+				.contains(BeerTestsUtil.BEER_QTT + 1);
+		assertThat(idLoads).hasValue(1);
+		assertThat(beerLoads).hasValue(2);
+	}
+
+	@Test
+	void getAfterDeleteShouldLoadAgain() {
+		get(quantity(BeerTestsUtil.BEER_QTT));
+
+		beerCache.onBeerChanged(
+				new BeerChangedEvent(BeerTestsUtil.BEER_ID, BeerTestsUtil.BEER_NAME, BeerChangeType.DELETED));
+
+		assertThat(beerCache.get(BeerTestsUtil.BEER_NAME, name -> Optional.empty(), id -> Optional.empty()))
+				.isEmpty();
+	}
+
+	@Test
+	void getWithInvalidationDuringLoadShouldNotKeepStaleBeer() throws Exception {
+		get(quantity(BeerTestsUtil.BEER_QTT));
+		beerCache.onBeerChanged(new BeerChangedEvent(BeerTestsUtil.BEER_ID, null, BeerChangeType.STOCK));
+
+		final CountDownLatch loading = new CountDownLatch(1);
+		final CountDownLatch committed = new CountDownLatch(1);
+		// the reader loads the quantity before the change is committed
+		final CompletableFuture<Optional<BeerDto>> reader = CompletableFuture.supplyAsync(() -> get(id -> {
+			loading.countDown();
+			await(committed);
+			return quantity(BeerTestsUtil.BEER_QTT).apply(id);
+		}));
+		await(loading);
+
+		final CompletableFuture<Void> invalidation = CompletableFuture.runAsync(() -> beerCache
+				.onBeerChanged(new BeerChangedEvent(BeerTestsUtil.BEER_ID, null, BeerChangeType.STOCK)));
+		committed.countDown();
+
+		assertThat(reader.get(5, TimeUnit.SECONDS)
+				.map(BeerDto::getQuantity)).contains(BeerTestsUtil.BEER_QTT);
+		invalidation.get(5, TimeUnit.SECONDS);
+		assertThat(get(quantity(BeerTestsUtil.BEER_QTT + 1)).map(BeerDto::getQuantity))
+				.contains(BeerTestsUtil.BEER_QTT + 1);
+	}
+
+	private Optional<BeerDto> get(final Function<Long, Optional<BeerDto>> beerLoader) {
+		return beerCache.get(BeerTestsUtil.BEER_NAME, name -> {
+			idLoads.incrementAndGet();
+			return Optional.of(BeerTestsUtil.BEER_ID);
+		}, beerLoader);
+	}
+
+	private Function<Long, Optional<BeerDto>> quantity(final int quantity) {
+		return id -> {
+			beerLoads.incrementAndGet();
+			final BeerDto beerDto = BeerTestsUtil.createBeerDto();
+			beerDto.setQuantity(quantity);
+			return Optional.of(beerDto);
+		};
+	}
+
+	private static void await(final CountDownLatch latch) {
+		try {
+			latch.await(5, TimeUnit.SECONDS);
+		} catch (final InterruptedException e) {
+			Thread.currentThread()
+					.interrupt();
+		}
+	}
+}
@@ -0,0 +1,150 @@
+package com.aduilio.beerstock.config;
+
+import static org.hamcrest.CoreMatchers.hasItem;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.cookie;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.util.UUID;
+
+import javax.servlet.http.Cookie;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.web.servlet.MockMvc;
+
+import com.aduilio.beerstock.entity.Beer;
+import com.aduilio.beerstock.index.BeerNameIndex;
+import com.aduilio.beerstock.repository.BeerRepository;
+import com.aduilio.beerstock.utils.BeerTestsUtil;
+
+/**
+ * Runs with two in-memory databases standing for the primary and the replica,
+ * with the schema copied once and no replication, so the database a request
+ * read from is told by the rows it found.
+ */
+@SpringBootTest(properties = { "spring.datasource.url=" + ReadReplicaConfigurationTest.PRIMARY_URL,
+		"beerstock.datasource.replica.url=" + ReadReplicaConfigurationTest.REPLICA_URL,
+		"beerstock.datasource.replica.username=sa", "beerstock.cache.enabled=false" })
+@AutoConfigureMockMvc
+class ReadReplicaConfigurationTest {
+
+	static final String PRIMARY_URL = "jdbc:h2:mem:routing-primary;DB_CLOSE_DELAY=-1";
+
+	static final String REPLICA_URL = "jdbc:h2:mem:routing-replica;DB_CLOSE_DELAY=-1";
+
+	private static final String URL = "/api/v1/beers";
+
+	private static boolean schemaCopied;
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private BeerRepository beerRepository;
+
+	@Autowired
+	private BeerNameIndex beerNameIndex;
+
+	private JdbcTemplate replica;
+
+	@BeforeEach
+	void setup() {
+		replica = new JdbcTemplate(new DriverManagerDataSource(REPLICA_URL, "sa", ""));
+		if (!schemaCopied) {
+			new JdbcTemplate(new DriverManagerDataSource(PRIMARY_URL, "sa", "")).queryForList("script nodata", String.class)
+					.stream()
+					.filter(statement -> statement.startsWith("CREATE") && !statement.startsWith("CREATE USER"))
+					.forEach(replica::execute);
+			schemaCopied = true;
+		}
+	}
+
+	@AfterEach
+	void cleanup() {
+		beerRepository.deleteAll();
+		replica.update("delete from beer");
+	}
+
+	@Test
+	void readByNameShouldReadFromTheReplica() throws Exception {
+		final Beer beer = saveBeer();
+
+		mockMvc.perform(get(URL + "/" + beer.getName()).accept(MediaType.APPLICATION_JSON))
+				.andExpect(status().isNotFound());
+	}
+
+	@Test
+	void readByNameAfterWriteShouldReadFromThePrimary() throws Exception {
+		final Beer beer = saveBeer();
+
+		final Cookie pin = mockMvc.perform(patch(URL + "/" + beer.getId() + "/stock")
+				.contentType(MediaType.APPLICATION_JSON)
+				.content("{\"quantity\":1}"))
+				.andExpect(status().isOk())
+				.andExpect(cookie().exists(ReadReplicaFilter.PRIMARY_COOKIE))
+				.andReturn()
+				.getResponse()
+				.getCookie(ReadReplicaFilter.PRIMARY_COOKIE);
+
+		mockMvc.perform(get(URL + "/" + beer.getName()).cookie(pin)
+				.accept(MediaType.APPLICATION_JSON))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.quantity", is(BeerTestsUtil.BEER_QTT + 1)));
+	}
+
+	@Test
+	void listShouldReadFromTheReplica() throws Exception {
+		final Beer beer = saveBeer();
+		final String replicated = BeerTestsUtil.BEER_NAME + UUID.randomUUID();
+		replica.update("insert into beer (id, name, brand, max, quantity, reserved, type, version) "
+				+ "values (?, ?, ?, ?, ?, 0, ?, 0)", beer.getId() + 1, replicated, beer.getBrand(), beer.getMax(),
+				beer.getQuantity(), beer.getType()
+						.name());
+
+		mockMvc.perform(get(URL).accept(MediaType.APPLICATION_JSON))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$[*].name", hasItem(replicated)))
+				.andExpect(jsonPath("$[*].name", not(hasItem(beer.getName()))))
+				.andExpect(header().doesNotExist(HttpHeaders.ETAG));
+	}
+
+	@Test
+	void listWithCurrentVersionShouldReturnNotModifiedFromTheReplica() throws Exception {
+		final Beer beer = saveBeer();
+		final Cookie pin = new Cookie(ReadReplicaFilter.PRIMARY_COOKIE, Long.toString(Long.MAX_VALUE));
+
+		final String etag = mockMvc.perform(get(URL).cookie(pin)
+				.accept(MediaType.APPLICATION_JSON))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$[*].name", hasItem(beer.getName())))
+				.andReturn()
+				.getResponse()
+				.getHeader(HttpHeaders.ETAG);
+
+		mockMvc.perform(get(URL).header(HttpHeaders.IF_NONE_MATCH, etag)
+				.accept(MediaType.APPLICATION_JSON))
+				.andExpect(status().isNotModified())
+				.andExpect(header().string(HttpHeaders.ETAG, etag));
+	}
+
+	private Beer saveBeer() {
+		final Beer beer = BeerTestsUtil.createBeer();
+		beer.setId(null);
+		beer.setName(BeerTestsUtil.BEER_NAME + UUID.randomUUID());
+		beerNameIndex.add(beer.getName());
+		return beerRepository.save(beer);
+	}
+}
@@ -0,0 +1,66 @@
+package com.aduilio.beerstock.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.IOException;
+import java.time.Duration;
+
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+class RequestConcurrencyFilterTest {
+
+	private final RequestConcurrencyFilter filter = new RequestConcurrencyFilter(1, Duration.ofMillis(10));
+
+	@Test
+	void doFilterShouldRejectTheRequestsAboveTheLimit() throws Exception {
+		final MockHttpServletResponse inner = new MockHttpServletResponse();
+
+		// the second request arrives while the first one holds the only permit
+		final MockHttpServletResponse outer = filter(new MockFilterChain(new HttpServlet() {
+
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected void service(final HttpServletRequest request, final HttpServletResponse response)
+					throws ServletException, IOException {
+				filter.doFilter(new MockHttpServletRequest(), inner, new MockFilterChain());
+			}
+		}));
+
+		assertThat(outer.getStatus()).isEqualTo(HttpStatus.OK.value());
+		assertThat(inner.getStatus()).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE.value());
+	}
+
+	@Test
+	void doFilterShouldReleaseThePermitWhenTheRequestFails() throws Exception {
+		final MockFilterChain failing = new MockFilterChain(new HttpServlet() {
+
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected void service(final HttpServletRequest request, final HttpServletResponse response)
+					throws ServletException {
+				throw new ServletException("failed");
+			}
+		});
+		assertThatThrownBy(() -> filter(failing)).isInstanceOf(ServletException.class);
+
+		assertThat(filter(new MockFilterChain()).getStatus()).isEqualTo(HttpStatus.OK.value());
+	}
+
+	private MockHttpServletResponse filter(final MockFilterChain filterChain) throws Exception {
+		final MockHttpServletResponse response = new MockHttpServletResponse();
+		filter.doFilter(new MockHttpServletRequest(), response, filterChain);
+		return response;
+	}
+}
@@ -0,0 +1,104 @@
+package com.aduilio.beerstock.controller;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.UUID;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import com.aduilio.beerstock.dto.BeerChangeDto;
+import com.aduilio.beerstock.dto.BeerDto;
+import com.aduilio.beerstock.dto.QuantityDto;
+import com.aduilio.beerstock.enums.BeerChangeType;
+import com.aduilio.beerstock.repository.BeerRepository;
+import com.aduilio.beerstock.utils.BeerTestsUtil;
+
+import reactor.core.publisher.Flux;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class BeerChangeFeedStreamTest {
+
+	private static final String URL = "/api/v1/beers";
+
+	@Autowired
+	private WebTestClient webTestClient;
+
+	@Autowired
+	private BeerRepository beerRepository;
+
+	@AfterEach
+	void cleanup() {
+		beerRepository.deleteAll();
+	}
+
+	@Test
+	void changesShouldStreamTheCreationAndTheStockOfABeer() {
+		final Flux<ServerSentEvent<BeerChangeDto>> changes = webTestClient.mutate()
+				.responseTimeout(Duration.ofSeconds(10))
+				.build()
+				.get()
+				.uri(URL + "/changes")
+				.accept(MediaType.TEXT_EVENT_STREAM)
+				.exchange()
+				.expectStatus()
+				.isOk()
+				.returnResult(new ParameterizedTypeReference<ServerSentEvent<BeerChangeDto>>() {
+				})
+				.getResponseBody();
+
+		final BeerDto beerDto = BeerTestsUtil.createBeerDto();
+		beerDto.setName(BeerTestsUtil.BEER_NAME + UUID.randomUUID());
+
+		// the changes, without the comment sent when subscribed
+		final Iterator<ServerSentEvent<BeerChangeDto>> events = changes.filter(event -> event.event() != null)
+				.timeout(Duration.ofSeconds(10))
+				.toIterable()
+				.iterator();
+
+		final Long id = create(beerDto);
+		final ServerSentEvent<BeerChangeDto> created = events.next();
+
+		assertThat(created.event()).isEqualTo(BeerChangeType.CREATED.name());
+		assertThat(created.id()).isNotNull();
+		assertThat(created.data()
+				.getBeer()
+				.getName()).isEqualTo(beerDto.getName());
+
+		webTestClient.patch()
+				.uri(URL + "/" + id + "/stock")
+				.bodyValue(QuantityDto.builder()
+						.quantity(1)
+						.build())
+				.exchange()
+				.expectStatus()
+				.isOk();
+		final ServerSentEvent<BeerChangeDto> stock = events.next();
+
+		assertThat(stock.event()).isEqualTo(BeerChangeType.STOCK.name());
+		assertThat(stock.data()
+				.getBeer()
+				.getQuantity()).isEqualTo(BeerTestsUtil.BEER_QTT + 1);
+	}
+
+	private Long create(final BeerDto beerDto) {
+		return webTestClient.post()
+				.uri(URL)
+				.bodyValue(beerDto)
+				.exchange()
+				.expectStatus()
+				.isCreated()
+				.expectBody(BeerDto.class)
+				.returnResult()
+				.getResponseBody()
+				.getId();
+	}
+}
@@ -0,0 +1,114 @@
+package com.aduilio.beerstock.controller;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.util.UUID;
+
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.test.web.servlet.MockMvc;
+
+import com.aduilio.beerstock.config.BinaryFormatConfiguration;
+import com.aduilio.beerstock.dto.BeerDto;
+import com.aduilio.beerstock.repository.BeerRepository;
+import com.aduilio.beerstock.utils.BeerTestsUtil;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class BeerControllerBinaryFormatTest {
+
+	private static final String URL = "/api/v1/beers";
+
+	private static final MediaType SMILE = MediaType.parseMediaType("application/x-jackson-smile");
+
+	private static final MediaType CBOR = MediaType.parseMediaType("application/cbor");
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private BeerRepository beerRepository;
+
+	private final ObjectMapper smileObjectMapper = BinaryFormatConfiguration
+			.smileObjectMapper(Jackson2ObjectMapperBuilder.json());
+
+	private final ObjectMapper cborObjectMapper = BinaryFormatConfiguration
+			.cborObjectMapper(Jackson2ObjectMapperBuilder.json());
+
+	private BeerDto beerDto;
+
+	@BeforeEach
+	void setup() {
+		beerDto = BeerTestsUtil.createBeerDto();
+		beerDto.setId(null);
+		beerDto.setName(BeerTestsUtil.BEER_NAME + UUID.randomUUID());
+	}
+
+	@AfterEach
+	void cleanup() {
+		beerRepository.deleteAll();
+	}
+
+	@Test
+	void createWithSmileShouldReturnSmile() throws Exception {
+		final byte[] response = mockMvc.perform(post(URL).contentType(SMILE)
+				.accept(SMILE)
+				.content(smileObjectMapper.writeValueAsBytes(beerDto)))
+				.andExpect(status().isCreated())
+				.andExpect(content().contentType(SMILE))
+				.andReturn()
+				.getResponse()
+				.getContentAsByteArray();
+
+		assertThat(smileObjectMapper.readValue(response, BeerDto.class)
+				.getId()).isNotNull();
+	}
+
+	@Test
+	void readByNameWithCborShouldWriteTheTypeByOrdinal() throws Exception {
+		create();
+
+		final byte[] response = mockMvc.perform(get(URL + "/" + beerDto.getName()).accept(CBOR))
+				.andExpect(status().isOk())
+				.andExpect(content().contentType(CBOR))
+				.andReturn()
+				.getResponse()
+				.getContentAsByteArray();
+
+		final JsonNode beer = cborObjectMapper.readTree(response);
+		assertThat(beer.get("type")
+				.isInt()).isTrue();
+		assertThat(cborObjectMapper.treeToValue(beer, BeerDto.class)
+				.getType()).isEqualTo(BeerTestsUtil.BEER_TYPE);
+	}
+
+	@Test
+	void listWithoutAcceptShouldReturnJson() throws Exception {
+		create();
+
+		mockMvc.perform(get(URL))
+				.andExpect(status().isOk())
+				.andExpect(content().contentType(MediaType.APPLICATION_JSON))
+				.andExpect(jsonPath("$[0].type", Matchers.is(BeerTestsUtil.BEER_TYPE.name())));
+	}
+
+	private void create() throws Exception {
+		mockMvc.perform(post(URL).contentType(CBOR)
+				.content(cborObjectMapper.writeValueAsBytes(beerDto)))
+				.andExpect(status().isCreated());
+	}
+}
@@ -0,0 +1,165 @@
+package com.aduilio.beerstock.controller;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.util.UUID;
+
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import com.aduilio.beerstock.dto.BeerDto;
+import com.aduilio.beerstock.dto.QuantityDto;
+import com.aduilio.beerstock.repository.BeerRepository;
+import com.aduilio.beerstock.utils.BeerTestsUtil;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class BeerControllerConditionalTest {
+
+	private static final String URL = "/api/v1/beers";
+
+	private static final MediaType SMILE = MediaType.parseMediaType("application/x-jackson-smile");
+
+	private static final MediaType CBOR = MediaType.parseMediaType("application/cbor");
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private BeerRepository beerRepository;
+
+	private final ObjectMapper objectMapper = new ObjectMapper();
+
+	private BeerDto beerDto;
+
+	@BeforeEach
+	void setup() throws Exception {
+		beerDto = BeerTestsUtil.createBeerDto();
+		beerDto.setId(null);
+		beerDto.setName(BeerTestsUtil.BEER_NAME + UUID.randomUUID());
+
+		final String response = mockMvc.perform(post(URL).contentType(MediaType.APPLICATION_JSON)
+				.content(objectMapper.writeValueAsString(beerDto)))
+				.andExpect(status().isCreated())
+				.andReturn()
+				.getResponse()
+				.getContentAsString();
+		beerDto.setId(objectMapper.readValue(response, BeerDto.class)
+				.getId());
+	}
+
+	@AfterEach
+	void cleanup() {
+		beerRepository.deleteAll();
+	}
+
+	@Test
+	void readByNameWithoutChangeShouldReturnNotModified() throws Exception {
+		final String etag = etagOf(URL + "/" + beerDto.getName());
+
+		mockMvc.perform(get(URL + "/" + beerDto.getName()).header(HttpHeaders.IF_NONE_MATCH, etag))
+				.andExpect(status().isNotModified())
+				.andExpect(header().stringValues(HttpHeaders.VARY, Matchers.hasItem(HttpHeaders.ACCEPT)));
+	}
+
+	@Test
+	void readByNameWithOtherFormatShouldReturnBeer() throws Exception {
+		final String etag = etagOf(URL + "/" + beerDto.getName());
+
+		mockMvc.perform(get(URL + "/" + beerDto.getName()).header(HttpHeaders.IF_NONE_MATCH, etag)
+				.accept(SMILE))
+				.andExpect(status().isOk())
+				.andExpect(content().contentType(SMILE))
+				.andExpect(header().string(HttpHeaders.ETAG, Matchers.not(etag)))
+				.andExpect(header().stringValues(HttpHeaders.VARY, Matchers.hasItem(HttpHeaders.ACCEPT)));
+	}
+
+	@Test
+	void readByNameAfterStockShouldReturnBeer() throws Exception {
+		final String etag = etagOf(URL + "/" + beerDto.getName());
+
+		stock(1);
+
+		mockMvc.perform(get(URL + "/" + beerDto.getName()).header(HttpHeaders.IF_NONE_MATCH, etag))
+				.andExpect(status().isOk())
+				.andExpect(header().string(HttpHeaders.ETAG, Matchers.not(etag)))
+				.andExpect(jsonPath("$.quantity", Matchers.is(BeerTestsUtil.BEER_QTT + 1)));
+	}
+
+	@Test
+	void listWithoutChangeShouldReturnNotModified() throws Exception {
+		final String etag = etagOf(URL);
+
+		mockMvc.perform(get(URL).header(HttpHeaders.IF_NONE_MATCH, etag))
+				.andExpect(status().isNotModified())
+				.andExpect(header().stringValues(HttpHeaders.VARY, Matchers.hasItem(HttpHeaders.ACCEPT)));
+	}
+
+	@Test
+	void listWithOtherFormatShouldReturnBeers() throws Exception {
+		final String etag = etagOf(URL);
+
+		mockMvc.perform(get(URL).header(HttpHeaders.IF_NONE_MATCH, etag)
+				.accept(CBOR))
+				.andExpect(status().isOk())
+				.andExpect(content().contentType(CBOR))
+				.andExpect(header().string(HttpHeaders.ETAG, Matchers.not(etag)))
+				.andExpect(header().stringValues(HttpHeaders.VARY, Matchers.hasItem(HttpHeaders.ACCEPT)));
+	}
+
+	@Test
+	void listWithPreferredFormatShouldReturnNotModified() throws Exception {
+		final String etag = mockMvc.perform(get(URL).accept(CBOR))
+				.andExpect(status().isOk())
+				.andReturn()
+				.getResponse()
+				.getHeader(HttpHeaders.ETAG);
+
+		mockMvc.perform(get(URL).header(HttpHeaders.IF_NONE_MATCH, etag)
+				.header(HttpHeaders.ACCEPT, "application/json;q=0.5, application/cbor"))
+				.andExpect(status().isNotModified());
+	}
+
+	@Test
+	void listAfterStockShouldReturnBeers() throws Exception {
+		final String etag = etagOf(URL);
+
+		stock(-1);
+
+		mockMvc.perform(get(URL).header(HttpHeaders.IF_NONE_MATCH, etag))
+				.andExpect(status().isOk())
+				.andExpect(header().string(HttpHeaders.ETAG, Matchers.not(etag)))
+				.andExpect(jsonPath("$[0].quantity", Matchers.is(BeerTestsUtil.BEER_QTT - 1)));
+	}
+
+	private String etagOf(final String url) throws Exception {
+		return mockMvc.perform(get(url))
+				.andExpect(status().isOk())
+				.andReturn()
+				.getResponse()
+				.getHeader(HttpHeaders.ETAG);
+	}
+
+	private void stock(final int quantity) throws Exception {
+		mockMvc.perform(patch(URL + "/" + beerDto.getId() + "/stock").contentType(MediaType.APPLICATION_JSON)
+				.content(objectMapper.writeValueAsString(QuantityDto.builder()
+						.quantity(quantity)
+						.build())))
+				.andExpect(status().isOk());
+	}
+}
@@ -0,0 +1,153 @@
+package com.aduilio.beerstock.controller;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.io.ByteArrayInputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.zip.GZIPInputStream;
+
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import com.aduilio.beerstock.dto.BeerDto;
+import com.aduilio.beerstock.service.BeerService;
+import com.aduilio.beerstock.utils.BeerTestsUtil;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+@SpringBootTest(properties = "beerstock.snapshot.enabled=true")
+@AutoConfigureMockMvc
+class BeerControllerSnapshotTest {
+
+	private static final String URL = "/api/v1/beers";
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private BeerService beerService;
+
+	private final ObjectMapper objectMapper = new ObjectMapper();
+
+	private final List<Long> ids = new ArrayList<>();
+
+	@BeforeEach
+	void setup() throws Exception {
+		for (int i = 0; i < 3; i++) {
+			final BeerDto beerDto = BeerTestsUtil.createBeerDto();
+			beerDto.setId(null);
+			beerDto.setName(BeerTestsUtil.BEER_NAME + UUID.randomUUID());
+			ids.add(beerService.create(beerDto));
+		}
+	}
+
+	@AfterEach
+	void cleanup() throws Exception {
+		// through the service, so the snapshot sees the deletions
+		for (final Long id : ids) {
+			beerService.delete(id);
+		}
+	}
+
+	@Test
+	void listShouldWriteThePagesOfTheSnapshot() throws Exception {
+		final String next = mockMvc.perform(get(URL).param("size", "2"))
+				.andExpect(status().isOk())
+				.andExpect(content().contentType(MediaType.APPLICATION_JSON))
+				.andExpect(jsonPath("$[*].id", Matchers.contains(ids.get(0)
+						.intValue(),
+						ids.get(1)
+								.intValue())))
+				.andExpect(header().exists(HttpHeaders.ETAG))
+				.andExpect(header().string(HttpHeaders.LINK, Matchers.containsString("cursor=")))
+				.andReturn()
+				.getResponse()
+				.getHeader(BeerController.NEXT_CURSOR_HEADER);
+
+		mockMvc.perform(get(URL).param("size", "2")
+				.param("cursor", next))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$[*].id", Matchers.contains(ids.get(2)
+						.intValue())))
+				.andExpect(header().doesNotExist(BeerController.NEXT_CURSOR_HEADER));
+	}
+
+	@Test
+	void listWithGzipShouldReturnThePageCompressed() throws Exception {
+		final byte[] response = mockMvc.perform(get(URL).header(HttpHeaders.ACCEPT_ENCODING, "gzip, deflate"))
+				.andExpect(status().isOk())
+				.andExpect(header().string(HttpHeaders.CONTENT_ENCODING, "gzip"))
+				.andReturn()
+				.getResponse()
+				.getContentAsByteArray();
+
+		try (GZIPInputStream inputStream = new GZIPInputStream(new ByteArrayInputStream(response))) {
+			assertThat(objectMapper.readValue(inputStream, BeerDto[].class)).extracting(BeerDto::getId)
+					.containsExactlyElementsOf(ids);
+		}
+	}
+
+	@Test
+	void listWithoutChangeShouldReturnNotModified() throws Exception {
+		final String etag = mockMvc.perform(get(URL))
+				.andExpect(status().isOk())
+				.andExpect(header().stringValues(HttpHeaders.VARY,
+						Matchers.hasItems(HttpHeaders.ACCEPT, HttpHeaders.ACCEPT_ENCODING)))
+				.andReturn()
+				.getResponse()
+				.getHeader(HttpHeaders.ETAG);
+
+		mockMvc.perform(get(URL).header(HttpHeaders.IF_NONE_MATCH, etag))
+				.andExpect(status().isNotModified())
+				.andExpect(header().stringValues(HttpHeaders.VARY,
+						Matchers.hasItems(HttpHeaders.ACCEPT, HttpHeaders.ACCEPT_ENCODING)));
+	}
+
+	@Test
+	void listWithGzipShouldHaveItsOwnETag() throws Exception {
+		final String etag = mockMvc.perform(get(URL))
+				.andExpect(status().isOk())
+				.andExpect(header().doesNotExist(HttpHeaders.CONTENT_ENCODING))
+				.andReturn()
+				.getResponse()
+				.getHeader(HttpHeaders.ETAG);
+		final String gzipETag = mockMvc.perform(get(URL).header(HttpHeaders.ACCEPT_ENCODING, "gzip"))
+				.andExpect(status().isOk())
+				.andExpect(header().string(HttpHeaders.CONTENT_ENCODING, "gzip"))
+				.andReturn()
+				.getResponse()
+				.getHeader(HttpHeaders.ETAG);
+
+		assertThat(gzipETag).isNotEqualTo(etag);
+		mockMvc.perform(get(URL).header(HttpHeaders.ACCEPT_ENCODING, "gzip")
+				.header(HttpHeaders.IF_NONE_MATCH, etag))
+				.andExpect(status().isOk())
+				.andExpect(header().string(HttpHeaders.CONTENT_ENCODING, "gzip"));
+		mockMvc.perform(get(URL).header(HttpHeaders.ACCEPT_ENCODING, "gzip")
+				.header(HttpHeaders.IF_NONE_MATCH, gzipETag))
+				.andExpect(status().isNotModified())
+				.andExpect(header().stringValues(HttpHeaders.VARY,
+						Matchers.hasItems(HttpHeaders.ACCEPT, HttpHeaders.ACCEPT_ENCODING)));
+	}
+
+	@Test
+	void listWithSmileShouldNotUseTheSnapshot() throws Exception {
+		mockMvc.perform(get(URL).accept(MediaType.parseMediaType("application/x-jackson-smile")))
+				.andExpect(status().isOk())
+				.andExpect(content().contentType("application/x-jackson-smile"));
+	}
+}
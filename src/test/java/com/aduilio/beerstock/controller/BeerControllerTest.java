@@ -2,33 +2,66 @@ package com.aduilio.beerstock.controller;
 
 import static org.hamcrest.CoreMatchers.is;
 import static org.mockito.Mockito.doThrow;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.Collections;
+import java.util.List;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.data.web.PageableHandlerMethodArgumentResolver;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 import org.springframework.web.servlet.view.json.MappingJackson2JsonView;
 
+import com.aduilio.beerstock.cache.CatalogVersion;
 import com.aduilio.beerstock.dto.BeerDto;
+import com.aduilio.beerstock.dto.BeerFilterDto;
+import com.aduilio.beerstock.dto.BeerPageDto;
+import com.aduilio.beerstock.dto.BeerSearchDto;
+import com.aduilio.beerstock.dto.BulkItemResultDto;
 import com.aduilio.beerstock.dto.QuantityDto;
+import com.aduilio.beerstock.dto.StockCommandDto;
+import com.aduilio.beerstock.dto.StockItemDto;
+import com.aduilio.beerstock.dto.StockItemResultDto;
+import com.aduilio.beerstock.enums.BeerExportFormat;
+import com.aduilio.beerstock.enums.BeerSort;
+import com.aduilio.beerstock.enums.BulkItemStatus;
+import com.aduilio.beerstock.enums.StockBatchMode;
+import com.aduilio.beerstock.enums.StockItemStatus;
 import com.aduilio.beerstock.exception.BeerExceedStockException;
+import com.aduilio.beerstock.exception.BeerInvalidCursorException;
 import com.aduilio.beerstock.exception.BeerNotFoundException;
+import com.aduilio.beerstock.exception.BeerStockConflictException;
+import com.aduilio.beerstock.exception.StockBatchModeNotSupportedException;
+import com.aduilio.beerstock.exception.StockCommandNotFoundException;
+import com.aduilio.beerstock.exception.StockQueueFullException;
+import com.aduilio.beerstock.feed.BeerChangeFeed;
+import com.aduilio.beerstock.service.BeerBulkService;
+import com.aduilio.beerstock.service.BeerCatalogSnapshot;
+import com.aduilio.beerstock.service.BeerExportService;
 import com.aduilio.beerstock.service.BeerService;
+import com.aduilio.beerstock.service.StockCommandQueue;
 import com.aduilio.beerstock.utils.BeerTestsUtil;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -43,6 +76,24 @@ class BeerControllerTest {
 	@Mock
 	private BeerService beerServiceMock;
 
+	@Mock
+	private BeerBulkService beerBulkServiceMock;
+
+	@Mock
+	private BeerExportService beerExportServiceMock;
+
+	@Spy
+	private CatalogVersion catalogVersion = new CatalogVersion();
+
+	@Mock
+	private StockCommandQueue stockCommandQueueMock;
+
+	@Mock
+	private BeerChangeFeed beerChangeFeedMock;
+
+	@Mock
+	private BeerCatalogSnapshot beerCatalogSnapshotMock;
+
 	@InjectMocks
 	private BeerController beerController;
 
@@ -75,6 +126,24 @@ class BeerControllerTest {
 				.andExpect(status().isBadRequest());
 	}
 
+	@Test
+	void createBulkWithBeersShouldReturnResults() throws JsonProcessingException, Exception {
+		final List<BeerDto> beerDtos = Collections.singletonList(BeerTestsUtil.createBeerDto());
+
+		when(beerBulkServiceMock.create(beerDtos)).thenReturn(Collections.singletonList(BulkItemResultDto.builder()
+				.id(BeerTestsUtil.BEER_ID)
+				.name(BeerTestsUtil.BEER_NAME)
+				.status(BulkItemStatus.CREATED)
+				.build()));
+
+		mockMvc.perform(post(URL + "/bulk").contentType(MediaType.APPLICATION_JSON)
+				.content(new ObjectMapper().writeValueAsString(beerDtos))
+				.accept(MediaType.APPLICATION_JSON))
+				.andExpect(status().isCreated())
+				.andExpect(jsonPath("$[0].id", is(BeerTestsUtil.BEER_ID.intValue())))
+				.andExpect(jsonPath("$[0].status", is(BulkItemStatus.CREATED.name())));
+	}
+
 	@Test
 	void readByNameWithValidNameShouldReturnBeer() throws JsonProcessingException, Exception {
 		final BeerDto beerDto = BeerTestsUtil.createBeerDto();
@@ -90,6 +159,33 @@ class BeerControllerTest {
 				.andExpect(jsonPath("$.max", is(BeerTestsUtil.BEER_MAX)));
 	}
 
+	@Test
+	void readByNameWithSameVersionShouldReturnNotModified() throws Exception {
+		final BeerDto beerDto = BeerTestsUtil.createBeerDto();
+		beerDto.setVersion(3L);
+
+		when(beerServiceMock.readByName(BeerTestsUtil.BEER_NAME)).thenReturn(beerDto);
+
+		mockMvc.perform(get(URL + "/" + BeerTestsUtil.BEER_NAME).header(HttpHeaders.IF_NONE_MATCH,
+				"\"" + BeerTestsUtil.BEER_ID + "-3-json\""))
+				.andExpect(status().isNotModified())
+				.andExpect(content().string(""));
+	}
+
+	@Test
+	void readByNameWithOtherVersionShouldReturnBeer() throws Exception {
+		final BeerDto beerDto = BeerTestsUtil.createBeerDto();
+		beerDto.setVersion(4L);
+
+		when(beerServiceMock.readByName(BeerTestsUtil.BEER_NAME)).thenReturn(beerDto);
+
+		mockMvc.perform(get(URL + "/" + BeerTestsUtil.BEER_NAME).header(HttpHeaders.IF_NONE_MATCH,
+				"\"" + BeerTestsUtil.BEER_ID + "-3-json\""))
+				.andExpect(status().isOk())
+				.andExpect(header().string(HttpHeaders.ETAG, "\"" + BeerTestsUtil.BEER_ID + "-4-json\""))
+				.andExpect(jsonPath("$.version").doesNotExist());
+	}
+
 	@Test
 	void readByNameWithInvalidNameShouldReturnError() throws JsonProcessingException, Exception {
 		when(beerServiceMock.readByName(BeerTestsUtil.BEER_NAME)).thenThrow(BeerNotFoundException.class);
@@ -102,10 +198,13 @@ class BeerControllerTest {
 	void listWithValueShouldReturnBeers() throws JsonProcessingException, Exception {
 		final BeerDto beerDto = BeerTestsUtil.createBeerDto();
 
-		when(beerServiceMock.list()).thenReturn(Collections.singletonList(beerDto));
+		when(beerServiceMock.list(null, null, BeerSort.ID)).thenReturn(BeerPageDto.builder()
+				.content(Collections.singletonList(beerDto))
+				.build());
 
 		mockMvc.perform(get(URL).accept(MediaType.APPLICATION_JSON))
 				.andExpect(status().isOk())
+				.andExpect(header().doesNotExist(HttpHeaders.LINK))
 				.andExpect(jsonPath("$[0].id", is(BeerTestsUtil.BEER_ID.intValue())))
 				.andExpect(jsonPath("$[0].name", is(BeerTestsUtil.BEER_NAME)))
 				.andExpect(jsonPath("$[0].brand", is(BeerTestsUtil.BEER_BRAND)))
@@ -113,6 +212,52 @@ class BeerControllerTest {
 				.andExpect(jsonPath("$[0].max", is(BeerTestsUtil.BEER_MAX)));
 	}
 
+	@Test
+	void listWithNextPageShouldReturnCursor() throws JsonProcessingException, Exception {
+		when(beerServiceMock.list("current", 1, BeerSort.NAME)).thenReturn(BeerPageDto.builder()
+				.content(Collections.singletonList(BeerTestsUtil.createBeerDto()))
+				.next("next")
+				.build());
+
+		mockMvc.perform(get(URL + "?cursor=current&size=1&sort=NAME").accept(MediaType.APPLICATION_JSON))
+				.andExpect(status().isOk())
+				.andExpect(header().string(BeerController.NEXT_CURSOR_HEADER, "next"))
+				.andExpect(header().string(HttpHeaders.LINK,
+						"<http://localhost/api/v1/beers?size=1&sort=NAME&cursor=next>; rel=\"next\""));
+	}
+
+	@Test
+	void exportWithCsvShouldWriteBeers() throws Exception {
+		when(beerExportServiceMock.export(any(BeerExportFormat.class), any(OutputStream.class))).thenAnswer(invocation -> {
+			invocation.getArgument(1, OutputStream.class)
+					.write("id,name\n1,beer\n".getBytes(StandardCharsets.UTF_8));
+			return 1L;
+		});
+
+		mockMvc.perform(get(URL + "/export").param("format", "CSV"))
+				.andExpect(status().isOk())
+				.andExpect(content().contentType("text/csv;charset=UTF-8"))
+				.andExpect(header().string(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"beers.csv\""))
+				.andExpect(content().string("id,name\n1,beer\n"));
+	}
+
+	@Test
+	void listWithSameCatalogVersionShouldNotReadIt() throws Exception {
+		mockMvc.perform(get(URL).header(HttpHeaders.IF_NONE_MATCH, "\"" + catalogVersion.get() + "-json\""))
+				.andExpect(status().isNotModified());
+
+		verify(beerServiceMock, never()).list(any(), any(), any());
+	}
+
+	@Test
+	void listWithInvalidCursorShouldReturnError() throws JsonProcessingException, Exception {
+		when(beerServiceMock.list("invalid", null, BeerSort.ID)).thenThrow(BeerInvalidCursorException.class);
+
+		mockMvc.perform(get(URL).param("cursor", "invalid")
+				.accept(MediaType.APPLICATION_JSON))
+				.andExpect(status().isBadRequest());
+	}
+
 	@Test
 	void deleteWithValidIdShouldExecute() throws JsonProcessingException, Exception {
 		mockMvc.perform(delete(URL + "/" + BeerTestsUtil.BEER_ID).accept(MediaType.APPLICATION_JSON))
@@ -174,4 +319,145 @@ class BeerControllerTest {
 				.accept(MediaType.APPLICATION_JSON))
 				.andExpect(status().isBadRequest());
 	}
+
+	@Test
+	void stockBatchWithValidItemsShouldReturnResults() throws JsonProcessingException, Exception {
+		final List<StockItemDto> items = Collections.singletonList(StockItemDto.builder()
+				.id(BeerTestsUtil.BEER_ID)
+				.quantity(BeerTestsUtil.BEER_QTT)
+				.build());
+
+		when(beerServiceMock.stock(items, StockBatchMode.BEST_EFFORT))
+				.thenReturn(Collections.singletonList(StockItemResultDto.of(items.get(0), StockItemStatus.APPLIED)));
+
+		mockMvc.perform(patch(URL + "/stock").param("mode", StockBatchMode.BEST_EFFORT.name())
+				.contentType(MediaType.APPLICATION_JSON)
+				.content(new ObjectMapper().writeValueAsString(items))
+				.accept(MediaType.APPLICATION_JSON))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$[0].id", is(BeerTestsUtil.BEER_ID.intValue())))
+				.andExpect(jsonPath("$[0].status", is(StockItemStatus.APPLIED.name())));
+	}
+
+	@Test
+	void stockBatchWithInvalidItemShouldReturnError() throws JsonProcessingException, Exception {
+		final List<StockItemDto> items = Collections.singletonList(StockItemDto.builder()
+				.id(BeerTestsUtil.BEER_ID)
+				.quantity(BeerTestsUtil.BEER_QTT)
+				.build());
+
+		when(beerServiceMock.stock(items, StockBatchMode.ALL_OR_NOTHING)).thenReturn(Collections
+				.singletonList(StockItemResultDto.of(items.get(0), new BeerNotFoundException(BeerTestsUtil.BEER_ID))));
+
+		mockMvc.perform(patch(URL + "/stock").contentType(MediaType.APPLICATION_JSON)
+				.content(new ObjectMapper().writeValueAsString(items))
+				.accept(MediaType.APPLICATION_JSON))
+				.andExpect(status().isBadRequest())
+				.andExpect(jsonPath("$[0].status", is(StockItemStatus.NOT_FOUND.name())))
+				.andExpect(jsonPath("$[0].message", is("Invalid id " + BeerTestsUtil.BEER_ID)));
+	}
+
+	@Test
+	void stockBatchWithConflictingItemShouldReturnConflict() throws JsonProcessingException, Exception {
+		final List<StockItemDto> items = Collections.singletonList(StockItemDto.builder()
+				.id(BeerTestsUtil.BEER_ID)
+				.quantity(BeerTestsUtil.BEER_QTT)
+				.build());
+
+		when(beerServiceMock.stock(items, StockBatchMode.ALL_OR_NOTHING)).thenReturn(Collections.singletonList(
+				StockItemResultDto.of(items.get(0), new BeerStockConflictException(BeerTestsUtil.BEER_ID, 3))));
+
+		mockMvc.perform(patch(URL + "/stock").contentType(MediaType.APPLICATION_JSON)
+				.content(new ObjectMapper().writeValueAsString(items))
+				.accept(MediaType.APPLICATION_JSON))
+				.andExpect(status().isConflict())
+				.andExpect(jsonPath("$[0].status", is(StockItemStatus.CONFLICT.name())));
+	}
+
+	@Test
+	void stockBatchWithModeNotSupportedShouldReturnBadRequest() throws JsonProcessingException, Exception {
+		final List<StockItemDto> items = Collections.singletonList(StockItemDto.builder()
+				.id(BeerTestsUtil.BEER_ID)
+				.quantity(BeerTestsUtil.BEER_QTT)
+				.build());
+
+		when(beerServiceMock.stock(items, StockBatchMode.ALL_OR_NOTHING))
+				.thenThrow(new StockBatchModeNotSupportedException(StockBatchMode.ALL_OR_NOTHING));
+
+		mockMvc.perform(patch(URL + "/stock").contentType(MediaType.APPLICATION_JSON)
+				.content(new ObjectMapper().writeValueAsString(items))
+				.accept(MediaType.APPLICATION_JSON))
+				.andExpect(status().isBadRequest());
+	}
+
+	@Test
+	void stockAsyncShouldReturnAcceptedCommand() throws JsonProcessingException, Exception {
+		final StockCommandDto command = StockCommandDto.builder()
+				.id("command")
+				.beerId(BeerTestsUtil.BEER_ID)
+				.quantity(BeerTestsUtil.BEER_QTT)
+				.status(StockItemStatus.PENDING)
+				.build();
+
+		when(stockCommandQueueMock.enqueue(BeerTestsUtil.BEER_ID, BeerTestsUtil.BEER_QTT)).thenReturn(command);
+
+		mockMvc.perform(patch(URL + "/" + BeerTestsUtil.BEER_ID + "/stock").param("async", "true")
+				.contentType(MediaType.APPLICATION_JSON)
+				.content(new ObjectMapper().writeValueAsString(QuantityDto.builder()
+						.quantity(BeerTestsUtil.BEER_QTT)
+						.build()))
+				.accept(MediaType.APPLICATION_JSON))
+				.andExpect(status().isAccepted())
+				.andExpect(header().string(HttpHeaders.LOCATION, "http://localhost" + URL + "/stock/commands/command"))
+				.andExpect(jsonPath("$.id", is("command")))
+				.andExpect(jsonPath("$.status", is(StockItemStatus.PENDING.name())));
+		verify(beerServiceMock, never()).stock(any(Long.class), any(Integer.class));
+	}
+
+	@Test
+	void stockAsyncWithFullQueueShouldReturnError() throws JsonProcessingException, Exception {
+		doThrow(StockQueueFullException.class).when(stockCommandQueueMock)
+				.enqueue(BeerTestsUtil.BEER_ID, BeerTestsUtil.BEER_QTT);
+
+		mockMvc.perform(patch(URL + "/" + BeerTestsUtil.BEER_ID + "/stock").param("async", "true")
+				.contentType(MediaType.APPLICATION_JSON)
+				.content(new ObjectMapper().writeValueAsString(QuantityDto.builder()
+						.quantity(BeerTestsUtil.BEER_QTT)
+						.build()))
+				.accept(MediaType.APPLICATION_JSON))
+				.andExpect(status().isTooManyRequests());
+	}
+
+	@Test
+	void stockCommandWithInvalidIdShouldReturnError() throws JsonProcessingException, Exception {
+		doThrow(StockCommandNotFoundException.class).when(stockCommandQueueMock)
+				.read("missing");
+
+		mockMvc.perform(get(URL + "/stock/commands/missing").accept(MediaType.APPLICATION_JSON))
+				.andExpect(status().isNotFound());
+	}
+
+	@Test
+	void searchWithFiltersShouldReturnPageAndFacets() throws JsonProcessingException, Exception {
+		final BeerFilterDto filter = BeerFilterDto.builder()
+				.type(BeerTestsUtil.BEER_TYPE)
+				.brand(BeerTestsUtil.BEER_BRAND)
+				.minQuantity(1)
+				.build();
+
+		when(beerServiceMock.search(filter, null, null)).thenReturn(BeerSearchDto.builder()
+				.content(Collections.singletonList(BeerTestsUtil.createBeerDto()))
+				.types(Collections.singletonMap(BeerTestsUtil.BEER_TYPE, 1L))
+				.brands(Collections.singletonMap(BeerTestsUtil.BEER_BRAND, 1L))
+				.build());
+
+		mockMvc.perform(get(URL + "/search").param("type", BeerTestsUtil.BEER_TYPE.name())
+				.param("brand", BeerTestsUtil.BEER_BRAND)
+				.param("minQuantity", "1")
+				.accept(MediaType.APPLICATION_JSON))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.content[0].name", is(BeerTestsUtil.BEER_NAME)))
+				.andExpect(jsonPath("$.types." + BeerTestsUtil.BEER_TYPE.name(), is(1)))
+				.andExpect(jsonPath("$.brands." + BeerTestsUtil.BEER_BRAND, is(1)));
+	}
 }
@@ -0,0 +1,109 @@
+package com.aduilio.beerstock.controller;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import com.aduilio.beerstock.dto.ReservationDto;
+import com.aduilio.beerstock.exception.BeerNegativeStockException;
+import com.aduilio.beerstock.exception.ReservationNotFoundException;
+import com.aduilio.beerstock.service.ReservationService;
+import com.aduilio.beerstock.utils.BeerTestsUtil;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+@ExtendWith(MockitoExtension.class)
+class ReservationControllerTest {
+
+	private static final String URL = "/api/v1/beers";
+
+	private MockMvc mockMvc;
+
+	@Mock
+	private ReservationService reservationServiceMock;
+
+	@InjectMocks
+	private ReservationController reservationController;
+
+	@BeforeEach
+	void setup() {
+		mockMvc = MockMvcBuilders.standaloneSetup(reservationController)
+				.build();
+	}
+
+	@Test
+	void reserveWithQuantityShouldReturnReservation() throws Exception {
+		when(reservationServiceMock.reserve(BeerTestsUtil.BEER_ID, BeerTestsUtil.BEER_QTT))
+				.thenReturn(ReservationDto.builder()
+						.id("reservation")
+						.beerId(BeerTestsUtil.BEER_ID)
+						.quantity(BeerTestsUtil.BEER_QTT)
+						.build());
+
+		mockMvc.perform(post(URL + "/" + BeerTestsUtil.BEER_ID + "/reservations")
+				.contentType(MediaType.APPLICATION_JSON)
+				.content(quantity(BeerTestsUtil.BEER_QTT))
+				.accept(MediaType.APPLICATION_JSON))
+				.andExpect(status().isCreated())
+				.andExpect(jsonPath("$.id", is("reservation")))
+				.andExpect(jsonPath("$.quantity", is(BeerTestsUtil.BEER_QTT)));
+	}
+
+	@Test
+	void reserveWithoutPositiveQuantityShouldReturnError() throws Exception {
+		mockMvc.perform(post(URL + "/" + BeerTestsUtil.BEER_ID + "/reservations")
+				.contentType(MediaType.APPLICATION_JSON)
+				.content(quantity(0))
+				.accept(MediaType.APPLICATION_JSON))
+				.andExpect(status().isBadRequest());
+	}
+
+	@Test
+	void reserveWithoutStockShouldReturnError() throws Exception {
+		doThrow(BeerNegativeStockException.class).when(reservationServiceMock)
+				.reserve(BeerTestsUtil.BEER_ID, BeerTestsUtil.BEER_QTT);
+
+		mockMvc.perform(post(URL + "/" + BeerTestsUtil.BEER_ID + "/reservations")
+				.contentType(MediaType.APPLICATION_JSON)
+				.content(quantity(BeerTestsUtil.BEER_QTT))
+				.accept(MediaType.APPLICATION_JSON))
+				.andExpect(status().isBadRequest());
+	}
+
+	@Test
+	void commitWithInvalidIdShouldReturnError() throws Exception {
+		doThrow(ReservationNotFoundException.class).when(reservationServiceMock)
+				.commit("missing");
+
+		mockMvc.perform(post(URL + "/reservations/missing/commit").accept(MediaType.APPLICATION_JSON))
+				.andExpect(status().isNotFound());
+	}
+
+	@Test
+	void releaseWithIdShouldReturnNoContent() throws Exception {
+		mockMvc.perform(delete(URL + "/reservations/reservation"))
+				.andExpect(status().isNoContent());
+
+		verify(reservationServiceMock).release("reservation");
+	}
+
+	private static String quantity(final int quantity) throws Exception {
+		return new ObjectMapper().writeValueAsString(ReservationDto.builder()
+				.quantity(quantity)
+				.build());
+	}
+}
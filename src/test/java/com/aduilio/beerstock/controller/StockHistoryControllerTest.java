@@ -0,0 +1,72 @@
+package com.aduilio.beerstock.controller;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.time.Instant;
+import java.util.Collections;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import com.aduilio.beerstock.dto.StockMovementDto;
+import com.aduilio.beerstock.exception.BeerNotFoundException;
+import com.aduilio.beerstock.stock.JournalStockEngine;
+import com.aduilio.beerstock.utils.BeerTestsUtil;
+
+@ExtendWith(MockitoExtension.class)
+class StockHistoryControllerTest {
+
+	private static final String URL = "/api/v1/beers";
+
+	private MockMvc mockMvc;
+
+	@Mock
+	private JournalStockEngine journalStockEngineMock;
+
+	@InjectMocks
+	private StockHistoryController stockHistoryController;
+
+	@BeforeEach
+	void setup() {
+		mockMvc = MockMvcBuilders.standaloneSetup(stockHistoryController)
+				.build();
+	}
+
+	@Test
+	void movementsShouldReturnThePage() throws Exception {
+		when(journalStockEngineMock.history(BeerTestsUtil.BEER_ID, 5, 10))
+				.thenReturn(Collections.singletonList(StockMovementDto.builder()
+						.sequence(6)
+						.delta(-2)
+						.createdAt(Instant.now())
+						.build()));
+
+		mockMvc.perform(get(URL + "/" + BeerTestsUtil.BEER_ID + "/stock/movements?after=5&size=10")
+				.accept(MediaType.APPLICATION_JSON))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$[0].sequence", is(6)))
+				.andExpect(jsonPath("$[0].delta", is(-2)));
+	}
+
+	@Test
+	void movementsWithInvalidIdShouldReturnNotFound() throws Exception {
+		doThrow(BeerNotFoundException.class).when(journalStockEngineMock)
+				.history(BeerTestsUtil.BEER_ID, 0, null);
+
+		mockMvc.perform(get(URL + "/" + BeerTestsUtil.BEER_ID + "/stock/movements")
+				.accept(MediaType.APPLICATION_JSON))
+				.andExpect(status().isNotFound());
+	}
+}
@@ -0,0 +1,219 @@
+package com.aduilio.beerstock.feed;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.aduilio.beerstock.config.BeerstockProperties;
+import com.aduilio.beerstock.enums.BeerChangeType;
+import com.aduilio.beerstock.event.BeerChangedEvent;
+import com.aduilio.beerstock.repository.BeerRepository;
+import com.aduilio.beerstock.utils.BeerTestsUtil;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+@ExtendWith(MockitoExtension.class)
+class BeerChangeFeedTest {
+
+	@Mock
+	private BeerRepository beerRepositoryMock;
+
+	private BeerChangeFeed beerChangeFeed;
+
+	@BeforeEach
+	void setup() {
+		final BeerstockProperties beerstockProperties = new BeerstockProperties();
+		beerstockProperties.getChanges()
+				.setBufferSize(4);
+		beerstockProperties.getChanges()
+				.setSenderThreads(1);
+		beerstockProperties.getChanges()
+				.setSendTimeout(Duration.ofMillis(100));
+		// the worker is not started, the changes are published by the tests
+		beerChangeFeed = new BeerChangeFeed(beerRepositoryMock, new ObjectMapper(), beerstockProperties);
+	}
+
+	@AfterEach
+	void cleanup() throws Exception {
+		beerChangeFeed.stop();
+	}
+
+	@Test
+	void publishChangedShouldMergeTheChangesOfABeer() throws Exception {
+		final RecordingEmitter emitter = new RecordingEmitter();
+		beerChangeFeed.subscribe(null, emitter);
+		when(beerRepositoryMock.findDtoByIdIn(Collections.singletonList(BeerTestsUtil.BEER_ID)))
+				.thenReturn(Collections.singletonList(BeerTestsUtil.createBeerDto()));
+
+		beerChangeFeed.onBeerChanged(new BeerChangedEvent(BeerTestsUtil.BEER_ID, null, BeerChangeType.CREATED));
+		beerChangeFeed.onBeerChanged(new BeerChangedEvent(BeerTestsUtil.BEER_ID, null, BeerChangeType.STOCK));
+
+		assertThat(beerChangeFeed.publishChanged()).isEqualTo(1);
+		assertThat(emitter.next()).contains("event:CREATED")
+				.contains("\"name\":\"" + BeerTestsUtil.BEER_NAME + "\"");
+	}
+
+	@Test
+	void subscribeWithLastEventIdShouldResumeAfterIt() throws Exception {
+		final RecordingEmitter first = new RecordingEmitter();
+		beerChangeFeed.subscribe(null, first);
+		publishDeleted(1L);
+		final String lastEventId = eventIdOf(first.next());
+		publishDeleted(2L);
+
+		final RecordingEmitter resumed = new RecordingEmitter();
+		beerChangeFeed.subscribe(lastEventId, resumed);
+
+		assertThat(resumed.next()).contains("event:DELETED")
+				.contains("\"id\":2");
+	}
+
+	@Test
+	void subscribeWithUnknownLastEventIdShouldReset() throws Exception {
+		final RecordingEmitter emitter = new RecordingEmitter();
+		beerChangeFeed.subscribe("previous-run-1", emitter);
+
+		assertThat(emitter.next()).contains("event:" + BeerChangeFeed.RESET);
+	}
+
+	@Test
+	void publishChangedShouldDisconnectTheSubscribersBehindTheBuffer() throws Exception {
+		final RecordingEmitter emitter = new RecordingEmitter();
+		beerChangeFeed.subscribe(null, emitter);
+		// waits until the subscriber is idle
+		Thread.sleep(100);
+
+		for (long id = 1; id <= 5; id++) {
+			beerChangeFeed.onBeerChanged(new BeerChangedEvent(id, null, BeerChangeType.DELETED));
+		}
+		beerChangeFeed.publishChanged();
+
+		assertThat(emitter.completed.poll(5, TimeUnit.SECONDS)).isTrue();
+		assertThat(emitter.events).isEmpty();
+		verify(beerRepositoryMock).findDtoByIdIn(Arrays.asList(1L, 2L, 3L, 4L, 5L));
+	}
+
+	@Test
+	void shedStalledShouldDisconnectTheBlockedSubscriberOnly() throws Exception {
+		final BlockingEmitter blocked = new BlockingEmitter();
+		final RecordingEmitter emitter = new RecordingEmitter();
+		beerChangeFeed.subscribe(null, blocked);
+		publishDeleted(1L);
+		// the only sender thread is blocked
+		assertThat(blocked.entered.await(5, TimeUnit.SECONDS)).isTrue();
+		beerChangeFeed.subscribe(null, emitter);
+		Thread.sleep(200);
+
+		try {
+			assertThat(beerChangeFeed.shedStalled()).isOne();
+			publishDeleted(2L);
+			publishDeleted(3L);
+
+			assertThat(emitter.next()).contains("\"id\":2");
+			assertThat(emitter.next()).contains("\"id\":3");
+			assertThat(blocked.completed).isEmpty();
+		} finally {
+			blocked.release.countDown();
+		}
+		assertThat(blocked.completed.poll(5, TimeUnit.SECONDS)).isTrue();
+	}
+
+	private void publishDeleted(final Long id) {
+		when(beerRepositoryMock.findDtoByIdIn(anyCollection())).thenReturn(Collections.emptyList());
+		beerChangeFeed.onBeerChanged(new BeerChangedEvent(id, null, BeerChangeType.DELETED));
+		beerChangeFeed.publishChanged();
+	}
+
+	private static String eventIdOf(final String event) {
+		return event.substring(event.indexOf("id:") + 3, event.indexOf('\n'));
+	}
+
+	/**
+	 * Blocks the sends of the changes until released, as a connection that does
+	 * not take more bytes.
+	 */
+	private static final class BlockingEmitter extends SseEmitter {
+
+		private final CountDownLatch entered = new CountDownLatch(1);
+
+		private final CountDownLatch release = new CountDownLatch(1);
+
+		private final BlockingQueue<Boolean> completed = new LinkedBlockingQueue<>();
+
+		@Override
+		public void send(final SseEventBuilder builder) throws IOException {
+			final boolean comment = builder.build()
+					.stream()
+					.map(data -> String.valueOf(data.getData()))
+					.collect(Collectors.joining())
+					.startsWith(":");
+			if (comment) {
+				return;
+			}
+			entered.countDown();
+			try {
+				release.await();
+			} catch (final InterruptedException e) {
+				Thread.currentThread()
+						.interrupt();
+				throw new IOException(e);
+			}
+		}
+
+		@Override
+		public synchronized void complete() {
+			completed.add(true);
+		}
+	}
+
+	/**
+	 * Keeps the events sent, in the format of the stream.
+	 */
+	private static final class RecordingEmitter extends SseEmitter {
+
+		private final BlockingQueue<String> events = new LinkedBlockingQueue<>();
+
+		private final BlockingQueue<Boolean> completed = new LinkedBlockingQueue<>();
+
+		@Override
+		public void send(final SseEventBuilder builder) {
+			final String event = builder.build()
+					.stream()
+					.map(data -> String.valueOf(data.getData()))
+					.collect(Collectors.joining());
+			// only the changes
+			if (!event.startsWith(":")) {
+				events.add(event);
+			}
+		}
+
+		@Override
+		public synchronized void complete() {
+			completed.add(true);
+		}
+
+		private String next() throws InterruptedException {
+			final String event = events.poll(5, TimeUnit.SECONDS);
+			assertThat(event).isNotNull();
+			return event;
+		}
+	}
+}
@@ -0,0 +1,52 @@
+package com.aduilio.beerstock.feed;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+
+import com.aduilio.beerstock.dto.BeerChangeDto;
+import com.aduilio.beerstock.enums.BeerChangeType;
+
+class ChangeRingTest {
+
+	private final ChangeRing ring = new ChangeRing(3);
+
+	@Test
+	void readAfterShouldReturnTheChangesInOrder() {
+		append(3);
+
+		assertThat(sequences(ring.readAfter(0, 10))).containsExactly(1L, 2L, 3L);
+		assertThat(sequences(ring.readAfter(1, 1))).containsExactly(2L);
+		assertThat(ring.readAfter(3, 10)).isEmpty();
+	}
+
+	@Test
+	void readAfterOverwrittenChangesShouldReturnNull() {
+		// the capacity is rounded up to four
+		append(6);
+
+		assertThat(ring.readAfter(1, 10)).isNull();
+		assertThat(sequences(ring.readAfter(2, 10))).containsExactly(3L, 4L, 5L, 6L);
+		assertThat(ring.contains(1)).isFalse();
+		assertThat(ring.contains(2)).isTrue();
+		assertThat(ring.contains(7)).isFalse();
+	}
+
+	private void append(final int changes) {
+		for (long id = 1; id <= changes; id++) {
+			ring.append(BeerChangeDto.builder()
+					.id(id)
+					.type(BeerChangeType.STOCK)
+					.build(), "{}");
+		}
+	}
+
+	private static List<Long> sequences(final List<ChangeRing.Entry> entries) {
+		return entries.stream()
+				.map(ChangeRing.Entry::getSequence)
+				.collect(Collectors.toList());
+	}
+}
@@ -0,0 +1,133 @@
+package com.aduilio.beerstock.index;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.aduilio.beerstock.config.BeerstockProperties;
+import com.aduilio.beerstock.repository.BeerRepository;
+import com.aduilio.beerstock.utils.BeerTestsUtil;
+
+@ExtendWith(MockitoExtension.class)
+class BeerNameIndexTest {
+
+	@Mock
+	private BeerRepository beerRepositoryMock;
+
+	private BeerNameIndex beerNameIndex;
+
+	@BeforeEach
+	void setup() {
+		when(beerRepositoryMock.count()).thenReturn(1L);
+		when(beerRepositoryMock.streamNames()).thenAnswer(invocation -> Stream.of(BeerTestsUtil.BEER_NAME));
+
+		final BeerstockProperties properties = new BeerstockProperties();
+		properties.getNameIndex()
+				.setEnabled(true);
+		beerNameIndex = new BeerNameIndex(beerRepositoryMock,
+				new TransactionTemplate(mock(PlatformTransactionManager.class)), properties);
+		beerNameIndex.rebuild();
+	}
+
+	@Test
+	void mightContainWithNameInDatabaseShouldReturnTrue() {
+		assertThat(beerNameIndex.mightContain(BeerTestsUtil.BEER_NAME)).isTrue();
+		assertThat(beerNameIndex.mightContain("other")).isFalse();
+	}
+
+	@Test
+	void mightContainByDefaultShouldLeaveEveryNameToTheDatabase() {
+		final BeerNameIndex disabled = new BeerNameIndex(beerRepositoryMock,
+				new TransactionTemplate(mock(PlatformTransactionManager.class)), new BeerstockProperties());
+		disabled.rebuild();
+
+		assertThat(disabled.mightContain("other")).isTrue();
+		verify(beerRepositoryMock, times(1)).count();
+	}
+
+	@Test
+	void mightContainWithNameAddedShouldReturnTrue() {
+		beerNameIndex.add("other");
+
+		assertThat(beerNameIndex.mightContain("other")).isTrue();
+	}
+
+	@Test
+	void rebuildWithNamePendingShouldKeepIt() {
+		beerNameIndex.add("other");
+
+		beerNameIndex.rebuild();
+
+		assertThat(beerNameIndex.mightContain("other")).isTrue();
+	}
+
+	@Test
+	void rebuildWithNameReleasedShouldDropIt() {
+		beerNameIndex.add("other");
+		beerNameIndex.release("other");
+
+		beerNameIndex.rebuild();
+
+		assertThat(beerNameIndex.mightContain("other")).isFalse();
+	}
+
+	@Test
+	void rebuildWithNameRolledBackShouldDropIt() {
+		TransactionSynchronizationManager.initSynchronization();
+		try {
+			beerNameIndex.add("other");
+
+			// pending until the transaction completes
+			beerNameIndex.rebuild();
+			assertThat(beerNameIndex.mightContain("other")).isTrue();
+
+			TransactionSynchronizationManager.getSynchronizations()
+					.forEach(synchronization -> synchronization
+							.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+		} finally {
+			TransactionSynchronizationManager.clearSynchronization();
+		}
+
+		beerNameIndex.rebuild();
+
+		assertThat(beerNameIndex.mightContain("other")).isFalse();
+	}
+
+	@Test
+	void verifyWithFalsePositivesShouldRebuild() {
+		for (int i = 0; i < BeerNameIndex.MIN_SAMPLES; i++) {
+			beerNameIndex.mightContain("other" + i);
+			beerNameIndex.falsePositive();
+		}
+		assertThat(beerNameIndex.getFalsePositiveRate()).isGreaterThan(0.4);
+
+		beerNameIndex.verify();
+
+		assertThat(beerNameIndex.getRebuilds()).isOne();
+		assertThat(beerNameIndex.getFalsePositiveRate()).isZero();
+		verify(beerRepositoryMock, times(2)).streamNames();
+	}
+
+	@Test
+	void verifyWithFewSamplesShouldNotRebuild() {
+		beerNameIndex.falsePositive();
+
+		beerNameIndex.verify();
+
+		assertThat(beerNameIndex.getRebuilds()).isZero();
+	}
+}
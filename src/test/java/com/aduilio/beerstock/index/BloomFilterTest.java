@@ -0,0 +1,56 @@
+package com.aduilio.beerstock.index;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+
+class BloomFilterTest {
+
+	private static final int INSERTIONS = 10_000;
+
+	private static final double FALSE_POSITIVE_RATE = 0.01;
+
+	@Test
+	void mightContainWithNamesAddedShouldReturnTrue() {
+		final BloomFilter filter = filled();
+
+		for (int i = 0; i < INSERTIONS; i++) {
+			assertThat(filter.mightContain("beer" + i)).isTrue();
+		}
+	}
+
+	@Test
+	void mightContainWithNamesNotAddedShouldKeepTheRate() {
+		final BloomFilter filter = filled();
+
+		int falsePositives = 0;
+		for (int i = 0; i < INSERTIONS; i++) {
+			if (filter.mightContain("other" + i)) {
+				falsePositives++;
+			}
+		}
+
+		assertThat((double) falsePositives / INSERTIONS).isLessThan(FALSE_POSITIVE_RATE * 2);
+		assertThat(filter.expectedFalsePositiveRate()).isLessThan(FALSE_POSITIVE_RATE * 2);
+	}
+
+	@Test
+	void expectedFalsePositiveRateWithTooManyNamesShouldGrow() {
+		final BloomFilter filter = filled();
+		final double expected = filter.expectedFalsePositiveRate();
+
+		for (int i = 0; i < INSERTIONS * 2; i++) {
+			filter.put("more" + i);
+		}
+
+		assertThat(filter.expectedFalsePositiveRate()).isGreaterThan(expected * 10);
+	}
+
+	private static BloomFilter filled() {
+		final BloomFilter filter = new BloomFilter(INSERTIONS, FALSE_POSITIVE_RATE);
+		for (int i = 0; i < INSERTIONS; i++) {
+			filter.put("beer" + i);
+		}
+		return filter;
+	}
+}
@@ -0,0 +1,333 @@
+package com.aduilio.beerstock.load;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+import org.apache.http.impl.client.HttpClientBuilder;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.boot.web.server.LocalServerPort;
+import org.springframework.context.ApplicationContext;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.web.client.DefaultResponseErrorHandler;
+import org.springframework.web.client.RestTemplate;
+
+import com.aduilio.beerstock.dto.BeerDto;
+import com.aduilio.beerstock.dto.BulkItemResultDto;
+import com.aduilio.beerstock.dto.QuantityDto;
+import com.aduilio.beerstock.entity.Beer;
+import com.aduilio.beerstock.enums.BeerType;
+import com.aduilio.beerstock.repository.BeerRepository;
+import com.aduilio.beerstock.stock.LedgerStockEngine;
+
+/**
+ * Drives the HTTP API of the application, started on a random port, with a mix
+ * of reads and writes from concurrent clients. Most of the requests go to a few
+ * hot beers, the way the stock of a few popular products is disputed. The
+ * throughput and the latency percentiles of each operation are printed, and
+ * the stock of each beer must match the changes accepted by the API.
+ * <p>
+ * It is excluded from the regular build. Run it with
+ * {@code mvn -Pload-test test -Dloadtest.threads=32 -Dbeerstock.stock.engine=ledger}
+ * and the properties below:
+ * <ul>
+ * <li>{@code loadtest.threads}: concurrent clients, 16 by default</li>
+ * <li>{@code loadtest.duration}: seconds of load, 10 by default</li>
+ * <li>{@code loadtest.read-ratio}: share of reads, 0.9 by default</li>
+ * <li>{@code loadtest.hot-ratio}: share of the requests to the hot beers, 0.8
+ * by default</li>
+ * <li>{@code loadtest.hot-skus}: number of hot beers, 5 by default</li>
+ * <li>{@code loadtest.catalog-size}: beers created before the load, 200 by
+ * default</li>
+ * </ul>
+ */
+@Tag("load")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class BeerApiLoadTest {
+
+	private static final String BEERS_URL = "/api/v1/beers";
+
+	private static final int MAX = 1_000_000;
+
+	private static final int INITIAL_QUANTITY = MAX / 2;
+
+	private static final double LIST_RATIO = 0.2;
+
+	private static final double CREATE_RATIO = 0.05;
+
+	private final int threads = Integer.getInteger("loadtest.threads", 16);
+
+	private final int duration = Integer.getInteger("loadtest.duration", 10);
+
+	private final double readRatio = Double.parseDouble(System.getProperty("loadtest.read-ratio", "0.9"));
+
+	private final double hotRatio = Double.parseDouble(System.getProperty("loadtest.hot-ratio", "0.8"));
+
+	private final int hotSkus = Integer.getInteger("loadtest.hot-skus", 5);
+
+	private final int catalogSize = Integer.getInteger("loadtest.catalog-size", 200);
+
+	@LocalServerPort
+	private int port;
+
+	@Autowired
+	private ApplicationContext context;
+
+	@Autowired
+	private BeerRepository beerRepository;
+
+	private final Map<Long, AtomicLong> applied = new ConcurrentHashMap<>();
+
+	private final AtomicInteger created = new AtomicInteger();
+
+	private final AtomicInteger errors = new AtomicInteger();
+
+	@AfterEach
+	void cleanup() {
+		beerRepository.deleteAll();
+	}
+
+	@Test
+	void stockShouldMatchTheChangesAcceptedUnderLoad() throws Exception {
+		final RestTemplate restTemplate = restTemplate();
+		final List<BeerDto> catalog = seed(restTemplate);
+
+		final Worker[] workers = new Worker[threads];
+		final ExecutorService executor = Executors.newFixedThreadPool(threads);
+		final CountDownLatch start = new CountDownLatch(1);
+		final List<Future<?>> futures = new ArrayList<>();
+		for (int i = 0; i < threads; i++) {
+			workers[i] = new Worker(i, restTemplate, catalog, start);
+			futures.add(executor.submit(workers[i]));
+		}
+
+		final long begin = System.nanoTime();
+		start.countDown();
+		try {
+			for (final Future<?> future : futures) {
+				future.get();
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+		final double seconds = (System.nanoTime() - begin) / 1e9;
+
+		report(workers, seconds);
+		assertThat(errors.get()).isZero();
+		assertStock(catalog);
+	}
+
+	private RestTemplate restTemplate() {
+		// the default client keeps only two connections per host
+		final HttpComponentsClientHttpRequestFactory requestFactory = new HttpComponentsClientHttpRequestFactory(
+				HttpClientBuilder.create()
+						.setMaxConnPerRoute(threads)
+						.setMaxConnTotal(threads)
+						.build());
+		return new RestTemplateBuilder().rootUri("http://localhost:" + port)
+				.requestFactory(() -> requestFactory)
+				.errorHandler(new DefaultResponseErrorHandler() {
+
+					@Override
+					public boolean hasError(final ClientHttpResponse response) {
+						// the rejected changes of stock are expected
+						return false;
+					}
+				})
+				.build();
+	}
+
+	private List<BeerDto> seed(final RestTemplate restTemplate) {
+		final List<BeerDto> beers = new ArrayList<>(catalogSize);
+		for (int i = 0; i < catalogSize; i++) {
+			beers.add(beer("load-" + i));
+		}
+
+		final List<BulkItemResultDto> results = restTemplate.exchange(BEERS_URL + "/bulk", HttpMethod.POST,
+				new HttpEntity<>(beers), new ParameterizedTypeReference<List<BulkItemResultDto>>() {
+				})
+				.getBody();
+		assertThat(results).hasSize(catalogSize);
+		for (int i = 0; i < catalogSize; i++) {
+			beers.get(i)
+					.setId(results.get(i)
+							.getId());
+			applied.put(results.get(i)
+					.getId(), new AtomicLong());
+		}
+		return beers;
+	}
+
+	private void report(final Worker[] workers, final double seconds) {
+		final Map<String, LatencyRecorder> merged = new HashMap<>();
+		for (final Worker worker : workers) {
+			worker.recorders.forEach((name, recorder) -> merged.computeIfAbsent(name, key -> new LatencyRecorder())
+					.merge(recorder));
+		}
+
+		final LatencyRecorder total = new LatencyRecorder();
+		merged.values()
+				.forEach(total::merge);
+
+		System.out.printf("Load test: %d thread(s), %.1f s, read ratio %.2f, hot ratio %.2f over %d of %d beer(s)%n",
+				threads, seconds, readRatio, hotRatio, hotSkus, catalogSize);
+		for (final String name : Arrays.asList("read", "list", "stock", "create")) {
+			if (merged.containsKey(name)) {
+				System.out.println(merged.get(name)
+						.report(name, seconds));
+			}
+		}
+		System.out.println(total.report("total", seconds));
+	}
+
+	private void assertStock(final List<BeerDto> catalog) {
+		// the ledger engine writes the stock behind the requests
+		context.getBeanProvider(LedgerStockEngine.class)
+				.ifAvailable(LedgerStockEngine::flush);
+
+		final Map<Long, Integer> quantities = beerRepository.findAllById(applied.keySet())
+				.stream()
+				.collect(Collectors.toMap(Beer::getId, Beer::getQuantity));
+		for (final BeerDto beer : catalog) {
+			assertThat(quantities.get(beer.getId())).as(beer.getName())
+					.isEqualTo(INITIAL_QUANTITY + applied.get(beer.getId())
+							.intValue())
+					.isBetween(0, MAX);
+		}
+		assertThat(beerRepository.count()).isEqualTo(catalogSize + created.get());
+	}
+
+	private static BeerDto beer(final String name) {
+		return BeerDto.builder()
+				.name(name)
+				.brand("load")
+				.max(MAX)
+				.quantity(INITIAL_QUANTITY)
+				.type(BeerType.LAGER)
+				.build();
+	}
+
+	/**
+	 * Sends requests until the duration ends, recording the latencies of each
+	 * operation.
+	 */
+	private final class Worker implements Runnable {
+
+		private final int index;
+
+		private final RestTemplate restTemplate;
+
+		private final List<BeerDto> catalog;
+
+		private final Map<String, LatencyRecorder> recorders = new HashMap<>();
+
+		private final CountDownLatch start;
+
+		private int creations;
+
+		Worker(final int index, final RestTemplate restTemplate, final List<BeerDto> catalog,
+				final CountDownLatch start) {
+			this.index = index;
+			this.restTemplate = restTemplate;
+			this.catalog = catalog;
+			this.start = start;
+		}
+
+		@Override
+		public void run() {
+			try {
+				start.await();
+			} catch (final InterruptedException e) {
+				Thread.currentThread()
+						.interrupt();
+				return;
+			}
+
+			final ThreadLocalRandom random = ThreadLocalRandom.current();
+			final long end = System.nanoTime() + TimeUnit.SECONDS.toNanos(duration);
+			while (System.nanoTime() < end) {
+				final BeerDto beer = pick(random);
+				final long begin = System.nanoTime();
+				final String operation;
+				final boolean ok;
+				if (random.nextDouble() < readRatio) {
+					if (random.nextDouble() < LIST_RATIO) {
+						operation = "list";
+						ok = restTemplate.getForEntity(BEERS_URL + "?size=20", String.class)
+								.getStatusCode() == HttpStatus.OK;
+					} else {
+						operation = "read";
+						ok = restTemplate.getForEntity(BEERS_URL + "/{name}", String.class, beer.getName())
+								.getStatusCode() == HttpStatus.OK;
+					}
+				} else if (random.nextDouble() < CREATE_RATIO) {
+					operation = "create";
+					ok = create();
+				} else {
+					operation = "stock";
+					ok = stock(beer, random.nextBoolean() ? 1 : -1);
+				}
+				recorders.computeIfAbsent(operation, key -> new LatencyRecorder())
+						.record(System.nanoTime() - begin);
+				if (!ok) {
+					errors.incrementAndGet();
+				}
+			}
+		}
+
+		private BeerDto pick(final ThreadLocalRandom random) {
+			if (random.nextDouble() < hotRatio) {
+				return catalog.get(random.nextInt(hotSkus));
+			}
+			return catalog.get(hotSkus + random.nextInt(catalogSize - hotSkus));
+		}
+
+		private boolean create() {
+			final ResponseEntity<String> response = restTemplate.postForEntity(BEERS_URL,
+					beer("load-new-" + index + "-" + creations++), String.class);
+			if (response.getStatusCode() != HttpStatus.CREATED) {
+				return false;
+			}
+			created.incrementAndGet();
+			return true;
+		}
+
+		private boolean stock(final BeerDto beer, final int quantity) {
+			final HttpStatus status = restTemplate.exchange(BEERS_URL + "/{id}/stock", HttpMethod.PATCH,
+					new HttpEntity<>(new QuantityDto(quantity)), String.class, beer.getId())
+					.getStatusCode();
+			if (status == HttpStatus.OK) {
+				applied.get(beer.getId())
+						.addAndGet(quantity);
+				return true;
+			}
+			// the limits are far from the initial quantity, nothing should be rejected
+			return false;
+		}
+	}
+}
@@ -0,0 +1,57 @@
+package com.aduilio.beerstock.load;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Records the latencies of one operation from a single thread. The recorders
+ * of all the threads are merged before the report, so the percentiles are
+ * exact.
+ */
+final class LatencyRecorder {
+
+	private long[] latencies = new long[1024];
+
+	private int count;
+
+	void record(final long nanos) {
+		if (count == latencies.length) {
+			latencies = Arrays.copyOf(latencies, count * 2);
+		}
+		latencies[count++] = nanos;
+	}
+
+	void merge(final LatencyRecorder other) {
+		for (int i = 0; i < other.count; i++) {
+			record(other.latencies[i]);
+		}
+	}
+
+	int getCount() {
+		return count;
+	}
+
+	/**
+	 * Formats the count, the throughput and the percentiles in milliseconds.
+	 *
+	 * @param name    of the operation
+	 * @param seconds of the test
+	 *
+	 * @return one line of the report
+	 */
+	String report(final String name, final double seconds) {
+		final long[] sorted = Arrays.copyOf(latencies, count);
+		Arrays.sort(sorted);
+		return String.format("%-8s %8d req %10.1f req/s  p50 %8.3f  p99 %8.3f  p999 %8.3f  max %8.3f ms", name, count,
+				count / seconds, millis(sorted, 0.5), millis(sorted, 0.99), millis(sorted, 0.999),
+				millis(sorted, 1));
+	}
+
+	private static double millis(final long[] sorted, final double percentile) {
+		if (sorted.length == 0) {
+			return 0;
+		}
+		final int index = (int) Math.ceil(percentile * sorted.length) - 1;
+		return (double) sorted[Math.max(index, 0)] / TimeUnit.MILLISECONDS.toNanos(1);
+	}
+}
@@ -0,0 +1,41 @@
+package com.aduilio.beerstock.metrics;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import com.aduilio.beerstock.exception.BeerNegativeStockException;
+import com.aduilio.beerstock.exception.BeerNotFoundException;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class BeerExceptionMetricsTest {
+
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+	private final BeerExceptionMetrics beerExceptionMetrics = new BeerExceptionMetrics(meterRegistry);
+
+	@Test
+	void resolveExceptionShouldCountByClassAndNotResolve() {
+		assertThat(resolve(new BeerNotFoundException(1L))).isTrue();
+		assertThat(resolve(new BeerNotFoundException(2L))).isTrue();
+		assertThat(resolve(new BeerNegativeStockException(1))).isTrue();
+
+		assertThat(count("BeerNotFoundException")).isEqualTo(2);
+		assertThat(count("BeerNegativeStockException")).isEqualTo(1);
+	}
+
+	private boolean resolve(final Exception exception) {
+		return beerExceptionMetrics.resolveException(new MockHttpServletRequest(), new MockHttpServletResponse(),
+				null, exception) == null;
+	}
+
+	private double count(final String exception) {
+		return meterRegistry.get(BeerExceptionMetrics.EXCEPTIONS)
+				.tag("exception", exception)
+				.counter()
+				.count();
+	}
+}
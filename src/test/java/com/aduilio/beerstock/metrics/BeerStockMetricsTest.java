@@ -0,0 +1,56 @@
+package com.aduilio.beerstock.metrics;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import com.aduilio.beerstock.config.BeerstockProperties;
+import com.aduilio.beerstock.repository.BeerRepository;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@ExtendWith(MockitoExtension.class)
+class BeerStockMetricsTest {
+
+	@Mock
+	private BeerRepository beerRepositoryMock;
+
+	private BeerStockMetrics beerStockMetrics;
+
+	private final MeterRegistry registry = new SimpleMeterRegistry();
+
+	@BeforeEach
+	void setup() {
+		beerStockMetrics = new BeerStockMetrics(beerRepositoryMock, new BeerstockProperties());
+		beerStockMetrics.bindTo(registry);
+	}
+
+	@Test
+	void scrapeShouldReadTheValuesOfTheLastRefresh() {
+		when(beerRepositoryMock.sumQuantity()).thenReturn(7L);
+		when(beerRepositoryMock.countLowStock(0.1)).thenReturn(2L);
+
+		beerStockMetrics.refresh();
+
+		for (int i = 0; i < 3; i++) {
+			assertThat(gauge("beerstock.stock.total")).isEqualTo(7);
+			assertThat(gauge("beerstock.stock.low")).isEqualTo(2);
+		}
+		verify(beerRepositoryMock, times(1)).sumQuantity();
+		verify(beerRepositoryMock, times(1)).countLowStock(0.1);
+	}
+
+	private double gauge(final String name) {
+		return registry.get(name)
+				.gauge()
+				.value();
+	}
+}
@@ -0,0 +1,98 @@
+package com.aduilio.beerstock.metrics;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.util.UUID;
+
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.metrics.AutoConfigureMetrics;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import com.aduilio.beerstock.dto.BeerDto;
+import com.aduilio.beerstock.dto.QuantityDto;
+import com.aduilio.beerstock.repository.BeerRepository;
+import com.aduilio.beerstock.utils.BeerTestsUtil;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@AutoConfigureMetrics
+class PrometheusEndpointTest {
+
+	private static final String URL = "/api/v1/beers";
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private BeerRepository beerRepository;
+
+	@Autowired
+	private BeerStockMetrics beerStockMetrics;
+
+	private final ObjectMapper objectMapper = new ObjectMapper();
+
+	private BeerDto beerDto;
+
+	@BeforeEach
+	void setup() throws Exception {
+		beerDto = BeerTestsUtil.createBeerDto();
+		beerDto.setId(null);
+		beerDto.setName(BeerTestsUtil.BEER_NAME + UUID.randomUUID());
+
+		final String response = mockMvc.perform(post(URL).contentType(MediaType.APPLICATION_JSON)
+				.content(objectMapper.writeValueAsString(beerDto)))
+				.andExpect(status().isCreated())
+				.andReturn()
+				.getResponse()
+				.getContentAsString();
+		beerDto.setId(objectMapper.readValue(response, BeerDto.class)
+				.getId());
+	}
+
+	@AfterEach
+	void cleanup() {
+		beerRepository.deleteAll();
+	}
+
+	@Test
+	void prometheusShouldPublishTheMetricsOfTheApi() throws Exception {
+		mockMvc.perform(get(URL + "/" + beerDto.getName()))
+				.andExpect(status().isOk());
+		mockMvc.perform(get(URL + "/missing"))
+				.andExpect(status().isNotFound());
+		mockMvc.perform(patch(URL + "/" + beerDto.getId() + "/stock").contentType(MediaType.APPLICATION_JSON)
+				.content(objectMapper.writeValueAsString(new QuantityDto(beerDto.getMax() + 1))))
+				.andExpect(status().isBadRequest());
+		// the statistics of a query are published once it loads an entity
+		beerRepository.findAll();
+		beerStockMetrics.refresh();
+
+		mockMvc.perform(get("/actuator/prometheus"))
+				.andExpect(status().isOk())
+				.andExpect(content().string(Matchers.allOf(
+						Matchers.containsString("http_server_requests_seconds_bucket{"),
+						Matchers.containsString("uri=\"/api/v1/beers/{name}\""),
+						Matchers.containsString("quantile=\"0.99\""),
+						Matchers.containsString("beerstock_exceptions_total{exception=\"BeerNotFoundException\",}"),
+						Matchers.containsString("beerstock_exceptions_total{exception=\"BeerExceedStockException\",}"),
+						Matchers.containsString("beerstock_stock_total_beers " + beerDto.getQuantity()),
+						Matchers.containsString("beerstock_stock_low{ratio=\"0.1\",} 0.0"),
+						Matchers.containsString("beerstock_name_index_false_positive_rate"),
+						Matchers.containsString("cache_gets_total{cache=\"beer.ids\""),
+						Matchers.containsString("hibernate_statements_total"),
+						Matchers.containsString("hibernate_query_execution_total_seconds_count{"),
+						Matchers.containsString("hikaricp_connections_active"))));
+	}
+}
@@ -0,0 +1,147 @@
+package com.aduilio.beerstock.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import javax.persistence.EntityManager;
+import javax.validation.Validation;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+
+import com.aduilio.beerstock.dto.BeerDto;
+import com.aduilio.beerstock.dto.BulkItemResultDto;
+import com.aduilio.beerstock.entity.Beer;
+import com.aduilio.beerstock.enums.BulkItemStatus;
+import com.aduilio.beerstock.index.BeerNameIndex;
+import com.aduilio.beerstock.repository.BeerRepository;
+import com.aduilio.beerstock.utils.BeerTestsUtil;
+
+@ExtendWith(MockitoExtension.class)
+class BeerBulkServiceTest {
+
+	@Mock
+	private BeerRepository beerRepositoryMock;
+
+	@Mock
+	private EntityManager entityManagerMock;
+
+	@Mock
+	private BeerNameIndex beerNameIndexMock;
+
+	@Mock
+	private ApplicationEventPublisher eventPublisherMock;
+
+	private BeerBulkService beerBulkService;
+
+	@BeforeEach
+	void setup() {
+		beerBulkService = new BeerBulkService(beerRepositoryMock, entityManagerMock,
+				Validation.buildDefaultValidatorFactory()
+						.getValidator(),
+				beerNameIndexMock, eventPublisherMock);
+		lenient().when(beerNameIndexMock.mightContain(anyString()))
+				.thenReturn(true);
+	}
+
+	@Test
+	void createWithBeersShouldReturnIds() {
+		final BeerDto first = beerDto("first");
+		final BeerDto second = beerDto("second");
+
+		when(beerRepositoryMock.findNamesIn(Arrays.asList("first", "second"))).thenReturn(Collections.emptyList());
+		when(beerRepositoryMock.saveAll(anyList())).thenAnswer(invocation -> assignIds(invocation.getArgument(0)));
+
+		final List<BulkItemResultDto> results = beerBulkService.create(Arrays.asList(first, second));
+
+		assertThat(results).extracting(BulkItemResultDto::getStatus)
+				.containsExactly(BulkItemStatus.CREATED, BulkItemStatus.CREATED);
+		assertThat(results).extracting(BulkItemResultDto::getId)
+				.containsExactly(1L, 2L);
+		verify(entityManagerMock, times(1)).flush();
+		verify(entityManagerMock, times(1)).clear();
+	}
+
+	@Test
+	void createWithDuplicatesShouldReportThem() {
+		when(beerRepositoryMock.findNamesIn(Arrays.asList("existing", "new"))).thenReturn(
+				Collections.singletonList("existing"));
+		when(beerRepositoryMock.saveAll(anyList())).thenAnswer(invocation -> assignIds(invocation.getArgument(0)));
+
+		final List<BulkItemResultDto> results = beerBulkService
+				.create(Arrays.asList(beerDto("existing"), beerDto("new"), beerDto("new"), new BeerDto()));
+
+		assertThat(results).extracting(BulkItemResultDto::getStatus)
+				.containsExactly(BulkItemStatus.DUPLICATE, BulkItemStatus.CREATED, BulkItemStatus.DUPLICATE,
+						BulkItemStatus.INVALID);
+		assertThat(results.get(0)
+				.getMessage()).isEqualTo("A beer already exists with name existing");
+		assertThat(results.get(1)
+				.getId()).isEqualTo(1L);
+		assertThat(results.get(3)
+				.getMessage()).contains("name", "brand");
+	}
+
+	@Test
+	void createWithManyBeersShouldQueryByChunk() {
+		final List<BeerDto> beerDtos = new ArrayList<>();
+		for (int i = 0; i < BeerBulkService.CHUNK_SIZE * 2 + 1; i++) {
+			beerDtos.add(beerDto("beer" + i));
+		}
+
+		when(beerRepositoryMock.findNamesIn(anyCollection())).thenReturn(Collections.emptyList());
+		when(beerRepositoryMock.saveAll(anyList())).thenAnswer(invocation -> assignIds(invocation.getArgument(0)));
+
+		final List<BulkItemResultDto> results = beerBulkService.create(beerDtos);
+
+		assertThat(results).hasSize(beerDtos.size())
+				.allMatch(result -> result.getStatus() == BulkItemStatus.CREATED);
+		verify(beerRepositoryMock, times(3)).findNamesIn(anyCollection());
+		verify(entityManagerMock, times(3)).clear();
+	}
+
+	@Test
+	void createWithNamesNotIndexedShouldNotQueryThem() {
+		when(beerNameIndexMock.mightContain(anyString())).thenReturn(false);
+		when(beerRepositoryMock.saveAll(anyList())).thenAnswer(invocation -> assignIds(invocation.getArgument(0)));
+
+		final List<BulkItemResultDto> results = beerBulkService.create(Arrays.asList(beerDto("first"), beerDto("second")));
+
+		assertThat(results).extracting(BulkItemResultDto::getStatus)
+				.containsExactly(BulkItemStatus.CREATED, BulkItemStatus.CREATED);
+		verify(beerRepositoryMock, never()).findNamesIn(anyCollection());
+		verify(beerNameIndexMock, times(1)).add("first");
+		verify(beerNameIndexMock, times(1)).add("second");
+	}
+
+	private static BeerDto beerDto(final String name) {
+		final BeerDto beerDto = BeerTestsUtil.createBeerDto();
+		beerDto.setId(null);
+		beerDto.setName(name);
+		return beerDto;
+	}
+
+	private static List<Beer> assignIds(final List<Beer> beers) {
+		long id = 1;
+		for (final Beer beer : beers) {
+			beer.setId(id++);
+		}
+		return beers;
+	}
+}
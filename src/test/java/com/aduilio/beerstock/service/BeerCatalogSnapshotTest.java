@@ -0,0 +1,148 @@
+package com.aduilio.beerstock.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.zip.GZIPInputStream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.aduilio.beerstock.config.BeerstockProperties;
+import com.aduilio.beerstock.dto.BeerDto;
+import com.aduilio.beerstock.dto.BeerPageDto;
+import com.aduilio.beerstock.entity.Beer;
+import com.aduilio.beerstock.enums.BeerSort;
+import com.aduilio.beerstock.repository.BeerRepository;
+import com.aduilio.beerstock.utils.BeerTestsUtil;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+@SpringBootTest(properties = "beerstock.snapshot.enabled=true")
+class BeerCatalogSnapshotTest {
+
+	private static final int BEERS = 20;
+
+	@Autowired
+	private BeerCatalogSnapshot beerCatalogSnapshot;
+
+	@Autowired
+	private BeerService beerService;
+
+	@Autowired
+	private BeerRepository beerRepository;
+
+	@Autowired
+	private TransactionTemplate transactionTemplate;
+
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	@AfterEach
+	void cleanup() throws Exception {
+		// through the service, so the snapshot sees the deletions
+		for (final Beer beer : beerRepository.findAll()) {
+			beerService.delete(beer.getId());
+		}
+	}
+
+	@Test
+	void pageShouldHoldTheBeersOfTheList() throws Exception {
+		createBeers();
+
+		for (final BeerSort sort : BeerSort.values()) {
+			String cursor = null;
+			do {
+				final BeerPageDto expected = beerService.list(cursor, 7, sort);
+				final BeerCatalogSnapshot.CatalogPage page = beerCatalogSnapshot.page(cursor, 7, sort);
+
+				expected.getContent()
+						.forEach(beer -> beer.setVersion(null));
+				assertThat(read(page)).isEqualTo(expected.getContent());
+				assertThat(page.getNext()).isEqualTo(expected.getNext());
+				cursor = expected.getNext();
+			} while (cursor != null);
+		}
+	}
+
+	@Test
+	void pageShouldHoldTheChangesCommitted() throws Exception {
+		final List<Long> ids = createBeers();
+		assertThat(read(beerCatalogSnapshot.page(null, null, BeerSort.ID))).hasSize(BEERS);
+
+		beerService.stock(ids.get(0), 1);
+		beerService.delete(ids.get(1));
+		final Long created = beerService.create(beerDtoOf(BEERS));
+
+		final List<BeerDto> beers = read(beerCatalogSnapshot.page(null, null, BeerSort.ID));
+		assertThat(beers).hasSize(BEERS);
+		assertThat(beers.get(0)
+				.getQuantity()).isEqualTo(1);
+		assertThat(beers).extracting(BeerDto::getId)
+				.doesNotContain(ids.get(1))
+				.endsWith(created);
+	}
+
+	@Test
+	void gzippedShouldHoldThePageCompressed() throws Exception {
+		createBeers();
+		final BeerCatalogSnapshot.CatalogPage page = beerCatalogSnapshot.page(null, 5, BeerSort.NAME);
+		final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+		page.writeTo(outputStream);
+
+		final byte[] gzipped = page.gzipped();
+
+		try (GZIPInputStream inputStream = new GZIPInputStream(new ByteArrayInputStream(gzipped))) {
+			assertThat(inputStream.readAllBytes()).isEqualTo(outputStream.toByteArray());
+		}
+		assertThat(outputStream.size()).isEqualTo(page.length());
+		assertThat(beerCatalogSnapshot.page(null, 5, BeerSort.NAME)
+				.gzipped()).isSameAs(gzipped);
+	}
+
+	@Test
+	void pageWithCatalogLargerThanTheMaxSizeShouldReturnNull() throws Exception {
+		createBeers();
+		final BeerstockProperties beerstockProperties = new BeerstockProperties();
+		beerstockProperties.getSnapshot()
+				.setMaxSize(BEERS - 1);
+
+		final BeerCatalogSnapshot snapshot = new BeerCatalogSnapshot(beerRepository, transactionTemplate,
+				objectMapper, beerstockProperties);
+
+		assertThat(snapshot.page(null, null, BeerSort.ID)).isNull();
+	}
+
+	private List<Long> createBeers() throws Exception {
+		final List<Long> ids = new ArrayList<>();
+		for (int i = 0; i < BEERS; i++) {
+			ids.add(beerService.create(beerDtoOf(i)));
+		}
+		return ids;
+	}
+
+	private BeerDto beerDtoOf(final int i) {
+		final BeerDto beerDto = BeerTestsUtil.createBeerDto();
+		beerDto.setId(null);
+		beerDto.setName(UUID.randomUUID() + BeerTestsUtil.BEER_NAME);
+		beerDto.setQuantity(i % 3);
+		return beerDto;
+	}
+
+	private List<BeerDto> read(final BeerCatalogSnapshot.CatalogPage page) throws Exception {
+		final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+		page.writeTo(outputStream);
+		final List<BeerDto> beers = Arrays.asList(objectMapper.readValue(outputStream.toByteArray(),
+				BeerDto[].class));
+		// the version is not serialized
+		beers.forEach(beer -> beer.setVersion(null));
+		return beers;
+	}
+}
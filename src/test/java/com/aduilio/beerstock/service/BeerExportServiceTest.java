@@ -0,0 +1,84 @@
+package com.aduilio.beerstock.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import javax.persistence.EntityManager;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import com.aduilio.beerstock.entity.Beer;
+import com.aduilio.beerstock.enums.BeerExportFormat;
+import com.aduilio.beerstock.repository.BeerRepository;
+import com.aduilio.beerstock.utils.BeerTestsUtil;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+@ExtendWith(MockitoExtension.class)
+class BeerExportServiceTest {
+
+	@Mock
+	private BeerRepository beerRepositoryMock;
+
+	@Mock
+	private EntityManager entityManagerMock;
+
+	private BeerExportService beerExportService;
+
+	@BeforeEach
+	void setup() {
+		beerExportService = new BeerExportService(beerRepositoryMock, entityManagerMock, new ObjectMapper());
+	}
+
+	@Test
+	void exportWithNdjsonShouldWriteOneBeerPerLine() throws IOException {
+		final Beer other = BeerTestsUtil.createBeer();
+		other.setId(BeerTestsUtil.BEER_ID + 1);
+
+		when(beerRepositoryMock.streamAll()).thenReturn(Stream.of(BeerTestsUtil.createBeer(), other));
+
+		final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+		final long count = beerExportService.export(BeerExportFormat.NDJSON, outputStream);
+
+		assertThat(count).isEqualTo(2);
+		assertThat(outputStream.toString(StandardCharsets.UTF_8.name()).split("\n")).hasSize(2)
+				.allMatch(line -> line.startsWith("{\"id\":") && line.endsWith("}"));
+	}
+
+	@Test
+	void exportWithCsvShouldEscapeValues() throws IOException {
+		final Beer beer = BeerTestsUtil.createBeer();
+		beer.setName("beer, \"special\"");
+
+		when(beerRepositoryMock.streamAll()).thenReturn(Stream.of(beer));
+
+		final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+		beerExportService.export(BeerExportFormat.CSV, outputStream);
+
+		assertThat(outputStream.toString(StandardCharsets.UTF_8.name())).isEqualTo(BeerExportService.CSV_HEADER
+				+ "\n" + BeerTestsUtil.BEER_ID + ",\"beer, \"\"special\"\"\"," + BeerTestsUtil.BEER_BRAND + ","
+				+ BeerTestsUtil.BEER_MAX + "," + BeerTestsUtil.BEER_QTT + "," + BeerTestsUtil.BEER_TYPE.name() + "\n");
+	}
+
+	@Test
+	void exportWithManyBeersShouldClearPersistenceContext() throws IOException {
+		when(beerRepositoryMock.streamAll()).thenReturn(IntStream.range(0, BeerExportService.CLEAR_INTERVAL * 2 + 1)
+				.mapToObj(i -> BeerTestsUtil.createBeer()));
+
+		final long count = beerExportService.export(BeerExportFormat.CSV, new ByteArrayOutputStream());
+
+		assertThat(count).isEqualTo(BeerExportService.CLEAR_INTERVAL * 2 + 1);
+		verify(entityManagerMock, times(2)).clear();
+	}
+}
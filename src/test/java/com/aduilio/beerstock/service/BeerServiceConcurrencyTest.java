@@ -0,0 +1,313 @@
+package com.aduilio.beerstock.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntFunction;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import com.aduilio.beerstock.dto.BeerDto;
+import com.aduilio.beerstock.dto.StockItemDto;
+import com.aduilio.beerstock.dto.StockItemResultDto;
+import com.aduilio.beerstock.entity.Beer;
+import com.aduilio.beerstock.enums.StockBatchMode;
+import com.aduilio.beerstock.enums.StockItemStatus;
+import com.aduilio.beerstock.exception.BeerExceedStockException;
+import com.aduilio.beerstock.exception.BeerNegativeStockException;
+import com.aduilio.beerstock.exception.BeerNotFoundException;
+import com.aduilio.beerstock.index.BeerNameIndex;
+import com.aduilio.beerstock.repository.BeerRepository;
+import com.aduilio.beerstock.utils.BeerTestsUtil;
+
+@SpringBootTest
+class BeerServiceConcurrencyTest {
+
+	private static final int THREADS = 8;
+
+	@Autowired
+	private BeerService beerService;
+
+	@Autowired
+	private BeerRepository beerRepository;
+
+	@Autowired
+	private BeerNameIndex beerNameIndex;
+
+	@Autowired
+	private StockCommandQueue stockCommandQueue;
+
+	@AfterEach
+	void cleanup() {
+		beerRepository.deleteAll();
+	}
+
+	@Test
+	void stockWithQuantitiesAtTheLimitsOfIntShouldBeRejected() {
+		final Beer beer = saveBeer(BeerTestsUtil.BEER_MAX, BeerTestsUtil.BEER_QTT);
+
+		assertThrows(BeerExceedStockException.class, () -> beerService.stock(beer.getId(), Integer.MAX_VALUE));
+		assertThrows(BeerNegativeStockException.class, () -> beerService.stock(beer.getId(), Integer.MIN_VALUE));
+		assertThat(quantityOf(beer)).isEqualTo(BeerTestsUtil.BEER_QTT);
+	}
+
+	@Test
+	void stockWithConcurrentIncrementsShouldNotLoseUpdates() throws Exception {
+		final int operations = THREADS * 100;
+		final Beer beer = saveBeer(operations, 0);
+
+		final int applied = runConcurrently(operations, i -> () -> {
+			beerService.stock(beer.getId(), 1);
+			return 1;
+		});
+
+		assertThat(applied).isEqualTo(operations);
+		assertThat(quantityOf(beer)).isEqualTo(operations);
+	}
+
+	@Test
+	void stockWithConcurrentIncrementsAndDecrementsShouldNotLoseUpdates() throws Exception {
+		final int operations = THREADS * 100;
+		final Beer beer = saveBeer(operations, operations / 2);
+
+		final int applied = runConcurrently(operations, i -> () -> {
+			beerService.stock(beer.getId(), i % 2 == 0 ? 1 : -1);
+			return 1;
+		});
+
+		assertThat(applied).isEqualTo(operations);
+		assertThat(quantityOf(beer)).isEqualTo(operations / 2);
+	}
+
+	@Test
+	void stockWithConcurrentOverflowShouldKeepBounds() throws Exception {
+		final int max = 50;
+		final Beer beer = saveBeer(max, 0);
+
+		final int applied = runConcurrently(max * 2, i -> () -> {
+			try {
+				beerService.stock(beer.getId(), 1);
+				return 1;
+			} catch (final BeerExceedStockException e) {
+				return 0;
+			}
+		});
+
+		assertThat(applied).isEqualTo(max);
+		assertThat(quantityOf(beer)).isEqualTo(max);
+	}
+
+	@Test
+	void stockWithConcurrentUnderflowShouldKeepBounds() throws Exception {
+		final int quantity = 50;
+		final Beer beer = saveBeer(quantity, quantity);
+
+		final int applied = runConcurrently(quantity * 2, i -> () -> {
+			try {
+				beerService.stock(beer.getId(), -1);
+				return 1;
+			} catch (final BeerNegativeStockException e) {
+				return 0;
+			}
+		});
+
+		assertThat(applied).isEqualTo(quantity);
+		assertThat(quantityOf(beer)).isZero();
+	}
+
+	@Test
+	void stockWithConcurrentBatchesShouldNotLoseUpdates() throws Exception {
+		final int operations = THREADS * 20;
+		final Beer first = saveBeer(operations * 2, 0);
+		final Beer second = saveBeer(operations * 2, operations * 2);
+
+		final int applied = runConcurrently(operations, i -> () -> {
+			if (i % 2 == 0) {
+				beerService.stock(first.getId(), 1);
+				beerService.stock(second.getId(), -1);
+				return 1;
+			}
+			final List<StockItemResultDto> results = beerService.stock(Arrays.asList(item(second, -1), item(first, 1)),
+					StockBatchMode.ALL_OR_NOTHING);
+			return results.stream()
+					.allMatch(StockItemResultDto::isApplied) ? 1 : 0;
+		});
+
+		assertThat(applied).isEqualTo(operations);
+		assertThat(quantityOf(first)).isEqualTo(operations);
+		assertThat(quantityOf(second)).isEqualTo(operations);
+	}
+
+	@Test
+	void stockWithBatchRejectedShouldNotChangeStock() {
+		final Beer beer = saveBeer(10, 5);
+
+		final List<StockItemResultDto> results = beerService.stock(Arrays.asList(item(beer, 5), item(beer, 1)),
+				StockBatchMode.ALL_OR_NOTHING);
+
+		assertThat(results).extracting(StockItemResultDto::getStatus)
+				.containsExactly(StockItemStatus.ROLLED_BACK, StockItemStatus.EXCEED_STOCK);
+		assertThat(quantityOf(beer)).isEqualTo(5);
+	}
+
+	@Test
+	void stockCommandsWithConcurrentOverflowShouldKeepBounds() throws Exception {
+		final int max = 50;
+		final Beer beer = saveBeer(max, 0);
+		final List<String> ids = Collections.synchronizedList(new ArrayList<>());
+
+		runConcurrently(max * 2, i -> () -> {
+			ids.add(stockCommandQueue.enqueue(beer.getId(), 1)
+					.getId());
+			return 1;
+		});
+
+		final List<StockItemStatus> statuses = new ArrayList<>();
+		for (final String id : ids) {
+			statuses.add(awaitCommand(id));
+		}
+		assertThat(statuses).filteredOn(StockItemStatus.APPLIED::equals)
+				.hasSize(max);
+		assertThat(statuses).filteredOn(StockItemStatus.EXCEED_STOCK::equals)
+				.hasSize(max);
+		assertThat(quantityOf(beer)).isEqualTo(max);
+	}
+
+	@Test
+	void readByNameWithConcurrentStockShouldNotKeepStaleQuantity() throws Exception {
+		final int operations = THREADS * 50;
+		final Beer beer = saveBeer(operations, 0);
+
+		runConcurrently(operations * 2, i -> () -> {
+			if (i % 2 == 0) {
+				beerService.stock(beer.getId(), 1);
+			} else {
+				beerService.readByName(beer.getName());
+			}
+			return 1;
+		});
+
+		assertThat(beerService.readByName(beer.getName())
+				.getQuantity()).isEqualTo(operations);
+	}
+
+	@Test
+	void readByNameWithConcurrentBatchesShouldNotKeepStaleQuantity() throws Exception {
+		final int operations = THREADS * 20;
+		final Beer beer = saveBeer(operations, 0);
+
+		runConcurrently(operations * 2, i -> () -> {
+			if (i % 2 == 0) {
+				beerService.stock(Arrays.asList(item(beer, 1)), StockBatchMode.ALL_OR_NOTHING);
+			} else {
+				beerService.readByName(beer.getName());
+			}
+			return 1;
+		});
+
+		assertThat(beerService.readByName(beer.getName())
+				.getQuantity()).isEqualTo(operations);
+	}
+
+	@Test
+	void readByNameAfterCreateShouldNotReturnCachedMiss() throws Exception {
+		final BeerDto beerDto = BeerTestsUtil.createBeerDto();
+		beerDto.setId(null);
+		beerDto.setName(BeerTestsUtil.BEER_NAME + UUID.randomUUID());
+
+		assertThrows(BeerNotFoundException.class, () -> beerService.readByName(beerDto.getName()));
+
+		final Long id = beerService.create(beerDto);
+
+		assertThat(beerService.readByName(beerDto.getName())
+				.getId()).isEqualTo(id);
+	}
+
+	@Test
+	void readByNameAfterDeleteShouldThrowException() throws Exception {
+		final Beer beer = saveBeer(10, 5);
+		beerService.readByName(beer.getName());
+
+		beerService.delete(beer.getId());
+
+		assertThrows(BeerNotFoundException.class, () -> beerService.readByName(beer.getName()));
+	}
+
+	private static StockItemDto item(final Beer beer, final int quantity) {
+		return StockItemDto.builder()
+				.id(beer.getId())
+				.quantity(quantity)
+				.build();
+	}
+
+	private Beer saveBeer(final int max, final int quantity) {
+		final Beer beer = BeerTestsUtil.createBeer();
+		beer.setId(null);
+		beer.setName(BeerTestsUtil.BEER_NAME + UUID.randomUUID());
+		beer.setMax(max);
+		beer.setQuantity(quantity);
+		beerNameIndex.add(beer.getName());
+		return beerRepository.save(beer);
+	}
+
+	private StockItemStatus awaitCommand(final String id) throws Exception {
+		final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+		StockItemStatus status = stockCommandQueue.read(id)
+				.getStatus();
+		while (status == StockItemStatus.PENDING && System.nanoTime() < deadline) {
+			Thread.sleep(10);
+			status = stockCommandQueue.read(id)
+					.getStatus();
+		}
+		return status;
+	}
+
+	private int quantityOf(final Beer beer) {
+		return beerRepository.findById(beer.getId())
+				.map(Beer::getQuantity)
+				.orElseThrow(IllegalStateException::new);
+	}
+
+	/**
+	 * Runs the tasks released at the same time by a pool of threads.
+	 *
+	 * @return the sum of the values returned by the tasks
+	 */
+	private int runConcurrently(final int tasks, final IntFunction<Callable<Integer>> taskFactory) throws Exception {
+		final ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+		final CountDownLatch start = new CountDownLatch(1);
+		try {
+			final List<Future<Integer>> futures = new ArrayList<>();
+			for (int i = 0; i < tasks; i++) {
+				final Callable<Integer> task = taskFactory.apply(i);
+				futures.add(executor.submit(() -> {
+					start.await();
+					return task.call();
+				}));
+			}
+			start.countDown();
+
+			int sum = 0;
+			for (final Future<Integer> future : futures) {
+				sum += future.get(30, TimeUnit.SECONDS);
+			}
+			return sum;
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+}
@@ -0,0 +1,148 @@
+package com.aduilio.beerstock.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.entry;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import com.aduilio.beerstock.dto.BeerDto;
+import com.aduilio.beerstock.dto.BeerFilterDto;
+import com.aduilio.beerstock.dto.BeerPageDto;
+import com.aduilio.beerstock.dto.BeerSearchDto;
+import com.aduilio.beerstock.entity.Beer;
+import com.aduilio.beerstock.enums.BeerSort;
+import com.aduilio.beerstock.enums.BeerType;
+import com.aduilio.beerstock.exception.BeerInvalidCursorException;
+import com.aduilio.beerstock.repository.BeerRepository;
+import com.aduilio.beerstock.utils.BeerTestsUtil;
+
+@SpringBootTest
+class BeerServicePaginationTest {
+
+	private static final int BEERS = 25;
+
+	@Autowired
+	private BeerService beerService;
+
+	@Autowired
+	private BeerRepository beerRepository;
+
+	@BeforeEach
+	void setup() {
+		for (int i = 0; i < BEERS; i++) {
+			final Beer beer = BeerTestsUtil.createBeer();
+			beer.setId(null);
+			beer.setName(BeerTestsUtil.BEER_NAME + (BEERS - i));
+			beer.setQuantity(i % 4);
+			beer.setType(BeerType.values()[i % 3]);
+			beer.setBrand(i % 2 == 0 ? "even" : "odd");
+			beerRepository.save(beer);
+		}
+	}
+
+	@AfterEach
+	void cleanup() {
+		beerRepository.deleteAll();
+	}
+
+	@Test
+	void listByIdShouldReturnAllBeersOnce() throws BeerInvalidCursorException {
+		assertThat(readAll(BeerSort.ID)).isSortedAccordingTo(Comparator.comparing(BeerDto::getId))
+				.hasSize(BEERS);
+	}
+
+	@Test
+	void listByNameShouldReturnAllBeersOnce() throws BeerInvalidCursorException {
+		assertThat(readAll(BeerSort.NAME)).isSortedAccordingTo(Comparator.comparing(BeerDto::getName))
+				.hasSize(BEERS);
+	}
+
+	@Test
+	void listByQuantityShouldReturnAllBeersOnce() throws BeerInvalidCursorException {
+		final List<BeerDto> beers = readAll(BeerSort.QUANTITY);
+
+		assertThat(beers).isSortedAccordingTo(Comparator.comparing(BeerDto::getQuantity)
+				.thenComparing(BeerDto::getId))
+				.hasSize(BEERS);
+		assertThat(beers.stream()
+				.map(BeerDto::getId)
+				.distinct()
+				.collect(Collectors.toList())).hasSize(BEERS);
+	}
+
+	@Test
+	void searchByTypeAndBrandShouldReturnOnlyTheBeersFound() throws BeerInvalidCursorException {
+		final List<BeerDto> beers = searchAll(BeerFilterDto.builder()
+				.type(BeerType.values()[1])
+				.brand("odd")
+				.build());
+
+		// i % 3 == 1 and i odd, i from 0 to 24: 1, 7, 13 and 19
+		assertThat(beers).isSortedAccordingTo(Comparator.comparing(BeerDto::getId))
+				.hasSize(4)
+				.allMatch(beer -> beer.getType() == BeerType.values()[1] && "odd".equals(beer.getBrand()));
+	}
+
+	@Test
+	void searchByQuantityShouldReturnOnlyTheBeersFound() throws BeerInvalidCursorException {
+		final List<BeerDto> beers = searchAll(BeerFilterDto.builder()
+				.minQuantity(1)
+				.maxQuantity(2)
+				.build());
+
+		assertThat(beers).hasSize(12)
+				.allMatch(beer -> beer.getQuantity() >= 1 && beer.getQuantity() <= 2);
+	}
+
+	@Test
+	void searchShouldCountTheBeersByTypeAndBrandInTheFirstPage() throws BeerInvalidCursorException {
+		final BeerSearchDto first = beerService.search(BeerFilterDto.builder()
+				.brand("even")
+				.build(), null, 4);
+
+		assertThat(first.getTypes()).containsEntry(BeerType.values()[0], 5L)
+				.containsEntry(BeerType.values()[1], 4L)
+				.containsEntry(BeerType.values()[2], 4L)
+				.hasSize(3);
+		assertThat(first.getBrands()).containsOnly(entry("even", 13L));
+
+		final BeerSearchDto second = beerService.search(BeerFilterDto.builder()
+				.brand("even")
+				.build(), first.getNext(), 4);
+		assertThat(second.getTypes()).isNull();
+		assertThat(second.getBrands()).isNull();
+	}
+
+	private List<BeerDto> searchAll(final BeerFilterDto filter) throws BeerInvalidCursorException {
+		final List<BeerDto> beers = new ArrayList<>();
+		String cursor = null;
+		do {
+			final BeerSearchDto page = beerService.search(filter, cursor, 3);
+			assertThat(page.getContent()).hasSizeLessThanOrEqualTo(3);
+			beers.addAll(page.getContent());
+			cursor = page.getNext();
+		} while (cursor != null);
+		return beers;
+	}
+
+	private List<BeerDto> readAll(final BeerSort sort) throws BeerInvalidCursorException {
+		final List<BeerDto> beers = new ArrayList<>();
+		String cursor = null;
+		do {
+			final BeerPageDto page = beerService.list(cursor, 4, sort);
+			assertThat(page.getContent()).hasSizeLessThanOrEqualTo(4);
+			beers.addAll(page.getContent());
+			cursor = page.getNext();
+		} while (cursor != null);
+		return beers;
+	}
+}
@@ -2,11 +2,13 @@ package com.aduilio.beerstock.service;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
@@ -15,16 +17,33 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
 
+import com.aduilio.beerstock.cache.BeerCache;
+import com.aduilio.beerstock.config.BeerstockProperties;
 import com.aduilio.beerstock.dto.BeerDto;
+import com.aduilio.beerstock.dto.BeerPageDto;
+import com.aduilio.beerstock.dto.StockItemDto;
+import com.aduilio.beerstock.dto.StockItemResultDto;
 import com.aduilio.beerstock.entity.Beer;
+import com.aduilio.beerstock.enums.BeerChangeType;
+import com.aduilio.beerstock.enums.BeerSort;
+import com.aduilio.beerstock.enums.StockBatchMode;
+import com.aduilio.beerstock.enums.StockItemStatus;
+import com.aduilio.beerstock.event.BeerChangedEvent;
 import com.aduilio.beerstock.exception.BeerAlreadyRegisteredException;
 import com.aduilio.beerstock.exception.BeerExceedStockException;
+import com.aduilio.beerstock.exception.BeerInvalidCursorException;
 import com.aduilio.beerstock.exception.BeerNegativeStockException;
 import com.aduilio.beerstock.exception.BeerNotFoundException;
+import com.aduilio.beerstock.index.BeerNameIndex;
 import com.aduilio.beerstock.mapper.BeerMapper;
 import com.aduilio.beerstock.repository.BeerRepository;
+import com.aduilio.beerstock.repository.BeerSearchRepository;
+import com.aduilio.beerstock.stock.StockEngine;
 import com.aduilio.beerstock.utils.BeerTestsUtil;
 
 @ExtendWith(MockitoExtension.class)
@@ -33,6 +52,24 @@ class BeerServiceTest {
 	@Mock
 	private BeerRepository beerRepositoryMock;
 
+	@Mock
+	private BeerSearchRepository beerSearchRepositoryMock;
+
+	@Mock
+	private StockEngine stockEngineMock;
+
+	@Spy
+	private BeerstockProperties beerstockProperties = new BeerstockProperties();
+
+	@Spy
+	private BeerCache beerCache = new BeerCache(new BeerstockProperties());
+
+	@Mock
+	private BeerNameIndex beerNameIndexMock;
+
+	@Mock
+	private ApplicationEventPublisher eventPublisherMock;
+
 	private final BeerMapper beerMapper = BeerMapper.INSTANCE;
 
 	@InjectMocks
@@ -43,12 +80,15 @@ class BeerServiceTest {
 		final BeerDto beerDto = BeerTestsUtil.createBeerDto();
 		final Beer expeted = beerMapper.mapBeerFrom(beerDto);
 
+		when(beerNameIndexMock.mightContain(BeerTestsUtil.BEER_NAME)).thenReturn(true);
 		when(beerRepositoryMock.findByName(BeerTestsUtil.BEER_NAME)).thenReturn(Optional.empty());
 		when(beerRepositoryMock.save(expeted)).thenReturn(expeted);
 
 		final Long result = beerService.create(beerDto);
 
 		assertThat(result).isEqualTo(BeerTestsUtil.BEER_ID);
+		verify(eventPublisherMock, times(1)).publishEvent(
+				new BeerChangedEvent(BeerTestsUtil.BEER_ID, BeerTestsUtil.BEER_NAME, BeerChangeType.CREATED));
 	}
 
 	@Test
@@ -56,6 +96,7 @@ class BeerServiceTest {
 		final BeerDto beerDto = BeerTestsUtil.createBeerDto();
 		final Beer expeted = beerMapper.mapBeerFrom(beerDto);
 
+		when(beerNameIndexMock.mightContain(BeerTestsUtil.BEER_NAME)).thenReturn(true);
 		when(beerRepositoryMock.findByName(BeerTestsUtil.BEER_NAME)).thenReturn(Optional.of(expeted));
 
 		final BeerAlreadyRegisteredException exception = assertThrows(BeerAlreadyRegisteredException.class,
@@ -64,39 +105,146 @@ class BeerServiceTest {
 		assertThat(exception.getMessage()).isEqualTo("A beer already exists with name " + BeerTestsUtil.BEER_NAME);
 	}
 
+	@Test
+	void createWithNameNotIndexedShouldNotQueryIt() throws BeerAlreadyRegisteredException {
+		final BeerDto beerDto = BeerTestsUtil.createBeerDto();
+		final Beer expeted = beerMapper.mapBeerFrom(beerDto);
+
+		when(beerRepositoryMock.save(expeted)).thenReturn(expeted);
+
+		beerService.create(beerDto);
+
+		verify(beerRepositoryMock, never()).findByName(BeerTestsUtil.BEER_NAME);
+		verify(beerNameIndexMock, times(1)).add(BeerTestsUtil.BEER_NAME);
+	}
+
 	@Test
 	void readByNameWithValidNameShouldReturnBeer() throws BeerNotFoundException {
 		final Beer beer = BeerTestsUtil.createBeer();
 		final BeerDto expected = beerMapper.mapBeerDtoFrom(beer);
 
-		when(beerRepositoryMock.findByName(BeerTestsUtil.BEER_NAME)).thenReturn(Optional.of(beer));
+		when(beerNameIndexMock.mightContain(BeerTestsUtil.BEER_NAME)).thenReturn(true);
+		when(beerRepositoryMock.findIdByName(BeerTestsUtil.BEER_NAME)).thenReturn(Optional.of(BeerTestsUtil.BEER_ID));
+		when(beerRepositoryMock.findDtoById(BeerTestsUtil.BEER_ID)).thenReturn(Optional.of(expected));
+		when(stockEngineMock.withPendingStock(expected)).thenReturn(expected);
 
 		final BeerDto result = beerService.readByName(BeerTestsUtil.BEER_NAME);
 
 		assertThat(result).isEqualTo(expected);
 	}
 
+	@Test
+	void readByNameShouldReturnTheStockNotWrittenYet() throws BeerNotFoundException {
+		final BeerDto cached = BeerTestsUtil.createBeerDto();
+		final BeerDto expected = cached.toBuilder()
+				.quantity(BeerTestsUtil.BEER_QTT + 1)
+				.build();
+
+		when(beerNameIndexMock.mightContain(BeerTestsUtil.BEER_NAME)).thenReturn(true);
+		when(beerRepositoryMock.findIdByName(BeerTestsUtil.BEER_NAME)).thenReturn(Optional.of(BeerTestsUtil.BEER_ID));
+		when(beerRepositoryMock.findDtoById(BeerTestsUtil.BEER_ID)).thenReturn(Optional.of(cached));
+		when(stockEngineMock.withPendingStock(cached)).thenReturn(expected);
+
+		final BeerDto result = beerService.readByName(BeerTestsUtil.BEER_NAME);
+
+		assertThat(result).isEqualTo(expected);
+	}
+
+	@Test
+	void readByNameTwiceShouldReadTheDatabaseOnce() throws BeerNotFoundException {
+		when(beerNameIndexMock.mightContain(BeerTestsUtil.BEER_NAME)).thenReturn(true);
+		when(beerRepositoryMock.findIdByName(BeerTestsUtil.BEER_NAME)).thenReturn(Optional.of(BeerTestsUtil.BEER_ID));
+		when(beerRepositoryMock.findDtoById(BeerTestsUtil.BEER_ID))
+				.thenReturn(Optional.of(BeerTestsUtil.createBeerDto()));
+		when(stockEngineMock.withPendingStock(any(BeerDto.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+		assertThat(beerService.readByName(BeerTestsUtil.BEER_NAME)).isEqualTo(
+				beerService.readByName(BeerTestsUtil.BEER_NAME));
+
+		verify(beerRepositoryMock, times(1)).findIdByName(BeerTestsUtil.BEER_NAME);
+		verify(beerRepositoryMock, times(1)).findDtoById(BeerTestsUtil.BEER_ID);
+	}
+
 	@Test
 	void readByNameWithInvalidNameShouldThrowException() throws BeerNotFoundException {
-		when(beerRepositoryMock.findByName(BeerTestsUtil.BEER_NAME)).thenReturn(Optional.empty());
+		when(beerNameIndexMock.mightContain(BeerTestsUtil.BEER_NAME)).thenReturn(true);
+		when(beerRepositoryMock.findIdByName(BeerTestsUtil.BEER_NAME)).thenReturn(Optional.empty());
 
 		final BeerNotFoundException exception = assertThrows(BeerNotFoundException.class,
 				() -> beerService.readByName(BeerTestsUtil.BEER_NAME));
 
 		assertThat(exception.getMessage()).isEqualTo("Invalid name " + BeerTestsUtil.BEER_NAME);
+		verify(beerNameIndexMock, times(1)).falsePositive();
 	}
 
 	@Test
-	void listWithValueShouldReturnBeers() throws BeerNotFoundException {
-		final Beer beer = BeerTestsUtil.createBeer();
-		final BeerDto expected = beerMapper.mapBeerDtoFrom(beer);
+	void readByNameWithNameNotIndexedShouldNotQueryIt() {
+		assertThrows(BeerNotFoundException.class, () -> beerService.readByName(BeerTestsUtil.BEER_NAME));
 
-		when(beerRepositoryMock.findAll()).thenReturn(Collections.singletonList(beer));
+		verify(beerRepositoryMock, never()).findIdByName(BeerTestsUtil.BEER_NAME);
+	}
 
-		final List<BeerDto> result = beerService.list();
+	@Test
+	void listWithValueShouldReturnBeers() throws BeerInvalidCursorException {
+		final BeerDto expected = BeerTestsUtil.createBeerDto();
+
+		when(beerRepositoryMock.findPageById(0, PageRequest.of(0, 101)))
+				.thenReturn(Collections.singletonList(expected));
 
-		assertThat(result.size()).isOne();
-		assertThat(result.get(0)).isEqualTo(expected);
+		final BeerPageDto result = beerService.list(null, null, BeerSort.ID);
+
+		assertThat(result.getContent()
+				.size()).isOne();
+		assertThat(result.getContent()
+				.get(0)).isEqualTo(expected);
+		assertThat(result.getNext()).isNull();
+	}
+
+	@Test
+	void listWithMoreBeersShouldReturnNextCursor() throws BeerInvalidCursorException {
+		final BeerDto first = BeerTestsUtil.createBeerDto();
+		final BeerDto second = BeerTestsUtil.createBeerDto();
+		second.setId(BeerTestsUtil.BEER_ID + 1);
+		second.setName("other");
+
+		when(beerRepositoryMock.findPageByName("", PageRequest.of(0, 2))).thenReturn(Arrays.asList(first, second));
+
+		final BeerPageDto result = beerService.list(null, 1, BeerSort.NAME);
+
+		assertThat(result.getContent()).containsExactly(first);
+		assertThat(BeerCursor.decode(result.getNext(), BeerSort.NAME)).isEqualTo(
+				BeerCursor.after(BeerSort.NAME, first));
+	}
+
+	@Test
+	void listWithCursorShouldReturnBeersAfterIt() throws BeerInvalidCursorException {
+		final BeerDto last = BeerTestsUtil.createBeerDto();
+		final String cursor = BeerCursor.after(BeerSort.QUANTITY, last)
+				.encode();
+
+		when(beerRepositoryMock.findPageByQuantity(BeerTestsUtil.BEER_QTT, BeerTestsUtil.BEER_ID,
+				PageRequest.of(0, 1001))).thenReturn(Collections.emptyList());
+
+		final BeerPageDto result = beerService.list(cursor, 5000, BeerSort.QUANTITY);
+
+		assertThat(result.getContent()).isEmpty();
+		assertThat(result.getNext()).isNull();
+	}
+
+	@Test
+	void listWithCursorOfOtherSortShouldThrowException() {
+		final String cursor = BeerCursor.after(BeerSort.ID, BeerTestsUtil.createBeerDto())
+				.encode();
+
+		final BeerInvalidCursorException exception = assertThrows(BeerInvalidCursorException.class,
+				() -> beerService.list(cursor, null, BeerSort.NAME));
+
+		assertThat(exception.getMessage()).isEqualTo("Invalid cursor " + cursor);
+	}
+
+	@Test
+	void listWithMalformedCursorShouldThrowException() {
+		assertThrows(BeerInvalidCursorException.class, () -> beerService.list("not a cursor", null, BeerSort.ID));
 	}
 
 	@Test
@@ -106,6 +254,9 @@ class BeerServiceTest {
 		beerService.delete(BeerTestsUtil.BEER_ID);
 
 		verify(beerRepositoryMock, times(1)).deleteById(BeerTestsUtil.BEER_ID);
+		verify(stockEngineMock, times(1)).evict(BeerTestsUtil.BEER_ID);
+		verify(eventPublisherMock, times(1)).publishEvent(
+				new BeerChangedEvent(BeerTestsUtil.BEER_ID, BeerTestsUtil.BEER_NAME, BeerChangeType.DELETED));
 	}
 
 	@Test
@@ -122,24 +273,26 @@ class BeerServiceTest {
 	@Test
 	void incrementWithValidValueShouldReturnIncremented()
 			throws BeerNotFoundException, BeerExceedStockException, BeerNegativeStockException {
-		final Beer beer = BeerTestsUtil.createBeer();
-
 		final int qtt = 1;
 		final Beer beerWithIncrement = BeerTestsUtil.createBeer();
 		beerWithIncrement.increment(qtt);
 		final BeerDto expected = beerMapper.mapBeerDtoFrom(beerWithIncrement);
 
-		when(beerRepositoryMock.findById(BeerTestsUtil.BEER_ID)).thenReturn(Optional.of(beer));
-		when(beerRepositoryMock.save(beerWithIncrement)).thenReturn(beerWithIncrement);
+		when(stockEngineMock.stock(BeerTestsUtil.BEER_ID, qtt)).thenReturn(beerWithIncrement);
 
 		final BeerDto result = beerService.stock(BeerTestsUtil.BEER_ID, qtt);
 
 		assertThat(result).isEqualTo(expected);
+		verify(beerRepositoryMock, never()).save(any(Beer.class));
+		verify(eventPublisherMock, times(1)).publishEvent(
+				new BeerChangedEvent(BeerTestsUtil.BEER_ID, BeerTestsUtil.BEER_NAME, BeerChangeType.STOCK));
 	}
 
 	@Test
-	void stockWithInvalidIdShouldThrowException() throws BeerNotFoundException {
-		when(beerRepositoryMock.findById(BeerTestsUtil.BEER_ID)).thenReturn(Optional.empty());
+	void stockWithInvalidIdShouldThrowException()
+			throws BeerNotFoundException, BeerExceedStockException, BeerNegativeStockException {
+		when(stockEngineMock.stock(BeerTestsUtil.BEER_ID, 10))
+				.thenThrow(new BeerNotFoundException(BeerTestsUtil.BEER_ID));
 
 		final BeerNotFoundException exception = assertThrows(BeerNotFoundException.class,
 				() -> beerService.stock(BeerTestsUtil.BEER_ID, 10));
@@ -148,10 +301,12 @@ class BeerServiceTest {
 	}
 
 	@Test
-	void stockWithExceedValueShouldThrowException() throws BeerNotFoundException, BeerExceedStockException {
+	void stockWithExceedValueShouldThrowException()
+			throws BeerNotFoundException, BeerExceedStockException, BeerNegativeStockException {
 		final Beer beer = BeerTestsUtil.createBeer();
 
-		when(beerRepositoryMock.findById(BeerTestsUtil.BEER_ID)).thenReturn(Optional.of(beer));
+		when(stockEngineMock.stock(BeerTestsUtil.BEER_ID, beer.getMax()))
+				.thenThrow(new BeerExceedStockException(beer.getMax() - beer.getQuantity()));
 
 		final BeerExceedStockException exception = assertThrows(BeerExceedStockException.class,
 				() -> beerService.stock(BeerTestsUtil.BEER_ID, beer.getMax()));
@@ -161,14 +316,56 @@ class BeerServiceTest {
 	}
 
 	@Test
-	void stockWithNegativeValueShouldThrowException() throws BeerNotFoundException, BeerExceedStockException {
+	void stockWithNegativeValueShouldThrowException()
+			throws BeerNotFoundException, BeerExceedStockException, BeerNegativeStockException {
 		final Beer beer = BeerTestsUtil.createBeer();
 
-		when(beerRepositoryMock.findById(BeerTestsUtil.BEER_ID)).thenReturn(Optional.of(beer));
+		when(stockEngineMock.stock(BeerTestsUtil.BEER_ID, -beer.getMax()))
+				.thenThrow(new BeerNegativeStockException(beer.getQuantity()));
 
 		final BeerNegativeStockException exception = assertThrows(BeerNegativeStockException.class,
 				() -> beerService.stock(BeerTestsUtil.BEER_ID, -beer.getMax()));
 
 		assertThat(exception.getMessage()).isEqualTo("Only available " + beer.getQuantity() + " beer(s)");
 	}
+
+	@Test
+	void stockWithItemsShouldReturnResults() {
+		final List<StockItemDto> items = Collections.singletonList(StockItemDto.builder()
+				.id(BeerTestsUtil.BEER_ID)
+				.quantity(1)
+				.build());
+		final List<StockItemResultDto> expected = Collections
+				.singletonList(StockItemResultDto.of(items.get(0), StockItemStatus.APPLIED));
+
+		when(stockEngineMock.stock(items, StockBatchMode.BEST_EFFORT)).thenReturn(expected);
+
+		final List<StockItemResultDto> result = beerService.stock(items, StockBatchMode.BEST_EFFORT);
+
+		assertThat(result).isEqualTo(expected);
+		verify(eventPublisherMock, times(1))
+				.publishEvent(new BeerChangedEvent(BeerTestsUtil.BEER_ID, null, BeerChangeType.STOCK));
+	}
+
+	@Test
+	void stockWithItemsRolledBackShouldNotPublishEvents() {
+		final List<StockItemDto> items = Arrays.asList(StockItemDto.builder()
+				.id(BeerTestsUtil.BEER_ID)
+				.quantity(1)
+				.build(),
+				StockItemDto.builder()
+						.id(BeerTestsUtil.BEER_ID + 1)
+						.quantity(1)
+						.build());
+		final List<StockItemResultDto> expected = Arrays.asList(
+				StockItemResultDto.of(items.get(0), StockItemStatus.ROLLED_BACK),
+				StockItemResultDto.of(items.get(1), new BeerNotFoundException(BeerTestsUtil.BEER_ID + 1)));
+
+		when(stockEngineMock.stock(items, StockBatchMode.ALL_OR_NOTHING)).thenReturn(expected);
+
+		final List<StockItemResultDto> result = beerService.stock(items, StockBatchMode.ALL_OR_NOTHING);
+
+		assertThat(result).isEqualTo(expected);
+		verify(eventPublisherMock, never()).publishEvent(any(BeerChangedEvent.class));
+	}
 }
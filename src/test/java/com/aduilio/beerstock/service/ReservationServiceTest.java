@@ -0,0 +1,218 @@
+package com.aduilio.beerstock.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntFunction;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import com.aduilio.beerstock.dto.BeerDto;
+import com.aduilio.beerstock.dto.ReservationDto;
+import com.aduilio.beerstock.entity.Beer;
+import com.aduilio.beerstock.exception.BeerNegativeStockException;
+import com.aduilio.beerstock.exception.BeerNotFoundException;
+import com.aduilio.beerstock.exception.ReservationNotFoundException;
+import com.aduilio.beerstock.index.BeerNameIndex;
+import com.aduilio.beerstock.repository.BeerRepository;
+import com.aduilio.beerstock.repository.ReservationRepository;
+import com.aduilio.beerstock.utils.BeerTestsUtil;
+
+@SpringBootTest(properties = "beerstock.reservation.sweep-batch-size=3")
+class ReservationServiceTest {
+
+	private static final int THREADS = 8;
+
+	@Autowired
+	private ReservationService reservationService;
+
+	@Autowired
+	private BeerService beerService;
+
+	@Autowired
+	private BeerRepository beerRepository;
+
+	@Autowired
+	private ReservationRepository reservationRepository;
+
+	@Autowired
+	private BeerNameIndex beerNameIndex;
+
+	@AfterEach
+	void cleanup() {
+		reservationRepository.deleteAll();
+		beerRepository.deleteAll();
+	}
+
+	@Test
+	void reserveShouldHoldTheStock() throws Exception {
+		final Beer beer = saveBeer(10);
+
+		final ReservationDto reservation = reservationService.reserve(beer.getId(), 4);
+
+		assertThat(reservation.getId()).isNotNull();
+		assertThat(reservation.getExpiresAt()).isAfter(Instant.now());
+		assertThat(read(beer).getQuantity()).isEqualTo(10);
+		assertThat(read(beer).getReserved()).isEqualTo(4);
+		assertThrows(BeerNegativeStockException.class, () -> reservationService.reserve(beer.getId(), 7));
+		assertThrows(BeerNegativeStockException.class, () -> beerService.stock(beer.getId(), -7));
+	}
+
+	@Test
+	void reserveWithInvalidIdShouldThrowException() {
+		assertThrows(BeerNotFoundException.class, () -> reservationService.reserve(BeerTestsUtil.BEER_ID, 1));
+	}
+
+	@Test
+	void commitShouldRemoveTheQuantityFromTheStock() throws Exception {
+		final Beer beer = saveBeer(10);
+		final ReservationDto reservation = reservationService.reserve(beer.getId(), 4);
+
+		final BeerDto beerDto = reservationService.commit(reservation.getId());
+
+		assertThat(beerDto.getQuantity()).isEqualTo(6);
+		assertThat(beerDto.getReserved()).isZero();
+		assertThrows(ReservationNotFoundException.class, () -> reservationService.commit(reservation.getId()));
+	}
+
+	@Test
+	void releaseShouldMakeTheQuantityAvailable() throws Exception {
+		final Beer beer = saveBeer(10);
+		final ReservationDto reservation = reservationService.reserve(beer.getId(), 4);
+
+		reservationService.release(reservation.getId());
+
+		assertThat(read(beer).getQuantity()).isEqualTo(10);
+		assertThat(read(beer).getReserved()).isZero();
+		assertThrows(ReservationNotFoundException.class, () -> reservationService.release(reservation.getId()));
+	}
+
+	@Test
+	void sweepShouldReleaseOnlyTheExpiredReservations() throws Exception {
+		final Beer beer = saveBeer(10);
+		for (int i = 0; i < 7; i++) {
+			reservationService.reserve(beer.getId(), 1);
+		}
+		final Instant expiration = Instant.now()
+				.plus(Duration.ofDays(1));
+		final ReservationDto later = reservationService.reserve(beer.getId(), 2);
+		reservationRepository.findById(later.getId())
+				.ifPresent(reservation -> {
+					reservation.setExpiresAt(expiration.plus(Duration.ofDays(1)));
+					reservationRepository.save(reservation);
+				});
+
+		// several batches of three
+		assertThat(reservationService.sweep(expiration)).isEqualTo(7);
+
+		assertThat(read(beer).getReserved()).isEqualTo(2);
+		assertThat(reservationRepository.count()).isEqualTo(1);
+	}
+
+	@Test
+	void reserveWithConcurrentRequestsShouldNotExceedTheStock() throws Exception {
+		final int quantity = 50;
+		final Beer beer = saveBeer(quantity);
+
+		final int reserved = runConcurrently(quantity * 2, i -> () -> {
+			try {
+				reservationService.reserve(beer.getId(), 1);
+				return 1;
+			} catch (final BeerNegativeStockException e) {
+				return 0;
+			}
+		});
+
+		assertThat(reserved).isEqualTo(quantity);
+		assertThat(read(beer).getReserved()).isEqualTo(quantity);
+	}
+
+	@Test
+	void commitWithConcurrentSweepShouldChangeTheStockOnce() throws Exception {
+		final int quantity = THREADS * 10;
+		final Beer beer = saveBeer(quantity);
+		final List<String> ids = new ArrayList<>();
+		for (int i = 0; i < quantity; i++) {
+			ids.add(reservationService.reserve(beer.getId(), 1)
+					.getId());
+		}
+		// expired for the sweep, but not yet for the commits
+		final Instant expiration = Instant.now()
+				.plus(Duration.ofDays(1));
+
+		final int committed = runConcurrently(quantity + 1, i -> () -> {
+			if (i == quantity) {
+				reservationService.sweep(expiration);
+				return 0;
+			}
+			try {
+				reservationService.commit(ids.get(i));
+				return 1;
+			} catch (final ReservationNotFoundException e) {
+				return 0;
+			}
+		});
+
+		assertThat(read(beer).getQuantity()).isEqualTo(quantity - committed);
+		assertThat(read(beer).getReserved()).isZero();
+		assertThat(reservationRepository.count()).isZero();
+	}
+
+	private Beer saveBeer(final int quantity) {
+		final Beer beer = BeerTestsUtil.createBeer();
+		beer.setId(null);
+		beer.setName(BeerTestsUtil.BEER_NAME + UUID.randomUUID());
+		beer.setMax(quantity);
+		beer.setQuantity(quantity);
+		beerNameIndex.add(beer.getName());
+		return beerRepository.save(beer);
+	}
+
+	private Beer read(final Beer beer) {
+		return beerRepository.findById(beer.getId())
+				.orElseThrow(IllegalStateException::new);
+	}
+
+	/**
+	 * Runs the tasks released at the same time by a pool of threads.
+	 *
+	 * @return the sum of the values returned by the tasks
+	 */
+	private int runConcurrently(final int tasks, final IntFunction<Callable<Integer>> taskFactory) throws Exception {
+		final ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+		final CountDownLatch start = new CountDownLatch(1);
+		try {
+			final List<Future<Integer>> futures = new ArrayList<>();
+			for (int i = 0; i < tasks; i++) {
+				final Callable<Integer> task = taskFactory.apply(i);
+				futures.add(executor.submit(() -> {
+					start.await();
+					return task.call();
+				}));
+			}
+			start.countDown();
+
+			int sum = 0;
+			for (final Future<Integer> future : futures) {
+				sum += future.get(30, TimeUnit.SECONDS);
+			}
+			return sum;
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+}
@@ -0,0 +1,147 @@
+package com.aduilio.beerstock.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.aduilio.beerstock.dto.BeerDto;
+import com.aduilio.beerstock.dto.BeerPageDto;
+import com.aduilio.beerstock.enums.BeerExportFormat;
+import com.aduilio.beerstock.enums.BeerSort;
+import com.aduilio.beerstock.exception.BeerAlreadyRegisteredException;
+import com.aduilio.beerstock.exception.BeerExceedStockException;
+import com.aduilio.beerstock.exception.BeerNegativeStockException;
+import com.aduilio.beerstock.exception.BeerNotFoundException;
+import com.aduilio.beerstock.shard.Shards;
+import com.aduilio.beerstock.utils.BeerTestsUtil;
+
+@SpringBootTest(properties = "beerstock.sharding.fetch-size=4")
+@ActiveProfiles("sharded")
+class ShardedBeerServiceTest {
+
+	private static final int BEERS = 30;
+
+	@Autowired
+	private ShardedBeerService shardedBeerService;
+
+	@Autowired
+	private Shards shards;
+
+	@AfterEach
+	void cleanup() {
+		for (int shard = 0; shard < shards.count(); shard++) {
+			shards.get(shard)
+					.getJdbcTemplate()
+					.execute("delete from beer; delete from beer_name");
+		}
+	}
+
+	@Test
+	void createShouldStoreTheBeerInItsShard() throws Exception {
+		final Long id = shardedBeerService.create(BeerTestsUtil.createBeerDto());
+
+		final BeerDto beerDto = shardedBeerService.readByName(BeerTestsUtil.BEER_NAME);
+
+		assertThat(beerDto.getId()).isEqualTo(id);
+		assertThat(beerDto.getQuantity()).isEqualTo(BeerTestsUtil.BEER_QTT);
+		assertThat(shards.get(shards.ofId(id))
+				.getJdbcTemplate()
+				.queryForObject("select count(*) from beer", Integer.class)).isEqualTo(1);
+		assertThrows(BeerAlreadyRegisteredException.class,
+				() -> shardedBeerService.create(BeerTestsUtil.createBeerDto()));
+	}
+
+	@Test
+	void readByNameWithInvalidNameShouldThrowException() {
+		assertThrows(BeerNotFoundException.class, () -> shardedBeerService.readByName("missing"));
+	}
+
+	@Test
+	void stockShouldChangeTheQuantityWithinTheLimits() throws Exception {
+		final Long id = shardedBeerService.create(BeerTestsUtil.createBeerDto());
+
+		assertThat(shardedBeerService.stock(id, 3)
+				.getQuantity()).isEqualTo(BeerTestsUtil.BEER_QTT + 3);
+		assertThrows(BeerExceedStockException.class, () -> shardedBeerService.stock(id, BeerTestsUtil.BEER_MAX));
+		assertThrows(BeerNegativeStockException.class, () -> shardedBeerService.stock(id, -BeerTestsUtil.BEER_MAX));
+		assertThrows(BeerExceedStockException.class, () -> shardedBeerService.stock(id, Integer.MAX_VALUE));
+		assertThrows(BeerNegativeStockException.class, () -> shardedBeerService.stock(id, Integer.MIN_VALUE));
+		assertThrows(BeerNotFoundException.class, () -> shardedBeerService.stock(id + 1, 1));
+	}
+
+	@Test
+	void deleteShouldReleaseTheName() throws Exception {
+		final Long id = shardedBeerService.create(BeerTestsUtil.createBeerDto());
+
+		shardedBeerService.delete(id);
+
+		assertThrows(BeerNotFoundException.class, () -> shardedBeerService.readByName(BeerTestsUtil.BEER_NAME));
+		assertThrows(BeerNotFoundException.class, () -> shardedBeerService.delete(id));
+		assertThat(shardedBeerService.create(BeerTestsUtil.createBeerDto())).isNotEqualTo(id);
+	}
+
+	@Test
+	void listShouldMergeThePagesOfTheShards() throws Exception {
+		final List<Long> ids = createBeers();
+
+		for (final BeerSort sort : BeerSort.values()) {
+			final List<BeerDto> beers = new ArrayList<>();
+			String cursor = null;
+			do {
+				final BeerPageDto page = shardedBeerService.list(cursor, 7, sort);
+				beers.addAll(page.getContent());
+				cursor = page.getNext();
+			} while (cursor != null);
+
+			assertThat(beers).extracting(BeerDto::getId)
+					.containsExactlyInAnyOrderElementsOf(ids);
+			assertThat(beers).isSortedAccordingTo(sort == BeerSort.NAME
+					? (first, second) -> first.getName()
+							.compareTo(second.getName())
+					: sort == BeerSort.QUANTITY ? (first, second) -> first.getQuantity() - second.getQuantity()
+							: (first, second) -> Long.compare(first.getId(), second.getId()));
+		}
+	}
+
+	@Test
+	void exportShouldWriteAllTheBeersOrderedById() throws Exception {
+		final List<Long> ids = createBeers();
+		final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+		final long count = shardedBeerService.export(BeerExportFormat.CSV, outputStream);
+
+		final List<String> lines = new String(outputStream.toByteArray(), StandardCharsets.UTF_8).lines()
+				.collect(Collectors.toList());
+		assertThat(count).isEqualTo(BEERS);
+		assertThat(lines.get(0)).isEqualTo(BeerExportService.CSV_HEADER);
+		assertThat(lines.subList(1, lines.size())).extracting(line -> Long.valueOf(line.split(",")[0]))
+				.containsExactlyElementsOf(ids);
+	}
+
+	/**
+	 * Creates more beers than the fetch size in each shard.
+	 */
+	private List<Long> createBeers() throws BeerAlreadyRegisteredException {
+		final List<Long> ids = new ArrayList<>();
+		for (final int i : IntStream.range(0, BEERS)
+				.toArray()) {
+			final BeerDto beerDto = BeerTestsUtil.createBeerDto();
+			beerDto.setName(BeerTestsUtil.BEER_NAME + (BEERS - i));
+			beerDto.setQuantity(i % 5);
+			ids.add(shardedBeerService.create(beerDto));
+		}
+		return ids;
+	}
+}
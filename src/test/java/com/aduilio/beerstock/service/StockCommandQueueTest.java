@@ -0,0 +1,119 @@
+package com.aduilio.beerstock.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.QueryTimeoutException;
+
+import com.aduilio.beerstock.config.BeerstockProperties;
+import com.aduilio.beerstock.dto.StockCommandDto;
+import com.aduilio.beerstock.dto.StockItemDto;
+import com.aduilio.beerstock.dto.StockItemResultDto;
+import com.aduilio.beerstock.enums.StockBatchMode;
+import com.aduilio.beerstock.enums.StockItemStatus;
+import com.aduilio.beerstock.exception.BeerNegativeStockException;
+import com.aduilio.beerstock.exception.StockCommandNotFoundException;
+import com.aduilio.beerstock.exception.StockQueueFullException;
+import com.aduilio.beerstock.utils.BeerTestsUtil;
+
+@ExtendWith(MockitoExtension.class)
+class StockCommandQueueTest {
+
+	@Mock
+	private BeerService beerServiceMock;
+
+	private StockCommandQueue stockCommandQueue;
+
+	@BeforeEach
+	void setup() {
+		final BeerstockProperties beerstockProperties = new BeerstockProperties();
+		beerstockProperties.getStock()
+				.getCommandQueue()
+				.setCapacity(2);
+		// the worker is not started, the commands are applied by the tests
+		stockCommandQueue = new StockCommandQueue(beerServiceMock, beerstockProperties);
+	}
+
+	@Test
+	void enqueueShouldReturnPendingCommand() throws Exception {
+		final StockCommandDto command = stockCommandQueue.enqueue(BeerTestsUtil.BEER_ID, 1);
+
+		assertThat(command.getStatus()).isEqualTo(StockItemStatus.PENDING);
+		assertThat(stockCommandQueue.read(command.getId())).isEqualTo(command);
+	}
+
+	@Test
+	void readWithMoreCommandsPendingThanResultsKeptShouldReturnThemAll() throws Exception {
+		final BeerstockProperties beerstockProperties = new BeerstockProperties();
+		beerstockProperties.getStock()
+				.getCommandQueue()
+				.setResultMaxSize(1);
+		final StockCommandQueue queue = new StockCommandQueue(beerServiceMock, beerstockProperties);
+		final List<StockCommandDto> commands = new ArrayList<>();
+		for (int i = 0; i < 100; i++) {
+			commands.add(queue.enqueue(BeerTestsUtil.BEER_ID, 1));
+		}
+
+		for (final StockCommandDto command : commands) {
+			assertThat(queue.read(command.getId())
+					.getStatus()).isEqualTo(StockItemStatus.PENDING);
+		}
+	}
+
+	@Test
+	void enqueueWithFullQueueShouldThrowException() throws Exception {
+		stockCommandQueue.enqueue(BeerTestsUtil.BEER_ID, 1);
+		stockCommandQueue.enqueue(BeerTestsUtil.BEER_ID, 1);
+
+		assertThrows(StockQueueFullException.class, () -> stockCommandQueue.enqueue(BeerTestsUtil.BEER_ID, 1));
+	}
+
+	@Test
+	void applyWaitingShouldApplyTheCommandsInOneBatch() throws Exception {
+		final StockCommandDto first = stockCommandQueue.enqueue(BeerTestsUtil.BEER_ID, 1);
+		final StockCommandDto second = stockCommandQueue.enqueue(BeerTestsUtil.BEER_ID, -5);
+		final List<StockItemDto> items = Arrays.asList(new StockItemDto(BeerTestsUtil.BEER_ID, 1),
+				new StockItemDto(BeerTestsUtil.BEER_ID, -5));
+
+		when(beerServiceMock.stock(items, StockBatchMode.BEST_EFFORT))
+				.thenReturn(Arrays.asList(StockItemResultDto.of(items.get(0), StockItemStatus.APPLIED),
+						StockItemResultDto.of(items.get(1), new BeerNegativeStockException(-5))));
+
+		assertThat(stockCommandQueue.applyWaiting()).isEqualTo(2);
+
+		assertThat(stockCommandQueue.read(first.getId())
+				.getStatus()).isEqualTo(StockItemStatus.APPLIED);
+		assertThat(stockCommandQueue.read(second.getId())
+				.getStatus()).isEqualTo(StockItemStatus.NEGATIVE_STOCK);
+		verify(beerServiceMock).stock(items, StockBatchMode.BEST_EFFORT);
+	}
+
+	@Test
+	void applyWaitingWithDatabaseErrorShouldFailTheCommands() throws Exception {
+		final StockCommandDto command = stockCommandQueue.enqueue(BeerTestsUtil.BEER_ID, 1);
+
+		when(beerServiceMock.stock(Arrays.asList(new StockItemDto(BeerTestsUtil.BEER_ID, 1)),
+				StockBatchMode.BEST_EFFORT)).thenThrow(new QueryTimeoutException("timeout"));
+
+		stockCommandQueue.applyWaiting();
+
+		assertThat(stockCommandQueue.read(command.getId())
+				.getStatus()).isEqualTo(StockItemStatus.FAILED);
+	}
+
+	@Test
+	void readWithInvalidIdShouldThrowException() {
+		assertThrows(StockCommandNotFoundException.class, () -> stockCommandQueue.read("missing"));
+	}
+}
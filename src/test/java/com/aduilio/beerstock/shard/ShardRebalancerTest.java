@@ -0,0 +1,77 @@
+package com.aduilio.beerstock.shard;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.aduilio.beerstock.config.BeerstockProperties;
+import com.aduilio.beerstock.dto.BeerDto;
+import com.aduilio.beerstock.repository.ShardedBeerRepository;
+import com.aduilio.beerstock.service.ShardedBeerService;
+import com.aduilio.beerstock.utils.BeerTestsUtil;
+
+@SpringBootTest(properties = "beerstock.sharding.fetch-size=4")
+@ActiveProfiles("sharded")
+class ShardRebalancerTest {
+
+	private static final int BEERS = 30;
+
+	@Autowired
+	private ShardRebalancer shardRebalancer;
+
+	@Autowired
+	private ShardedBeerService shardedBeerService;
+
+	@Autowired
+	private Shards shards;
+
+	@Autowired
+	private BeerstockProperties beerstockProperties;
+
+	@AfterEach
+	void cleanup() {
+		for (int shard = 0; shard < shards.count(); shard++) {
+			shards.get(shard)
+					.getJdbcTemplate()
+					.execute("delete from beer; delete from beer_name");
+		}
+	}
+
+	@Test
+	void rebalanceShouldMoveTheBeersToTheNewShard() throws Exception {
+		// the beers are created while there were only two shards, not closed
+		// since the pools are shared
+		final ShardedBeerRepository before = new ShardedBeerRepository(
+				new Shards(Arrays.asList(shards.dataSource(0), shards.dataSource(1))), beerstockProperties);
+		final List<Long> ids = new ArrayList<>();
+		for (int i = 0; i < BEERS; i++) {
+			final BeerDto beerDto = BeerTestsUtil.createBeerDto();
+			beerDto.setName(BeerTestsUtil.BEER_NAME + i);
+			ids.add(before.insert(beerDto));
+		}
+
+		final long moved = shardRebalancer.rebalance(2);
+
+		assertThat(moved).isPositive();
+		assertThat(count(2, "beer") + count(2, "beer_name")).isEqualTo(moved);
+		for (int i = 0; i < BEERS; i++) {
+			assertThat(shardedBeerService.readByName(BeerTestsUtil.BEER_NAME + i)
+					.getId()).isEqualTo(ids.get(i));
+		}
+		assertThat(shardRebalancer.rebalance(3)).isZero();
+	}
+
+	private long count(final int shard, final String table) {
+		return shards.get(shard)
+				.getJdbcTemplate()
+				.queryForObject("select count(*) from " + table, Long.class);
+	}
+}
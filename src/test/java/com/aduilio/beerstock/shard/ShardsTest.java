@@ -0,0 +1,41 @@
+package com.aduilio.beerstock.shard;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+
+class ShardsTest {
+
+	private static final int KEYS = 100_000;
+
+	@Test
+	void jumpShouldSpreadTheKeysAcrossTheBuckets() {
+		final int[] counts = new int[4];
+		for (long key = 0; key < KEYS; key++) {
+			final int bucket = Shards.jump(key * 0x9e3779b97f4a7c15L, counts.length);
+			assertThat(bucket).isBetween(0, counts.length - 1);
+			counts[bucket]++;
+		}
+
+		for (final int count : counts) {
+			assertThat(count).isBetween(KEYS / counts.length * 9 / 10, KEYS / counts.length * 11 / 10);
+		}
+	}
+
+	@Test
+	void jumpWithOneMoreBucketShouldOnlyMoveKeysToTheNewBucket() {
+		int moved = 0;
+		for (long key = 0; key < KEYS; key++) {
+			final long hash = key * 0x9e3779b97f4a7c15L;
+			final int before = Shards.jump(hash, 3);
+			final int after = Shards.jump(hash, 4);
+			if (before != after) {
+				assertThat(after).isEqualTo(3);
+				moved++;
+			}
+		}
+
+		// about a quarter of the keys
+		assertThat(moved).isBetween(KEYS / 4 * 9 / 10, KEYS / 4 * 11 / 10);
+	}
+}
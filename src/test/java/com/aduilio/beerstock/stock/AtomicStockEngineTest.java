@@ -0,0 +1,176 @@
+package com.aduilio.beerstock.stock;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import com.aduilio.beerstock.dto.StockItemDto;
+import com.aduilio.beerstock.dto.StockItemResultDto;
+import com.aduilio.beerstock.entity.Beer;
+import com.aduilio.beerstock.enums.StockBatchMode;
+import com.aduilio.beerstock.enums.StockItemStatus;
+import com.aduilio.beerstock.exception.BeerExceedStockException;
+import com.aduilio.beerstock.exception.BeerNegativeStockException;
+import com.aduilio.beerstock.exception.BeerNotFoundException;
+import com.aduilio.beerstock.repository.BeerRepository;
+import com.aduilio.beerstock.repository.StockBatchRepository;
+import com.aduilio.beerstock.utils.BeerTestsUtil;
+
+@ExtendWith(MockitoExtension.class)
+class AtomicStockEngineTest {
+
+	@Mock
+	private BeerRepository beerRepositoryMock;
+
+	@Mock
+	private StockBatchRepository stockBatchRepositoryMock;
+
+	@InjectMocks
+	private AtomicStockEngine atomicStockEngine;
+
+	@Test
+	void stockWithValidValueShouldReturnIncremented()
+			throws BeerNotFoundException, BeerExceedStockException, BeerNegativeStockException {
+		final Beer expected = BeerTestsUtil.createBeer();
+		expected.increment(1);
+
+		when(beerRepositoryMock.incrementQuantity(BeerTestsUtil.BEER_ID, 1)).thenReturn(1);
+		when(beerRepositoryMock.findById(BeerTestsUtil.BEER_ID)).thenReturn(Optional.of(expected));
+
+		final Beer result = atomicStockEngine.stock(BeerTestsUtil.BEER_ID, 1);
+
+		assertThat(result).isEqualTo(expected);
+		verify(beerRepositoryMock, never()).save(any(Beer.class));
+	}
+
+	@Test
+	void stockWithConcurrentChangeShouldRetry()
+			throws BeerNotFoundException, BeerExceedStockException, BeerNegativeStockException {
+		final Beer expected = BeerTestsUtil.createBeer();
+		expected.increment(1);
+
+		when(beerRepositoryMock.incrementQuantity(BeerTestsUtil.BEER_ID, 1)).thenReturn(0, 1);
+		when(beerRepositoryMock.findById(BeerTestsUtil.BEER_ID)).thenReturn(Optional.of(BeerTestsUtil.createBeer()))
+				.thenReturn(Optional.of(expected));
+
+		final Beer result = atomicStockEngine.stock(BeerTestsUtil.BEER_ID, 1);
+
+		assertThat(result).isEqualTo(expected);
+		verify(beerRepositoryMock, times(2)).incrementQuantity(BeerTestsUtil.BEER_ID, 1);
+	}
+
+	@Test
+	void stockWithInvalidIdShouldThrowException() {
+		when(beerRepositoryMock.findById(BeerTestsUtil.BEER_ID)).thenReturn(Optional.empty());
+
+		final BeerNotFoundException exception = assertThrows(BeerNotFoundException.class,
+				() -> atomicStockEngine.stock(BeerTestsUtil.BEER_ID, 10));
+
+		assertThat(exception.getMessage()).isEqualTo("Invalid id " + BeerTestsUtil.BEER_ID);
+	}
+
+	@Test
+	void stockWithExceedValueShouldThrowException() {
+		final Beer beer = BeerTestsUtil.createBeer();
+
+		when(beerRepositoryMock.findById(BeerTestsUtil.BEER_ID)).thenReturn(Optional.of(beer));
+
+		final BeerExceedStockException exception = assertThrows(BeerExceedStockException.class,
+				() -> atomicStockEngine.stock(BeerTestsUtil.BEER_ID, beer.getMax()));
+
+		assertThat(exception.getMessage())
+				.isEqualTo("Space available for " + (beer.getMax() - beer.getQuantity()) + " beer(s)");
+	}
+
+	@Test
+	void stockWithNegativeValueShouldThrowException() {
+		final Beer beer = BeerTestsUtil.createBeer();
+
+		when(beerRepositoryMock.findById(BeerTestsUtil.BEER_ID)).thenReturn(Optional.of(beer));
+
+		final BeerNegativeStockException exception = assertThrows(BeerNegativeStockException.class,
+				() -> atomicStockEngine.stock(BeerTestsUtil.BEER_ID, -beer.getMax()));
+
+		assertThat(exception.getMessage()).isEqualTo("Only available " + beer.getQuantity() + " beer(s)");
+	}
+
+	@Test
+	void stockWithValidItemsShouldWriteBatch() {
+		final Beer other = BeerTestsUtil.createBeer();
+		other.setId(BeerTestsUtil.BEER_ID + 1);
+
+		when(beerRepositoryMock.findAllForUpdate(new HashSet<>(Arrays.asList(BeerTestsUtil.BEER_ID, other.getId()))))
+				.thenReturn(Arrays.asList(BeerTestsUtil.createBeer(), other));
+
+		final List<StockItemResultDto> results = atomicStockEngine.stock(
+				Arrays.asList(item(BeerTestsUtil.BEER_ID, 1), item(other.getId(), -1), item(BeerTestsUtil.BEER_ID, 2)),
+				StockBatchMode.ALL_OR_NOTHING);
+
+		assertThat(results).extracting(StockItemResultDto::getStatus)
+				.containsExactly(StockItemStatus.APPLIED, StockItemStatus.APPLIED, StockItemStatus.APPLIED);
+
+		final Map<Long, Integer> expected = new HashMap<>();
+		expected.put(BeerTestsUtil.BEER_ID, BeerTestsUtil.BEER_QTT + 3);
+		expected.put(other.getId(), BeerTestsUtil.BEER_QTT - 1);
+		verify(stockBatchRepositoryMock, times(1)).updateQuantities(expected);
+	}
+
+	@Test
+	void stockWithInvalidItemAndAllOrNothingShouldRollBack() {
+		when(beerRepositoryMock.findAllForUpdate(Collections.singleton(BeerTestsUtil.BEER_ID)))
+				.thenReturn(Collections.singletonList(BeerTestsUtil.createBeer()));
+
+		final List<StockItemResultDto> results = atomicStockEngine.stock(
+				Arrays.asList(item(BeerTestsUtil.BEER_ID, 1), item(BeerTestsUtil.BEER_ID, BeerTestsUtil.BEER_MAX)),
+				StockBatchMode.ALL_OR_NOTHING);
+
+		assertThat(results).extracting(StockItemResultDto::getStatus)
+				.containsExactly(StockItemStatus.ROLLED_BACK, StockItemStatus.EXCEED_STOCK);
+		assertThat(results.get(1)
+				.getMessage()).isEqualTo(
+						"Space available for " + (BeerTestsUtil.BEER_MAX - BeerTestsUtil.BEER_QTT - 1) + " beer(s)");
+		verify(stockBatchRepositoryMock, never()).updateQuantities(any());
+	}
+
+	@Test
+	void stockWithInvalidItemsAndBestEffortShouldWriteValidOnes() {
+		final Long unknownId = BeerTestsUtil.BEER_ID + 1;
+
+		when(beerRepositoryMock.findAllForUpdate(new HashSet<>(Arrays.asList(BeerTestsUtil.BEER_ID, unknownId))))
+				.thenReturn(Collections.singletonList(BeerTestsUtil.createBeer()));
+
+		final List<StockItemResultDto> results = atomicStockEngine.stock(Arrays.asList(item(unknownId, 1),
+				item(BeerTestsUtil.BEER_ID, -BeerTestsUtil.BEER_MAX), item(BeerTestsUtil.BEER_ID, -1)),
+				StockBatchMode.BEST_EFFORT);
+
+		assertThat(results).extracting(StockItemResultDto::getStatus)
+				.containsExactly(StockItemStatus.NOT_FOUND, StockItemStatus.NEGATIVE_STOCK, StockItemStatus.APPLIED);
+		verify(stockBatchRepositoryMock, times(1))
+				.updateQuantities(Collections.singletonMap(BeerTestsUtil.BEER_ID, BeerTestsUtil.BEER_QTT - 1));
+	}
+
+	private static StockItemDto item(final Long id, final int quantity) {
+		return StockItemDto.builder()
+				.id(id)
+				.quantity(quantity)
+				.build();
+	}
+}
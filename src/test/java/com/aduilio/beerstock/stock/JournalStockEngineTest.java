@@ -0,0 +1,216 @@
+package com.aduilio.beerstock.stock;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import com.aduilio.beerstock.dto.BeerDto;
+import com.aduilio.beerstock.dto.StockItemDto;
+import com.aduilio.beerstock.dto.StockItemResultDto;
+import com.aduilio.beerstock.dto.StockMovementDto;
+import com.aduilio.beerstock.entity.Beer;
+import com.aduilio.beerstock.enums.StockBatchMode;
+import com.aduilio.beerstock.enums.StockItemStatus;
+import com.aduilio.beerstock.exception.BeerExceedStockException;
+import com.aduilio.beerstock.exception.BeerNegativeStockException;
+import com.aduilio.beerstock.exception.BeerNotFoundException;
+import com.aduilio.beerstock.index.BeerNameIndex;
+import com.aduilio.beerstock.mapper.BeerMapper;
+import com.aduilio.beerstock.repository.BeerRepository;
+import com.aduilio.beerstock.repository.StockMovementRepository;
+import com.aduilio.beerstock.repository.StockSnapshotRepository;
+import com.aduilio.beerstock.utils.BeerTestsUtil;
+
+@SpringBootTest(properties = { "beerstock.stock.engine=journal",
+		"beerstock.stock.journal.compact-interval=3600000" })
+class JournalStockEngineTest {
+
+	@Autowired
+	private JournalStockEngine journalStockEngine;
+
+	@Autowired
+	private BeerRepository beerRepository;
+
+	@Autowired
+	private StockMovementRepository stockMovementRepository;
+
+	@Autowired
+	private StockSnapshotRepository stockSnapshotRepository;
+
+	@Autowired
+	private BeerNameIndex beerNameIndex;
+
+	@AfterEach
+	void cleanup() {
+		stockMovementRepository.deleteAll();
+		stockSnapshotRepository.deleteAll();
+		beerRepository.deleteAll();
+	}
+
+	@Test
+	void stockShouldAppendMovementsWithoutChangingTheBeer() throws Exception {
+		final Beer beer = saveBeer();
+
+		assertThat(journalStockEngine.stock(beer.getId(), 3)
+				.getQuantity()).isEqualTo(BeerTestsUtil.BEER_QTT + 3);
+		assertThat(journalStockEngine.stock(beer.getId(), -1)
+				.getQuantity()).isEqualTo(BeerTestsUtil.BEER_QTT + 2);
+
+		assertThat(read(beer).getQuantity()).isEqualTo(BeerTestsUtil.BEER_QTT);
+		assertThat(journalStockEngine.history(beer.getId(), 0, null)).extracting(StockMovementDto::getSequence,
+				StockMovementDto::getDelta)
+				.containsExactly(tuple(1L, 3), tuple(2L, -1));
+	}
+
+	@Test
+	void stockShouldKeepTheBounds() {
+		final Beer beer = saveBeer();
+
+		assertThrows(BeerExceedStockException.class,
+				() -> journalStockEngine.stock(beer.getId(), BeerTestsUtil.BEER_MAX));
+		assertThrows(BeerNegativeStockException.class,
+				() -> journalStockEngine.stock(beer.getId(), -BeerTestsUtil.BEER_MAX));
+		assertThrows(BeerNotFoundException.class, () -> journalStockEngine.stock(BeerTestsUtil.BEER_ID, 1));
+		assertThat(stockMovementRepository.count()).isZero();
+	}
+
+	@Test
+	void compactShouldWriteTheSnapshotAndTheQuantity() throws Exception {
+		final Beer beer = saveBeer();
+		journalStockEngine.stock(beer.getId(), 3);
+
+		journalStockEngine.compact();
+
+		assertThat(read(beer).getQuantity()).isEqualTo(BeerTestsUtil.BEER_QTT + 3);
+		assertThat(stockSnapshotRepository.findById(beer.getId())
+				.map(snapshot -> snapshot.getSequence())).contains(1L);
+
+		assertThat(journalStockEngine.stock(beer.getId(), -2)
+				.getQuantity()).isEqualTo(BeerTestsUtil.BEER_QTT + 1);
+		journalStockEngine.compact();
+
+		assertThat(read(beer).getQuantity()).isEqualTo(BeerTestsUtil.BEER_QTT + 1);
+		assertThat(journalStockEngine.history(beer.getId(), 1, 10)).extracting(StockMovementDto::getDelta)
+				.containsExactly(-2);
+	}
+
+	@Test
+	void withPendingStockShouldApplyTheMovementsToTheQuantityAndTheVersion() throws Exception {
+		final Beer beer = saveBeer();
+		final BeerDto initial = journalStockEngine.withPendingStock(dtoOf(beer));
+
+		journalStockEngine.stock(beer.getId(), 3);
+		final BeerDto appended = journalStockEngine.withPendingStock(dtoOf(beer));
+		journalStockEngine.compact();
+		final BeerDto compacted = journalStockEngine.withPendingStock(dtoOf(read(beer)));
+		journalStockEngine.stock(beer.getId(), -1);
+		final BeerDto appendedAgain = journalStockEngine.withPendingStock(dtoOf(read(beer)));
+
+		assertThat(initial.getQuantity()).isEqualTo(BeerTestsUtil.BEER_QTT);
+		assertThat(appended.getQuantity()).isEqualTo(BeerTestsUtil.BEER_QTT + 3);
+		assertThat(compacted.getQuantity()).isEqualTo(BeerTestsUtil.BEER_QTT + 3);
+		assertThat(appendedAgain.getQuantity()).isEqualTo(BeerTestsUtil.BEER_QTT + 2);
+		assertThat(Arrays.asList(initial, appended, compacted, appendedAgain)).extracting(BeerDto::getVersion)
+				.isSorted()
+				.doesNotHaveDuplicates();
+	}
+
+	@Test
+	void stockBatchWithAllOrNothingShouldAppendEveryItemOrNone() throws Exception {
+		final Beer first = saveBeer();
+		final Beer second = saveBeer();
+
+		final List<StockItemResultDto> applied = journalStockEngine.stock(
+				Arrays.asList(new StockItemDto(first.getId(), 1), new StockItemDto(first.getId(), 2),
+						new StockItemDto(second.getId(), -1)),
+				StockBatchMode.ALL_OR_NOTHING);
+		final List<StockItemResultDto> rejected = journalStockEngine.stock(
+				Arrays.asList(new StockItemDto(second.getId(), 1),
+						new StockItemDto(first.getId(), BeerTestsUtil.BEER_MAX)),
+				StockBatchMode.ALL_OR_NOTHING);
+
+		assertThat(applied).extracting(StockItemResultDto::getStatus)
+				.containsOnly(StockItemStatus.APPLIED);
+		assertThat(rejected).extracting(StockItemResultDto::getStatus)
+				.containsExactly(StockItemStatus.ROLLED_BACK, StockItemStatus.EXCEED_STOCK);
+		assertThat(journalStockEngine.history(first.getId(), 0, null)).extracting(StockMovementDto::getSequence,
+				StockMovementDto::getDelta)
+				.containsExactly(tuple(1L, 1), tuple(2L, 2));
+		assertThat(journalStockEngine.history(second.getId(), 0, null)).extracting(StockMovementDto::getDelta)
+				.containsExactly(-1);
+	}
+
+	@Test
+	void stockWithConcurrentChangesShouldNotLoseMovements() throws Exception {
+		final Beer beer = saveBeer();
+		final int threads = 8;
+		final int operations = 200;
+		final ExecutorService executor = Executors.newFixedThreadPool(threads);
+		final CountDownLatch start = new CountDownLatch(1);
+		try {
+			final List<Future<Integer>> futures = new ArrayList<>();
+			for (int i = 0; i < operations; i++) {
+				final int quantity = i % 3 == 0 ? -1 : 1;
+				futures.add(executor.submit(() -> {
+					start.await();
+					if (quantity < 0) {
+						journalStockEngine.compact();
+					}
+					try {
+						journalStockEngine.stock(beer.getId(), quantity);
+						return quantity;
+					} catch (final BeerExceedStockException | BeerNegativeStockException e) {
+						return 0;
+					}
+				}));
+			}
+			start.countDown();
+
+			int applied = 0;
+			for (final Future<Integer> future : futures) {
+				applied += future.get(30, TimeUnit.SECONDS);
+			}
+
+			final int expected = BeerTestsUtil.BEER_QTT + applied;
+			assertThat(expected).isBetween(0, BeerTestsUtil.BEER_MAX);
+			assertThat(journalStockEngine.stock(beer.getId(), 0)
+					.getQuantity()).isEqualTo(expected);
+			journalStockEngine.compact();
+			assertThat(read(beer).getQuantity()).isEqualTo(expected);
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	private Beer saveBeer() {
+		final Beer beer = BeerTestsUtil.createBeer();
+		beer.setId(null);
+		beer.setName(BeerTestsUtil.BEER_NAME + UUID.randomUUID());
+		beerNameIndex.add(beer.getName());
+		return beerRepository.save(beer);
+	}
+
+	private BeerDto dtoOf(final Beer beer) {
+		return BeerMapper.INSTANCE.mapBeerDtoFrom(beer);
+	}
+
+	private Beer read(final Beer beer) {
+		return beerRepository.findById(beer.getId())
+				.orElseThrow(IllegalStateException::new);
+	}
+}
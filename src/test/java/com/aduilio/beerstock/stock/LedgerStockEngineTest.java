@@ -0,0 +1,257 @@
+package com.aduilio.beerstock.stock;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.aduilio.beerstock.dto.BeerDto;
+import com.aduilio.beerstock.dto.StockItemDto;
+import com.aduilio.beerstock.dto.StockItemResultDto;
+import com.aduilio.beerstock.entity.Beer;
+import com.aduilio.beerstock.enums.BeerChangeType;
+import com.aduilio.beerstock.enums.StockBatchMode;
+import com.aduilio.beerstock.enums.StockItemStatus;
+import com.aduilio.beerstock.event.BeerChangedEvent;
+import com.aduilio.beerstock.exception.BeerExceedStockException;
+import com.aduilio.beerstock.exception.BeerNegativeStockException;
+import com.aduilio.beerstock.exception.BeerNotFoundException;
+import com.aduilio.beerstock.exception.StockBatchModeNotSupportedException;
+import com.aduilio.beerstock.repository.BeerRepository;
+import com.aduilio.beerstock.utils.BeerTestsUtil;
+
+@ExtendWith(MockitoExtension.class)
+class LedgerStockEngineTest {
+
+	@Mock
+	private BeerRepository beerRepositoryMock;
+
+	@Mock
+	private ApplicationEventPublisher eventPublisherMock;
+
+	private LedgerStockEngine ledgerStockEngine;
+
+	@BeforeEach
+	void setup() {
+		ledgerStockEngine = new LedgerStockEngine(beerRepositoryMock,
+				new TransactionTemplate(mock(PlatformTransactionManager.class)), eventPublisherMock);
+
+		when(beerRepositoryMock.findAll()).thenReturn(Collections.singletonList(BeerTestsUtil.createBeer()));
+		ledgerStockEngine.recover();
+	}
+
+	@Test
+	void stockWithValidValueShouldNotWriteUntilFlush()
+			throws BeerNotFoundException, BeerExceedStockException, BeerNegativeStockException {
+		final Beer result = ledgerStockEngine.stock(BeerTestsUtil.BEER_ID, 1);
+
+		assertThat(result.getQuantity()).isEqualTo(BeerTestsUtil.BEER_QTT + 1);
+		assertThat(result.getName()).isEqualTo(BeerTestsUtil.BEER_NAME);
+		verify(beerRepositoryMock, never()).incrementQuantity(anyLong(), anyInt());
+	}
+
+	@Test
+	void flushShouldWriteAccumulatedDelta()
+			throws BeerNotFoundException, BeerExceedStockException, BeerNegativeStockException {
+		ledgerStockEngine.stock(BeerTestsUtil.BEER_ID, 3);
+		ledgerStockEngine.stock(BeerTestsUtil.BEER_ID, -1);
+
+		when(beerRepositoryMock.incrementQuantity(BeerTestsUtil.BEER_ID, 2)).thenReturn(1);
+
+		ledgerStockEngine.flush();
+		ledgerStockEngine.flush();
+
+		verify(beerRepositoryMock, times(1)).incrementQuantity(BeerTestsUtil.BEER_ID, 2);
+		verify(eventPublisherMock, times(1))
+				.publishEvent(new BeerChangedEvent(BeerTestsUtil.BEER_ID, null, BeerChangeType.STOCK));
+	}
+
+	@Test
+	void flushWithRejectedDeltaShouldKeepItWithoutPublishingEvent()
+			throws BeerNotFoundException, BeerExceedStockException, BeerNegativeStockException {
+		ledgerStockEngine.stock(BeerTestsUtil.BEER_ID, 1);
+
+		when(beerRepositoryMock.incrementQuantity(BeerTestsUtil.BEER_ID, 1)).thenReturn(0)
+				.thenReturn(1);
+
+		ledgerStockEngine.flush();
+		verify(eventPublisherMock, never()).publishEvent(any(BeerChangedEvent.class));
+		assertThat(ledgerStockEngine.stock(BeerTestsUtil.BEER_ID, 0)
+				.getQuantity()).isEqualTo(BeerTestsUtil.BEER_QTT + 1);
+		ledgerStockEngine.flush();
+
+		verify(beerRepositoryMock, times(2)).incrementQuantity(BeerTestsUtil.BEER_ID, 1);
+		verify(eventPublisherMock, times(1))
+				.publishEvent(new BeerChangedEvent(BeerTestsUtil.BEER_ID, null, BeerChangeType.STOCK));
+	}
+
+	@Test
+	void withPendingStockShouldReturnTheQuantityOfTheLedger()
+			throws BeerNotFoundException, BeerExceedStockException, BeerNegativeStockException {
+		final BeerDto read = BeerTestsUtil.createBeerDto();
+		read.setVersion(0L);
+
+		final BeerDto initial = ledgerStockEngine.withPendingStock(read);
+		ledgerStockEngine.stock(BeerTestsUtil.BEER_ID, 2);
+		final BeerDto changed = ledgerStockEngine.withPendingStock(read);
+		ledgerStockEngine.stock(BeerTestsUtil.BEER_ID, -2);
+		final BeerDto changedBack = ledgerStockEngine.withPendingStock(read);
+
+		assertThat(initial.getQuantity()).isEqualTo(BeerTestsUtil.BEER_QTT);
+		assertThat(changed.getQuantity()).isEqualTo(BeerTestsUtil.BEER_QTT + 2);
+		assertThat(changedBack.getQuantity()).isEqualTo(BeerTestsUtil.BEER_QTT);
+		assertThat(Arrays.asList(initial, changed, changedBack)).extracting(BeerDto::getVersion)
+				.containsExactly(0L, 1L, 2L);
+		assertThat(read.getQuantity()).isEqualTo(BeerTestsUtil.BEER_QTT);
+	}
+
+	@Test
+	void flushWithFailureShouldKeepDelta()
+			throws BeerNotFoundException, BeerExceedStockException, BeerNegativeStockException {
+		ledgerStockEngine.stock(BeerTestsUtil.BEER_ID, 1);
+
+		when(beerRepositoryMock.incrementQuantity(BeerTestsUtil.BEER_ID, 1)).thenThrow(QueryTimeoutException.class)
+				.thenReturn(1);
+
+		ledgerStockEngine.flush();
+		verify(eventPublisherMock, never()).publishEvent(any(BeerChangedEvent.class));
+		ledgerStockEngine.flush();
+
+		verify(beerRepositoryMock, times(2)).incrementQuantity(BeerTestsUtil.BEER_ID, 1);
+	}
+
+	@Test
+	void stockWithUnknownIdShouldLoadBeer()
+			throws BeerNotFoundException, BeerExceedStockException, BeerNegativeStockException {
+		final Beer beer = BeerTestsUtil.createBeer();
+		beer.setId(BeerTestsUtil.BEER_ID + 1);
+
+		when(beerRepositoryMock.findById(beer.getId())).thenReturn(Optional.of(beer));
+
+		final Beer result = ledgerStockEngine.stock(beer.getId(), 1);
+
+		assertThat(result.getQuantity()).isEqualTo(BeerTestsUtil.BEER_QTT + 1);
+	}
+
+	@Test
+	void stockWithInvalidIdShouldThrowException() {
+		when(beerRepositoryMock.findById(BeerTestsUtil.BEER_ID + 1)).thenReturn(Optional.empty());
+
+		final BeerNotFoundException exception = assertThrows(BeerNotFoundException.class,
+				() -> ledgerStockEngine.stock(BeerTestsUtil.BEER_ID + 1, 1));
+
+		assertThat(exception.getMessage()).isEqualTo("Invalid id " + (BeerTestsUtil.BEER_ID + 1));
+	}
+
+	@Test
+	void stockWithExceedValueShouldThrowException() {
+		final BeerExceedStockException exception = assertThrows(BeerExceedStockException.class,
+				() -> ledgerStockEngine.stock(BeerTestsUtil.BEER_ID, BeerTestsUtil.BEER_MAX));
+
+		assertThat(exception.getMessage())
+				.isEqualTo("Space available for " + (BeerTestsUtil.BEER_MAX - BeerTestsUtil.BEER_QTT) + " beer(s)");
+	}
+
+	@Test
+	void stockWithNegativeValueShouldThrowException() {
+		final BeerNegativeStockException exception = assertThrows(BeerNegativeStockException.class,
+				() -> ledgerStockEngine.stock(BeerTestsUtil.BEER_ID, -BeerTestsUtil.BEER_MAX));
+
+		assertThat(exception.getMessage()).isEqualTo("Only available " + BeerTestsUtil.BEER_QTT + " beer(s)");
+	}
+
+	@Test
+	void stockAfterEvictShouldReloadBeer() {
+		ledgerStockEngine.evict(BeerTestsUtil.BEER_ID);
+
+		when(beerRepositoryMock.findById(BeerTestsUtil.BEER_ID)).thenReturn(Optional.empty());
+
+		assertThrows(BeerNotFoundException.class, () -> ledgerStockEngine.stock(BeerTestsUtil.BEER_ID, 1));
+	}
+
+	@Test
+	void stockWithAllOrNothingShouldBeRefused()
+			throws BeerNotFoundException, BeerExceedStockException, BeerNegativeStockException {
+		final List<StockItemDto> items = Arrays.asList(StockItemDto.builder()
+				.id(BeerTestsUtil.BEER_ID)
+				.quantity(1)
+				.build(),
+				StockItemDto.builder()
+						.id(BeerTestsUtil.BEER_ID)
+						.quantity(BeerTestsUtil.BEER_MAX)
+						.build());
+
+		assertThrows(StockBatchModeNotSupportedException.class,
+				() -> ledgerStockEngine.stock(items, StockBatchMode.ALL_OR_NOTHING));
+		assertThat(ledgerStockEngine.stock(BeerTestsUtil.BEER_ID, 0)
+				.getQuantity()).isEqualTo(BeerTestsUtil.BEER_QTT);
+	}
+
+	@Test
+	void stockWithConcurrentChangesShouldKeepBounds() throws Exception {
+		final int threads = 8;
+		final int operations = 1000;
+		final ExecutorService executor = Executors.newFixedThreadPool(threads);
+		final CountDownLatch start = new CountDownLatch(1);
+		try {
+			final List<Future<Integer>> futures = new ArrayList<>();
+			for (int i = 0; i < operations; i++) {
+				final int quantity = i % 3 == 0 ? -1 : 1;
+				futures.add(executor.submit(() -> {
+					start.await();
+					try {
+						ledgerStockEngine.stock(BeerTestsUtil.BEER_ID, quantity);
+						return quantity;
+					} catch (final BeerExceedStockException | BeerNegativeStockException e) {
+						return 0;
+					}
+				}));
+			}
+			start.countDown();
+
+			int applied = 0;
+			for (final Future<Integer> future : futures) {
+				applied += future.get(30, TimeUnit.SECONDS);
+			}
+
+			final int expected = BeerTestsUtil.BEER_QTT + applied;
+			assertThat(expected).isBetween(0, BeerTestsUtil.BEER_MAX);
+			assertThat(ledgerStockEngine.stock(BeerTestsUtil.BEER_ID, 0)
+					.getQuantity()).isEqualTo(expected);
+
+			lenient().when(beerRepositoryMock.incrementQuantity(BeerTestsUtil.BEER_ID, applied)).thenReturn(1);
+			ledgerStockEngine.flush();
+			verify(beerRepositoryMock, times(applied == 0 ? 0 : 1)).incrementQuantity(BeerTestsUtil.BEER_ID, applied);
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+}
@@ -0,0 +1,238 @@
+package com.aduilio.beerstock.stock;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.aduilio.beerstock.config.BeerstockProperties;
+import com.aduilio.beerstock.dto.StockItemDto;
+import com.aduilio.beerstock.dto.StockItemResultDto;
+
+import com.aduilio.beerstock.entity.Beer;
+import com.aduilio.beerstock.enums.StockBatchMode;
+import com.aduilio.beerstock.enums.StockItemStatus;
+import com.aduilio.beerstock.exception.BeerExceedStockException;
+import com.aduilio.beerstock.exception.BeerNegativeStockException;
+import com.aduilio.beerstock.exception.BeerNotFoundException;
+import com.aduilio.beerstock.exception.BeerStockConflictException;
+import com.aduilio.beerstock.index.BeerNameIndex;
+import com.aduilio.beerstock.repository.BeerRepository;
+import com.aduilio.beerstock.utils.BeerTestsUtil;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+@SpringBootTest(properties = { "beerstock.stock.engine=optimistic", "beerstock.stock.optimistic.max-attempts=2" })
+class OptimisticStockEngineTest {
+
+	@Autowired
+	private OptimisticStockEngine optimisticStockEngine;
+
+	@Autowired
+	private BeerRepository beerRepository;
+
+	@Autowired
+	private BeerNameIndex beerNameIndex;
+
+	@Autowired
+	private MeterRegistry meterRegistry;
+
+	@AfterEach
+	void cleanup() {
+		beerRepository.deleteAll();
+	}
+
+	@Test
+	void stockShouldIncrementTheQuantityAndTheVersion() throws Exception {
+		final Beer beer = saveBeer();
+
+		final Beer result = optimisticStockEngine.stock(beer.getId(), 3);
+
+		assertThat(result.getQuantity()).isEqualTo(BeerTestsUtil.BEER_QTT + 3);
+		assertThat(read(beer).getQuantity()).isEqualTo(BeerTestsUtil.BEER_QTT + 3);
+		assertThat(read(beer).getVersion()).isEqualTo(result.getVersion())
+				.isEqualTo(beer.getVersion() + 1);
+	}
+
+	@Test
+	void stockShouldKeepTheBounds() {
+		final Beer beer = saveBeer();
+
+		assertThrows(BeerExceedStockException.class,
+				() -> optimisticStockEngine.stock(beer.getId(), BeerTestsUtil.BEER_MAX));
+		assertThrows(BeerNegativeStockException.class,
+				() -> optimisticStockEngine.stock(beer.getId(), -BeerTestsUtil.BEER_MAX));
+		assertThrows(BeerNotFoundException.class, () -> optimisticStockEngine.stock(BeerTestsUtil.BEER_ID, 1));
+		assertThat(read(beer).getQuantity()).isEqualTo(BeerTestsUtil.BEER_QTT);
+	}
+
+	@Test
+	void stockWithConcurrentChangesShouldApplyOnlyTheOnesNotConflicting() throws Exception {
+		final Beer beer = saveBeer();
+		final int threads = 8;
+		final int operations = 200;
+		final double conflictsBefore = count("beerstock.stock.conflicts");
+		final double retriesBefore = count("beerstock.stock.retries");
+		final ExecutorService executor = Executors.newFixedThreadPool(threads);
+		final CountDownLatch start = new CountDownLatch(1);
+		int failed = 0;
+		try {
+			final List<Future<Integer>> futures = new ArrayList<>();
+			for (int i = 0; i < operations; i++) {
+				final int quantity = i % 3 == 0 ? -1 : 1;
+				futures.add(executor.submit(() -> {
+					start.await();
+					try {
+						optimisticStockEngine.stock(beer.getId(), quantity);
+						return quantity;
+					} catch (final BeerExceedStockException | BeerNegativeStockException e) {
+						return 0;
+					} catch (final BeerStockConflictException e) {
+						return null;
+					}
+				}));
+			}
+			start.countDown();
+
+			int applied = 0;
+			for (final Future<Integer> future : futures) {
+				final Integer quantity = future.get(30, TimeUnit.SECONDS);
+				if (quantity == null) {
+					failed++;
+				} else {
+					applied += quantity;
+				}
+			}
+
+			assertThat(read(beer).getQuantity()).isEqualTo(BeerTestsUtil.BEER_QTT + applied);
+		} finally {
+			executor.shutdownNow();
+		}
+
+		// each failed change conflicted twice, the first conflict retried
+		final double conflicts = count("beerstock.stock.conflicts") - conflictsBefore;
+		final double retries = count("beerstock.stock.retries") - retriesBefore;
+		assertThat(conflicts - retries).isEqualTo(failed);
+	}
+
+	@Test
+	void stockBatchWithAllOrNothingShouldWriteEveryItemOrNone() {
+		final Beer first = saveBeer();
+		final Beer second = saveBeer();
+
+		final List<StockItemResultDto> applied = optimisticStockEngine.stock(
+				Arrays.asList(new StockItemDto(first.getId(), 1), new StockItemDto(second.getId(), -1)),
+				StockBatchMode.ALL_OR_NOTHING);
+		final List<StockItemResultDto> rejected = optimisticStockEngine.stock(
+				Arrays.asList(new StockItemDto(first.getId(), 1),
+						new StockItemDto(second.getId(), BeerTestsUtil.BEER_MAX)),
+				StockBatchMode.ALL_OR_NOTHING);
+
+		assertThat(applied).extracting(StockItemResultDto::getStatus)
+				.containsExactly(StockItemStatus.APPLIED, StockItemStatus.APPLIED);
+		assertThat(rejected).extracting(StockItemResultDto::getStatus)
+				.containsExactly(StockItemStatus.ROLLED_BACK, StockItemStatus.EXCEED_STOCK);
+		assertThat(read(first).getQuantity()).isEqualTo(BeerTestsUtil.BEER_QTT + 1);
+		assertThat(read(second).getQuantity()).isEqualTo(BeerTestsUtil.BEER_QTT - 1);
+	}
+
+	@Test
+	void stockBatchWithConflictShouldRollBackTheTransaction() {
+		final BeerRepository beerRepositoryMock = mock(BeerRepository.class);
+		final PlatformTransactionManager transactionManagerMock = mock(PlatformTransactionManager.class);
+		final List<TransactionStatus> transactions = new ArrayList<>();
+		final BeerstockProperties properties = new BeerstockProperties();
+		properties.getStock()
+				.getOptimistic()
+				.setMaxAttempts(2);
+		properties.getStock()
+				.getOptimistic()
+				.setInitialBackoff(Duration.ZERO);
+		final OptimisticStockEngine engine = new OptimisticStockEngine(beerRepositoryMock,
+				new TransactionTemplate(transactionManagerMock), properties);
+
+		when(transactionManagerMock.getTransaction(any())).thenAnswer(invocation -> {
+			final TransactionStatus status = new SimpleTransactionStatus();
+			transactions.add(status);
+			return status;
+		});
+		when(beerRepositoryMock.findAllById(any())).thenAnswer(invocation -> Arrays.asList(beer(1L), beer(2L)));
+		when(beerRepositoryMock.updateQuantity(eq(1L), anyLong(), anyInt())).thenReturn(1);
+		when(beerRepositoryMock.updateQuantity(eq(2L), anyLong(), anyInt())).thenReturn(0);
+
+		// the second item conflicts on every attempt
+		final List<StockItemResultDto> results = engine.stock(
+				Arrays.asList(new StockItemDto(1L, 1), new StockItemDto(2L, 1)), StockBatchMode.ALL_OR_NOTHING);
+
+		assertThat(results).extracting(StockItemResultDto::getStatus)
+				.containsExactly(StockItemStatus.ROLLED_BACK, StockItemStatus.CONFLICT);
+		assertThat(transactions).hasSize(2)
+				.allMatch(TransactionStatus::isRollbackOnly);
+		verify(beerRepositoryMock, never()).updateQuantity(1L, 0L, BeerTestsUtil.BEER_QTT - 1);
+	}
+
+	@Test
+	void stockBatchWithBestEffortShouldApplyTheValidItems() {
+		final Beer beer = saveBeer();
+
+		final List<StockItemResultDto> results = optimisticStockEngine.stock(
+				Arrays.asList(new StockItemDto(beer.getId(), 1), new StockItemDto(-1L, 1)),
+				StockBatchMode.BEST_EFFORT);
+
+		assertThat(results).extracting(StockItemResultDto::getStatus)
+				.containsExactly(StockItemStatus.APPLIED, StockItemStatus.NOT_FOUND);
+		assertThat(read(beer).getQuantity()).isEqualTo(BeerTestsUtil.BEER_QTT + 1);
+	}
+
+	private Beer beer(final Long id) {
+		final Beer beer = BeerTestsUtil.createBeer();
+		beer.setId(id);
+		beer.setVersion(0L);
+		return beer;
+	}
+
+	private double count(final String name) {
+		return meterRegistry.get(name)
+				.functionCounter()
+				.count();
+	}
+
+	private Beer saveBeer() {
+		final Beer beer = BeerTestsUtil.createBeer();
+		beer.setId(null);
+		beer.setName(BeerTestsUtil.BEER_NAME + UUID.randomUUID());
+		beerNameIndex.add(beer.getName());
+		return beerRepository.save(beer);
+	}
+
+	private Beer read(final Beer beer) {
+		return beerRepository.findById(beer.getId())
+				.orElseThrow(IllegalStateException::new);
+	}
+}
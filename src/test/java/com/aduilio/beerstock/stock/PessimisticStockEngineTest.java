@@ -0,0 +1,194 @@
+package com.aduilio.beerstock.stock;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import com.aduilio.beerstock.dto.StockItemDto;
+import com.aduilio.beerstock.dto.StockItemResultDto;
+import com.aduilio.beerstock.entity.Beer;
+import com.aduilio.beerstock.enums.StockBatchMode;
+import com.aduilio.beerstock.enums.StockItemStatus;
+import com.aduilio.beerstock.exception.BeerExceedStockException;
+import com.aduilio.beerstock.exception.BeerNegativeStockException;
+import com.aduilio.beerstock.exception.BeerNotFoundException;
+import com.aduilio.beerstock.index.BeerNameIndex;
+import com.aduilio.beerstock.repository.BeerRepository;
+import com.aduilio.beerstock.utils.BeerTestsUtil;
+
+@SpringBootTest(properties = "beerstock.stock.engine=pessimistic")
+class PessimisticStockEngineTest {
+
+	@Autowired
+	private PessimisticStockEngine pessimisticStockEngine;
+
+	@Autowired
+	private BeerRepository beerRepository;
+
+	@Autowired
+	private BeerNameIndex beerNameIndex;
+
+	@AfterEach
+	void cleanup() {
+		beerRepository.deleteAll();
+	}
+
+	@Test
+	void stockShouldIncrementTheQuantityAndTheVersion() throws Exception {
+		final Beer beer = saveBeer();
+
+		final Beer result = pessimisticStockEngine.stock(beer.getId(), 3);
+
+		assertThat(result.getQuantity()).isEqualTo(BeerTestsUtil.BEER_QTT + 3);
+		assertThat(read(beer).getQuantity()).isEqualTo(BeerTestsUtil.BEER_QTT + 3);
+		assertThat(read(beer).getVersion()).isEqualTo(beer.getVersion() + 1);
+	}
+
+	@Test
+	void stockShouldKeepTheBounds() {
+		final Beer beer = saveBeer();
+
+		assertThrows(BeerExceedStockException.class,
+				() -> pessimisticStockEngine.stock(beer.getId(), BeerTestsUtil.BEER_MAX));
+		assertThrows(BeerNegativeStockException.class,
+				() -> pessimisticStockEngine.stock(beer.getId(), -BeerTestsUtil.BEER_MAX));
+		assertThrows(BeerNotFoundException.class, () -> pessimisticStockEngine.stock(BeerTestsUtil.BEER_ID, 1));
+		assertThat(read(beer).getQuantity()).isEqualTo(BeerTestsUtil.BEER_QTT);
+	}
+
+	@Test
+	void stockWithConcurrentChangesShouldNotLoseUpdates() throws Exception {
+		final Beer beer = saveBeer();
+		final int threads = 8;
+		final int operations = 200;
+		final ExecutorService executor = Executors.newFixedThreadPool(threads);
+		final CountDownLatch start = new CountDownLatch(1);
+		try {
+			final List<Future<Integer>> futures = new ArrayList<>();
+			for (int i = 0; i < operations; i++) {
+				final int quantity = i % 3 == 0 ? -1 : 1;
+				futures.add(executor.submit(() -> {
+					start.await();
+					try {
+						pessimisticStockEngine.stock(beer.getId(), quantity);
+						return quantity;
+					} catch (final BeerExceedStockException | BeerNegativeStockException e) {
+						return 0;
+					}
+				}));
+			}
+			start.countDown();
+
+			int applied = 0;
+			for (final Future<Integer> future : futures) {
+				applied += future.get(30, TimeUnit.SECONDS);
+			}
+
+			final int expected = BeerTestsUtil.BEER_QTT + applied;
+			assertThat(expected).isBetween(0, BeerTestsUtil.BEER_MAX);
+			assertThat(read(beer).getQuantity()).isEqualTo(expected);
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	@Test
+	void stockBatchWithAllOrNothingShouldWriteEveryItemOrNone() {
+		final Beer first = saveBeer();
+		final Beer second = saveBeer();
+
+		final List<StockItemResultDto> applied = pessimisticStockEngine.stock(
+				Arrays.asList(new StockItemDto(second.getId(), -1), new StockItemDto(first.getId(), 1),
+						new StockItemDto(first.getId(), 2)),
+				StockBatchMode.ALL_OR_NOTHING);
+		final List<StockItemResultDto> rejected = pessimisticStockEngine.stock(
+				Arrays.asList(new StockItemDto(first.getId(), 1),
+						new StockItemDto(second.getId(), BeerTestsUtil.BEER_MAX)),
+				StockBatchMode.ALL_OR_NOTHING);
+
+		assertThat(applied).extracting(StockItemResultDto::getStatus)
+				.containsOnly(StockItemStatus.APPLIED);
+		assertThat(rejected).extracting(StockItemResultDto::getStatus)
+				.containsExactly(StockItemStatus.ROLLED_BACK, StockItemStatus.EXCEED_STOCK);
+		assertThat(read(first).getQuantity()).isEqualTo(BeerTestsUtil.BEER_QTT + 3);
+		assertThat(read(second).getQuantity()).isEqualTo(BeerTestsUtil.BEER_QTT - 1);
+	}
+
+	@Test
+	void stockBatchWithBestEffortShouldWriteTheValidItems() {
+		final Beer beer = saveBeer();
+
+		final List<StockItemResultDto> results = pessimisticStockEngine.stock(
+				Arrays.asList(new StockItemDto(beer.getId(), 1), new StockItemDto(-1L, 1),
+						new StockItemDto(beer.getId(), -BeerTestsUtil.BEER_MAX)),
+				StockBatchMode.BEST_EFFORT);
+
+		assertThat(results).extracting(StockItemResultDto::getStatus)
+				.containsExactly(StockItemStatus.APPLIED, StockItemStatus.NOT_FOUND, StockItemStatus.NEGATIVE_STOCK);
+		assertThat(read(beer).getQuantity()).isEqualTo(BeerTestsUtil.BEER_QTT + 1);
+	}
+
+	@Test
+	void stockBatchWithConcurrentBatchesShouldNotLoseUpdates() throws Exception {
+		final Beer first = saveBeer();
+		final Beer second = saveBeer();
+		final int operations = 100;
+		final ExecutorService executor = Executors.newFixedThreadPool(8);
+		final CountDownLatch start = new CountDownLatch(1);
+		try {
+			final List<Future<List<StockItemResultDto>>> futures = new ArrayList<>();
+			for (int i = 0; i < operations; i++) {
+				// half the batches list the beers in the opposite order
+				final List<StockItemDto> items = i % 2 == 0
+						? Arrays.asList(new StockItemDto(first.getId(), 1), new StockItemDto(second.getId(), -1))
+						: Arrays.asList(new StockItemDto(second.getId(), -1), new StockItemDto(first.getId(), 1));
+				futures.add(executor.submit(() -> {
+					start.await();
+					return pessimisticStockEngine.stock(items, StockBatchMode.ALL_OR_NOTHING);
+				}));
+			}
+			start.countDown();
+
+			int applied = 0;
+			for (final Future<List<StockItemResultDto>> future : futures) {
+				if (future.get(30, TimeUnit.SECONDS)
+						.stream()
+						.allMatch(StockItemResultDto::isApplied)) {
+					applied++;
+				}
+			}
+
+			assertThat(read(first).getQuantity()).isEqualTo(BeerTestsUtil.BEER_QTT + applied);
+			assertThat(read(second).getQuantity()).isEqualTo(BeerTestsUtil.BEER_QTT - applied);
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	private Beer saveBeer() {
+		final Beer beer = BeerTestsUtil.createBeer();
+		beer.setId(null);
+		beer.setName(BeerTestsUtil.BEER_NAME + UUID.randomUUID());
+		beerNameIndex.add(beer.getName());
+		return beerRepository.save(beer);
+	}
+
+	private Beer read(final Beer beer) {
+		return beerRepository.findById(beer.getId())
+				.orElseThrow(IllegalStateException::new);
+	}
+}